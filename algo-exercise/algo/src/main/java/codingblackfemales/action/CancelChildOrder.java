@@ -4,12 +4,13 @@ import codingblackfemales.sequencer.Sequencer;
 import codingblackfemales.sotw.ChildOrder;
 import messages.order.CancelOrderEncoder;
 import messages.order.MessageHeaderEncoder;
-import org.agrona.concurrent.UnsafeBuffer;
-
-import java.nio.ByteBuffer;
+import org.agrona.MutableDirectBuffer;
 
 public class CancelChildOrder implements Action{
 
+    private final CancelOrderEncoder encoder = new CancelOrderEncoder();
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+
     private final ChildOrder orderToCancel;
 
     public CancelChildOrder(ChildOrder orderToCancel) {
@@ -24,10 +25,7 @@ public class CancelChildOrder implements Action{
     @Override
     public void apply(final Sequencer sequencer) {
 
-        final CancelOrderEncoder encoder = new CancelOrderEncoder();
-        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1024);
-        final UnsafeBuffer directBuffer = new UnsafeBuffer(byteBuffer);
-        final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+        final MutableDirectBuffer directBuffer = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + CancelOrderEncoder.BLOCK_LENGTH);
 
         encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
         headerEncoder.schemaId(CancelOrderEncoder.SCHEMA_ID);
@@ -35,6 +33,6 @@ public class CancelChildOrder implements Action{
 
         encoder.orderId(orderToCancel.getOrderId());
 
-        sequencer.onCommand(directBuffer);
+        sequencer.commit();
     }
 }
@@ -4,23 +4,33 @@ import codingblackfemales.sequencer.Sequencer;
 import messages.order.CreateOrderEncoder;
 import messages.order.MessageHeaderEncoder;
 import messages.order.Side;
-import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.MutableDirectBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
-
 public class CreateChildOrder implements Action {
 
     private static final Logger logger = LoggerFactory.getLogger(CreateChildOrder.class);
+
+    //the instrument the backtest book and the market data generators trade
+    public static final long DEFAULT_INSTRUMENT_ID = 123L;
+
+    private final long instrumentId;
     private final long quantity;
     private final long price;
 
     private final Side side;
 
+    private final CreateOrderEncoder encoder = new CreateOrderEncoder();
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
 
 
     public CreateChildOrder(final Side side, final long quantity, final long price) {
+        this(DEFAULT_INSTRUMENT_ID, side, quantity, price);
+    }
+
+    public CreateChildOrder(final long instrumentId, final Side side, final long quantity, final long price) {
+        this.instrumentId = instrumentId;
         this.quantity = quantity;
         this.price = price;
         this.side = side;
@@ -28,22 +38,20 @@ public class CreateChildOrder implements Action {
 
     @Override
     public String toString() {
-        return "CreateChildOrder(side=" + side + ",quantity=" + quantity + ",price=" + price + ")";
+        return "CreateChildOrder(instrumentId=" + instrumentId + ",side=" + side + ",quantity=" + quantity + ",price=" + price + ")";
     }
 
     @Override
     public void apply(Sequencer sequencer) {
-        final CreateOrderEncoder encoder = new CreateOrderEncoder();
-        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1024);
-        final UnsafeBuffer directBuffer = new UnsafeBuffer(byteBuffer);
-        final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+        final MutableDirectBuffer directBuffer = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + CreateOrderEncoder.BLOCK_LENGTH);
 
         encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
         headerEncoder.schemaId(CreateOrderEncoder.SCHEMA_ID);
         headerEncoder.version(CreateOrderEncoder.SCHEMA_VERSION);
+        encoder.instrumentId(instrumentId);
         encoder.price(price);
         encoder.quantity(quantity);
         encoder.side(side);
-        sequencer.onCommand(directBuffer);
+        sequencer.commit();
     }
 }
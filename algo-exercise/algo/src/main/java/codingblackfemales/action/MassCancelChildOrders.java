@@ -0,0 +1,48 @@
+package codingblackfemales.action;
+
+import codingblackfemales.sequencer.Sequencer;
+import messages.order.MassCancelEncoder;
+import messages.order.MessageHeaderEncoder;
+import messages.order.Side;
+import org.agrona.MutableDirectBuffer;
+
+/**
+ * Pulls every resting child order on an instrument, or on one side of it, with a single message.
+ */
+public class MassCancelChildOrders implements Action{
+
+    private final MassCancelEncoder encoder = new MassCancelEncoder();
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+
+    private final long instrumentId;
+    private final Side side;
+
+    public MassCancelChildOrders(long instrumentId) {
+        this(instrumentId, Side.NULL_VAL);
+    }
+
+    public MassCancelChildOrders(long instrumentId, Side side) {
+        this.instrumentId = instrumentId;
+        this.side = side;
+    }
+
+    @Override
+    public String toString() {
+        return "MassCancelChildOrders(instrumentId=" + instrumentId + ",side=" + side + ")";
+    }
+
+    @Override
+    public void apply(final Sequencer sequencer) {
+
+        final MutableDirectBuffer directBuffer = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + MassCancelEncoder.BLOCK_LENGTH);
+
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        headerEncoder.schemaId(MassCancelEncoder.SCHEMA_ID);
+        headerEncoder.version(MassCancelEncoder.SCHEMA_VERSION);
+
+        encoder.instrumentId(instrumentId);
+        encoder.side(side);
+
+        sequencer.commit();
+    }
+}
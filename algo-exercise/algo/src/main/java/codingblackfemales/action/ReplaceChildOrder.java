@@ -0,0 +1,51 @@
+package codingblackfemales.action;
+
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sotw.ChildOrder;
+import messages.order.MessageHeaderEncoder;
+import messages.order.ReplaceOrderEncoder;
+import org.agrona.MutableDirectBuffer;
+
+/**
+ * Moves a resting child order to a new price and open quantity in one message, rather than a cancel and a create.
+ * The order keeps its place in the queue if only its quantity goes down.
+ */
+public class ReplaceChildOrder implements Action{
+
+    private final ReplaceOrderEncoder encoder = new ReplaceOrderEncoder();
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+
+    private final ChildOrder orderToReplace;
+    private final long quantity;
+    private final long price;
+
+    /**
+     * @param quantity the quantity left open once replaced, not counting what has already filled.
+     */
+    public ReplaceChildOrder(ChildOrder orderToReplace, long quantity, long price) {
+        this.orderToReplace = orderToReplace;
+        this.quantity = quantity;
+        this.price = price;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplaceChildOrder(" + orderToReplace + ",quantity=" + quantity + ",price=" + price + ")";
+    }
+
+    @Override
+    public void apply(final Sequencer sequencer) {
+
+        final MutableDirectBuffer directBuffer = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + ReplaceOrderEncoder.BLOCK_LENGTH);
+
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        headerEncoder.schemaId(ReplaceOrderEncoder.SCHEMA_ID);
+        headerEncoder.version(ReplaceOrderEncoder.SCHEMA_VERSION);
+
+        encoder.orderId(orderToReplace.getOrderId());
+        encoder.price(price);
+        encoder.quantity(quantity);
+
+        sequencer.commit();
+    }
+}
@@ -1,10 +1,10 @@
 package codingblackfemales.marketdata.api;
 
 import messages.marketdata.*;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 
-import java.nio.ByteBuffer;
-
 import static java.lang.String.format;
 
 public class MarketDataEncoder {
@@ -13,6 +13,13 @@ public class MarketDataEncoder {
     private final AskBookUpdateEncoder askBookUpdateEncoder = new AskBookUpdateEncoder();
     private final BidBookUpdateEncoder bidBookUpdateEncoder = new BidBookUpdateEncoder();
 
+    private static final int INITIAL_LENGTH = 1024;
+
+    //reused for every message, the returned frame is only valid until the next call to encode. The buffer grows to
+    //fit the deepest book seen and the frame is a view of exactly the encoded message, so its capacity is its length
+    private final ExpandableDirectByteBuffer directBuffer = new ExpandableDirectByteBuffer(INITIAL_LENGTH);
+    private final UnsafeBuffer frame = new UnsafeBuffer(0, 0);
+
     public UnsafeBuffer encode(final MarketDataMessage message) {
         switch (message.updateType()) {
             case BookUpdate:
@@ -27,7 +34,7 @@ public class MarketDataEncoder {
     }
 
     private UnsafeBuffer doEncode(final AskBookUpdate update) {
-        final UnsafeBuffer directBuffer = buffer();
+        final MutableDirectBuffer directBuffer = buffer();
         askBookUpdateEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
         askBookUpdateEncoder.venue(update.venue());
         askBookUpdateEncoder.instrumentId(update.instrumentId());
@@ -36,11 +43,11 @@ public class MarketDataEncoder {
             BookEntry bookEntry = update.askBook().get(i);
             askBookEncoder.next().price(bookEntry.price()).size(bookEntry.size());
         }
-        return directBuffer;
+        return frame(MessageHeaderEncoder.ENCODED_LENGTH + askBookUpdateEncoder.encodedLength());
     }
 
     private UnsafeBuffer doEncode(final BidBookUpdate update) {
-        final UnsafeBuffer directBuffer = buffer();
+        final MutableDirectBuffer directBuffer = buffer();
         bidBookUpdateEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
         bidBookUpdateEncoder.venue(update.venue());
         bidBookUpdateEncoder.instrumentId(update.instrumentId());
@@ -49,11 +56,11 @@ public class MarketDataEncoder {
             BookEntry bookEntry = update.bidBook().get(i);
             bidBookEncoder.next().price(bookEntry.price()).size(bookEntry.size());
         }
-        return directBuffer;
+        return frame(MessageHeaderEncoder.ENCODED_LENGTH + bidBookUpdateEncoder.encodedLength());
     }
 
     private UnsafeBuffer doEncode(final BookUpdate update) {
-        final UnsafeBuffer directBuffer = buffer();
+        final MutableDirectBuffer directBuffer = buffer();
         bookUpdateEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
         bookUpdateEncoder.venue(update.venue());
         bookUpdateEncoder.instrumentId(update.instrumentId());
@@ -72,11 +79,15 @@ public class MarketDataEncoder {
 
         bookUpdateEncoder.instrumentStatus(update.instrumentStatus());
         bookUpdateEncoder.source(Source.STREAM);
+        return frame(MessageHeaderEncoder.ENCODED_LENGTH + bookUpdateEncoder.encodedLength());
+    }
+
+    private MutableDirectBuffer buffer() {
         return directBuffer;
     }
 
-    private UnsafeBuffer buffer() {
-        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1024);
-        return new UnsafeBuffer(byteBuffer);
+    private UnsafeBuffer frame(final int length) {
+        frame.wrap(directBuffer, 0, length);
+        return frame;
     }
 }
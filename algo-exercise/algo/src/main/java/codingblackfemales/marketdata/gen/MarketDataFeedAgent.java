@@ -0,0 +1,56 @@
+package codingblackfemales.marketdata.gen;
+
+import codingblackfemales.marketdata.api.MarketDataEncoder;
+import codingblackfemales.marketdata.api.MarketDataMessage;
+import codingblackfemales.sequencer.Sequencer;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.EpochClock;
+import org.agrona.concurrent.SystemEpochClock;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Sends the next message from a generator into the sequencer at a fixed interval. Host it in an
+ * {@link codingblackfemales.sequencer.runtime.AgentRuntime} with a sleeping idle strategy.
+ */
+public class MarketDataFeedAgent implements Agent {
+
+    private final MarketDataGenerator generator;
+    private final Sequencer sequencer;
+    private final long intervalMillis;
+    private final EpochClock clock;
+
+    private final MarketDataEncoder encoder = new MarketDataEncoder();
+
+    private long nextUpdateMillis;
+
+    public MarketDataFeedAgent(final MarketDataGenerator generator, final Sequencer sequencer, final long intervalMillis) {
+        this(generator, sequencer, intervalMillis, SystemEpochClock.INSTANCE);
+    }
+
+    public MarketDataFeedAgent(final MarketDataGenerator generator, final Sequencer sequencer, final long intervalMillis, final EpochClock clock) {
+        this.generator = generator;
+        this.sequencer = sequencer;
+        this.intervalMillis = intervalMillis;
+        this.clock = clock;
+        this.nextUpdateMillis = clock.time() + intervalMillis;
+    }
+
+    @Override
+    public int doWork() {
+        final long now = clock.time();
+        if (now < nextUpdateMillis) {
+            return 0;
+        }
+        nextUpdateMillis = now + intervalMillis;
+
+        final MarketDataMessage update = generator.next();
+        final UnsafeBuffer frame = encoder.encode(update);
+        sequencer.onCommand(frame, 0, frame.capacity());
+        return 1;
+    }
+
+    @Override
+    public String roleName() {
+        return "market-data-feed";
+    }
+}
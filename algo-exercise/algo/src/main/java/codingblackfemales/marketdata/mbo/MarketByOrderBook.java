@@ -0,0 +1,354 @@
+package codingblackfemales.marketdata.mbo;
+
+import messages.marketdata.BookSide;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Builds a market by order (L3) book from order add, modify, delete and execute events, and derives the aggregated
+ * (L2) view from it as it goes rather than by walking the orders.
+ *
+ * Orders are found by id in a hash map and queue at their level in time priority. Each level keeps its total size
+ * and order count, and the levels of a side are held best first in an array, so every event is O(1) plus a binary
+ * search and at most one shift when a level appears or goes. The listener hears each level whose size changed.
+ * Orders and levels are pooled, so a book that has reached its working size no longer allocates.
+ *
+ * Events for orders the book does not hold, as when a replay starts part way through a session, are counted and
+ * otherwise ignored. An add for an order the book already holds is counted too, and replaces that order.
+ */
+public class MarketByOrderBook {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketByOrderBook.class);
+
+    /**
+     * Hears the new aggregate for a level, a size of 0 means the level has gone.
+     */
+    @FunctionalInterface
+    public interface LevelListener {
+        void onLevel(BookSide side, long price, long size, int orderCount);
+    }
+
+    private static final class Order {
+        long orderId;
+        BookSide side;
+        long price;
+        long size;
+        Level level;
+        Order previous;
+        Order next;
+    }
+
+    private static final class Level {
+        long price;
+        long size;
+        int orderCount;
+        Order first;
+        Order last;
+    }
+
+    private final LevelListener listener;
+
+    private final Long2ObjectHashMap<Order> orders = new Long2ObjectHashMap<>();
+    private final Long2ObjectHashMap<Level> bidLevelsByPrice = new Long2ObjectHashMap<>();
+    private final Long2ObjectHashMap<Level> askLevelsByPrice = new Long2ObjectHashMap<>();
+
+    //best first, bids highest price and asks lowest
+    private Level[] bids = new Level[16];
+    private Level[] asks = new Level[16];
+    private int bidDepth = 0;
+    private int askDepth = 0;
+
+    private final ArrayDeque<Order> freeOrders = new ArrayDeque<>();
+    private final ArrayDeque<Level> freeLevels = new ArrayDeque<>();
+
+    private long unknownOrders = 0;
+    private long duplicateAdds = 0;
+
+    public MarketByOrderBook() {
+        this((side, price, size, orderCount) -> {});
+    }
+
+    public MarketByOrderBook(final LevelListener listener) {
+        this.listener = listener;
+    }
+
+    public void add(final long orderId, final BookSide side, final long price, final long size) {
+        if (orders.containsKey(orderId)) {
+            duplicateAdds++;
+            logger.debug("[MBO] Order {} is already in the book, replacing it", orderId);
+            delete(orderId);
+        }
+        final Order order = freeOrders.isEmpty() ? new Order() : freeOrders.poll();
+        order.orderId = orderId;
+        order.side = side;
+        order.price = price;
+        order.size = size;
+        orders.put(orderId, order);
+        enqueue(order);
+        notify(order.level, side);
+    }
+
+    /**
+     * The order keeps its place if only its size went down, otherwise it goes to the back of the queue at its
+     * new price.
+     */
+    public void modify(final long orderId, final long price, final long size) {
+        final Order order = orders.get(orderId);
+        if (order == null) {
+            unknown(orderId);
+            return;
+        }
+        if (size == 0) {
+            delete(orderId);
+            return;
+        }
+
+        final Level level = order.level;
+        if (price == order.price && size <= order.size) {
+            level.size -= order.size - size;
+            order.size = size;
+            notify(level, order.side);
+        } else {
+            dequeue(order);
+            notify(level, order.side);
+            order.price = price;
+            order.size = size;
+            enqueue(order);
+            notify(order.level, order.side);
+        }
+    }
+
+    public void delete(final long orderId) {
+        final Order order = orders.remove(orderId);
+        if (order == null) {
+            unknown(orderId);
+            return;
+        }
+        final Level level = order.level;
+        dequeue(order);
+        notify(level, order.side);
+        release(order);
+    }
+
+    public void execute(final long orderId, final long executedSize) {
+        final Order order = orders.get(orderId);
+        if (order == null) {
+            unknown(orderId);
+            return;
+        }
+        if (executedSize >= order.size) {
+            delete(orderId);
+            return;
+        }
+        order.size -= executedSize;
+        order.level.size -= executedSize;
+        notify(order.level, order.side);
+    }
+
+    /**
+     * Empties the book without telling the listener.
+     */
+    public void clear() {
+        orders.values().forEach(this::release);
+        orders.clear();
+        for (int i = 0; i < bidDepth; i++) {
+            release(bids[i]);
+            bids[i] = null;
+        }
+        for (int i = 0; i < askDepth; i++) {
+            release(asks[i]);
+            asks[i] = null;
+        }
+        bidLevelsByPrice.clear();
+        askLevelsByPrice.clear();
+        bidDepth = 0;
+        askDepth = 0;
+    }
+
+    public int orderCount() {
+        return orders.size();
+    }
+
+    /**
+     * @return how many events named an order the book does not hold.
+     */
+    public long unknownOrders() {
+        return unknownOrders;
+    }
+
+    /**
+     * @return how many adds named an order the book already held.
+     */
+    public long duplicateAdds() {
+        return duplicateAdds;
+    }
+
+    public int depth(final BookSide side) {
+        return side == BookSide.BID ? bidDepth : askDepth;
+    }
+
+    /**
+     * @param index 0 for the best level.
+     */
+    public long price(final BookSide side, final int index) {
+        return level(side, index).price;
+    }
+
+    public long size(final BookSide side, final int index) {
+        return level(side, index).size;
+    }
+
+    public int orderCount(final BookSide side, final int index) {
+        return level(side, index).orderCount;
+    }
+
+    /**
+     * @return the ids of the orders at the level, front of the queue first.
+     */
+    public long[] orderIds(final BookSide side, final int index) {
+        final Level level = level(side, index);
+        final long[] orderIds = new long[level.orderCount];
+        int i = 0;
+        for (Order order = level.first; order != null; order = order.next) {
+            orderIds[i++] = order.orderId;
+        }
+        return orderIds;
+    }
+
+    private Level level(final BookSide side, final int index) {
+        if (index < 0 || index >= depth(side)) {
+            throw new IndexOutOfBoundsException("No " + side + " level " + index + ", depth is " + depth(side));
+        }
+        return side == BookSide.BID ? bids[index] : asks[index];
+    }
+
+    private void enqueue(final Order order) {
+        final Long2ObjectHashMap<Level> byPrice = order.side == BookSide.BID ? bidLevelsByPrice : askLevelsByPrice;
+        Level level = byPrice.get(order.price);
+        if (level == null) {
+            level = freeLevels.isEmpty() ? new Level() : freeLevels.poll();
+            level.price = order.price;
+            byPrice.put(order.price, level);
+            insertLevel(order.side, level);
+        }
+
+        order.level = level;
+        order.next = null;
+        order.previous = level.last;
+        if (level.last == null) {
+            level.first = order;
+        } else {
+            level.last.next = order;
+        }
+        level.last = order;
+        level.size += order.size;
+        level.orderCount++;
+    }
+
+    private void dequeue(final Order order) {
+        final Level level = order.level;
+        if (order.previous == null) {
+            level.first = order.next;
+        } else {
+            order.previous.next = order.next;
+        }
+        if (order.next == null) {
+            level.last = order.previous;
+        } else {
+            order.next.previous = order.previous;
+        }
+        order.previous = null;
+        order.next = null;
+        order.level = null;
+        level.size -= order.size;
+        level.orderCount--;
+
+        if (level.orderCount == 0) {
+            (order.side == BookSide.BID ? bidLevelsByPrice : askLevelsByPrice).remove(level.price);
+            removeLevel(order.side, level);
+        }
+    }
+
+    private void insertLevel(final BookSide side, final Level level) {
+        if (side == BookSide.BID) {
+            if (bidDepth == bids.length) {
+                bids = Arrays.copyOf(bids, bidDepth * 2);
+            }
+            final int index = -find(bids, bidDepth, level.price, true) - 1;
+            System.arraycopy(bids, index, bids, index + 1, bidDepth - index);
+            bids[index] = level;
+            bidDepth++;
+        } else {
+            if (askDepth == asks.length) {
+                asks = Arrays.copyOf(asks, askDepth * 2);
+            }
+            final int index = -find(asks, askDepth, level.price, false) - 1;
+            System.arraycopy(asks, index, asks, index + 1, askDepth - index);
+            asks[index] = level;
+            askDepth++;
+        }
+    }
+
+    private void removeLevel(final BookSide side, final Level level) {
+        if (side == BookSide.BID) {
+            final int index = find(bids, bidDepth, level.price, true);
+            System.arraycopy(bids, index + 1, bids, index, bidDepth - index - 1);
+            bids[--bidDepth] = null;
+        } else {
+            final int index = find(asks, askDepth, level.price, false);
+            System.arraycopy(asks, index + 1, asks, index, askDepth - index - 1);
+            asks[--askDepth] = null;
+        }
+    }
+
+    /**
+     * @return the index of the level at price, or (-(insertion point) - 1) if there isn't one.
+     */
+    private static int find(final Level[] levels, final int depth, final long price, final boolean descending) {
+        int low = 0;
+        int high = depth - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long midPrice = levels[mid].price;
+            if (midPrice == price) {
+                return mid;
+            } else if (descending ? midPrice > price : midPrice < price) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void notify(final Level level, final BookSide side) {
+        listener.onLevel(side, level.price, level.orderCount == 0 ? 0 : level.size, level.orderCount);
+        if (level.orderCount == 0) {
+            release(level);
+        }
+    }
+
+    private void release(final Level level) {
+        level.first = null;
+        level.last = null;
+        level.size = 0;
+        level.orderCount = 0;
+        freeLevels.push(level);
+    }
+
+    private void release(final Order order) {
+        order.level = null;
+        order.previous = null;
+        order.next = null;
+        freeOrders.push(order);
+    }
+
+    private void unknown(final long orderId) {
+        unknownOrders++;
+        logger.debug("[MBO] No order {} in the book", orderId);
+    }
+}
@@ -1,15 +1,28 @@
 package codingblackfemales.service;
 
 import codingblackfemales.container.RunTrigger;
+import codingblackfemales.marketdata.mbo.MarketByOrderBook;
 import codingblackfemales.sequencer.event.MarketDataEventListener;
+import codingblackfemales.sotw.marketdata.AbstractLevel;
 import codingblackfemales.sotw.marketdata.AskLevel;
 import codingblackfemales.sotw.marketdata.BidLevel;
 import messages.marketdata.AskBookUpdateDecoder;
 import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookDeltaDecoder;
+import messages.marketdata.BookSide;
+import messages.marketdata.BookUpdateBatchDecoder;
+import messages.marketdata.UpdateAction;
 import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.OrderAddDecoder;
+import messages.marketdata.OrderDeleteDecoder;
+import messages.marketdata.OrderExecuteDecoder;
+import messages.marketdata.OrderModifyDecoder;
+import messages.marketdata.TradeDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 public class MarketDataService extends MarketDataEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(MarketDataService.class);
@@ -18,20 +31,31 @@ public class MarketDataService extends MarketDataEventListener {
     private int askLength = 0;
 
     private long instrumentId;
-    private final BidLevel[] bidBook = new BidLevel[15];
-    private final AskLevel[] askBook = new AskLevel[15];
+    //levels past the lengths are kept for reuse, the arrays grow with the deepest book seen
+    private BidLevel[] bidBook = new BidLevel[16];
+    private AskLevel[] askBook = new AskLevel[16];
     private final RunTrigger runTrigger;
 
+    private long lastTradePrice = 0;
+    private long tradedVolume = 0;
+    private long tradedNotional = 0;
+
+    private final MarketByOrderBook marketByOrder = new MarketByOrderBook(this::onMarketByOrderLevel);
+
     public MarketDataService(RunTrigger runTrigger) {
         this.runTrigger = runTrigger;
     }
 
+    /**
+     * @return the level i from the best, or null if the book is not that deep. The level is changed in place by the
+     * next update rather than replaced.
+     */
     public BidLevel getBidLevel(int i){
-        return bidBook[i];
+        return i < bidLength ? bidBook[i] : null;
     }
 
     public AskLevel getAskLevel(int i){
-        return askBook[i];
+        return i < askLength ? askBook[i] : null;
     }
 
     public int getBidLength(){
@@ -44,16 +68,46 @@ public class MarketDataService extends MarketDataEventListener {
 
     public long getInstrumentId(){return instrumentId;}
 
-    private static void empty(BidLevel[] levels){
-        for (int i=0; i<levels.length; i++) {
-            levels[i] = null;
+    public long getLastTradePrice(){
+        return lastTradePrice;
+    }
+
+    public long getTradedVolume(){
+        return tradedVolume;
+    }
+
+    /**
+     * @return the volume weighted average price of every trade seen, 0 until there has been one.
+     */
+    public double getVwap(){
+        return tradedVolume == 0 ? 0.0 : (double) tradedNotional / tradedVolume;
+    }
+
+    /**
+     * @return the order level view built from the OrderAdd, OrderModify, OrderDelete and OrderExecute messages.
+     */
+    public MarketByOrderBook getMarketByOrder(){
+        return marketByOrder;
+    }
+
+    private BidLevel bidLevelAt(int i){
+        if (i == bidBook.length) {
+            bidBook = Arrays.copyOf(bidBook, i * 2);
+        }
+        if (bidBook[i] == null) {
+            bidBook[i] = new BidLevel();
         }
+        return bidBook[i];
     }
 
-    private static void empty(AskLevel[] levels){
-        for (int i=0; i<levels.length; i++) {
-            levels[i] = null;
+    private AskLevel askLevelAt(int i){
+        if (i == askBook.length) {
+            askBook = Arrays.copyOf(askBook, i * 2);
+        }
+        if (askBook[i] == null) {
+            askBook[i] = new AskLevel();
         }
+        return askBook[i];
     }
 
     @Override
@@ -62,15 +116,16 @@ public class MarketDataService extends MarketDataEventListener {
         int bookLevel = 0;
 
         instrumentId = bookUpdate.instrumentId();
+        clearMarketByOrder();
 
-        empty(bidBook);
+        bidLength = 0;
 
         for(BookUpdateDecoder.BidBookDecoder decoder : bookUpdate.bidBook()){
             final long price = decoder.price();
             final long quantity = decoder.size();
-            bidBook[bookLevel] = new BidLevel();
-            bidBook[bookLevel].setPrice(price);
-            bidBook[bookLevel].setQuantity(quantity);
+            final BidLevel level = bidLevelAt(bookLevel);
+            level.setPrice(price);
+            level.setQuantity(quantity);
             logger.debug("[ALGO] BID: price:" + price + " quantity:" + quantity);
 
             bookLevel+= 1;
@@ -78,7 +133,7 @@ public class MarketDataService extends MarketDataEventListener {
 
         }
 
-        empty(askBook);
+        askLength = 0;
 
         bookLevel = 0;
 
@@ -86,9 +141,9 @@ public class MarketDataService extends MarketDataEventListener {
             final long price = decoder.price();
             final long quantity = decoder.size();
 
-            askBook[bookLevel] = new AskLevel();
-            askBook[bookLevel].setPrice(price);
-            askBook[bookLevel].setQuantity(quantity);
+            final AskLevel level = askLevelAt(bookLevel);
+            level.setPrice(price);
+            level.setQuantity(quantity);
 
             logger.debug("[ALGO] ASK: price:" + price + " quantity:" + quantity);
 
@@ -103,17 +158,18 @@ public class MarketDataService extends MarketDataEventListener {
     public void onAskBook(AskBookUpdateDecoder askBookDec){
 
         instrumentId = askBookDec.instrumentId();
+        clearMarketByOrder();
 
-        empty(askBook);
+        askLength = 0;
 
         int bookLevel = 0;
 
         for(AskBookUpdateDecoder.AskBookDecoder decoder : askBookDec.askBook()){
             final long price = decoder.price();
             final long quantity = decoder.size();
-            askBook[bookLevel] = new AskLevel();
-            askBook[bookLevel].setPrice(price);
-            askBook[bookLevel].setQuantity(quantity);
+            final AskLevel level = askLevelAt(bookLevel);
+            level.setPrice(price);
+            level.setQuantity(quantity);
             logger.debug("[ALGO] ASK: price:" + price + " quantity:" + quantity);
 
             bookLevel+= 1;
@@ -128,16 +184,17 @@ public class MarketDataService extends MarketDataEventListener {
     public void onBidBook(BidBookUpdateDecoder bidBookDec) {
         int bookLevel = 0;
 
-        empty(bidBook);
+        bidLength = 0;
 
         instrumentId = bidBookDec.instrumentId();
+        clearMarketByOrder();
 
         for(BidBookUpdateDecoder.BidBookDecoder decoder : bidBookDec.bidBook()){
             final long price = decoder.price();
             final long quantity = decoder.size();
-            bidBook[bookLevel] = new BidLevel();
-            bidBook[bookLevel].setPrice(price);
-            bidBook[bookLevel].setQuantity(quantity);
+            final BidLevel level = bidLevelAt(bookLevel);
+            level.setPrice(price);
+            level.setQuantity(quantity);
             logger.debug("[ALGO] BID: price:" + price + " quantity:" + quantity);
 
             bookLevel+= 1;
@@ -146,4 +203,204 @@ public class MarketDataService extends MarketDataEventListener {
 
         runTrigger.triggerRun();
     }
+
+    /**
+     * The service follows one instrument, so it takes that instrument's book from a batch and skips the rest. Until
+     * it has seen any market data it follows the first instrument of the batch.
+     */
+    @Override
+    public void onBatchedBookUpdate(BookUpdateBatchDecoder batch, BookUpdateBatchDecoder.InstrumentsDecoder instrument) {
+
+        if(instrumentId != 0 && instrument.instrumentId() != instrumentId){
+            return;
+        }
+
+        instrumentId = instrument.instrumentId();
+        clearMarketByOrder();
+
+        bidLength = 0;
+
+        for(BookUpdateBatchDecoder.InstrumentsDecoder.BidBookDecoder decoder : instrument.bidBook()){
+            final long price = decoder.price();
+            final long quantity = decoder.size();
+            final BidLevel level = bidLevelAt(bidLength);
+            level.setPrice(price);
+            level.setQuantity(quantity);
+            logger.debug("[ALGO] BID: price:" + price + " quantity:" + quantity);
+            bidLength++;
+        }
+
+        askLength = 0;
+
+        for(BookUpdateBatchDecoder.InstrumentsDecoder.AskBookDecoder decoder : instrument.askBook()){
+            final long price = decoder.price();
+            final long quantity = decoder.size();
+            final AskLevel level = askLevelAt(askLength);
+            level.setPrice(price);
+            level.setQuantity(quantity);
+            logger.debug("[ALGO] ASK: price:" + price + " quantity:" + quantity);
+            askLength++;
+        }
+
+        runTrigger.triggerRun();
+    }
+
+    /**
+     * Applies the delta to the book in place, each entry costs a search and at most one shift of the levels behind it.
+     * NEW and CHANGE both set the level's size, adding it if missing, so a delta can also be applied over a snapshot
+     * that already has some of its changes.
+     */
+    @Override
+    public void onBookDelta(BookDeltaDecoder bookDelta) {
+
+        instrumentId = bookDelta.instrumentId();
+        clearMarketByOrder();
+
+        for(BookDeltaDecoder.EntriesDecoder entry : bookDelta.entries()){
+            final long price = entry.price();
+            final long quantity = entry.size();
+            logger.debug("[ALGO] " + entry.side() + " " + entry.action() + ": price:" + price + " quantity:" + quantity);
+
+            if(entry.side() == BookSide.BID){
+                applyBid(price, quantity, entry.action() == UpdateAction.DELETE);
+            }else{
+                applyAsk(price, quantity, entry.action() == UpdateAction.DELETE);
+            }
+        }
+
+        runTrigger.triggerRun();
+    }
+
+    /**
+     * Adds the trade to the running volume and VWAP. Trades come alongside the fills and book updates that trigger a
+     * run, so they don't trigger one themselves.
+     */
+    @Override
+    public void onTrade(TradeDecoder trade) {
+        lastTradePrice = trade.price();
+        tradedVolume += trade.size();
+        tradedNotional += trade.price() * trade.size();
+        logger.debug("[ALGO] TRADE: " + trade.size() + "@" + trade.price() + " aggressor:" + trade.aggressorSide());
+    }
+
+    @Override
+    public void onOrderAdd(OrderAddDecoder orderAdd) {
+        instrumentId = orderAdd.instrumentId();
+        marketByOrder.add(orderAdd.orderId(), orderAdd.side(), orderAdd.price(), orderAdd.size());
+        runTrigger.triggerRun();
+    }
+
+    @Override
+    public void onOrderModify(OrderModifyDecoder orderModify) {
+        instrumentId = orderModify.instrumentId();
+        marketByOrder.modify(orderModify.orderId(), orderModify.price(), orderModify.size());
+        runTrigger.triggerRun();
+    }
+
+    @Override
+    public void onOrderDelete(OrderDeleteDecoder orderDelete) {
+        instrumentId = orderDelete.instrumentId();
+        marketByOrder.delete(orderDelete.orderId());
+        runTrigger.triggerRun();
+    }
+
+    @Override
+    public void onOrderExecute(OrderExecuteDecoder orderExecute) {
+        instrumentId = orderExecute.instrumentId();
+        marketByOrder.execute(orderExecute.orderId(), orderExecute.executedSize());
+        runTrigger.triggerRun();
+    }
+
+    /**
+     * Our levels are shared with the market by order book, so once a book or delta has changed them it no longer
+     * matches them and is emptied, to be built again from the orders that follow.
+     */
+    private void clearMarketByOrder(){
+        if(marketByOrder.orderCount() > 0){
+            logger.debug("[ALGO] Level update replaces the L3 book of {} orders", marketByOrder.orderCount());
+            marketByOrder.clear();
+        }
+    }
+
+    /**
+     * The market by order book tells us each level it changed, which we apply to our levels as a delta would.
+     */
+    private void onMarketByOrderLevel(BookSide side, long price, long size, int orderCount){
+        logger.debug("[ALGO] " + side + " L3: price:" + price + " quantity:" + size + " orders:" + orderCount);
+        if(side == BookSide.BID){
+            applyBid(price, size, size == 0);
+        }else{
+            applyAsk(price, size, size == 0);
+        }
+    }
+
+    /**
+     * Sets the size of the bid level at price, adding it if missing, or removes it.
+     */
+    private void applyBid(long price, long quantity, boolean delete){
+        final int index = find(bidBook, bidLength, price, true);
+        if(index >= 0){
+            if(delete){
+                bidLength = remove(bidBook, bidLength, index);
+            }else{
+                bidBook[index].setQuantity(quantity);
+            }
+        }else if(!delete){
+            final int insertAt = -index - 1;
+            final BidLevel level = bidLevelAt(bidLength);
+            System.arraycopy(bidBook, insertAt, bidBook, insertAt + 1, bidLength - insertAt);
+            bidBook[insertAt] = level;
+            level.setPrice(price);
+            level.setQuantity(quantity);
+            bidLength++;
+        }
+    }
+
+    private void applyAsk(long price, long quantity, boolean delete){
+        final int index = find(askBook, askLength, price, false);
+        if(index >= 0){
+            if(delete){
+                askLength = remove(askBook, askLength, index);
+            }else{
+                askBook[index].setQuantity(quantity);
+            }
+        }else if(!delete){
+            final int insertAt = -index - 1;
+            final AskLevel level = askLevelAt(askLength);
+            System.arraycopy(askBook, insertAt, askBook, insertAt + 1, askLength - insertAt);
+            askBook[insertAt] = level;
+            level.setPrice(price);
+            level.setQuantity(quantity);
+            askLength++;
+        }
+    }
+
+    /**
+     * Binary search of the first length levels, bids are held highest price first and asks lowest first.
+     *
+     * @return the index of the level at price, or (-(insertion point) - 1) if there isn't one.
+     */
+    private static int find(AbstractLevel[] levels, int length, long price, boolean descending){
+        int low = 0;
+        int high = length - 1;
+        while(low <= high){
+            final int mid = (low + high) >>> 1;
+            final long midPrice = levels[mid].getPrice();
+            if(midPrice == price){
+                return mid;
+            }else if(descending ? midPrice > price : midPrice < price){
+                low = mid + 1;
+            }else{
+                high = mid - 1;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int remove(AbstractLevel[] levels, int length, int index){
+        final AbstractLevel removed = levels[index];
+        System.arraycopy(levels, index + 1, levels, index, length - index - 1);
+        levels[length - 1] = removed;
+        return length - 1;
+    }
 }
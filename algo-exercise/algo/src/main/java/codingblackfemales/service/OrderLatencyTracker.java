@@ -0,0 +1,115 @@
+package codingblackfemales.service;
+
+import codingblackfemales.sequencer.metrics.HistogramSnapshot;
+import codingblackfemales.sequencer.metrics.LatencyHistogram;
+import org.agrona.collections.Long2LongHashMap;
+
+/**
+ * Distributions of how long child orders take to move through their lifecycle, from the sequenced timestamps of the
+ * messages: create to ack, ack to each fill after it and cancel to cancel ack. The book acks an order before it
+ * matches, so fills of orders that cross are measured too, fills from a book that does not ack have nothing to be
+ * measured from and are not recorded.
+ *
+ * Orders are forgotten once they are filled, cancel acked or rejected. Without a book that acks, those never come for
+ * a cancelled order, so at most {@link #MAX_TRACKED} orders are waited on at once and the rest are counted in
+ * {@link #untracked()} rather than measured.
+ */
+public class OrderLatencyTracker {
+
+    public static final int MAX_TRACKED = 64 * 1024;
+
+    private static final long NONE = -1L;
+
+    private final LatencyHistogram createToAck = new LatencyHistogram();
+    private final LatencyHistogram ackToFill = new LatencyHistogram();
+    private final LatencyHistogram cancelToCancelAck = new LatencyHistogram();
+
+    private final Long2LongHashMap createdAt = new Long2LongHashMap(NONE);
+    private final Long2LongHashMap ackedAt = new Long2LongHashMap(NONE);
+    private final Long2LongHashMap cancelledAt = new Long2LongHashMap(NONE);
+
+    private long untracked = 0;
+
+    public void onCreate(final long orderId, final long nanos) {
+        if (createdAt.size() < MAX_TRACKED) {
+            createdAt.put(orderId, nanos);
+        } else {
+            untracked++;
+        }
+    }
+
+    /**
+     * Only the first ack of an order is measured from its create, later ones acknowledge replaces.
+     */
+    public void onAck(final long orderId, final long nanos) {
+        final long created = createdAt.remove(orderId);
+        if (created != NONE) {
+            createToAck.record(nanos - created);
+        }
+        if (ackedAt.get(orderId) == NONE && ackedAt.size() < MAX_TRACKED) {
+            ackedAt.put(orderId, nanos);
+        }
+    }
+
+    public void onFill(final long orderId, final long nanos) {
+        final long acked = ackedAt.get(orderId);
+        if (acked != NONE) {
+            ackToFill.record(nanos - acked);
+        }
+    }
+
+    public void onCancel(final long orderId, final long nanos) {
+        if (cancelledAt.get(orderId) == NONE && cancelledAt.size() < MAX_TRACKED) {
+            cancelledAt.put(orderId, nanos);
+        }
+    }
+
+    public void onCancelAck(final long orderId, final long nanos) {
+        final long cancelled = cancelledAt.get(orderId);
+        if (cancelled != NONE) {
+            cancelToCancelAck.record(nanos - cancelled);
+        }
+        onDone(orderId);
+    }
+
+    /**
+     * Forgets the order once nothing more will be measured for it, when it is filled, cancel acked or rejected.
+     */
+    public void onDone(final long orderId) {
+        createdAt.remove(orderId);
+        ackedAt.remove(orderId);
+        cancelledAt.remove(orderId);
+    }
+
+    /**
+     * @return orders created while {@link #MAX_TRACKED} were already being waited on, which were not measured.
+     */
+    public long untracked() {
+        return untracked;
+    }
+
+    /**
+     * @return orders still waiting on an ack, a fill or a cancel ack.
+     */
+    public int tracked() {
+        return Math.max(createdAt.size(), Math.max(ackedAt.size(), cancelledAt.size()));
+    }
+
+    public HistogramSnapshot createToAck() {
+        return createToAck.snapshot();
+    }
+
+    public HistogramSnapshot ackToFill() {
+        return ackToFill.snapshot();
+    }
+
+    public HistogramSnapshot cancelToCancelAck() {
+        return cancelToCancelAck.snapshot();
+    }
+
+    @Override
+    public String toString() {
+        return "OrderLatencyTracker(createToAck=[" + createToAck() + "], ackToFill=[" + ackToFill() +
+                "], cancelToCancelAck=[" + cancelToCancelAck() + "])";
+    }
+}
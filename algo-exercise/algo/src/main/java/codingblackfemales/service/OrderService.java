@@ -15,6 +15,8 @@ public class OrderService extends OrderEventListener {
 
     private List<ChildOrder> children = new LinkedList<>();
 
+    private final OrderLatencyTracker latencyTracker = new OrderLatencyTracker();
+
     public OrderService(RunTrigger runTrigger) {
         this.runTrigger = runTrigger;
     }
@@ -25,7 +27,7 @@ public class OrderService extends OrderEventListener {
     }
 
     private ChildOrder createChildOrder(final CreateOrderDecoder create){
-        return new ChildOrder(create.side(), create.orderId(), create.quantity(), create.price(), OrderState.PENDING);
+        return new ChildOrder(create.instrumentId(), create.side(), create.orderId(), create.quantity(), create.price(), OrderState.PENDING);
     }
 
     private void updateState(ChildOrder child, int state){
@@ -36,9 +38,17 @@ public class OrderService extends OrderEventListener {
         child.addFill(filledQuantity, filledPrice);
     }
 
+    /**
+     * @return how long the book took to ack, fill and cancel ack this service's children.
+     */
+    public OrderLatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
     @Override
     public void onCreateOrder(final CreateOrderDecoder create) {
         children.add(createChildOrder(create));
+        latencyTracker.onCreate(create.orderId(), sequencedTimestamp());
         triggerRun();
     }
 
@@ -49,18 +59,82 @@ public class OrderService extends OrderEventListener {
     @Override
     public void onCancelOrder(final CancelOrderDecoder cancel) {
         updateState(find(cancel.orderId()), OrderState.CANCELLED);
+        latencyTracker.onCancel(cancel.orderId(), sequencedTimestamp());
         triggerRun();
     }
 
+    /**
+     * Replacing an order down to nothing cancels it, as the book does.
+     */
+    @Override
+    public void onReplaceOrder(final ReplaceOrderDecoder replace) {
+        final ChildOrder child = find(replace.orderId());
+        child.replace(replace.quantity(), replace.price());
+        if(replace.quantity() == 0){
+            updateState(child, OrderState.CANCELLED);
+            latencyTracker.onCancel(replace.orderId(), sequencedTimestamp());
+        }
+        triggerRun();
+    }
+
+    /**
+     * Marks every child of the instrument still open on the side, or on both sides, cancelled, with a single run for all of them.
+     */
+    @Override
+    public void onMassCancel(final MassCancelDecoder massCancel) {
+        final long instrumentId = massCancel.instrumentId();
+        final Side side = massCancel.side();
+        for(ChildOrder child : children){
+            final boolean onSide = side == Side.NULL_VAL || child.getSide() == side;
+            if(child.getInstrumentId() == instrumentId && onSide
+                    && child.getState() != OrderState.CANCELLED && child.getState() != OrderState.REJECTED
+                    && child.getFilledQuantity() < child.getQuantity()){
+                updateState(child, OrderState.CANCELLED);
+                latencyTracker.onCancel(child.getOrderId(), sequencedTimestamp());
+            }
+        }
+        triggerRun();
+    }
+
+    /**
+     * Only a pending order becomes acked, an ack that arrives after the order was cancelled, or one for a replace,
+     * leaves the state as it is and confirms the replace.
+     */
     @Override
     public void onAckedOrder(final AckedOrderDecoder acked) {
-        updateState(find(acked.orderId()), OrderState.ACKED);
+        final ChildOrder child = find(acked.orderId());
+        if(child.getState() == OrderState.PENDING){
+            updateState(child, OrderState.ACKED);
+        }else{
+            child.replaceAcked();
+        }
+        latencyTracker.onAck(acked.orderId(), sequencedTimestamp());
         triggerRun();
     }
 
     @Override
     public void onCancelAckedOrder(final CancelAckedOrderDecoder cancelAcked) {
         updateState(find(cancelAcked.orderId()), OrderState.CANCELLED);
+        latencyTracker.onCancelAck(cancelAcked.orderId(), sequencedTimestamp());
+        triggerRun();
+    }
+
+    /**
+     * A rejected create leaves the child rejected. A rejected replace puts the child back to the price and quantity
+     * it had, as the order in the book still has them. A rejected cancel means the order had already left the book,
+     * the child keeps whatever state it has.
+     */
+    @Override
+    public void onRejectOrder(final RejectOrderDecoder reject) {
+        final ChildOrder child = find(reject.orderId());
+        if(child.getState() == OrderState.PENDING){
+            updateState(child, OrderState.REJECTED);
+        }
+        final boolean replaceRejected = child.replaceRejected();
+        //an invalid replace leaves the order resting, it may still be filled or cancelled
+        if(!replaceRejected || reject.reason() != RejectReason.INVALID_PRICE){
+            latencyTracker.onDone(reject.orderId());
+        }
         triggerRun();
     }
 
@@ -76,13 +150,24 @@ public class OrderService extends OrderEventListener {
 
     @Override
     public void onPartialFill(PartialFillOrderDecoder partialFill) {
-        addChildFill(find(partialFill.orderId()), partialFill.quantity(), partialFill.price());
+        final ChildOrder child = find(partialFill.orderId());
+        addChildFill(child, partialFill.quantity(), partialFill.price());
+        onFillLatency(child);
         triggerRun();
     }
 
     @Override
     public void onFill(FillOrderDecoder fill) {
-        addChildFill(find(fill.orderId()), fill.quantity(), fill.price());
+        final ChildOrder child = find(fill.orderId());
+        addChildFill(child, fill.quantity(), fill.price());
+        onFillLatency(child);
         triggerRun();
     }
+
+    private void onFillLatency(final ChildOrder child){
+        latencyTracker.onFill(child.getOrderId(), sequencedTimestamp());
+        if(child.getFilledQuantity() >= child.getQuantity()){
+            latencyTracker.onDone(child.getOrderId());
+        }
+    }
 }
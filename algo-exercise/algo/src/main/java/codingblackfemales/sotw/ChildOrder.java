@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 public class ChildOrder {
+    private long instrumentId;
     private Side side;
     private long orderId;
     private long quantity;
@@ -14,9 +15,15 @@ public class ChildOrder {
 
     private int state;
 
+    //what the order was before a replace the book has not answered yet, put back if the book rejects it
+    private boolean replacePending = false;
+    private long replacedQuantity;
+    private long replacedPrice;
+
     private List<ChildFill> fills = new LinkedList<>();
 
-    public ChildOrder(Side side, long orderId, long quantity, long price, int state) {
+    public ChildOrder(long instrumentId, Side side, long orderId, long quantity, long price, int state) {
+        this.instrumentId = instrumentId;
         this.side = side;
         this.orderId = orderId;
         this.quantity = quantity;
@@ -24,6 +31,10 @@ public class ChildOrder {
         this.state = state;
     }
 
+    public long getInstrumentId() {
+        return instrumentId;
+    }
+
     public Side getSide() {
         return side;
     }
@@ -52,6 +63,43 @@ public class ChildOrder {
         this.state = state;
     }
 
+    /**
+     * Moves the order to a new price, with openQuantity left to fill on top of what has filled already. The order is
+     * shown replaced straight away, until the book rejects it, see {@link #replaceRejected()}. With several replaces
+     * in flight a reject puts back what the order was before the first of them.
+     */
+    public void replace(long openQuantity, long price) {
+        if (!replacePending) {
+            replacePending = true;
+            replacedQuantity = this.quantity;
+            replacedPrice = this.price;
+        }
+        this.quantity = getFilledQuantity() + openQuantity;
+        this.price = price;
+    }
+
+    /**
+     * The book acked the replaces in flight, they stand.
+     */
+    public void replaceAcked() {
+        replacePending = false;
+    }
+
+    /**
+     * The book rejected a replace, so the order is left as it was before it.
+     *
+     * @return whether there was a replace in flight to undo.
+     */
+    public boolean replaceRejected() {
+        if (!replacePending) {
+            return false;
+        }
+        replacePending = false;
+        this.quantity = replacedQuantity;
+        this.price = replacedPrice;
+        return true;
+    }
+
     public void addFill(long filledQuantity, long filledPrice) {
         this.fills.add(new ChildFill(filledQuantity, filledPrice));
     }
@@ -6,5 +6,6 @@ public class OrderState{
     public static final int ACKED = 2;
     public static final int CANCELLED = 3;
     public static final int FILLED = 4;
+    public static final int REJECTED = 5;
 
 }
\ No newline at end of file
@@ -12,7 +12,17 @@ public interface SimpleAlgoState {
     public int getBidLevels();
     public int getAskLevels();
 
+    /**
+     * @return the bid level at the index, 0 being the best, or null if the book is not that deep. Levels are reused
+     * from one book update to the next and changed in place, so a level kept across runs shows whatever is at its
+     * index now, copy the price and quantity out of it to keep them.
+     */
     public BidLevel getBidAt(int index);
+
+    /**
+     * @return the ask level at the index, 0 being the best, or null if the book is not that deep. Reused and changed
+     * in place as the bids are, see {@link #getBidAt(int)}.
+     */
     public AskLevel getAskAt(int index);
 
     public List<ChildOrder> getChildOrders();
@@ -22,4 +32,13 @@ public interface SimpleAlgoState {
     public long getInstrumentId();
 
     public List<ChildOrder> getCancelledChildOrders();
+
+    public long getLastTradePrice();
+
+    public long getTradedVolume();
+
+    /**
+     * @return the volume weighted average price of the trades printed so far, 0 until there has been one.
+     */
+    public double getVwap();
 }
@@ -55,9 +55,24 @@ public class SimpleAlgoStateImpl implements SimpleAlgoState {
 
     @Override
     public List<ChildOrder> getActiveChildOrders() {
-        return orderService.children().stream().filter(order -> order.getState() != OrderState.CANCELLED).collect(Collectors.toList());
+        return orderService.children().stream().filter(order -> order.getState() != OrderState.CANCELLED && order.getState() != OrderState.REJECTED).collect(Collectors.toList());
     }
     public List<ChildOrder> getCancelledChildOrders() {
         return orderService.children().stream().filter(order -> order.getState() == OrderState.CANCELLED).collect(Collectors.toList());
     }
+
+    @Override
+    public long getLastTradePrice() {
+        return marketDataService.getLastTradePrice();
+    }
+
+    @Override
+    public long getTradedVolume() {
+        return marketDataService.getTradedVolume();
+    }
+
+    @Override
+    public double getVwap() {
+        return marketDataService.getVwap();
+    }
 }
@@ -0,0 +1,108 @@
+package codingblackfemales.marketdata.mbo;
+
+import messages.marketdata.BookSide;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MarketByOrderBookTest {
+
+    private final StringBuilder levels = new StringBuilder();
+    private MarketByOrderBook book;
+
+    @Before
+    public void setUp() {
+        book = new MarketByOrderBook((side, price, size, orderCount) ->
+                levels.append(side).append(' ').append(size).append('@').append(price).append(';'));
+    }
+
+    @Test
+    public void testLevelsAggregateTheOrdersBestFirst() {
+        book.add(1, BookSide.BID, 98, 100);
+        book.add(2, BookSide.BID, 99, 50);
+        book.add(3, BookSide.BID, 98, 25);
+        book.add(4, BookSide.ASK, 102, 10);
+        book.add(5, BookSide.ASK, 101, 20);
+
+        assertEquals(2, book.depth(BookSide.BID));
+        assertEquals(99, book.price(BookSide.BID, 0));
+        assertEquals(98, book.price(BookSide.BID, 1));
+        assertEquals(125, book.size(BookSide.BID, 1));
+        assertEquals(2, book.orderCount(BookSide.BID, 1));
+        assertEquals(101, book.price(BookSide.ASK, 0));
+        assertEquals(102, book.price(BookSide.ASK, 1));
+
+        book.execute(5, 20);
+        assertEquals(1, book.depth(BookSide.ASK));
+        assertEquals(102, book.price(BookSide.ASK, 0));
+
+        book.execute(1, 40);
+        assertEquals(85, book.size(BookSide.BID, 1));
+        assertArrayEquals(new long[]{1, 3}, book.orderIds(BookSide.BID, 1));
+
+        book.delete(2);
+        assertEquals(1, book.depth(BookSide.BID));
+        assertEquals(3, book.orderCount());
+        assertEquals("BID 100@98;BID 50@99;BID 125@98;ASK 10@102;ASK 20@101;ASK 0@101;BID 85@98;BID 0@99;",
+                levels.toString());
+    }
+
+    @Test
+    public void testModifyKeepsPriorityOnlyWhenTheSizeGoesDown() {
+        book.add(1, BookSide.BID, 98, 100);
+        book.add(2, BookSide.BID, 98, 100);
+        book.add(3, BookSide.BID, 98, 100);
+
+        book.modify(1, 98, 60);
+        assertArrayEquals(new long[]{1, 2, 3}, book.orderIds(BookSide.BID, 0));
+        assertEquals(260, book.size(BookSide.BID, 0));
+
+        book.modify(1, 98, 80);
+        assertArrayEquals(new long[]{2, 3, 1}, book.orderIds(BookSide.BID, 0));
+        assertEquals(280, book.size(BookSide.BID, 0));
+
+        book.modify(2, 99, 100);
+        assertEquals(2, book.depth(BookSide.BID));
+        assertArrayEquals(new long[]{2}, book.orderIds(BookSide.BID, 0));
+        assertArrayEquals(new long[]{3, 1}, book.orderIds(BookSide.BID, 1));
+        assertEquals(180, book.size(BookSide.BID, 1));
+    }
+
+    @Test
+    public void testUnknownOrdersAreCountedAndIgnored() {
+        book.add(1, BookSide.ASK, 101, 10);
+        book.delete(7);
+        book.execute(8, 5);
+        book.modify(9, 100, 5);
+
+        assertEquals(3, book.unknownOrders());
+        assertEquals(1, book.orderCount());
+        assertEquals(10, book.size(BookSide.ASK, 0));
+    }
+
+    @Test
+    public void testClearedLevelsAreReusedEmpty() {
+        book.add(1, BookSide.BID, 100, 50);
+        book.add(2, BookSide.BID, 100, 70);
+        book.clear();
+        book.add(3, BookSide.BID, 99, 10);
+
+        assertEquals(1, book.depth(BookSide.BID));
+        assertEquals(10, book.size(BookSide.BID, 0));
+        assertEquals(1, book.orderCount(BookSide.BID, 0));
+        assertArrayEquals(new long[]{3}, book.orderIds(BookSide.BID, 0));
+    }
+
+    @Test
+    public void testDuplicateAddReplacesTheOrder() {
+        book.add(1, BookSide.BID, 98, 100);
+        book.add(2, BookSide.BID, 98, 50);
+        book.add(1, BookSide.BID, 97, 30);
+
+        assertEquals(1, book.duplicateAdds());
+        assertEquals(2, book.orderCount());
+        assertEquals(50, book.size(BookSide.BID, 0));
+        assertEquals(30, book.size(BookSide.BID, 1));
+    }
+}
@@ -0,0 +1,107 @@
+package codingblackfemales.service;
+
+import codingblackfemales.container.RunTrigger;
+import messages.marketdata.BookSide;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.OrderAddEncoder;
+import messages.marketdata.OrderDeleteEncoder;
+import messages.marketdata.OrderExecuteEncoder;
+import messages.marketdata.OrderModifyEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.Venue;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class MarketDataServiceTest {
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(256));
+    private final MessageHeaderEncoder header = new MessageHeaderEncoder();
+    private final OrderAddEncoder add = new OrderAddEncoder();
+
+    private MarketDataService service;
+
+    @Before
+    public void setUp() {
+        service = new MarketDataService(new RunTrigger());
+    }
+
+    private void add(final long orderId, final BookSide side, final long price, final long size) {
+        add.wrapAndApplyHeader(buffer, 0, header).instrumentId(123).venue(Venue.XLON)
+                .orderId(orderId).side(side).price(price).size(size);
+        service.onMessage(buffer);
+    }
+
+    private void bookUpdate() {
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(buffer, 0, header);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.source(Source.STREAM);
+        encoder.bidBookCount(1).next().price(95L).size(200L);
+        encoder.askBookCount(1).next().price(105L).size(300L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        service.onMessage(buffer);
+    }
+
+    @Test
+    public void testLevelsAreBuiltFromOrders() {
+        add(1, BookSide.BID, 98, 100);
+        add(2, BookSide.BID, 99, 50);
+        add(3, BookSide.ASK, 101, 70);
+
+        assertEquals(2, service.getBidLength());
+        assertEquals(99, service.getBidLevel(0).getPrice());
+        assertEquals(1, service.getAskLength());
+
+        new OrderExecuteEncoder().wrapAndApplyHeader(buffer, 0, header).instrumentId(123).venue(Venue.XLON)
+                .orderId(2).price(99).executedSize(50);
+        service.onMessage(buffer);
+        assertEquals(1, service.getBidLength());
+        assertEquals(98, service.getBidLevel(0).getPrice());
+
+        new OrderModifyEncoder().wrapAndApplyHeader(buffer, 0, header).instrumentId(123).venue(Venue.XLON)
+                .orderId(3).price(100).size(30);
+        service.onMessage(buffer);
+        assertEquals(1, service.getAskLength());
+        assertEquals(100, service.getAskLevel(0).getPrice());
+        assertEquals(30, service.getAskLevel(0).getQuantity());
+    }
+
+    @Test
+    public void testDuplicateAddReplacesTheOrderRatherThanThrowing() {
+        add(1, BookSide.BID, 98, 100);
+        add(1, BookSide.BID, 97, 40);
+
+        assertEquals(1, service.getMarketByOrder().duplicateAdds());
+        assertEquals(1, service.getBidLength());
+        assertEquals(97, service.getBidLevel(0).getPrice());
+        assertEquals(40, service.getBidLevel(0).getQuantity());
+    }
+
+    @Test
+    public void testBookUpdateReplacesTheOrderBook() {
+        add(1, BookSide.BID, 98, 100);
+        add(2, BookSide.ASK, 101, 70);
+
+        bookUpdate();
+        assertEquals(0, service.getMarketByOrder().orderCount());
+        assertEquals(95, service.getBidLevel(0).getPrice());
+
+        //orders before the update are gone, deleting one no longer touches the level the update set
+        new OrderDeleteEncoder().wrapAndApplyHeader(buffer, 0, header).instrumentId(123).venue(Venue.XLON).orderId(1);
+        service.onMessage(buffer);
+        assertEquals(1, service.getMarketByOrder().unknownOrders());
+        assertEquals(1, service.getBidLength());
+        assertEquals(200, service.getBidLevel(0).getQuantity());
+
+        add(3, BookSide.BID, 95, 10);
+        assertEquals(10, service.getBidLevel(0).getQuantity());
+    }
+}
@@ -0,0 +1,38 @@
+package codingblackfemales.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OrderLatencyTrackerTest {
+
+    @Test
+    public void testOrdersThatAreNeverAckedStopBeingTrackedAtTheBound() {
+        final OrderLatencyTracker tracker = new OrderLatencyTracker();
+
+        //without acks nothing ever tells the tracker a cancelled order is done
+        for (long orderId = 1; orderId <= OrderLatencyTracker.MAX_TRACKED + 10; orderId++) {
+            tracker.onCreate(orderId, orderId);
+            tracker.onCancel(orderId, orderId + 1);
+        }
+
+        assertEquals(OrderLatencyTracker.MAX_TRACKED, tracker.tracked());
+        assertEquals(10, tracker.untracked());
+    }
+
+    @Test
+    public void testOrdersAreForgottenOnceDone() {
+        final OrderLatencyTracker tracker = new OrderLatencyTracker();
+        tracker.onCreate(1, 100);
+        tracker.onAck(1, 150);
+        tracker.onCancel(1, 200);
+        tracker.onCancelAck(1, 260);
+
+        tracker.onCreate(2, 300);
+        tracker.onDone(2);
+
+        assertEquals(0, tracker.tracked());
+        assertEquals(1, tracker.createToAck().getTotalCount());
+        assertEquals(1, tracker.cancelToCancelAck().getTotalCount());
+    }
+}
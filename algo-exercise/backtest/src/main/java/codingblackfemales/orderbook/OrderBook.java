@@ -5,23 +5,36 @@ import codingblackfemales.orderbook.channel.OrderChannel;
 import codingblackfemales.orderbook.order.LimitOrderFlyweight;
 import codingblackfemales.orderbook.order.MarketDataOrderFlyweight;
 import codingblackfemales.orderbook.visitor.CancelOrderVisitor;
+import codingblackfemales.orderbook.visitor.MassCancelOrderVisitor;
 import codingblackfemales.orderbook.visitor.MutatingMatchOneMarketDataOrderVisitor;
 import codingblackfemales.orderbook.visitor.MutatingMatchOneOrderVisitor;
+import codingblackfemales.orderbook.visitor.ReadOnlyBookDeltaPublishVisitor;
 import codingblackfemales.orderbook.visitor.ReadOnlyMarketDataChannelPublishVisitor;
+import codingblackfemales.orderbook.visitor.ReplaceOrderVisitor;
 import codingblackfemales.sequencer.event.MarketDataEventListener;
 import messages.marketdata.AskBookUpdateDecoder;
 import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookDeltaDecoder;
+import messages.marketdata.BookSide;
 import messages.marketdata.BookUpdateDecoder;
 import messages.marketdata.Source;
+import messages.marketdata.TradeDecoder;
+import messages.order.RejectReason;
 import messages.order.Side;
+import org.agrona.ExpandableDirectByteBuffer;
 import org.agrona.MutableDirectBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 public class OrderBook extends MarketDataEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderBook.class);
 
+    //the one instrument this book trades and publishes market data for
+    public static final long INSTRUMENT_ID = 123L;
+
     private final MarketDataChannel marketDataChannel;
     private final OrderChannel orderChannel;
 
@@ -31,10 +44,23 @@ public class OrderBook extends MarketDataEventListener {
     }
 
     private ReadOnlyMarketDataChannelPublishVisitor mktDataVisitor = new ReadOnlyMarketDataChannelPublishVisitor();
+    private final MutableDirectBuffer bookUpdateBuffer = new ExpandableDirectByteBuffer(1024);
+
+    private ReadOnlyBookDeltaPublishVisitor deltaVisitor = new ReadOnlyBookDeltaPublishVisitor();
+
+    //publishing a book can trigger fills and further book publishes before it returns, so each level gets its own buffer
+    private MutableDirectBuffer[] publishBuffers = new MutableDirectBuffer[16];
+    private int publishDepth = 0;
 
     private AskBookSide askBookSide = new AskBookSide();
     private BidBookSide bidBookSide = new BidBookSide();
 
+    //highest sequencerNumber whose effect is in the book, what a snapshot is tagged with
+    private long lastSequencerNumber = 0L;
+
+    //highest orderId the book has been sent, so a sequencer resuming after it can carry on from there
+    private long highestOrderId = 0L;
+
     public AskBookSide getAskBookSide() {
         return askBookSide;
     }
@@ -43,6 +69,43 @@ public class OrderBook extends MarketDataEventListener {
         return bidBookSide;
     }
 
+    public long getLastSequencerNumber() {
+        return lastSequencerNumber;
+    }
+
+    public long getHighestOrderId() {
+        return highestOrderId;
+    }
+
+    void orderSeen(final long orderId) {
+        highestOrderId = Math.max(highestOrderId, orderId);
+    }
+
+    /**
+     * @return whether the book acks, cancel acks and rejects orders, which is also whether it validates them.
+     */
+    public boolean isAcking() {
+        return orderChannel.isAcking();
+    }
+
+    /**
+     * Records that the message with this sequencerNumber has been applied to the book. Messages published back
+     * while another is handled are applied first, so this only ever moves forward. Every message the book sees is
+     * also when responses held back by the order channel's latency are published, once they are due.
+     */
+    public void markApplied(final long sequencerNumber) {
+        lastSequencerNumber = Math.max(lastSequencerNumber, sequencerNumber);
+        orderChannel.releaseDue();
+    }
+
+    /**
+     * Publishes the order channel's responses which have come due, for when time moves on without a message reaching
+     * the book, see {@link OrderChannel}.
+     */
+    public void releaseDue() {
+        orderChannel.releaseDue();
+    }
+
     public boolean canMatch(final Side side, final long price){
         boolean canMatch = false;
 
@@ -57,15 +120,34 @@ public class OrderBook extends MarketDataEventListener {
 
     @Override
     public void onBookUpdate(BookUpdateDecoder bookUpdate) {
+        markApplied(sequencerNumber());
         //don't process updates from ourself.
         if(!bookUpdate.source().equals(Source.ORDERBOOK)){
             logger.info("[ORDERBOOK] Processing Mkt Data Update");
+            stageBookUpdate(bookUpdate);
+
             getBidBookSide().removeMarketDataOrders();
             addOrMatchBidMarketDataOrders(bookUpdate);
 
             getAskBookSide().removeMarketDataOrders();
             addOrMatchAskMarketDataOrders(bookUpdate);
+
+            //consumers after us replace their book with the update, whatever was published while handling it
+            deltaVisitor.commit(BookSide.BID);
+            deltaVisitor.commit(BookSide.ASK);
+        }
+    }
+
+    private void stageBookUpdate(BookUpdateDecoder bookUpdateDecoder){
+        final var bids = deltaVisitor.stage(BookSide.BID);
+        for(BookUpdateDecoder.BidBookDecoder decoder : bookUpdateDecoder.bidBook()) {
+            bids.add(decoder.price(), decoder.size());
+        }
+        final var asks = deltaVisitor.stage(BookSide.ASK);
+        for(BookUpdateDecoder.AskBookDecoder decoder : bookUpdateDecoder.askBook()) {
+            asks.add(decoder.price(), decoder.size());
         }
+        bookUpdateDecoder.sbeRewind();
     }
 
     private void addOrMatchAskMarketDataOrders(BookUpdateDecoder bookUpdateDecoder){
@@ -124,20 +206,47 @@ public class OrderBook extends MarketDataEventListener {
         }
     }
 
+    @Override
+    public void onBookDelta(BookDeltaDecoder bookDelta) {
+        //only ever our own, the delta is already in the book
+        markApplied(sequencerNumber());
+    }
+
+    @Override
+    public void onTrade(TradeDecoder trade) {
+        markApplied(sequencerNumber());
+    }
+
     @Override
     public void onAskBook(AskBookUpdateDecoder askBook) {
+        markApplied(sequencerNumber());
+        final var asks = deltaVisitor.stage(BookSide.ASK);
+        for(AskBookUpdateDecoder.AskBookDecoder decoder : askBook.askBook()) {
+            asks.add(decoder.price(), decoder.size());
+        }
+        askBook.sbeRewind();
+
         getAskBookSide().removeMarketDataOrders();
         addOrMatchAskMarketDataOrders(askBook);
+        deltaVisitor.commit(BookSide.ASK);
     }
 
     @Override
     public void onBidBook(BidBookUpdateDecoder bidBook) {
+        markApplied(sequencerNumber());
+        final var bids = deltaVisitor.stage(BookSide.BID);
+        for(BidBookUpdateDecoder.BidBookDecoder decoder : bidBook.bidBook()) {
+            bids.add(decoder.price(), decoder.size());
+        }
+        bidBook.sbeRewind();
+
         getBidBookSide().removeMarketDataOrders();
         addOrMatchBidMarketDataOrders(bidBook);
+        deltaVisitor.commit(BookSide.BID);
     }
 
     public void matchOrder(final LimitOrderFlyweight limit) {
-        final MutatingMatchOneOrderVisitor visitor = new MutatingMatchOneOrderVisitor(limit, orderChannel);
+        final MutatingMatchOneOrderVisitor visitor = new MutatingMatchOneOrderVisitor(limit, orderChannel, marketDataChannel);
         if(limit.getSide().equals(Side.BUY)){
             getAskBookSide().accept(visitor);
         }else if(limit.getSide().equals(Side.SELL)){
@@ -146,7 +255,7 @@ public class OrderBook extends MarketDataEventListener {
     }
 
     public void matchMarketDataOrder(final MarketDataOrderFlyweight market) {
-        final MutatingMatchOneMarketDataOrderVisitor visitor = new MutatingMatchOneMarketDataOrderVisitor(market, orderChannel);
+        final MutatingMatchOneMarketDataOrderVisitor visitor = new MutatingMatchOneMarketDataOrderVisitor(market, orderChannel, marketDataChannel);
         if(market.getSide().equals(Side.BUY)){
             getAskBookSide().accept(visitor);
         }else if(market.getSide().equals(Side.SELL)){
@@ -164,7 +273,24 @@ public class OrderBook extends MarketDataEventListener {
         }
     }
 
+    /**
+     * When the order channel acks, orders without a price or a quantity are rejected and any other is acked before it
+     * matches or joins the book, so an order which crosses has its ack sent ahead of its fills, as a venue would.
+     */
     public void onLimitOrder(final LimitOrderFlyweight limit) {
+        orderSeen(limit.getOrderId());
+        if(orderChannel.isAcking()){
+            if(limit.getPrice() <= 0){
+                reject(limit.getOrderId(), RejectReason.INVALID_PRICE);
+                return;
+            }
+            if(limit.getQuantity() <= 0){
+                reject(limit.getOrderId(), RejectReason.INVALID_QUANTITY);
+                return;
+            }
+        }
+
+        orderChannel.publishAck(limit.getOrderId());
         if(canMatch(limit.getSide(), limit.getPrice())){
             matchOrder(limit);
         }else{
@@ -179,17 +305,119 @@ public class OrderBook extends MarketDataEventListener {
         var cancelVisitor = new CancelOrderVisitor(orderIdToCancel);
         getAskBookSide().accept(cancelVisitor);
         getBidBookSide().accept(cancelVisitor);
+        if(cancelVisitor.isFound()){
+            orderChannel.publishCancelAck(orderIdToCancel);
+        }else{
+            //filled, already cancelled or never ours
+            reject(orderIdToCancel, RejectReason.UNKNOWN_ORDER);
+        }
+        publishBook();
+    }
+
+    private void reject(final long orderId, final RejectReason reason){
+        if(orderChannel.isAcking()){
+            logger.info("[ORDERBOOK] Rejecting order (id=:{}): {}", orderId, reason);
+            orderChannel.publishReject(orderId, reason);
+        }
+    }
+
+    /**
+     * Cancels every resting limit order on the side, or on both sides for Side.NULL_VAL, in a single walk of each
+     * side and with a single book publish, however many orders there were. A mass cancel for another instrument
+     * leaves the book as it is.
+     */
+    public void onMassCancel(final long instrumentId, final Side side){
+        if(instrumentId != INSTRUMENT_ID){
+            logger.info("[ORDERBOOK] Ignoring mass cancel for instrument {}, book trades {}", instrumentId, INSTRUMENT_ID);
+            return;
+        }
+        var massCancelVisitor = new MassCancelOrderVisitor();
+        if(side != Side.BUY){
+            getAskBookSide().accept(massCancelVisitor);
+        }
+        if(side != Side.SELL){
+            getBidBookSide().accept(massCancelVisitor);
+        }
+        logger.info("[ORDERBOOK] Mass cancelled " + massCancelVisitor.getCancelled() + " orders (side=" + side + ")");
+        final var cancelledOrderIds = massCancelVisitor.getCancelledOrderIds();
+        for(int i = 0; i < cancelledOrderIds.size(); i++){
+            orderChannel.publishCancelAck(cancelledOrderIds.getLong(i));
+        }
+        publishBook();
+    }
+
+    /**
+     * Replaces a resting order with one message rather than a cancel and a create. Taking quantity off at the same
+     * price keeps the order's place in the queue, otherwise it moves to the back of the new price, matching first if
+     * the new price crosses. A quantity of 0 cancels it, and is cancel acked, any other replace is acked.
+     */
+    public void onReplaceOrder(final long orderId, final long price, final long quantity){
+        logger.info("[ORDERBOOK] Replacing order (id=:" + orderId + ") with " + quantity + "@" + price);
+        if(orderChannel.isAcking() && quantity > 0 && price <= 0){
+            reject(orderId, RejectReason.INVALID_PRICE);
+            return;
+        }
+        var replaceVisitor = new ReplaceOrderVisitor(orderId, price, quantity);
+        getAskBookSide().accept(replaceVisitor);
+        getBidBookSide().accept(replaceVisitor);
+
+        if(!replaceVisitor.isFound()){
+            logger.warn("[ORDERBOOK] No resting order (id=:" + orderId + ") to replace");
+            reject(orderId, RejectReason.UNKNOWN_ORDER);
+        }else if(quantity == 0){
+            orderChannel.publishCancelAck(orderId);
+        }else{
+            //acked ahead of any fills the new price brings, as for a new order
+            orderChannel.publishAck(orderId);
+            final LimitOrderFlyweight removed = replaceVisitor.getRemovedOrder();
+            if(removed != null){
+                final var replacement = new LimitOrderFlyweight(removed.getSide(), price, quantity, orderId);
+                if(canMatch(replacement.getSide(), price)){
+                    matchOrder(replacement);
+                }else{
+                    addLiquidity(replacement);
+                }
+            }
+        }
+
         publishBook();
     }
 
 
+    /**
+     * Publishes a {@link BookDeltaDecoder} of the levels changed since the last publish. Publishing can trigger
+     * orders that change the book and publish again before this returns, so consumers applying deltas must be added
+     * to the network ahead of those that send orders back, or they would see the later delta first.
+     */
     public void publishBook(){
-        final var messageBuffer = getBookUpdateMessage();
-        marketDataChannel.publish(messageBuffer);
+        final var messageBuffer = getBookDeltaMessage();
+        final int length = deltaVisitor.length();
+        publishDepth++;
+        try {
+            marketDataChannel.publish(messageBuffer, length);
+        } finally {
+            publishDepth--;
+        }
+    }
+
+    public MutableDirectBuffer getBookDeltaMessage(){
+        if (publishDepth == publishBuffers.length) {
+            publishBuffers = Arrays.copyOf(publishBuffers, publishBuffers.length * 2);
+        }
+        if (publishBuffers[publishDepth] == null) {
+            publishBuffers[publishDepth] = new ExpandableDirectByteBuffer(1024);
+        }
+        deltaVisitor.start(publishBuffers[publishDepth]);
+        getBidBookSide().accept(deltaVisitor);
+        getAskBookSide().accept(deltaVisitor);
+        return deltaVisitor.end();
     }
 
+    /**
+     * @return a full depth {@link BookUpdateDecoder} of the book which, unlike a delta, stands on its own.
+     */
     public MutableDirectBuffer getBookUpdateMessage(){
-        mktDataVisitor.start();
+        mktDataVisitor.start(bookUpdateBuffer);
         getBidBookSide().accept(mktDataVisitor);
         getAskBookSide().accept(mktDataVisitor);
         return mktDataVisitor.end();
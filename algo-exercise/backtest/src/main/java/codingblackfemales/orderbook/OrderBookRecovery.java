@@ -0,0 +1,103 @@
+package codingblackfemales.orderbook;
+
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.orderbook.consumer.OrderBookInboundOrderConsumer;
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.journal.JournalReplayer;
+import codingblackfemales.sequencer.journal.ReplaySpeed;
+import codingblackfemales.sequencer.journal.ReplayStats;
+import codingblackfemales.sequencer.net.TestNetwork;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.IoUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.OffsetEpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Rebuilds an {@link OrderBook} after a restart from the latest snapshot plus the journal recorded since it, rather
+ * than replaying the whole journal.
+ *
+ * The tail is replayed into a scratch book whose fills and book updates go nowhere, since the journal already holds
+ * the ones published first time round, and the result is then copied into the live book. The scratch book acks if the
+ * live one does, as that decides which orders are validated and rejected rather than added.
+ *
+ * Responses the live book was still holding back for its order channel's latency when it stopped are not in the
+ * snapshot or the journal, and are lost: those orders are in the recovered book but never acked, cancel acked or
+ * rejected.
+ */
+public final class OrderBookRecovery {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderBookRecovery.class);
+
+    private OrderBookRecovery() {
+    }
+
+    /**
+     * The live sequencer must then carry on after what was recovered, as the reopened journal expects, with
+     * {@link codingblackfemales.sequencer.DefaultSequencer#resumeAfter(long, long)} given the sequencerNumber returned
+     * and the book's {@link OrderBook#getHighestOrderId()}.
+     *
+     * @param book an empty book, wired to the live channels.
+     * @return the last sequencerNumber applied to the book.
+     */
+    public static long recover(final File snapshotDirectory, final File journalDirectory, final OrderBook book) {
+        final Sequencer discard = new DiscardingSequencer();
+        final OrderChannel orderChannel = book.isAcking() ? new OrderChannel(discard, 0L, new OffsetEpochNanoClock()) : new OrderChannel(discard);
+        final OrderBook scratch = new OrderBook(new MarketDataChannel(discard), orderChannel);
+
+        final File snapshot = OrderBookSnapshotter.latest(snapshotDirectory);
+        if (snapshot != null) {
+            final MappedByteBuffer mapped = IoUtil.mapExistingFile(snapshot, FileChannel.MapMode.READ_ONLY, "snapshot");
+            try {
+                OrderBookSnapshot.decode(new UnsafeBuffer(mapped), 0, scratch);
+            } finally {
+                IoUtil.unmap(mapped);
+            }
+        }
+
+        final TestNetwork network = new TestNetwork();
+        network.addConsumer(scratch);
+        network.addConsumer(new OrderBookInboundOrderConsumer(scratch));
+
+        final JournalReplayer replayer = new JournalReplayer(journalDirectory, ReplaySpeed.asFastAsPossible());
+        replayer.setFromSequencerNumber(scratch.getLastSequencerNumber() + 1);
+        final ReplayStats stats = replayer.replay(network);
+
+        final ExpandableDirectByteBuffer buffer = new ExpandableDirectByteBuffer(64 * 1024);
+        OrderBookSnapshot.encode(scratch, buffer, 0);
+        final long sequencerNumber = OrderBookSnapshot.decode(buffer, 0, book);
+
+        logger.info("[SNAPSHOT] Recovered book to {} from {} and {} journal messages", sequencerNumber, snapshot, stats.getMessagesRead());
+        return sequencerNumber;
+    }
+
+    private static class DiscardingSequencer implements Sequencer {
+
+        private final MutableDirectBuffer claimed = new ExpandableDirectByteBuffer(1024);
+
+        @Override
+        public void onCommand(final DirectBuffer buffer) {
+        }
+
+        @Override
+        public void onCommand(final DirectBuffer buffer, final int offset, final int length) {
+        }
+
+        @Override
+        public MutableDirectBuffer claim(final int length) {
+            return claimed;
+        }
+
+        @Override
+        public void commit() {
+        }
+    }
+}
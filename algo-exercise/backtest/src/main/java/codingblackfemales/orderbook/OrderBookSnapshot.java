@@ -0,0 +1,156 @@
+package codingblackfemales.orderbook;
+
+import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
+import codingblackfemales.orderbook.order.LimitOrderFlyweight;
+import codingblackfemales.orderbook.order.MarketDataOrderFlyweight;
+import messages.order.Side;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+/**
+ * Compact binary image of an {@link OrderBook}'s levels and resting orders, tagged with the last sequencerNumber
+ * applied to it.
+ *
+ * <pre>
+ *   header:  int magic | int version | long sequencerNumber | int bid levels | int ask levels | long highest orderId
+ *   level:   long price | long quantity | int orders
+ *   order:   byte kind | byte side | long price | long quantity | long orderId (limit orders only)
+ * </pre>
+ *
+ * Levels are written best first and orders in time priority, and are linked back up exactly as they were, level
+ * quantities included, so a restored book publishes the same market data as the original. Responses the order
+ * channel is still holding back are not part of the image, see {@link OrderBookRecovery}.
+ */
+public final class OrderBookSnapshot {
+
+    public static final int MAGIC = 0x4F425353;
+    public static final int VERSION = 2;
+
+    static final int SEQUENCER_NUMBER_OFFSET = 8;
+    static final int BID_COUNT_OFFSET = 16;
+    static final int ASK_COUNT_OFFSET = 20;
+    static final int HIGHEST_ORDER_ID_OFFSET = 24;
+    static final int HEADER_LENGTH = 32;
+    //version 1 had no highest orderId
+    static final int VERSION_1_HEADER_LENGTH = 24;
+
+    private static final byte MARKET_DATA_ORDER = 1;
+    private static final byte LIMIT_ORDER = 2;
+
+    private OrderBookSnapshot() {
+    }
+
+    /**
+     * @return the number of bytes written, the buffer must be able to grow to hold them.
+     */
+    public static int encode(final OrderBook book, final MutableDirectBuffer buffer, final int offset) {
+        buffer.putInt(offset, MAGIC);
+        buffer.putInt(offset + 4, VERSION);
+        buffer.putLong(offset + SEQUENCER_NUMBER_OFFSET, book.getLastSequencerNumber());
+        buffer.putLong(offset + HIGHEST_ORDER_ID_OFFSET, book.getHighestOrderId());
+
+        int position = offset + HEADER_LENGTH;
+        position = encodeSide(book.getBidBookSide(), buffer, position, offset + BID_COUNT_OFFSET);
+        position = encodeSide(book.getAskBookSide(), buffer, position, offset + ASK_COUNT_OFFSET);
+
+        return position - offset;
+    }
+
+    private static int encodeSide(final OrderBookSide side, final MutableDirectBuffer buffer, int position, final int countOffset) {
+        int levels = 0;
+        for (OrderBookLevel level = side.getFirstLevel(); level != null; level = level.next()) {
+            buffer.putLong(position, level.getPrice());
+            buffer.putLong(position + 8, level.getQuantity());
+            final int ordersOffset = position + 16;
+            position += 20;
+
+            int orders = 0;
+            for (DefaultOrderFlyweight order = level.getFirstOrder(); order != null; order = order.next()) {
+                final boolean limit = order instanceof LimitOrderFlyweight;
+                buffer.putByte(position, limit ? LIMIT_ORDER : MARKET_DATA_ORDER);
+                buffer.putByte(position + 1, order.getSide().value());
+                buffer.putLong(position + 2, order.getPrice());
+                buffer.putLong(position + 10, order.getQuantity());
+                position += 18;
+                if (limit) {
+                    buffer.putLong(position, ((LimitOrderFlyweight) order).getOrderId());
+                    position += 8;
+                }
+                orders++;
+            }
+            buffer.putInt(ordersOffset, orders);
+            levels++;
+        }
+        buffer.putInt(countOffset, levels);
+        return position;
+    }
+
+    /**
+     * Rebuilds the snapshot's levels and orders in an empty book.
+     *
+     * @return the sequencerNumber the snapshot was taken at, the first message to apply after it is the next one.
+     */
+    public static long decode(final DirectBuffer buffer, final int offset, final OrderBook book) {
+        final int version = buffer.getInt(offset + 4);
+        if (buffer.getInt(offset) != MAGIC || (version != VERSION && version != 1)) {
+            throw new IllegalArgumentException("Not an order book snapshot, or an unsupported version");
+        }
+        if (book.getBidBookSide().getFirstLevel() != null || book.getAskBookSide().getFirstLevel() != null) {
+            throw new IllegalStateException("Snapshots can only be restored into an empty book");
+        }
+
+        final long sequencerNumber = buffer.getLong(offset + SEQUENCER_NUMBER_OFFSET);
+        int position = offset + (version == 1 ? VERSION_1_HEADER_LENGTH : HEADER_LENGTH);
+        position = decodeSide(book.getBidBookSide(), buffer, position, buffer.getInt(offset + BID_COUNT_OFFSET));
+        decodeSide(book.getAskBookSide(), buffer, position, buffer.getInt(offset + ASK_COUNT_OFFSET));
+
+        if (version != 1) {
+            book.orderSeen(buffer.getLong(offset + HIGHEST_ORDER_ID_OFFSET));
+        }
+        book.markApplied(sequencerNumber);
+        return sequencerNumber;
+    }
+
+    private static int decodeSide(final OrderBookSide side, final DirectBuffer buffer, int position, final int levels) {
+        OrderBookLevel firstLevel = null;
+        for (int i = 0; i < levels; i++) {
+            final OrderBookLevel level = new OrderBookLevel();
+            level.setPrice(buffer.getLong(position));
+            level.setQuantity(buffer.getLong(position + 8));
+            final int orders = buffer.getInt(position + 16);
+            position += 20;
+
+            DefaultOrderFlyweight firstOrder = null;
+            for (int j = 0; j < orders; j++) {
+                final byte kind = buffer.getByte(position);
+                final Side orderSide = Side.get(buffer.getByte(position + 1));
+                final long price = buffer.getLong(position + 2);
+                final long quantity = buffer.getLong(position + 10);
+                position += 18;
+
+                final DefaultOrderFlyweight order;
+                if (kind == LIMIT_ORDER) {
+                    order = new LimitOrderFlyweight(orderSide, price, quantity, buffer.getLong(position));
+                    position += 8;
+                } else {
+                    order = new MarketDataOrderFlyweight(orderSide, price, quantity);
+                }
+
+                if (firstOrder == null) {
+                    firstOrder = order;
+                    level.setFirstOrder(order);
+                } else {
+                    firstOrder.add(order);
+                }
+            }
+
+            if (firstLevel == null) {
+                firstLevel = level;
+                side.setFirstLevel(level);
+            } else {
+                firstLevel.add(level);
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,123 @@
+package codingblackfemales.orderbook;
+
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.IoUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes {@link OrderBookSnapshot}s of a book to a directory, one file per snapshot named after the sequencerNumber
+ * it was taken at. Only the most recent few are kept.
+ *
+ * Snapshots must be taken between commands, when no message is being dispatched, as a book part way through
+ * matching an order is not in a state worth restoring. {@link #maybeSnapshot()} is cheap enough to call after every
+ * command.
+ */
+public class OrderBookSnapshotter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderBookSnapshotter.class);
+
+    public static final String FILE_SUFFIX = ".snapshot";
+
+    private static final int SNAPSHOTS_KEPT = 3;
+
+    private final OrderBook book;
+    private final File directory;
+    private final long interval;
+
+    private final ExpandableDirectByteBuffer buffer = new ExpandableDirectByteBuffer(64 * 1024);
+    private long lastSnapshotSequencerNumber;
+
+    /**
+     * @param interval how many sequencerNumbers apart snapshots are taken by {@link #maybeSnapshot()}.
+     */
+    public OrderBookSnapshotter(final OrderBook book, final File directory, final long interval) {
+        this.book = book;
+        this.directory = directory;
+        this.interval = interval;
+        this.lastSnapshotSequencerNumber = book.getLastSequencerNumber();
+        IoUtil.ensureDirectoryExists(directory, "snapshots");
+    }
+
+    /**
+     * @return true if a snapshot was due and has been written.
+     */
+    public boolean maybeSnapshot() {
+        if (book.getLastSequencerNumber() - lastSnapshotSequencerNumber < interval) {
+            return false;
+        }
+        snapshot();
+        return true;
+    }
+
+    public File snapshot() {
+        final long sequencerNumber = book.getLastSequencerNumber();
+        final int length = OrderBookSnapshot.encode(book, buffer, 0);
+
+        final File file = new File(directory, fileName(sequencerNumber));
+        final File temporary = new File(directory, fileName(sequencerNumber) + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer byteBuffer = buffer.byteBuffer().duplicate();
+            byteBuffer.limit(length).position(0);
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        //a reader never sees a partly written snapshot under the final name
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        lastSnapshotSequencerNumber = sequencerNumber;
+        logger.info("[SNAPSHOT] Wrote " + file + " (" + length + " bytes)");
+        prune();
+        return file;
+    }
+
+    private void prune() {
+        final File[] snapshots = snapshots(directory);
+        for (int i = 0; i < snapshots.length - SNAPSHOTS_KEPT; i++) {
+            IoUtil.deleteIfExists(snapshots[i]);
+        }
+    }
+
+    static String fileName(final long sequencerNumber) {
+        return String.format("%020d%s", sequencerNumber, FILE_SUFFIX);
+    }
+
+    /**
+     * @return the snapshot files in the directory, oldest first.
+     */
+    static File[] snapshots(final File directory) {
+        final File[] snapshots = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (snapshots == null) {
+            return new File[0];
+        }
+        Arrays.sort(snapshots);
+        return snapshots;
+    }
+
+    /**
+     * @return the most recent snapshot in the directory, or null if there is none.
+     */
+    public static File latest(final File directory) {
+        final File[] snapshots = snapshots(directory);
+        return snapshots.length == 0 ? null : snapshots[snapshots.length - 1];
+    }
+}
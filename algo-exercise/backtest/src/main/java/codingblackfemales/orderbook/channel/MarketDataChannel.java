@@ -1,7 +1,11 @@
 package codingblackfemales.orderbook.channel;
 
+import codingblackfemales.orderbook.OrderBook;
 import codingblackfemales.sequencer.Sequencer;
+import messages.marketdata.*;
+import messages.order.Side;
 import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,6 +15,9 @@ public class MarketDataChannel {
 
     private final Sequencer sequencer;
 
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final TradeEncoder tradeEncoder = new TradeEncoder();
+
     public MarketDataChannel(Sequencer sequencer) {
         this.sequencer = sequencer;
     }
@@ -19,4 +26,29 @@ public class MarketDataChannel {
         logger.info("[ORDERBOOK] Sending market data update...");
         sequencer.onCommand(buffer);
     }
+
+    public void publish(DirectBuffer buffer, int length){
+        logger.info("[ORDERBOOK] Sending market data update...");
+        sequencer.onCommand(buffer, 0, length);
+    }
+
+    /**
+     * Prints a match publicly, aggressor is the side of the order that took the liquidity.
+     */
+    public void publishTrade(final long price, final long size, final Side aggressor){
+
+        final MutableDirectBuffer directBuffer = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + TradeEncoder.BLOCK_LENGTH);
+
+        tradeEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        tradeEncoder.instrumentId(OrderBook.INSTRUMENT_ID);
+        tradeEncoder.venue(Venue.XLON);
+        tradeEncoder.source(Source.ORDERBOOK);
+        tradeEncoder.price(price);
+        tradeEncoder.size(size);
+        tradeEncoder.aggressorSide(aggressor == Side.BUY ? AggressorSide.BUY : AggressorSide.SELL);
+
+        logger.info("[ORDERBOOK] publishing trade to stream: " + tradeEncoder);
+
+        this.sequencer.commit();
+    }
 }
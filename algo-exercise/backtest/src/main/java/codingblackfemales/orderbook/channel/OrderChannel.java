@@ -2,42 +2,200 @@ package codingblackfemales.orderbook.channel;
 
 import codingblackfemales.orderbook.order.LimitOrderFlyweight;
 import codingblackfemales.sequencer.Sequencer;
+import messages.order.AckedOrderEncoder;
+import messages.order.CancelAckedOrderEncoder;
 import messages.order.FillOrderEncoder;
 import messages.order.MessageHeaderEncoder;
-import org.agrona.concurrent.UnsafeBuffer;
+import messages.order.RejectOrderEncoder;
+import messages.order.RejectReason;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.OffsetEpochNanoClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 
+/**
+ * Publishes the book's responses to orders. Made with only a sequencer it publishes fills straight away and nothing
+ * else, as algos written before acks expect. Made with a latency it also publishes acks, cancel acks and rejects, and
+ * holds each response until that long after the book produced it, to be published by the first {@link #releaseDue()}
+ * after that. All responses share the one queue so they arrive in the order the book produced them.
+ *
+ * The book releases due responses on every message it sees. When nothing more reaches the book, whatever drives it
+ * must call {@link #releaseDue()} as time moves on, a backtest once it has moved its clock to {@link #nextDueNanos()},
+ * or else the responses wait for the next message and arrive late.
+ */
 public class OrderChannel {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderChannel.class);
 
+    private static final int FILL = 1;
+    private static final int ACK = 2;
+    private static final int CANCEL_ACK = 3;
+    private static final int REJECT = 4;
+
     private final Sequencer sequencer;
+    private final boolean acking;
+    private final long latencyNanos;
+    private final EpochNanoClock clock;
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final FillOrderEncoder fillEncoder = new FillOrderEncoder();
+    private final AckedOrderEncoder ackEncoder = new AckedOrderEncoder();
+    private final CancelAckedOrderEncoder cancelAckEncoder = new CancelAckedOrderEncoder();
+    private final RejectOrderEncoder rejectEncoder = new RejectOrderEncoder();
+
+    private final ArrayDeque<Response> pending = new ArrayDeque<>();
+    private final ArrayDeque<Response> pool = new ArrayDeque<>();
+    private boolean releasing = false;
 
     public OrderChannel(Sequencer sequencer) {
+        this(sequencer, false, 0L, new OffsetEpochNanoClock());
+    }
+
+    /**
+     * @param latencyNanos how long after the book produces a response it is published, 0 publishes straight away.
+     * @param clock        when a response was produced and when it comes due, backtests can share the sequencer's.
+     */
+    public OrderChannel(final Sequencer sequencer, final long latencyNanos, final EpochNanoClock clock) {
+        this(sequencer, true, latencyNanos, clock);
+    }
+
+    private OrderChannel(final Sequencer sequencer, final boolean acking, final long latencyNanos, final EpochNanoClock clock) {
+        if (latencyNanos < 0) {
+            throw new IllegalArgumentException("latencyNanos must not be negative, was " + latencyNanos);
+        }
         this.sequencer = sequencer;
+        this.acking = acking;
+        this.latencyNanos = latencyNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * @return whether acks, cancel acks and rejects are published, if not the book should not act on them either.
+     */
+    public boolean isAcking() {
+        return acking;
+    }
+
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * @return responses held back by the latency which have not been published yet.
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return when the oldest held response is due, Long.MAX_VALUE when none are held.
+     */
+    public long nextDueNanos() {
+        return pending.isEmpty() ? Long.MAX_VALUE : pending.peekFirst().dueNanos;
     }
 
     public void publishFill(final long fillQuantity, final long price, final LimitOrderFlyweight limit){
+        respond(FILL, limit.getOrderId(), fillQuantity, price, null);
+    }
+
+    public void publishAck(final long orderId){
+        if (acking) {
+            respond(ACK, orderId, 0L, 0L, null);
+        }
+    }
+
+    public void publishCancelAck(final long orderId){
+        if (acking) {
+            respond(CANCEL_ACK, orderId, 0L, 0L, null);
+        }
+    }
+
+    public void publishReject(final long orderId, final RejectReason reason){
+        if (acking) {
+            respond(REJECT, orderId, 0L, 0L, reason);
+        }
+    }
 
-        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1024);
-        final UnsafeBuffer directBuffer = new UnsafeBuffer(byteBuffer);
-        final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    /**
+     * Publishes, oldest first, every held response whose latency has passed. Responses published from here can cause
+     * more responses and calls back in here, those are left for the outermost call so nothing overtakes.
+     */
+    public void releaseDue(){
+        if (releasing || pending.isEmpty()) {
+            return;
+        }
+        releasing = true;
+        try {
+            while (!pending.isEmpty() && pending.peekFirst().dueNanos <= clock.nanoTime()) {
+                final Response response = pending.pollFirst();
+                publish(response.type, response.orderId, response.quantity, response.price, response.reason);
+                pool.addLast(response);
+            }
+        } finally {
+            releasing = false;
+        }
+    }
+
+    private void respond(final int type, final long orderId, final long quantity, final long price, final RejectReason reason){
+        if (latencyNanos == 0L && pending.isEmpty()) {
+            publish(type, orderId, quantity, price, reason);
+            return;
+        }
+        final Response response = pool.isEmpty() ? new Response() : pool.pollFirst();
+        response.type = type;
+        response.orderId = orderId;
+        response.quantity = quantity;
+        response.price = price;
+        response.reason = reason;
+        response.dueNanos = clock.nanoTime() + latencyNanos;
+        pending.addLast(response);
+    }
+
+    private void publish(final int type, final long orderId, final long quantity, final long price, final RejectReason reason){
+        if (type == FILL) {
+            final MutableDirectBuffer directBuffer = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + FillOrderEncoder.BLOCK_LENGTH);
 
-        final FillOrderEncoder fillEncoder = new FillOrderEncoder();
-        //write the encoded output to the direct buffer
-        fillEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+            //write the encoded output to the direct buffer
+            fillEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
 
+            fillEncoder.orderId(orderId);
+            fillEncoder.quantity(quantity);
+            fillEncoder.price(price);
 
-        fillEncoder.orderId(limit.getOrderId());
-        fillEncoder.quantity(fillQuantity);
-        fillEncoder.price(price);
+            logger.info("[ORDERBOOK] publishing fill to stream: " + fillEncoder);
+        } else if (type == ACK) {
+            final MutableDirectBuffer directBuffer = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + AckedOrderEncoder.BLOCK_LENGTH);
+            ackEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+            ackEncoder.orderId(orderId);
 
-        logger.info("[ORDERBOOK] publishing fill to stream: " + fillEncoder);
+            logger.info("[ORDERBOOK] publishing ack to stream: " + ackEncoder);
+        } else if (type == CANCEL_ACK) {
+            final MutableDirectBuffer directBuffer = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + CancelAckedOrderEncoder.BLOCK_LENGTH);
+            cancelAckEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+            cancelAckEncoder.orderId(orderId);
 
-        this.sequencer.onCommand(directBuffer);
+            logger.info("[ORDERBOOK] publishing cancel ack to stream: " + cancelAckEncoder);
+        } else {
+            final MutableDirectBuffer directBuffer = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + RejectOrderEncoder.BLOCK_LENGTH);
+            rejectEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+            rejectEncoder.orderId(orderId);
+            rejectEncoder.reason(reason);
+
+            logger.info("[ORDERBOOK] publishing reject to stream: " + rejectEncoder);
+        }
+
+        this.sequencer.commit();
     }
 
+    private static final class Response {
+        private int type;
+        private long orderId;
+        private long quantity;
+        private long price;
+        private RejectReason reason;
+        private long dueNanos;
+    }
 }
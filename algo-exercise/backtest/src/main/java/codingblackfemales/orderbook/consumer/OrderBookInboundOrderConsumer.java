@@ -19,6 +19,7 @@ public class OrderBookInboundOrderConsumer extends OrderEventListener {
 
     @Override
     public void onCreateOrder(CreateOrderDecoder create) {
+        book.markApplied(sequencerNumber());
         final var limit = new LimitOrderFlyweight(create.side(), create.price(), create.quantity(), create.orderId());
         //logger.info("Adding limit Order:" + limit + " to book");
         book.onLimitOrder(limit);
@@ -26,9 +27,22 @@ public class OrderBookInboundOrderConsumer extends OrderEventListener {
 
     @Override
     public void onCancelOrder(CancelOrderDecoder cancel) {
+        book.markApplied(sequencerNumber());
         book.onCancelOrder(cancel.orderId());
     }
 
+    @Override
+    public void onReplaceOrder(ReplaceOrderDecoder replace) {
+        book.markApplied(sequencerNumber());
+        book.onReplaceOrder(replace.orderId(), replace.price(), replace.quantity());
+    }
+
+    @Override
+    public void onMassCancel(MassCancelDecoder massCancel) {
+        book.markApplied(sequencerNumber());
+        book.onMassCancel(massCancel.instrumentId(), massCancel.side());
+    }
+
     @Override
     public void onAckedOrder(AckedOrderDecoder acked) {
 
@@ -13,10 +13,16 @@ public class CancelOrderVisitor implements OrderBookVisitor{
 
     private final long orderId;
 
+    private boolean found = false;
+
     public CancelOrderVisitor(final long orderId) {
         this.orderId = orderId;
     }
 
+    public boolean isFound() {
+        return found;
+    }
+
     @Override
     public void visitSide(OrderBookSide side) {}
 
@@ -31,6 +37,7 @@ public class CancelOrderVisitor implements OrderBookVisitor{
             LimitOrderFlyweight limit = (LimitOrderFlyweight) order;
             if(limit.getOrderId() == orderId){
                 logger.info("[ORDERBOOK] Cancelling order: " + limit);
+                found = true;
                 level.setFirstOrder(limit.remove());
                 level.setQuantity(level.getQuantity() - limit.getQuantity());
             }
@@ -0,0 +1,61 @@
+package codingblackfemales.orderbook.visitor;
+
+import codingblackfemales.orderbook.OrderBookLevel;
+import codingblackfemales.orderbook.OrderBookSide;
+import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
+import codingblackfemales.orderbook.order.LimitOrderFlyweight;
+import org.agrona.collections.LongArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Takes every limit order out of the sides it visits in one walk, leaving the market data orders where they are.
+ */
+public class MassCancelOrderVisitor implements OrderBookVisitor{
+
+    private static final Logger logger = LoggerFactory.getLogger(MassCancelOrderVisitor.class);
+
+    private final LongArrayList cancelledOrderIds = new LongArrayList();
+
+    public int getCancelled() {
+        return cancelledOrderIds.size();
+    }
+
+    public LongArrayList getCancelledOrderIds() {
+        return cancelledOrderIds;
+    }
+
+    @Override
+    public void visitSide(OrderBookSide side) {}
+
+    @Override
+    public void visitLevel(OrderBookSide side, OrderBookLevel level) {
+
+    }
+
+    @Override
+    public void visitOrder(DefaultOrderFlyweight order, OrderBookSide side, OrderBookLevel level, boolean isLast) {
+        if(order instanceof LimitOrderFlyweight){
+            LimitOrderFlyweight limit = (LimitOrderFlyweight) order;
+            logger.debug("[ORDERBOOK] Cancelling order: " + limit);
+            level.setFirstOrder(limit.remove());
+            level.setQuantity(level.getQuantity() - limit.getQuantity());
+            cancelledOrderIds.addLong(limit.getOrderId());
+        }
+    }
+
+    @Override
+    public OrderBookLevel missingBookLevel(OrderBookLevel previous, OrderBookLevel next, long price) {
+        return null;
+    }
+
+    @Override
+    public OrderBookLevel onNoFirstLevel() {
+        return null;
+    }
+
+    @Override
+    public DefaultOrderFlyweight onNoFirstOrder() {
+        return null;
+    }
+}
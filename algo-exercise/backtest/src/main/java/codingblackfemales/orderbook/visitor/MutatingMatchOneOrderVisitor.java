@@ -2,6 +2,7 @@ package codingblackfemales.orderbook.visitor;
 
 import codingblackfemales.orderbook.OrderBookLevel;
 import codingblackfemales.orderbook.OrderBookSide;
+import codingblackfemales.orderbook.channel.MarketDataChannel;
 import codingblackfemales.orderbook.channel.OrderChannel;
 import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
 import codingblackfemales.orderbook.order.LimitOrderFlyweight;
@@ -19,12 +20,21 @@ public class MutatingMatchOneOrderVisitor implements OrderBookVisitor{
     private boolean isFullyFilled = false;
 
     private final OrderChannel orderChannel;
+    private final MarketDataChannel marketDataChannel;
 
     public MutatingMatchOneOrderVisitor(final LimitOrderFlyweight orderToMatch, final OrderChannel orderChannel) {
+        this(orderToMatch, orderChannel, null);
+    }
+
+    /**
+     * @param marketDataChannel prints a trade for every fill, none are printed when null.
+     */
+    public MutatingMatchOneOrderVisitor(final LimitOrderFlyweight orderToMatch, final OrderChannel orderChannel, final MarketDataChannel marketDataChannel) {
         this.filledQuantity = 0;
         this.orderToMatch = orderToMatch;
         this.remainingQuantity = orderToMatch.getQuantity();
         this.orderChannel = orderChannel;
+        this.marketDataChannel = marketDataChannel;
     }
 
     @Override
@@ -77,6 +87,9 @@ public class MutatingMatchOneOrderVisitor implements OrderBookVisitor{
     private void publishFill(final long quantity, final long price, LimitOrderFlyweight orderFlyweight){
         logger.info("[ORDERBOOK] Filled " + quantity + "@" + price + " for order:" + orderFlyweight);
         orderChannel.publishFill(quantity, price, orderFlyweight);
+        if(marketDataChannel != null){
+            marketDataChannel.publishTrade(price, quantity, orderToMatch.getSide());
+        }
     }
 
     private boolean priceIsEqualOrMoreAggressive(final DefaultOrderFlyweight bookOrder, final LimitOrderFlyweight orderToMatch){
@@ -0,0 +1,210 @@
+package codingblackfemales.orderbook.visitor;
+
+import codingblackfemales.orderbook.AskBookSide;
+import codingblackfemales.orderbook.OrderBook;
+import codingblackfemales.orderbook.OrderBookLevel;
+import codingblackfemales.orderbook.OrderBookSide;
+import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
+import messages.marketdata.*;
+import org.agrona.MutableDirectBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Encodes a {@link BookDeltaEncoder} holding only the levels that differ from what consumers were last sent, the
+ * base. Each side is diffed against its base as it is visited, so the message carries O(changes) entries while
+ * the walk stays O(depth) and allocation free. {@link #end()} makes the book as visited the new base.
+ */
+public class ReadOnlyBookDeltaPublishVisitor implements OrderBookVisitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadOnlyBookDeltaPublishVisitor.class);
+
+    /**
+     * Price levels of one side in book order, best first.
+     */
+    public static class PriceLevels {
+
+        private long[] prices = new long[16];
+        private long[] sizes = new long[16];
+        private int count = 0;
+
+        public void clear() {
+            count = 0;
+        }
+
+        public void add(final long price, final long size) {
+            if (count == prices.length) {
+                prices = Arrays.copyOf(prices, count * 2);
+                sizes = Arrays.copyOf(sizes, count * 2);
+            }
+            prices[count] = price;
+            sizes[count] = size;
+            count++;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public long price(final int i) {
+            return prices[i];
+        }
+
+        public long size(final int i) {
+            return sizes[i];
+        }
+
+        private void copyFrom(final PriceLevels other) {
+            clear();
+            for (int i = 0; i < other.count; i++) {
+                add(other.prices[i], other.sizes[i]);
+            }
+        }
+    }
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookDeltaEncoder encoder = new BookDeltaEncoder();
+
+    //indexed by BookSide ordinal, base is what consumers hold, visited is the book as walked since start
+    private final PriceLevels[] base = {new PriceLevels(), new PriceLevels()};
+    private final PriceLevels[] visited = {new PriceLevels(), new PriceLevels()};
+    private final PriceLevels[] staged = {new PriceLevels(), new PriceLevels()};
+
+    private long[] entryPrices = new long[16];
+    private long[] entrySizes = new long[16];
+    private BookSide[] entrySides = new BookSide[16];
+    private UpdateAction[] entryActions = new UpdateAction[16];
+    private int entryCount = 0;
+
+    private MutableDirectBuffer directBuffer;
+
+    public void start(final MutableDirectBuffer directBuffer){
+        this.directBuffer = directBuffer;
+        entryCount = 0;
+        visited[BookSide.BID.ordinal()].clear();
+        visited[BookSide.ASK.ordinal()].clear();
+
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(OrderBook.INSTRUMENT_ID);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        encoder.source(Source.ORDERBOOK);
+    }
+
+    public MutableDirectBuffer end(){
+        final var entries = encoder.entriesCount(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            entries.next().price(entryPrices[i]).size(entrySizes[i]).side(entrySides[i]).action(entryActions[i]);
+        }
+        for (int i = 0; i < base.length; i++) {
+            final PriceLevels previous = base[i];
+            base[i] = visited[i];
+            visited[i] = previous;
+        }
+        return directBuffer;
+    }
+
+    /**
+     * @return how many bytes of the buffer the delta encoded since {@link #start} takes, header included.
+     */
+    public int length(){
+        return MessageHeaderEncoder.ENCODED_LENGTH + encoder.encodedLength();
+    }
+
+    /**
+     * @return how many levels the delta encoded by the last {@link #end()} adds, changes or deletes.
+     */
+    public int entryCount(){
+        return entryCount;
+    }
+
+    /**
+     * @return levels to fill with a snapshot consumers are about to apply, they become the base on {@link #commit}.
+     */
+    public PriceLevels stage(final BookSide side){
+        final PriceLevels levels = staged[side.ordinal()];
+        levels.clear();
+        return levels;
+    }
+
+    public void commit(final BookSide side){
+        base[side.ordinal()].copyFrom(staged[side.ordinal()]);
+    }
+
+    @Override
+    public void visitLevel(OrderBookSide side, OrderBookLevel level) {}
+
+    @Override
+    public void visitSide(OrderBookSide side) {
+        final BookSide bookSide = side instanceof AskBookSide ? BookSide.ASK : BookSide.BID;
+        final PriceLevels current = visited[bookSide.ordinal()];
+        for (OrderBookLevel level = side.getFirstLevel(); level != null; level = level.next()) {
+            current.add(level.getPrice(), level.getQuantity());
+        }
+
+        //both are in book order, so one merge pass finds every change
+        final PriceLevels previous = base[bookSide.ordinal()];
+        int i = 0;
+        int j = 0;
+        while (i < current.count && j < previous.count) {
+            final long price = current.prices[i];
+            if (price == previous.prices[j]) {
+                if (current.sizes[i] != previous.sizes[j]) {
+                    addEntry(price, current.sizes[i], bookSide, UpdateAction.CHANGE);
+                }
+                i++;
+                j++;
+            } else if (isBetter(bookSide, price, previous.prices[j])) {
+                addEntry(price, current.sizes[i++], bookSide, UpdateAction.NEW);
+            } else {
+                addEntry(previous.prices[j++], 0L, bookSide, UpdateAction.DELETE);
+            }
+        }
+        while (i < current.count) {
+            addEntry(current.prices[i], current.sizes[i++], bookSide, UpdateAction.NEW);
+        }
+        while (j < previous.count) {
+            addEntry(previous.prices[j++], 0L, bookSide, UpdateAction.DELETE);
+        }
+    }
+
+    private static boolean isBetter(final BookSide side, final long price, final long than) {
+        return side == BookSide.BID ? price > than : price < than;
+    }
+
+    private void addEntry(final long price, final long size, final BookSide side, final UpdateAction action) {
+        if (entryCount == entryPrices.length) {
+            final int capacity = entryCount * 2;
+            entryPrices = Arrays.copyOf(entryPrices, capacity);
+            entrySizes = Arrays.copyOf(entrySizes, capacity);
+            entrySides = Arrays.copyOf(entrySides, capacity);
+            entryActions = Arrays.copyOf(entryActions, capacity);
+        }
+        logger.debug("Adding Mkt Data Delta " + action + " " + side + ": Price=" + price + " Qty=" + size);
+        entryPrices[entryCount] = price;
+        entrySizes[entryCount] = size;
+        entrySides[entryCount] = side;
+        entryActions[entryCount] = action;
+        entryCount++;
+    }
+
+    @Override
+    public void visitOrder(DefaultOrderFlyweight order, OrderBookSide side, OrderBookLevel level, boolean isLast) {}
+
+    @Override
+    public OrderBookLevel missingBookLevel(OrderBookLevel previous, OrderBookLevel next, long price) {
+        return null;
+    }
+
+    @Override
+    public OrderBookLevel onNoFirstLevel() {
+        return null;
+    }
+
+    @Override
+    public DefaultOrderFlyweight onNoFirstOrder() {
+        return null;
+    }
+}
@@ -2,17 +2,15 @@ package codingblackfemales.orderbook.visitor;
 
 import codingblackfemales.orderbook.AskBookSide;
 import codingblackfemales.orderbook.BidBookSide;
+import codingblackfemales.orderbook.OrderBook;
 import codingblackfemales.orderbook.OrderBookLevel;
 import codingblackfemales.orderbook.OrderBookSide;
 import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
 import messages.marketdata.*;
 import org.agrona.MutableDirectBuffer;
-import org.agrona.concurrent.UnsafeBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
-
 public class ReadOnlyMarketDataChannelPublishVisitor implements OrderBookVisitor {
 
     private static final Logger logger = LoggerFactory.getLogger(ReadOnlyMarketDataChannelPublishVisitor.class);
@@ -20,17 +18,15 @@ public class ReadOnlyMarketDataChannelPublishVisitor implements OrderBookVisitor
     private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
     private final BookUpdateEncoder encoder = new BookUpdateEncoder();
 
-    private ByteBuffer byteBuffer; //= ByteBuffer.allocateDirect(1024);
-    private UnsafeBuffer directBuffer; //= new UnsafeBuffer(byteBuffer);
+    private MutableDirectBuffer directBuffer;
 
-    public void start(){
-        byteBuffer = ByteBuffer.allocateDirect(1024);
-        directBuffer = new UnsafeBuffer(byteBuffer);
+    public void start(final MutableDirectBuffer directBuffer){
+        this.directBuffer = directBuffer;
 
         encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
         //set the fields to desired valus
         encoder.venue(Venue.XLON);
-        encoder.instrumentId(123L);
+        encoder.instrumentId(OrderBook.INSTRUMENT_ID);
         encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
         encoder.source(Source.ORDERBOOK);
     }
@@ -39,14 +35,23 @@ public class ReadOnlyMarketDataChannelPublishVisitor implements OrderBookVisitor
         return directBuffer;
     }
 
+    /**
+     * @return how many bytes of the buffer the update encoded since {@link #start} takes, header included.
+     */
+    public int length(){
+        return MessageHeaderEncoder.ENCODED_LENGTH + encoder.encodedLength();
+    }
+
 
     @Override
     public void visitLevel(OrderBookSide side, OrderBookLevel level) {}
 
     @Override
     public void visitSide(OrderBookSide side) {
+        //groups are always written, even when empty, as the buffer is reused and would otherwise keep stale counts
         if(side instanceof BidBookSide){
             if(side.getFirstLevel() == null){
+                encoder.bidBookCount(0);
                 return;
             }
 
@@ -61,6 +66,7 @@ public class ReadOnlyMarketDataChannelPublishVisitor implements OrderBookVisitor
             }
         }else if(side instanceof AskBookSide){
             if(side.getFirstLevel() == null){
+                encoder.askBookCount(0);
                 return;
             }
             final var size = side.getFirstLevel().size();
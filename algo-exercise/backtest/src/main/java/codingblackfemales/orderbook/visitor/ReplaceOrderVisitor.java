@@ -0,0 +1,82 @@
+package codingblackfemales.orderbook.visitor;
+
+import codingblackfemales.orderbook.OrderBookLevel;
+import codingblackfemales.orderbook.OrderBookSide;
+import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
+import codingblackfemales.orderbook.order.LimitOrderFlyweight;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the order to replace. Taking quantity off an order at the same price is done in place, so the order keeps
+ * its place in the queue. Any other replace takes the order out of the book, {@link #getRemovedOrder()}, for the
+ * book to add back at the new price behind the orders already there.
+ */
+public class ReplaceOrderVisitor implements OrderBookVisitor{
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplaceOrderVisitor.class);
+
+    private final long orderId;
+    private final long price;
+    private final long quantity;
+
+    private LimitOrderFlyweight removedOrder;
+    private boolean found = false;
+
+    public ReplaceOrderVisitor(final long orderId, final long price, final long quantity) {
+        this.orderId = orderId;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    public LimitOrderFlyweight getRemovedOrder() {
+        return removedOrder;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    @Override
+    public void visitSide(OrderBookSide side) {}
+
+    @Override
+    public void visitLevel(OrderBookSide side, OrderBookLevel level) {
+
+    }
+
+    @Override
+    public void visitOrder(DefaultOrderFlyweight order, OrderBookSide side, OrderBookLevel level, boolean isLast) {
+        if(order instanceof LimitOrderFlyweight){
+            LimitOrderFlyweight limit = (LimitOrderFlyweight) order;
+            if(limit.getOrderId() == orderId){
+                found = true;
+                if(limit.getPrice() == price && quantity > 0 && quantity <= limit.getQuantity()){
+                    logger.info("[ORDERBOOK] Reducing order in place: " + limit + " to quantity " + quantity);
+                    level.setQuantity(level.getQuantity() - (limit.getQuantity() - quantity));
+                    limit.setQuantity(quantity);
+                }else{
+                    logger.info("[ORDERBOOK] Removing order to replace: " + limit);
+                    level.setFirstOrder(limit.remove());
+                    level.setQuantity(level.getQuantity() - limit.getQuantity());
+                    removedOrder = limit;
+                }
+            }
+        }
+    }
+
+    @Override
+    public OrderBookLevel missingBookLevel(OrderBookLevel previous, OrderBookLevel next, long price) {
+        return null;
+    }
+
+    @Override
+    public OrderBookLevel onNoFirstLevel() {
+        return null;
+    }
+
+    @Override
+    public DefaultOrderFlyweight onNoFirstOrder() {
+        return null;
+    }
+}
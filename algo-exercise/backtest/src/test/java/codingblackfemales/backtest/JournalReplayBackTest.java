@@ -0,0 +1,112 @@
+package codingblackfemales.backtest;
+
+import codingblackfemales.algo.PassiveAlgoLogic;
+import codingblackfemales.container.Actioner;
+import codingblackfemales.container.AlgoContainer;
+import codingblackfemales.container.RunTrigger;
+import codingblackfemales.orderbook.OrderBook;
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.orderbook.consumer.OrderBookInboundOrderConsumer;
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.journal.Journal;
+import codingblackfemales.sequencer.journal.ReplaySpeed;
+import codingblackfemales.sequencer.journal.ReplayStats;
+import codingblackfemales.sequencer.marketdata.SequencerTestCase;
+import codingblackfemales.sequencer.net.TestNetwork;
+import codingblackfemales.service.MarketDataService;
+import codingblackfemales.service.OrderService;
+import messages.marketdata.*;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JournalReplayBackTest extends SequencerTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder encoder = new BookUpdateEncoder();
+
+    private AlgoContainer container;
+
+    @Override
+    public Sequencer getSequencer() {
+        final TestNetwork network = new TestNetwork();
+        final Sequencer sequencer = new DefaultSequencer(network);
+
+        final RunTrigger runTrigger = new RunTrigger();
+        final Actioner actioner = new Actioner(sequencer);
+
+        final MarketDataChannel marketDataChannel = new MarketDataChannel(sequencer);
+        final OrderChannel orderChannel = new OrderChannel(sequencer);
+        final OrderBook book = new OrderBook(marketDataChannel, orderChannel);
+
+        final OrderBookInboundOrderConsumer orderConsumer = new OrderBookInboundOrderConsumer(book);
+
+        container = new AlgoContainer(new MarketDataService(runTrigger), new OrderService(runTrigger), runTrigger, actioner);
+        container.setLogic(new PassiveAlgoLogic());
+
+        network.addConsumer(book);
+        network.addConsumer(container.getMarketDataService());
+        network.addConsumer(container.getOrderService());
+        network.addConsumer(orderConsumer);
+        network.addConsumer(container);
+
+        return sequencer;
+    }
+
+    private UnsafeBuffer createTick(final long bestAsk) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.source(Source.STREAM);
+
+        encoder.bidBookCount(2)
+                .next().price(bestAsk - 2).size(100L)
+                .next().price(bestAsk - 5).size(200L);
+
+        encoder.askBookCount(2)
+                .next().price(bestAsk).size(101L)
+                .next().price(bestAsk + 10).size(200L);
+
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    private File recordMarketData(final int ticks) throws Exception {
+        final File directory = folder.newFolder("journal");
+        try (Journal journal = new Journal(directory)) {
+            final TestNetwork network = new TestNetwork();
+            network.addConsumer(journal);
+            final DefaultSequencer sequencer = new DefaultSequencer(network);
+            for (int i = 0; i < ticks; i++) {
+                sequencer.onCommand(createTick(100L + (i % 10)));
+            }
+        }
+        return directory;
+    }
+
+    @Test
+    public void testReplayRecordedMarketDataThroughBookAndAlgo() throws Exception {
+        final File journal = recordMarketData(1000);
+
+        final ReplayStats stats = replay(journal, ReplaySpeed.asFastAsPossible());
+
+        assertEquals(1000, stats.getMessagesReplayed());
+        assertTrue(stats.getMessagesPerSecond() > 0);
+        assertEquals(3, container.getState().getChildOrders().size());
+    }
+}
@@ -0,0 +1,256 @@
+package codingblackfemales.backtest;
+
+import codingblackfemales.action.CancelChildOrder;
+import codingblackfemales.action.CreateChildOrder;
+import codingblackfemales.action.MassCancelChildOrders;
+import codingblackfemales.action.ReplaceChildOrder;
+import codingblackfemales.container.RunTrigger;
+import codingblackfemales.orderbook.OrderBook;
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.orderbook.consumer.OrderBookInboundOrderConsumer;
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.marketdata.SequencerTestCase;
+import codingblackfemales.sequencer.net.TestNetwork;
+import codingblackfemales.service.OrderService;
+import codingblackfemales.sotw.ChildOrder;
+import codingblackfemales.sotw.OrderState;
+import messages.marketdata.*;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class OrderAckBackTest extends SequencerTestCase {
+
+    private static final long LATENCY = 1_000L;
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder encoder = new BookUpdateEncoder();
+
+    private long now = 1_000_000L;
+
+    private Sequencer sequencer;
+    private OrderChannel orderChannel;
+    private OrderBook book;
+    private OrderService orderService;
+
+    @Override
+    public Sequencer getSequencer() {
+        final TestNetwork network = new TestNetwork();
+        sequencer = new DefaultSequencer(network, 2L, () -> now);
+
+        final MarketDataChannel marketDataChannel = new MarketDataChannel(sequencer);
+        orderChannel = new OrderChannel(sequencer, LATENCY, () -> now);
+        book = new OrderBook(marketDataChannel, orderChannel);
+
+        orderService = new OrderService(new RunTrigger());
+
+        network.addConsumer(book);
+        network.addConsumer(orderService);
+        network.addConsumer(new OrderBookInboundOrderConsumer(book));
+
+        return sequencer;
+    }
+
+    private UnsafeBuffer createTick(){
+        return createTick(100L);
+    }
+
+    private UnsafeBuffer createTick(final long bestAsk){
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.source(Source.STREAM);
+
+        encoder.bidBookCount(2)
+                .next().price(98L).size(100L)
+                .next().price(95L).size(200L);
+
+        encoder.askBookCount(2)
+                .next().price(bestAsk).size(101L)
+                .next().price(110L).size(200L);
+
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    /**
+     * Moves the clock on with nothing reaching the book, releasing whatever comes due as a driver would.
+     */
+    private void advance(final long nanos){
+        final long until = now + nanos;
+        while (orderChannel.nextDueNanos() <= until) {
+            now = orderChannel.nextDueNanos();
+            book.releaseDue();
+        }
+        now = until;
+    }
+
+    private ChildOrder child(final int index){
+        return orderService.children().get(index);
+    }
+
+    @Test
+    public void testAcksArriveAfterTheLatency() throws Exception {
+        send(createTick());
+
+        new CreateChildOrder(Side.BUY, 50L, 97L).apply(sequencer);
+        assertEquals(OrderState.PENDING, child(0).getState());
+        assertEquals(1, orderChannel.pendingCount());
+
+        //not due yet
+        now += LATENCY - 1;
+        send(createTick());
+        assertEquals(OrderState.PENDING, child(0).getState());
+
+        now += 1;
+        send(createTick());
+        assertEquals(OrderState.ACKED, child(0).getState());
+        assertEquals(0, orderChannel.pendingCount());
+
+        final var createToAck = orderService.getLatencyTracker().createToAck();
+        assertEquals(1, createToAck.getTotalCount());
+        assertEquals(LATENCY, createToAck.getMaxValue(), LATENCY / 64);
+    }
+
+    @Test
+    public void testAckIsPublishedWhenNothingFollowsTheOrder() throws Exception {
+        send(createTick());
+        new CreateChildOrder(Side.BUY, 50L, 97L).apply(sequencer);
+
+        advance(LATENCY - 1);
+        assertEquals(OrderState.PENDING, child(0).getState());
+
+        advance(10 * LATENCY);
+        assertEquals(OrderState.ACKED, child(0).getState());
+        assertEquals(0, orderChannel.pendingCount());
+        assertEquals(Long.MAX_VALUE, orderChannel.nextDueNanos());
+
+        //measured at the latency, not at whenever the next message happened to arrive
+        final var createToAck = orderService.getLatencyTracker().createToAck();
+        assertEquals(LATENCY, createToAck.getMaxValue(), LATENCY / 64);
+    }
+
+    @Test
+    public void testCancelIsCancelAckedAfterTheLatency() throws Exception {
+        send(createTick());
+        new CreateChildOrder(Side.BUY, 50L, 97L).apply(sequencer);
+        now += LATENCY;
+        send(createTick());
+
+        new CancelChildOrder(child(0)).apply(sequencer);
+        now += 2 * LATENCY;
+        send(createTick());
+
+        assertEquals(OrderState.CANCELLED, child(0).getState());
+        final var cancelToCancelAck = orderService.getLatencyTracker().cancelToCancelAck();
+        assertEquals(1, cancelToCancelAck.getTotalCount());
+        assertEquals(2 * LATENCY, cancelToCancelAck.getMaxValue(), 2 * LATENCY / 64);
+    }
+
+    @Test
+    public void testPassiveFillIsMeasuredFromTheAck() throws Exception {
+        send(createTick());
+        new CreateChildOrder(Side.BUY, 50L, 99L).apply(sequencer);
+        now += LATENCY;
+        send(createTick());
+
+        //the market moving down to our resting buy fills it, the fill is held back like any other response
+        send(createTick(99L));
+        assertEquals(0L, child(0).getFilledQuantity());
+        now += LATENCY;
+        send(createTick());
+
+        assertEquals(50L, child(0).getFilledQuantity());
+        assertEquals(1, orderService.getLatencyTracker().ackToFill().getTotalCount());
+    }
+
+    @Test
+    public void testCrossingOrderIsAckedBeforeItsFills() throws Exception {
+        send(createTick());
+        new CreateChildOrder(Side.BUY, 50L, 100L).apply(sequencer);
+        advance(LATENCY);
+
+        assertEquals(50L, child(0).getFilledQuantity());
+        final var tracker = orderService.getLatencyTracker();
+        assertEquals(1, tracker.createToAck().getTotalCount());
+        assertEquals(1, tracker.ackToFill().getTotalCount());
+        assertEquals(0L, tracker.ackToFill().getMaxValue());
+    }
+
+    @Test
+    public void testRejectedReplaceLeavesTheChildAsTheBookHasIt() throws Exception {
+        send(createTick());
+        new CreateChildOrder(Side.BUY, 50L, 97L).apply(sequencer);
+        advance(LATENCY);
+
+        new ReplaceChildOrder(child(0), 40L, 0L).apply(sequencer);
+        assertEquals(0L, child(0).getPrice());
+        advance(LATENCY);
+
+        assertEquals(OrderState.ACKED, child(0).getState());
+        assertEquals(97L, child(0).getPrice());
+        assertEquals(50L, child(0).getQuantity());
+
+        //an accepted replace stands, and a later reject of something else does not undo it
+        new ReplaceChildOrder(child(0), 30L, 96L).apply(sequencer);
+        advance(LATENCY);
+        assertEquals(96L, child(0).getPrice());
+        assertEquals(30L, child(0).getQuantity());
+        assertFalse(child(0).replaceRejected());
+    }
+
+    @Test
+    public void testOrderWithoutQuantityIsRejected() throws Exception {
+        send(createTick());
+
+        new CreateChildOrder(Side.BUY, 0L, 97L).apply(sequencer);
+        now += LATENCY;
+        send(createTick());
+
+        assertEquals(OrderState.REJECTED, child(0).getState());
+        assertEquals(0, orderService.getLatencyTracker().createToAck().getTotalCount());
+    }
+
+    @Test
+    public void testMassCancelLeavesRejectedOrdersRejected() throws Exception {
+        send(createTick());
+        new CreateChildOrder(Side.BUY, 0L, 97L).apply(sequencer);
+        new CreateChildOrder(Side.BUY, 50L, 97L).apply(sequencer);
+        now += LATENCY;
+        send(createTick());
+
+        new MassCancelChildOrders(123L).apply(sequencer);
+        now += LATENCY;
+        send(createTick());
+
+        assertEquals(OrderState.REJECTED, child(0).getState());
+        assertEquals(OrderState.CANCELLED, child(1).getState());
+        assertEquals(0, orderService.getLatencyTracker().tracked());
+    }
+
+    @Test
+    public void testMassCancelForAnotherInstrumentLeavesTheChildOpen() throws Exception {
+        send(createTick());
+        new CreateChildOrder(Side.BUY, 50L, 97L).apply(sequencer);
+        now += LATENCY;
+        send(createTick());
+
+        new MassCancelChildOrders(999L).apply(sequencer);
+        now += LATENCY;
+        send(createTick());
+
+        assertEquals(CreateChildOrder.DEFAULT_INSTRUMENT_ID, child(0).getInstrumentId());
+        assertEquals(OrderState.ACKED, child(0).getState());
+        assertEquals(0, orderService.getLatencyTracker().cancelToCancelAck().getTotalCount());
+    }
+}
@@ -0,0 +1,90 @@
+package codingblackfemales.orderbook;
+
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.orderbook.order.LimitOrderFlyweight;
+import messages.marketdata.*;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.ByteBuffer;
+
+import static codingblackfemales.orderbook.MatchingOrderBookVisitorTest.wrapBufferInDecoder;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+public class MassCancelOrderBookVisitorTest {
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder bookUpdateEncoder = new BookUpdateEncoder();
+
+    private MarketDataChannel mktDataChannel;
+    private OrderBook book;
+
+    private UnsafeBuffer tick1(){
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        bookUpdateEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        bookUpdateEncoder.venue(Venue.XLON);
+        bookUpdateEncoder.instrumentId(123L);
+        bookUpdateEncoder.source(Source.STREAM);
+
+        bookUpdateEncoder.bidBookCount(3)
+                .next().price(100L).size(100L)
+                .next().price(96L).size(200L)
+                .next().price(93L).size(300L);
+
+        bookUpdateEncoder.askBookCount(2)
+                .next().price(101L).size(101L)
+                .next().price(115L).size(200L);
+
+        bookUpdateEncoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    @Before
+    public void setUp(){
+        mktDataChannel = Mockito.mock(MarketDataChannel.class);
+        book = new OrderBook(mktDataChannel, Mockito.mock(OrderChannel.class));
+        book.onBookUpdate(wrapBufferInDecoder(tick1()));
+
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 96L, 500L, 1));
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 96L, 50L, 2));
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 93L, 70L, 3));
+        book.onLimitOrder(new LimitOrderFlyweight(Side.SELL, 115L, 1_000L, 4));
+        Mockito.clearInvocations(mktDataChannel);
+    }
+
+    @Test
+    public void testMassCancelBothSides(){
+        book.onMassCancel(OrderBook.INSTRUMENT_ID, Side.NULL_VAL);
+
+        Assert.assertEquals(200L, book.getBidBookSide().getFirstLevel().next().getQuantity());
+        Assert.assertEquals(300L, book.getBidBookSide().getFirstLevel().next().next().getQuantity());
+        Assert.assertEquals(200L, book.getAskBookSide().getFirstLevel().next().getQuantity());
+        Mockito.verify(mktDataChannel, Mockito.times(1)).publish(any(), anyInt());
+    }
+
+    @Test
+    public void testMassCancelOneSide(){
+        book.onMassCancel(OrderBook.INSTRUMENT_ID, Side.BUY);
+
+        Assert.assertEquals(200L, book.getBidBookSide().getFirstLevel().next().getQuantity());
+        Assert.assertEquals(300L, book.getBidBookSide().getFirstLevel().next().next().getQuantity());
+        Assert.assertEquals(1_200L, book.getAskBookSide().getFirstLevel().next().getQuantity());
+    }
+
+    @Test
+    public void testMassCancelForAnotherInstrumentLeavesTheBook(){
+        book.onMassCancel(999L, Side.NULL_VAL);
+
+        Assert.assertEquals(750L, book.getBidBookSide().getFirstLevel().next().getQuantity());
+        Assert.assertEquals(1_200L, book.getAskBookSide().getFirstLevel().next().getQuantity());
+        Mockito.verify(mktDataChannel, Mockito.never()).publish(any(), anyInt());
+    }
+}
@@ -134,6 +134,22 @@ public class MatchingOrderBookVisitorTest {
         verify(orderChannel, times(1)).publishFill(eq(180L), eq(96L), any());
     }
 
+    @Test
+    public void testEveryMatchIsPrintedAsATrade(){
+
+        final MarketDataChannel mktDataChannel = Mockito.mock(MarketDataChannel.class);
+        final OrderChannel orderChannel = Mockito.mock(OrderChannel.class);
+
+        final OrderBook book = new OrderBook(mktDataChannel, orderChannel);
+
+        book.onBookUpdate(wrapBufferInDecoder(createBookUpdateMessageTick2()));
+
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 115L, 150L, 1));
+
+        verify(mktDataChannel, times(1)).publishTrade(eq(101L), eq(101L), eq(Side.BUY));
+        verify(mktDataChannel, times(1)).publishTrade(eq(115L), eq(49L), eq(Side.BUY));
+    }
+
 
     public static BookUpdateDecoder wrapBufferInDecoder(final UnsafeBuffer buffer){
         final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
@@ -0,0 +1,141 @@
+package codingblackfemales.orderbook;
+
+import codingblackfemales.container.RunTrigger;
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.orderbook.consumer.OrderBookInboundOrderConsumer;
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import codingblackfemales.service.MarketDataService;
+import messages.marketdata.*;
+import messages.order.CancelOrderEncoder;
+import messages.order.CreateOrderEncoder;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OrderBookDeltaTest {
+
+    private final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final BookDeltaDecoder delta = new BookDeltaDecoder();
+
+    private final List<Integer> deltaEntries = new ArrayList<>();
+
+    private DefaultSequencer sequencer;
+    private OrderBook book;
+    private MarketDataService marketDataService;
+
+    @Before
+    public void setUp() {
+        final TestNetwork network = new TestNetwork();
+        sequencer = new DefaultSequencer(network);
+        book = new OrderBook(new MarketDataChannel(sequencer), new OrderChannel(sequencer));
+        marketDataService = new MarketDataService(new RunTrigger());
+
+        network.addConsumer(buffer -> {
+            header.wrap(buffer, 0);
+            if (header.schemaId() == BookDeltaDecoder.SCHEMA_ID && header.templateId() == BookDeltaDecoder.TEMPLATE_ID) {
+                delta.wrap(buffer, header.encodedLength(), header.blockLength(), header.version());
+                deltaEntries.add(delta.entries().count());
+            }
+        });
+        network.addConsumer(book);
+        network.addConsumer(marketDataService);
+        network.addConsumer(new OrderBookInboundOrderConsumer(book));
+    }
+
+    private void tick(final long bestBid, final long bestAsk) {
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.source(Source.STREAM);
+        encoder.bidBookCount(3)
+                .next().price(bestBid).size(100L)
+                .next().price(bestBid - 5).size(200L)
+                .next().price(bestBid - 10).size(300L);
+        encoder.askBookCount(3)
+                .next().price(bestAsk).size(101L)
+                .next().price(bestAsk + 5).size(200L)
+                .next().price(bestAsk + 10).size(5000L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        sequencer.onCommand(directBuffer);
+    }
+
+    private void createOrder(final Side side, final long price, final long quantity) {
+        final CreateOrderEncoder encoder = new CreateOrderEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder());
+        encoder.instrumentId(123L).side(side).price(price).quantity(quantity);
+        sequencer.onCommand(directBuffer);
+    }
+
+    private void cancelOrder(final long orderId) {
+        final CancelOrderEncoder encoder = new CancelOrderEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder());
+        encoder.orderId(orderId);
+        sequencer.onCommand(directBuffer);
+    }
+
+    private void assertServiceMatchesBook() {
+        int i = 0;
+        for (OrderBookLevel level = book.getBidBookSide().getFirstLevel(); level != null; level = level.next(), i++) {
+            assertEquals(level.getPrice(), marketDataService.getBidLevel(i).getPrice());
+            assertEquals(level.getQuantity(), marketDataService.getBidLevel(i).getQuantity());
+        }
+        assertEquals(i, marketDataService.getBidLength());
+
+        i = 0;
+        for (OrderBookLevel level = book.getAskBookSide().getFirstLevel(); level != null; level = level.next(), i++) {
+            assertEquals(level.getPrice(), marketDataService.getAskLevel(i).getPrice());
+            assertEquals(level.getQuantity(), marketDataService.getAskLevel(i).getQuantity());
+        }
+        assertEquals(i, marketDataService.getAskLength());
+    }
+
+    @Test
+    public void testDeltasCarryOnlyTheChangedLevels() {
+        tick(98, 100);
+
+        createOrder(Side.BUY, 98, 50);
+        assertEquals(1, (int) deltaEntries.get(0));
+        assertServiceMatchesBook();
+
+        createOrder(Side.SELL, 104, 70);
+        assertEquals(1, (int) deltaEntries.get(1));
+        assertServiceMatchesBook();
+
+        createOrder(Side.BUY, 97, 30);
+        assertEquals(1, (int) deltaEntries.get(2));
+        assertServiceMatchesBook();
+
+        //takes out the best ask and part of the next level
+        createOrder(Side.BUY, 105, 150);
+        assertServiceMatchesBook();
+        assertEquals(98L, book.getBidBookSide().getFirstLevel().getPrice());
+        assertTrue(deltaEntries.get(3) <= 2);
+
+        cancelOrder(3);
+        assertServiceMatchesBook();
+    }
+
+    @Test
+    public void testDeltasFollowOnFromTheLastStreamUpdate() {
+        tick(98, 100);
+        createOrder(Side.BUY, 97, 30);
+        assertServiceMatchesBook();
+
+        //the service replaces its book with the tick, the next delta puts back the order resting on top of it
+        tick(99, 101);
+        createOrder(Side.SELL, 120, 10);
+        assertServiceMatchesBook();
+        assertEquals(2, (int) deltaEntries.get(1));
+    }
+}
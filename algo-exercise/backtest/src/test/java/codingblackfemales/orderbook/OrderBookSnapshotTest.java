@@ -0,0 +1,276 @@
+package codingblackfemales.orderbook;
+
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.orderbook.consumer.OrderBookInboundOrderConsumer;
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.journal.Journal;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.*;
+import messages.order.CancelOrderEncoder;
+import messages.order.CreateOrderEncoder;
+import messages.order.Side;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class OrderBookSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+    private static final long LATENCY = 1_000L;
+
+    private DefaultSequencer sequencer;
+    private OrderChannel orderChannel;
+    private OrderBook book;
+    private long now = 1_000_000L;
+
+    private void createGraph(final Journal journal) {
+        createGraph(journal, false);
+    }
+
+    private void createGraph(final Journal journal, final boolean acking) {
+        final TestNetwork network = new TestNetwork();
+        sequencer = new DefaultSequencer(network);
+        orderChannel = acking ? new OrderChannel(sequencer, LATENCY, () -> now) : new OrderChannel(sequencer);
+        book = new OrderBook(new MarketDataChannel(sequencer), orderChannel);
+
+        network.addConsumer(journal);
+        network.addConsumer(book);
+        network.addConsumer(new OrderBookInboundOrderConsumer(book));
+    }
+
+    private void tick(final long bestBid, final long bestAsk) {
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.source(Source.STREAM);
+        encoder.askBookCount(2)
+                .next().price(bestAsk).size(101L)
+                .next().price(bestAsk + 5).size(200L);
+        encoder.bidBookCount(2)
+                .next().price(bestBid).size(100L)
+                .next().price(bestBid - 5).size(200L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        sequencer.onCommand(directBuffer);
+    }
+
+    private void createOrder(final Side side, final long price, final long quantity) {
+        final CreateOrderEncoder encoder = new CreateOrderEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder());
+        encoder.instrumentId(123L).side(side).price(price).quantity(quantity);
+        sequencer.onCommand(directBuffer);
+    }
+
+    private void cancelOrder(final long orderId) {
+        final CancelOrderEncoder encoder = new CancelOrderEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder());
+        encoder.orderId(orderId);
+        sequencer.onCommand(directBuffer);
+    }
+
+    private static byte[] image(final OrderBook book) {
+        final ExpandableDirectByteBuffer buffer = new ExpandableDirectByteBuffer(1024);
+        final byte[] bytes = new byte[OrderBookSnapshot.encode(book, buffer, 0)];
+        buffer.getBytes(0, bytes);
+        return bytes;
+    }
+
+    private static OrderBook emptyBook() {
+        final DefaultSequencer sequencer = new DefaultSequencer(new TestNetwork());
+        return new OrderBook(new MarketDataChannel(sequencer), new OrderChannel(sequencer));
+    }
+
+    private static OrderBook emptyAckingBook() {
+        final DefaultSequencer sequencer = new DefaultSequencer(new TestNetwork());
+        return new OrderBook(new MarketDataChannel(sequencer), new OrderChannel(sequencer, LATENCY, () -> 0L));
+    }
+
+    @Test
+    public void testSnapshotRestoresTheSameBook() {
+        try (Journal journal = new Journal(folder.getRoot())) {
+            createGraph(journal);
+            tick(98, 100);
+            createOrder(Side.BUY, 97, 50);
+            createOrder(Side.BUY, 97, 60);
+            createOrder(Side.SELL, 104, 70);
+        }
+
+        final ExpandableDirectByteBuffer buffer = new ExpandableDirectByteBuffer(1024);
+        OrderBookSnapshot.encode(book, buffer, 0);
+
+        final OrderBook restored = emptyBook();
+        assertEquals(book.getLastSequencerNumber(), OrderBookSnapshot.decode(buffer, 0, restored));
+        assertArrayEquals(image(book), image(restored));
+    }
+
+    @Test
+    public void testRecoveryFromSnapshotAndJournalTailMatchesTheLiveBook() {
+        final File journalDirectory = new File(folder.getRoot(), "journal");
+        final File snapshotDirectory = new File(folder.getRoot(), "snapshots");
+
+        try (Journal journal = new Journal(journalDirectory)) {
+            createGraph(journal);
+            final OrderBookSnapshotter snapshotter = new OrderBookSnapshotter(book, snapshotDirectory, 1_000);
+
+            tick(98, 100);
+            createOrder(Side.BUY, 97, 50);
+            createOrder(Side.SELL, 104, 70);
+            snapshotter.snapshot();
+
+            //the tail: more resting liquidity, a cancel, and an order that trades
+            createOrder(Side.BUY, 96, 30);
+            cancelOrder(1);
+            tick(99, 101);
+            createOrder(Side.BUY, 101, 20);
+        }
+
+        final OrderBook recovered = emptyBook();
+        final long sequencerNumber = OrderBookRecovery.recover(snapshotDirectory, journalDirectory, recovered);
+
+        assertTrue(sequencerNumber > 0);
+        assertEquals(book.getLastSequencerNumber(), sequencerNumber);
+        assertArrayEquals(image(book), image(recovered));
+    }
+
+    @Test
+    public void testRecoveryValidatesOrdersWhenTheLiveBookAcks() {
+        final File journalDirectory = new File(folder.getRoot(), "journal");
+        final File snapshotDirectory = new File(folder.getRoot(), "snapshots");
+
+        try (Journal journal = new Journal(journalDirectory)) {
+            createGraph(journal, true);
+            final OrderBookSnapshotter snapshotter = new OrderBookSnapshotter(book, snapshotDirectory, 1_000);
+
+            tick(98, 100);
+            createOrder(Side.BUY, 97, 50);
+            now += LATENCY;
+            snapshotter.snapshot();
+
+            //rejected by the live book, a scratch book that did not ack would rest them
+            createOrder(Side.BUY, 0, 30);
+            createOrder(Side.SELL, 104, 0);
+            createOrder(Side.SELL, 105, 40);
+        }
+
+        final OrderBook recovered = emptyAckingBook();
+        OrderBookRecovery.recover(snapshotDirectory, journalDirectory, recovered);
+        assertArrayEquals(image(book), image(recovered));
+    }
+
+    @Test
+    public void testResponsesHeldBackAtTheSnapshotAreDropped() {
+        try (Journal journal = new Journal(folder.getRoot())) {
+            createGraph(journal, true);
+            tick(98, 100);
+            createOrder(Side.BUY, 97, 50);
+        }
+        assertEquals(1, orderChannel.pendingCount());
+
+        final ExpandableDirectByteBuffer buffer = new ExpandableDirectByteBuffer(1024);
+        OrderBookSnapshot.encode(book, buffer, 0);
+
+        final DefaultSequencer restoredSequencer = new DefaultSequencer(new TestNetwork());
+        final OrderChannel restoredChannel = new OrderChannel(restoredSequencer, LATENCY, () -> now);
+        final OrderBook restored = new OrderBook(new MarketDataChannel(restoredSequencer), restoredChannel);
+        OrderBookSnapshot.decode(buffer, 0, restored);
+
+        assertArrayEquals(image(book), image(restored));
+        assertEquals(0, restoredChannel.pendingCount());
+    }
+
+    @Test
+    public void testTradingCarriesOnLiveAfterRecovery() {
+        final File journalDirectory = new File(folder.getRoot(), "journal");
+        final File snapshotDirectory = new File(folder.getRoot(), "snapshots");
+
+        try (Journal journal = new Journal(journalDirectory)) {
+            createGraph(journal);
+            final OrderBookSnapshotter snapshotter = new OrderBookSnapshotter(book, snapshotDirectory, 1_000);
+            tick(98, 100);
+            createOrder(Side.BUY, 97, 50);
+            snapshotter.snapshot();
+            createOrder(Side.SELL, 104, 70);
+        }
+        final long lastSequencerNumber = book.getLastSequencerNumber();
+        final long lastOrderId = book.getHighestOrderId();
+
+        //restarted: the reopened journal carries on from what is on disk, so must the sequencer
+        try (Journal journal = new Journal(journalDirectory)) {
+            final TestNetwork network = new TestNetwork();
+            sequencer = new DefaultSequencer(network);
+            book = new OrderBook(new MarketDataChannel(sequencer), new OrderChannel(sequencer));
+            network.addConsumer(journal);
+            network.addConsumer(book);
+            network.addConsumer(new OrderBookInboundOrderConsumer(book));
+
+            final long recovered = OrderBookRecovery.recover(snapshotDirectory, journalDirectory, book);
+            assertEquals(lastSequencerNumber, recovered);
+            assertEquals(lastOrderId, book.getHighestOrderId());
+            sequencer.resumeAfter(recovered, book.getHighestOrderId());
+
+            createOrder(Side.SELL, 105, 40);
+            cancelOrder(lastOrderId);
+        }
+
+        assertTrue(book.getLastSequencerNumber() > lastSequencerNumber);
+        assertEquals(lastOrderId + 1, book.getHighestOrderId());
+
+        //and what it journalled after the restart recovers too
+        final OrderBook recovered = emptyBook();
+        assertEquals(book.getLastSequencerNumber(), OrderBookRecovery.recover(snapshotDirectory, journalDirectory, recovered));
+        assertArrayEquals(image(book), image(recovered));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSequencerCannotResumeOnceItHasSequenced() {
+        try (Journal journal = new Journal(folder.getRoot())) {
+            createGraph(journal);
+            tick(98, 100);
+            sequencer.resumeAfter(10, 10);
+        }
+    }
+
+    @Test
+    public void testSnapshotsAreTakenAtIntervalsAndPruned() {
+        final File snapshotDirectory = new File(folder.getRoot(), "snapshots");
+        try (Journal journal = new Journal(new File(folder.getRoot(), "journal"))) {
+            createGraph(journal);
+            final OrderBookSnapshotter snapshotter = new OrderBookSnapshotter(book, snapshotDirectory, 4);
+
+            int taken = 0;
+            for (int i = 0; i < 10; i++) {
+                createOrder(Side.BUY, 90 - i, 10);
+                if (snapshotter.maybeSnapshot()) {
+                    taken++;
+                }
+            }
+
+            assertEquals(5, taken);
+            assertEquals(3, OrderBookSnapshotter.snapshots(snapshotDirectory).length);
+            assertEquals(OrderBookSnapshotter.fileName(book.getLastSequencerNumber()), OrderBookSnapshotter.latest(snapshotDirectory).getName());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRestoringIntoANonEmptyBookFails() {
+        try (Journal journal = new Journal(folder.getRoot())) {
+            createGraph(journal);
+            createOrder(Side.BUY, 97, 50);
+        }
+        final ExpandableDirectByteBuffer buffer = new ExpandableDirectByteBuffer(1024);
+        OrderBookSnapshot.encode(book, buffer, 0);
+        OrderBookSnapshot.decode(buffer, 0, book);
+    }
+}
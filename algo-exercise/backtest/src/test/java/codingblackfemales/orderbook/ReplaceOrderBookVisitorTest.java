@@ -0,0 +1,128 @@
+package codingblackfemales.orderbook;
+
+import codingblackfemales.orderbook.channel.MarketDataChannel;
+import codingblackfemales.orderbook.channel.OrderChannel;
+import codingblackfemales.orderbook.order.DefaultOrderFlyweight;
+import codingblackfemales.orderbook.order.LimitOrderFlyweight;
+import messages.marketdata.*;
+import messages.order.Side;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static codingblackfemales.orderbook.MatchingOrderBookVisitorTest.wrapBufferInDecoder;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+public class ReplaceOrderBookVisitorTest {
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder bookUpdateEncoder = new BookUpdateEncoder();
+
+    private OrderChannel orderChannel;
+    private OrderBook book;
+
+    private UnsafeBuffer tick1(){
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        bookUpdateEncoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        bookUpdateEncoder.venue(Venue.XLON);
+        bookUpdateEncoder.instrumentId(123L);
+        bookUpdateEncoder.source(Source.STREAM);
+
+        bookUpdateEncoder.bidBookCount(3)
+                .next().price(100L).size(100L)
+                .next().price(96L).size(200L)
+                .next().price(93L).size(300L);
+
+        bookUpdateEncoder.askBookCount(2)
+                .next().price(101L).size(101L)
+                .next().price(115L).size(200L);
+
+        bookUpdateEncoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    @Before
+    public void setUp(){
+        orderChannel = Mockito.mock(OrderChannel.class);
+        book = new OrderBook(Mockito.mock(MarketDataChannel.class), orderChannel);
+        book.onBookUpdate(wrapBufferInDecoder(tick1()));
+    }
+
+    private static List<Long> limitOrderIds(final OrderBookLevel level){
+        final List<Long> orderIds = new ArrayList<>();
+        for(DefaultOrderFlyweight order = level.getFirstOrder(); order != null; order = order.next()){
+            if(order instanceof LimitOrderFlyweight){
+                orderIds.add(((LimitOrderFlyweight) order).getOrderId());
+            }
+        }
+        return orderIds;
+    }
+
+    @Test
+    public void testReducingQuantityKeepsQueuePriority(){
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 96L, 500L, 1));
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 96L, 400L, 2));
+
+        book.onReplaceOrder(1, 96L, 300L);
+
+        final OrderBookLevel level = book.getBidBookSide().getFirstLevel().next();
+        Assert.assertEquals(900L, level.getQuantity());
+        Assert.assertEquals(List.of(1L, 2L), limitOrderIds(level));
+    }
+
+    @Test
+    public void testIncreasingQuantityLosesQueuePriority(){
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 96L, 500L, 1));
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 96L, 400L, 2));
+
+        book.onReplaceOrder(1, 96L, 600L);
+
+        final OrderBookLevel level = book.getBidBookSide().getFirstLevel().next();
+        Assert.assertEquals(1_200L, level.getQuantity());
+        Assert.assertEquals(List.of(2L, 1L), limitOrderIds(level));
+    }
+
+    @Test
+    public void testRepriceMovesTheOrderToTheNewLevel(){
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 96L, 500L, 1));
+
+        book.onReplaceOrder(1, 93L, 500L);
+
+        final OrderBookLevel level96 = book.getBidBookSide().getFirstLevel().next();
+        final OrderBookLevel level93 = level96.next();
+        Assert.assertEquals(200L, level96.getQuantity());
+        Assert.assertEquals(800L, level93.getQuantity());
+        Assert.assertEquals(List.of(1L), limitOrderIds(level93));
+    }
+
+    @Test
+    public void testRepriceAcrossTheSpreadMatches(){
+        book.onLimitOrder(new LimitOrderFlyweight(Side.SELL, 115L, 50L, 1));
+
+        book.onReplaceOrder(1, 100L, 50L);
+
+        Mockito.verify(orderChannel).publishFill(eq(50L), eq(100L), any());
+        Assert.assertEquals(50L, book.getBidBookSide().getFirstLevel().getQuantity());
+        Assert.assertEquals(200L, book.getAskBookSide().getFirstLevel().next().getQuantity());
+    }
+
+    @Test
+    public void testReplacingToNothingCancels(){
+        book.onLimitOrder(new LimitOrderFlyweight(Side.BUY, 96L, 500L, 1));
+
+        book.onReplaceOrder(1, 96L, 0L);
+
+        final OrderBookLevel level = book.getBidBookSide().getFirstLevel().next();
+        Assert.assertEquals(200L, level.getQuantity());
+        Assert.assertTrue(limitOrderIds(level).isEmpty());
+    }
+}
@@ -165,8 +165,14 @@ public class StretchAlgoLogic implements AlgoLogic {
             logger.info(ANSI_PURPLE+"[MYSTRETCHALGO] Initial VWAP set to {}"+ANSI_RESET, vwap);
         }
     }
-    // update vwap based on all available bid and ask levels
+    // update vwap from the trades printed so far, or estimate it from all available bid and ask levels until there are some
     private void updateVWAP(SimpleAlgoState state) {
+        if (state.getTradedVolume() > 0) {
+            vwap = state.getVwap();
+            logger.info(ANSI_YELLOW+"[MYSTRETCHALGO] VWAP updated to {} from {} traded"+ANSI_RESET, vwap, state.getTradedVolume());
+            return;
+        }
+
         int bidLevels = state.getBidLevels();
         int askLevels = state.getAskLevels();
         long totalQuantity = 0;
@@ -16,6 +16,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.List;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -102,15 +103,37 @@ public class StretchAlgoBackTest extends AbstractAlgoBackTest {
     @Test
     public void testVWAPAdjustmentsUnderFluctuatingMarket() throws Exception {
         send(createTickLowBuyOpportunity());
+
+        StretchAlgoLogic algo = (StretchAlgoLogic) container.getAlgoLogic();
+        var state = container.getState();
+        assertEquals("Expected nothing to trade on the first tick.", 0, state.getTradedVolume());
+        double initialVWAP = algo.getVWAP();
+
+        //the algo buys into the tight spread and trades against the wide one, printing trades
+        send(createTickWithTightSpread());
+        send(createTickWithWideSpread());
+
+        double updatedVWAP = algo.getVWAP();
+        state = container.getState();
+        assertTrue("Expected the algo's orders to trade.", state.getTradedVolume() > 0);
+        assertEquals("VWAP should move to that of the trades printed.", state.getVwap(), updatedVWAP, 0.0);
+        assertNotEquals(initialVWAP, updatedVWAP, 0.0);
+    }
+
+    @Test
+    public void testVWAPUnchangedByTicksThatDoNotTrade() throws Exception {
+        send(createTickLowBuyOpportunity());
         send(createTickWithTightSpread());
         send(createTickWithWideSpread());
 
         StretchAlgoLogic algo = (StretchAlgoLogic) container.getAlgoLogic();
-        double initialVWAP = algo.getVWAP();
+        long tradedVolume = container.getState().getTradedVolume();
+        double tradedVWAP = algo.getVWAP();
+
         send(createTickStableHigh());
 
-        double updatedVWAP = algo.getVWAP();
-        assertTrue("VWAP should increase after high price ticks.", updatedVWAP > initialVWAP);
+        assertEquals("Expected the high tick not to trade.", tradedVolume, container.getState().getTradedVolume());
+        assertEquals(tradedVWAP, algo.getVWAP(), 0.0);
     }
 
     @Test
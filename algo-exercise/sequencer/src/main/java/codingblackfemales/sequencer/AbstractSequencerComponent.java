@@ -1,9 +1,50 @@
 package codingblackfemales.sequencer;
 
+import org.agrona.collections.IntHashSet;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the messages a component registers for with {@link #requireMessage(int, int)}. A component that never
+ * registers for anything is sent every message.
+ */
 public class AbstractSequencerComponent implements SequencerComponent {
 
+    private final IntHashSet requiredMessages = new IntHashSet();
+
+    //told whenever this component's requirements change, so the networks it was added to can rebuild their routes
+    private final List<Runnable> requirementsListeners = new CopyOnWriteArrayList<>();
+
     @Override
     public void requireMessage(int schemaId, int templateId) {
+        requiredMessages.add(messageKey(schemaId, templateId));
+        requirementsChanged();
+    }
+
+    /**
+     * Tells the routers of the networks this component was added to that {@link #requiresMessage(int, int)} may now
+     * answer differently, components that override it call this when what it depends on changes.
+     */
+    protected void requirementsChanged() {
+        for (Runnable listener : requirementsListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Called by a network's router when this component is added to it.
+     */
+    public void addRequirementsListener(final Runnable listener) {
+        requirementsListeners.add(listener);
+    }
+
+    @Override
+    public boolean requiresMessage(int schemaId, int templateId) {
+        return requiredMessages.isEmpty() || requiredMessages.contains(messageKey(schemaId, templateId));
+    }
 
+    public static int messageKey(final int schemaId, final int templateId) {
+        return (schemaId << 16) | (templateId & 0xFFFF);
     }
 }
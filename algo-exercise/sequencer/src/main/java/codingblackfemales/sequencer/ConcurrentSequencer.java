@@ -0,0 +1,222 @@
+package codingblackfemales.sequencer;
+
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
+import messages.marketdata.MessageHeaderEncoder;
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.*;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Lets any number of threads send commands to a single threaded sequencer such as {@link DefaultSequencer}.
+ *
+ * Commands from other threads go onto a lock free many-to-one ring buffer, which one sequencer thread drains in
+ * order, so the wrapped sequencer is only ever called from that thread and the total order is whatever order the
+ * commands made it onto the ring. Consumers that publish back while handling a message are already on the sequencer
+ * thread, they go straight to the wrapped sequencer as they would without this in front of it.
+ */
+public class ConcurrentSequencer implements Sequencer, Agent, MessageHandler, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentSequencer.class);
+
+    public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+    //records written whole are exactly one frame, claimed slots may be longer than the message encoded into them
+    private static final int FRAME_MSG_TYPE_ID = 1;
+    private static final int CLAIMED_MSG_TYPE_ID = 2;
+
+    private final Sequencer sequencer;
+    private final ManyToOneRingBuffer ringBuffer;
+    private final EpochNanoClock clock;
+    private final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
+
+    private final ThreadLocal<Producer> producers = ThreadLocal.withInitial(Producer::new);
+
+    private volatile Thread sequencerThread;
+    private AgentRunner runner;
+
+    public ConcurrentSequencer(final Sequencer sequencer) {
+        this(sequencer, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity size in bytes of the command ring buffer, must be a power of two.
+     */
+    public ConcurrentSequencer(final Sequencer sequencer, final int capacity) {
+        this(sequencer, capacity, clockOf(sequencer));
+    }
+
+    /**
+     * @param clock stamps the ingressTimestamp of commands as they are queued, on the thread sending them. It should
+     *              be the clock the wrapped sequencer stamps the sequencedTimestamp with, so the two can be compared,
+     *              which is what is used when none is given and the wrapped sequencer is a {@link DefaultSequencer}.
+     */
+    public ConcurrentSequencer(final Sequencer sequencer, final int capacity, final EpochNanoClock clock) {
+        this.sequencer = sequencer;
+        this.clock = clock;
+        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(capacity + RingBufferDescriptor.TRAILER_LENGTH);
+        this.ringBuffer = new ManyToOneRingBuffer(new UnsafeBuffer(byteBuffer));
+    }
+
+    private static EpochNanoClock clockOf(final Sequencer sequencer) {
+        return sequencer instanceof DefaultSequencer ? ((DefaultSequencer) sequencer).getClock() : new OffsetEpochNanoClock();
+    }
+
+    /**
+     * Starts the sequencer thread, commands sent before this are queued until it starts. Alternatively host it in an
+     * {@link codingblackfemales.sequencer.runtime.AgentRuntime} rather than calling this.
+     */
+    public void start() {
+        if (runner != null) {
+            return;
+        }
+        runner = new AgentRunner(new BackoffIdleStrategy(), this::onError, null, this);
+        AgentRunner.startOnThread(runner);
+    }
+
+    @Override
+    public void onCommand(final DirectBuffer byteBuffer) {
+        if (Thread.currentThread() == sequencerThread) {
+            sequencer.onCommand(byteBuffer);
+            return;
+        }
+
+        onCommand(byteBuffer, 0, producers.get().frameLengthDecoder.frameLength(byteBuffer, 0));
+    }
+
+    /**
+     * Frames up to {@link #maxFrameLength()} bytes can be sent from other threads.
+     */
+    @Override
+    public void onCommand(final DirectBuffer buffer, final int offset, final int length) {
+        if (Thread.currentThread() == sequencerThread) {
+            sequencer.onCommand(buffer, offset, length);
+            return;
+        }
+
+        enqueue(buffer, offset, length, true);
+    }
+
+    @Override
+    public void onStampedCommand(final DirectBuffer buffer, final int offset, final int length) {
+        if (Thread.currentThread() == sequencerThread) {
+            sequencer.onStampedCommand(buffer, offset, length);
+            return;
+        }
+
+        enqueue(buffer, offset, length, false);
+    }
+
+    private void enqueue(final DirectBuffer buffer, final int offset, final int length, final boolean stampIngress) {
+        final Producer producer = producers.get();
+        int index;
+        producer.idleStrategy.reset();
+        while ((index = ringBuffer.tryClaim(FRAME_MSG_TYPE_ID, length)) == RingBuffer.INSUFFICIENT_CAPACITY) {
+            producer.idleStrategy.idle();
+        }
+
+        final MutableDirectBuffer ring = ringBuffer.buffer();
+        ring.putBytes(index, buffer, offset, length);
+        if (stampIngress) {
+            //stamped here rather than when it is sequenced, so time spent queued counts towards latency
+            producer.header.wrap(ring, index).ingressTimestamp(clock.nanoTime());
+        }
+        ringBuffer.commit(index);
+    }
+
+    @Override
+    public MutableDirectBuffer claim(final int length) {
+        if (Thread.currentThread() == sequencerThread) {
+            return sequencer.claim(length);
+        }
+
+        final Producer producer = producers.get();
+        if (producer.claimIndex != RingBuffer.INSUFFICIENT_CAPACITY) {
+            throw new IllegalStateException("Thread " + Thread.currentThread().getName() + " already has a claimed slot");
+        }
+
+        int index;
+        producer.idleStrategy.reset();
+        while ((index = ringBuffer.tryClaim(CLAIMED_MSG_TYPE_ID, length)) == RingBuffer.INSUFFICIENT_CAPACITY) {
+            producer.idleStrategy.idle();
+        }
+
+        producer.claimIndex = index;
+        producer.claimed.wrap(ringBuffer.buffer(), index, length);
+        return producer.claimed;
+    }
+
+    @Override
+    public void commit() {
+        if (Thread.currentThread() == sequencerThread) {
+            sequencer.commit();
+            return;
+        }
+
+        final Producer producer = producers.get();
+        if (producer.claimIndex == RingBuffer.INSUFFICIENT_CAPACITY) {
+            throw new IllegalStateException("Commit without a claimed slot");
+        }
+        producer.header.wrap(producer.claimed, 0).ingressTimestamp(clock.nanoTime());
+        ringBuffer.commit(producer.claimIndex);
+        producer.claimIndex = RingBuffer.INSUFFICIENT_CAPACITY;
+    }
+
+    @Override
+    public void onStart() {
+        sequencerThread = Thread.currentThread();
+    }
+
+    @Override
+    public int doWork() {
+        return ringBuffer.read(this);
+    }
+
+    @Override
+    public void onMessage(final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length) {
+        //sequence straight out of the ring, the record is ours until read returns
+        final int frameLength = msgTypeId == FRAME_MSG_TYPE_ID ? length : frameLengthDecoder.frameLength(buffer, index);
+        sequencer.onStampedCommand(buffer, index, frameLength);
+    }
+
+    /**
+     * @return the longest frame other threads can send, larger frames are rejected with an IllegalArgumentException.
+     */
+    public int maxFrameLength() {
+        return ringBuffer.maxMsgLength();
+    }
+
+    @Override
+    public void onClose() {
+        sequencerThread = null;
+    }
+
+    @Override
+    public String roleName() {
+        return "sequencer";
+    }
+
+    private void onError(final Throwable throwable) {
+        logger.error("[SEQUENCER] Failed sequencing command", throwable);
+    }
+
+    @Override
+    public void close() {
+        CloseHelper.close(runner);
+    }
+
+    private static class Producer {
+        private final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
+        private final IdleStrategy idleStrategy = new BackoffIdleStrategy();
+        private final UnsafeBuffer claimed = new UnsafeBuffer(0, 0);
+        private final MessageHeaderEncoder header = new MessageHeaderEncoder();
+        private int claimIndex = RingBuffer.INSUFFICIENT_CAPACITY;
+    }
+}
@@ -1,98 +1,202 @@
 package codingblackfemales.sequencer;
 
 import codingblackfemales.sequencer.net.Network;
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
 import messages.marketdata.MessageHeaderDecoder;
 import messages.marketdata.MessageHeaderEncoder;
-import messages.order.CreateOrderDecoder;
 import messages.order.CreateOrderEncoder;
 import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.OffsetEpochNanoClock;
 import org.agrona.concurrent.UnsafeBuffer;
 
-import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public class DefaultSequencer implements Sequencer {
 
+    //consumers can send commands while we are still dispatching, so each level of nesting gets its own slot,
+    //slots are allocated the first time a depth is reached and reused from then on
+    private static final int INITIAL_DEPTH = 16;
+    private static final int INITIAL_SLOT_LENGTH = 1024;
+
     private final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
     private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
 
-    private ByteBuffer byteBuffer;//= ByteBuffer.allocateDirect(1024);
-    private UnsafeBuffer mutableBuffer;// = new UnsafeBuffer(byteBuffer);
-
-    private final CreateOrderDecoder createOrderDecoder = new CreateOrderDecoder();
     private final CreateOrderEncoder createOrderEncoder = new CreateOrderEncoder();
+    private final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
 
-    private final messages.order.MessageHeaderEncoder businessHeaderEncoder = new messages.order.MessageHeaderEncoder();
+    private MutableDirectBuffer[] claimSlots = new MutableDirectBuffer[INITIAL_DEPTH];
+    private int claimDepth = 0;
 
-    private final ByteBuffer businessByteBuffer = ByteBuffer.allocateDirect(1024);
-    private final UnsafeBuffer businessMutableBuffer = new UnsafeBuffer(businessByteBuffer);
+    private UnsafeBuffer[] dispatchViews = new UnsafeBuffer[INITIAL_DEPTH];
+    private int dispatchDepth = 0;
 
     long sequencerNumber = 0L;
 
     private final Network network;
 
+    private final EpochNanoClock clock;
+
     public DefaultSequencer(Network network) {
+        this(network, 2L);
+    }
+
+    /**
+     * @param firstOrderId the orderId given to the first order, so sequencers sharing a downstream can be given
+     *                     disjoint ranges, see {@link ShardedSequencer}.
+     */
+    public DefaultSequencer(final Network network, final long firstOrderId) {
+        this(network, firstOrderId, new OffsetEpochNanoClock());
+    }
+
+    /**
+     * @param clock stamps the timestamps in each header, backtests can pass one driven by event time.
+     */
+    public DefaultSequencer(final Network network, final long firstOrderId, final EpochNanoClock clock) {
         this.network = network;
+        this.orderId = firstOrderId - 1;
+        this.clock = clock;
+    }
+
+    /**
+     * Carries on after a previous run rather than starting again from the first sequencerNumber, so the messages
+     * follow on from those already in a journal or a recovered book, and orderIds are not given out twice.
+     *
+     * @param lastSequencerNumber the last sequencerNumber of the previous run, the next message gets the one after.
+     * @param lastOrderId         the highest orderId given out in the previous run.
+     */
+    public void resumeAfter(final long lastSequencerNumber, final long lastOrderId) {
+        if (sequencerNumber != 0L) {
+            throw new IllegalStateException("Cannot resume a sequencer which has already sequenced up to " + sequencerNumber);
+        }
+        sequencerNumber = lastSequencerNumber;
+        orderId = Math.max(orderId, lastOrderId);
+    }
+
+    /**
+     * @return the clock stamping each header, for sequencers in front of this one to stamp ingress times with.
+     */
+    public EpochNanoClock getClock() {
+        return clock;
+    }
+
+    @Override
+    public MutableDirectBuffer claim(final int length) {
+        if (claimDepth == claimSlots.length) {
+            claimSlots = Arrays.copyOf(claimSlots, claimSlots.length * 2);
+        }
+        if (claimSlots[claimDepth] == null) {
+            claimSlots[claimDepth] = new ExpandableDirectByteBuffer(INITIAL_SLOT_LENGTH);
+        }
+        final MutableDirectBuffer slot = claimSlots[claimDepth++];
+        slot.checkLimit(length);
+        return slot;
+    }
+
+    @Override
+    public void commit() {
+        if (claimDepth == 0) {
+            throw new IllegalStateException("Commit without a claimed slot");
+        }
+        //keep the slot claimed while it is dispatched, anything sent by consumers gets the next one
+        try {
+            onCommand(claimSlots[claimDepth - 1]);
+        } finally {
+            claimDepth--;
+        }
     }
 
     @Override
     public void onCommand(DirectBuffer bb) {
+        onCommand(bb, 0, frameLengthDecoder.frameLength(bb, 0));
+    }
+
+    @Override
+    public void onCommand(final DirectBuffer bb, final int offset, final int length) {
+        sequence(bb, offset, length, true);
+    }
 
-        headerDecoder.wrap(bb, 0);
+    @Override
+    public void onStampedCommand(final DirectBuffer bb, final int offset, final int length) {
+        sequence(bb, offset, length, false);
+    }
+
+    private void sequence(final DirectBuffer bb, final int offset, final int length, final boolean stampIngress) {
+
+        headerDecoder.wrap(bb, offset);
 
         int schemaId = headerDecoder.schemaId();
         int templateId = headerDecoder.templateId();
 
+        //the frame is dispatched as a view of exactly its own bytes, however big it is
+        final UnsafeBuffer frame = currentDispatchView();
+        frame.wrap(bb, offset, length);
+
         if(isModelMessage(schemaId, templateId)){
-            DirectBuffer mutatedBuffer = processModelCommand(bb, schemaId, headerDecoder);
-            sequenceAndDispatchMessage(mutatedBuffer);
+            processModelCommand(frame, schemaId, headerDecoder);
         }
-        else{
-            sequenceAndDispatchMessage(bb);
+
+        //one clock read serves both stamps when the command arrives here directly
+        final long nowNanos = clock.nanoTime();
+        if (stampIngress) {
+            headerEncoder.wrap(frame, 0);
+            headerEncoder.ingressTimestamp(nowNanos);
         }
 
+        sequenceAndDispatchMessage(frame, nowNanos);
     }
 
-    public DirectBuffer processModelCommand(final DirectBuffer byteBuffer, final int schemaId, final MessageHeaderDecoder header){
+    public DirectBuffer processModelCommand(final UnsafeBuffer frame, final int schemaId, final MessageHeaderDecoder header){
 
-        final int actingBlockLength = header.blockLength();
-        final int actingVersion = header.version();
         final int bufferOffset = header.encodedLength();
 
-        createOrderDecoder.wrap(byteBuffer, bufferOffset, actingBlockLength, actingVersion);
-
-
-        createOrderEncoder.wrapAndApplyHeader(businessMutableBuffer, 0, businessHeaderEncoder);
-        createOrderEncoder.price(createOrderDecoder.price());
-        createOrderEncoder.quantity(createOrderDecoder.quantity());
-        createOrderEncoder.side(createOrderDecoder.side());
+        //stamp the order id in place rather than copying the order into a business buffer
+        createOrderEncoder.wrap(frame, bufferOffset);
         createOrderEncoder.orderId(newOrderId());
-        return businessMutableBuffer;
+        return frame;
     }
 
-    private long orderId = 1;
+    private long orderId;
 
     public long newOrderId(){
         return orderId +=1;
     }
 
-    public void sequenceAndDispatchMessage(final DirectBuffer bb){
-
-        byteBuffer = ByteBuffer.allocateDirect(1024);
-        mutableBuffer = new UnsafeBuffer(byteBuffer);
+    public void sequenceAndDispatchMessage(final UnsafeBuffer frame){
+        sequenceAndDispatchMessage(frame, clock.nanoTime());
+    }
 
-        mutableBuffer.wrap(bb);
+    private void sequenceAndDispatchMessage(final UnsafeBuffer frame, final long nowNanos){
 
-        headerEncoder.wrap(mutableBuffer, 0);
+        headerEncoder.wrap(frame, 0);
 
         sequencerNumber += 1;
 
         headerEncoder.sequencerNumber(sequencerNumber);
+        headerEncoder.sequencedTimestamp(nowNanos);
 
-        dispatchToNetwork(mutableBuffer);
+        dispatchDepth++;
+        try {
+            dispatchToNetwork(frame);
+        } finally {
+            dispatchDepth--;
+        }
+    }
+
+    private UnsafeBuffer currentDispatchView() {
+        if (dispatchDepth == dispatchViews.length) {
+            dispatchViews = Arrays.copyOf(dispatchViews, dispatchViews.length * 2);
+        }
+        if (dispatchViews[dispatchDepth] == null) {
+            dispatchViews[dispatchDepth] = new UnsafeBuffer(0, 0);
+        }
+        return dispatchViews[dispatchDepth];
     }
 
     public void dispatchToNetwork(DirectBuffer sequencedBuffer){
-        network.dispatch(sequencedBuffer);
+        network.dispatch(sequencedBuffer, sequencedBuffer.capacity());
     }
 
     public boolean isModelMessage(final int schemaId, final int templateId) {
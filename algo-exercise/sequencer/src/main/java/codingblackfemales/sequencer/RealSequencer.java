@@ -1,35 +1,53 @@
 package codingblackfemales.sequencer;
 
-import codingblackfemales.sequencer.util.ByteBufferUtil;
+import codingblackfemales.sequencer.net.Network;
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
 import messages.marketdata.MessageHeaderEncoder;
 import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 
-import java.nio.ByteBuffer;
-
+/**
+ * Sequences a copy of each message, so callers can reuse their buffer as soon as processMessage returns. Messages
+ * can be any length. Not reentrant, consumers must not call back into it while a message is being dispatched.
+ */
 public class RealSequencer {
 
-    final ByteBuffer sequenced = ByteBuffer.allocateDirect(1024);
-    final UnsafeBuffer directBuffer = new UnsafeBuffer();
+    private static final int INITIAL_LENGTH = 1024;
+
+    final MutableDirectBuffer sequenced = new ExpandableDirectByteBuffer(INITIAL_LENGTH);
+    final UnsafeBuffer directBuffer = new UnsafeBuffer(0, 0);
     final MessageHeaderEncoder encoder = new MessageHeaderEncoder();
+    final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
+
+    private final Network network;
 
-    final long sequenceNumber = 0L;
+    long sequenceNumber = 0L;
+
+    public RealSequencer(final Network network) {
+        this.network = network;
+    }
 
     public void processMessage(DirectBuffer buffer){
+        processMessage(buffer, 0, frameLengthDecoder.frameLength(buffer, 0));
+    }
 
-        ByteBufferUtil.cloneInto(buffer.byteBuffer(), sequenced);
+    public void processMessage(final DirectBuffer buffer, final int offset, final int length){
 
-        directBuffer.wrap(sequenced);
+        //grows to fit the largest message seen, then the copy is dispatched as a view of exactly its length
+        sequenced.putBytes(0, buffer, offset, length);
+        directBuffer.wrap(sequenced, 0, length);
 
         encoder.wrap(directBuffer, 0);
 
-        encoder.sequencerNumber(sequenceNumber);
+        encoder.sequencerNumber(++sequenceNumber);
 
         dispatch(directBuffer);
     }
 
     public void dispatch(UnsafeBuffer buffer){
-        //TODO: Implement
+        network.dispatch(buffer, buffer.capacity());
     }
 
 }
@@ -1,7 +1,33 @@
 package codingblackfemales.sequencer;
 
 import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
 
 public interface Sequencer {
     public void onCommand(final DirectBuffer byteBuffer);
+
+    /**
+     * Sequences the frame of length bytes starting at offset, for callers that already know how long their message
+     * is, so it is never decoded just to find that out and frames can be any size.
+     */
+    public void onCommand(final DirectBuffer buffer, final int offset, final int length);
+
+    /**
+     * Sequences a frame that already carries its ingressTimestamp, such as one queued by a front end on another
+     * thread or a recorded frame being replayed, rather than stamping it with the time it arrived here.
+     */
+    public default void onStampedCommand(final DirectBuffer buffer, final int offset, final int length) {
+        onCommand(buffer, offset, length);
+    }
+
+    /**
+     * Claims a preallocated slot of at least length bytes to encode a message into, starting at offset 0.
+     * The slot belongs to the caller until the matching {@link #commit()}.
+     */
+    public MutableDirectBuffer claim(final int length);
+
+    /**
+     * Sequences and dispatches the message encoded into the most recently claimed slot.
+     */
+    public void commit();
 }
@@ -3,4 +3,9 @@ package codingblackfemales.sequencer;
 public interface SequencerComponent {
     public void requireMessage(int schemaId, int templateId);
 
+    /**
+     * Used by the network to decide whether to deliver a message to this component at all.
+     */
+    public boolean requiresMessage(int schemaId, int templateId);
+
 }
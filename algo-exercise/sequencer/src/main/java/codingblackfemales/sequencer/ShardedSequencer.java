@@ -0,0 +1,246 @@
+package codingblackfemales.sequencer;
+
+import codingblackfemales.sequencer.net.Network;
+import messages.marketdata.AskBookUpdateDecoder;
+import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookDeltaDecoder;
+import messages.marketdata.BookUpdateBatchDecoder;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.OrderAddDecoder;
+import messages.marketdata.OrderModifyDecoder;
+import messages.marketdata.OrderDeleteDecoder;
+import messages.marketdata.OrderExecuteDecoder;
+import messages.marketdata.TradeDecoder;
+import messages.marketdata.MessageHeaderDecoder;
+import messages.order.*;
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.OffsetEpochNanoClock;
+
+/**
+ * Partitions commands by instrument onto independent sequencers, each running on its own thread with its own
+ * sequencerNumber and its own network, so each shard's order book and algos only ever see their own instruments.
+ *
+ * Market data and new orders are routed by instrumentId. Every other order message only carries an orderId, so
+ * each shard gives out orderIds from its own range of {@link #ORDER_ID_RANGE} ids, which keeps them unique across
+ * shards and tells us which shard an order lives on.
+ *
+ * Components on a shard publish back through {@link #shard(int)}, they are already on that shard's thread.
+ */
+public class ShardedSequencer implements Sequencer, AutoCloseable {
+
+    public static final long ORDER_ID_RANGE = 1L << 40;
+
+    private static final int INITIAL_SLOT_LENGTH = 1024;
+
+    private final ConcurrentSequencer[] shards;
+
+    private final ThreadLocal<Producer> producers = ThreadLocal.withInitial(Producer::new);
+
+    /**
+     * @param networks one per shard, shard i dispatches to networks[i].
+     */
+    public ShardedSequencer(final Network... networks) {
+        this(new OffsetEpochNanoClock(), networks);
+    }
+
+    /**
+     * @param clock shared by every shard, so timestamps from different shards can be compared.
+     */
+    public ShardedSequencer(final EpochNanoClock clock, final Network... networks) {
+        if (networks.length == 0 || networks.length > Long.MAX_VALUE / ORDER_ID_RANGE) {
+            throw new IllegalArgumentException("Unsupported number of shards " + networks.length);
+        }
+        this.shards = new ConcurrentSequencer[networks.length];
+        for (int i = 0; i < networks.length; i++) {
+            shards[i] = new ConcurrentSequencer(new DefaultSequencer(networks[i], firstOrderId(i), clock), ConcurrentSequencer.DEFAULT_CAPACITY, clock);
+        }
+    }
+
+    public static long firstOrderId(final int shard) {
+        return shard * ORDER_ID_RANGE + 1;
+    }
+
+    /**
+     * Starts every shard's sequencer thread.
+     */
+    public void start() {
+        for (ConcurrentSequencer shard : shards) {
+            shard.start();
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return the sequencer of one shard, for the components on that shard to publish to.
+     */
+    public Sequencer shard(final int shard) {
+        return shards[shard];
+    }
+
+    public int shardForInstrument(final long instrumentId) {
+        return (int) Long.remainderUnsigned(instrumentId, shards.length);
+    }
+
+    public int shardForOrder(final long orderId) {
+        final long shard = orderId / ORDER_ID_RANGE;
+        if (orderId <= 0 || shard >= shards.length) {
+            throw new IllegalArgumentException("OrderId " + orderId + " was not given out by any shard");
+        }
+        return (int) shard;
+    }
+
+    @Override
+    public void onCommand(final DirectBuffer buffer) {
+        shards[route(producers.get(), buffer, 0)].onCommand(buffer);
+    }
+
+    @Override
+    public void onCommand(final DirectBuffer buffer, final int offset, final int length) {
+        shards[route(producers.get(), buffer, offset)].onCommand(buffer, offset, length);
+    }
+
+    @Override
+    public void onStampedCommand(final DirectBuffer buffer, final int offset, final int length) {
+        shards[route(producers.get(), buffer, offset)].onStampedCommand(buffer, offset, length);
+    }
+
+    @Override
+    public MutableDirectBuffer claim(final int length) {
+        final Producer producer = producers.get();
+        if (producer.claimed) {
+            throw new IllegalStateException("Thread " + Thread.currentThread().getName() + " already has a claimed slot");
+        }
+        //the shard is only known once the message is encoded, so it is staged here and routed on commit
+        producer.slot.checkLimit(length);
+        producer.claimed = true;
+        return producer.slot;
+    }
+
+    @Override
+    public void commit() {
+        final Producer producer = producers.get();
+        if (!producer.claimed) {
+            throw new IllegalStateException("Commit without a claimed slot");
+        }
+        try {
+            onCommand(producer.slot);
+        } finally {
+            producer.claimed = false;
+        }
+    }
+
+    /**
+     * A batch is not split across shards, every instrument in it must live on the same shard, so publishers should
+     * batch the instruments of one shard together.
+     */
+    private int shardForBatch(final BookUpdateBatchDecoder batch) {
+        int shard = -1;
+        for (BookUpdateBatchDecoder.InstrumentsDecoder instrument : batch.instruments()) {
+            final long instrumentId = instrument.instrumentId();
+            instrument.sbeSkip();
+            final int instrumentShard = shardForInstrument(instrumentId);
+            if (shard == -1) {
+                shard = instrumentShard;
+            } else if (instrumentShard != shard) {
+                throw new IllegalArgumentException("BookUpdateBatch spans shards " + shard + " and " + instrumentShard +
+                        ", instrument " + instrumentId);
+            }
+        }
+        return shard == -1 ? 0 : shard;
+    }
+
+    private int route(final Producer producer, final DirectBuffer buffer, final int frameOffset) {
+        final MessageHeaderDecoder header = producer.header;
+        header.wrap(buffer, frameOffset);
+        final int schemaId = header.schemaId();
+        final int templateId = header.templateId();
+        final int offset = frameOffset + header.encodedLength();
+        final int blockLength = header.blockLength();
+        final int version = header.version();
+
+        if (schemaId == BookUpdateDecoder.SCHEMA_ID) {
+            if (templateId == BookUpdateDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.bookUpdate.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == AskBookUpdateDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.askBookUpdate.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == BidBookUpdateDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.bidBookUpdate.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == BookDeltaDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.bookDelta.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == TradeDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.trade.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == OrderAddDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.orderAdd.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == OrderModifyDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.orderModify.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == OrderDeleteDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.orderDelete.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == OrderExecuteDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.orderExecute.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == BookUpdateBatchDecoder.TEMPLATE_ID) {
+                return shardForBatch(producer.bookUpdateBatch.wrap(buffer, offset, blockLength, version));
+            }
+        } else if (schemaId == CreateOrderDecoder.SCHEMA_ID) {
+            if (templateId == CreateOrderDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.createOrder.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == PendingOrderDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.pendingOrder.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == CancelOrderDecoder.TEMPLATE_ID) {
+                return shardForOrder(producer.cancelOrder.wrap(buffer, offset, blockLength, version).orderId());
+            } else if (templateId == ReplaceOrderDecoder.TEMPLATE_ID) {
+                return shardForOrder(producer.replaceOrder.wrap(buffer, offset, blockLength, version).orderId());
+            } else if (templateId == MassCancelDecoder.TEMPLATE_ID) {
+                return shardForInstrument(producer.massCancel.wrap(buffer, offset, blockLength, version).instrumentId());
+            } else if (templateId == AckedOrderDecoder.TEMPLATE_ID) {
+                return shardForOrder(producer.ackedOrder.wrap(buffer, offset, blockLength, version).orderId());
+            } else if (templateId == CancelAckedOrderDecoder.TEMPLATE_ID) {
+                return shardForOrder(producer.cancelAckedOrder.wrap(buffer, offset, blockLength, version).orderId());
+            } else if (templateId == RejectOrderDecoder.TEMPLATE_ID) {
+                return shardForOrder(producer.rejectOrder.wrap(buffer, offset, blockLength, version).orderId());
+            } else if (templateId == PartialFillOrderDecoder.TEMPLATE_ID) {
+                return shardForOrder(producer.partialFillOrder.wrap(buffer, offset, blockLength, version).orderId());
+            } else if (templateId == FillOrderDecoder.TEMPLATE_ID) {
+                return shardForOrder(producer.fillOrder.wrap(buffer, offset, blockLength, version).orderId());
+            }
+        }
+        throw new IllegalArgumentException("No shard for schemaId " + schemaId + " templateId " + templateId);
+    }
+
+    @Override
+    public void close() {
+        CloseHelper.closeAll(shards);
+    }
+
+    private static class Producer {
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        private final BookUpdateDecoder bookUpdate = new BookUpdateDecoder();
+        private final AskBookUpdateDecoder askBookUpdate = new AskBookUpdateDecoder();
+        private final BidBookUpdateDecoder bidBookUpdate = new BidBookUpdateDecoder();
+        private final BookDeltaDecoder bookDelta = new BookDeltaDecoder();
+        private final TradeDecoder trade = new TradeDecoder();
+        private final OrderAddDecoder orderAdd = new OrderAddDecoder();
+        private final OrderModifyDecoder orderModify = new OrderModifyDecoder();
+        private final OrderDeleteDecoder orderDelete = new OrderDeleteDecoder();
+        private final OrderExecuteDecoder orderExecute = new OrderExecuteDecoder();
+        private final BookUpdateBatchDecoder bookUpdateBatch = new BookUpdateBatchDecoder();
+        private final CreateOrderDecoder createOrder = new CreateOrderDecoder();
+        private final PendingOrderDecoder pendingOrder = new PendingOrderDecoder();
+        private final CancelOrderDecoder cancelOrder = new CancelOrderDecoder();
+        private final ReplaceOrderDecoder replaceOrder = new ReplaceOrderDecoder();
+        private final MassCancelDecoder massCancel = new MassCancelDecoder();
+        private final AckedOrderDecoder ackedOrder = new AckedOrderDecoder();
+        private final CancelAckedOrderDecoder cancelAckedOrder = new CancelAckedOrderDecoder();
+        private final RejectOrderDecoder rejectOrder = new RejectOrderDecoder();
+        private final PartialFillOrderDecoder partialFillOrder = new PartialFillOrderDecoder();
+        private final FillOrderDecoder fillOrder = new FillOrderDecoder();
+        private final MutableDirectBuffer slot = new ExpandableDirectByteBuffer(INITIAL_SLOT_LENGTH);
+        private boolean claimed = false;
+    }
+}
@@ -0,0 +1,142 @@
+package codingblackfemales.sequencer.consumer;
+
+import codingblackfemales.sequencer.SequencerComponent;
+import codingblackfemales.sequencer.net.Consumer;
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.*;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Takes logging off the dispatching thread: frames are only copied onto a bounded off-heap ring buffer as they are
+ * dispatched, a background thread drains it and renders them with a {@link LoggingConsumer}.
+ *
+ * When the background thread falls a full ring behind, the {@link OverflowPolicy} decides whether frames are dropped,
+ * and counted, or the dispatching thread waits for space.
+ */
+public class AsyncLoggingConsumer implements Consumer, SequencerComponent, Agent, MessageHandler, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncLoggingConsumer.class);
+
+    public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+    private static final int MSG_TYPE_ID = 1;
+
+    public enum OverflowPolicy {
+        /** lose the frame rather than hold up dispatch */
+        DROP,
+        /** wait for the background thread to make space */
+        BLOCK
+    }
+
+    private final Consumer renderer;
+    private final OverflowPolicy policy;
+    private final OneToOneRingBuffer ringBuffer;
+
+    private final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
+    private final IdleStrategy idleStrategy = new BackoffIdleStrategy();
+    private final UnsafeBuffer frame = new UnsafeBuffer(0, 0);
+
+    //only the dispatching thread writes it
+    private volatile long dropped = 0L;
+    private AgentRunner runner;
+
+    public AsyncLoggingConsumer() {
+        this(new LoggingConsumer(), DEFAULT_CAPACITY, OverflowPolicy.DROP);
+    }
+
+    /**
+     * @param renderer handles the frames on the background thread, and decides which messages are sent here.
+     * @param capacity size in bytes of the ring buffer, must be a power of two.
+     */
+    public AsyncLoggingConsumer(final Consumer renderer, final int capacity, final OverflowPolicy policy) {
+        this.renderer = renderer;
+        this.policy = policy;
+        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(capacity + RingBufferDescriptor.TRAILER_LENGTH);
+        this.ringBuffer = new OneToOneRingBuffer(new UnsafeBuffer(byteBuffer));
+    }
+
+    /**
+     * Starts the background thread, frames dispatched before this are queued until it starts. Alternatively host it in
+     * an {@link codingblackfemales.sequencer.runtime.AgentRuntime} rather than calling this.
+     */
+    public void start() {
+        if (runner != null) {
+            return;
+        }
+        runner = new AgentRunner(new SleepingMillisIdleStrategy(1), this::onError, null, this);
+        AgentRunner.startOnThread(runner);
+    }
+
+    @Override
+    public void onMessage(final DirectBuffer buffer) {
+        final int length = frameLengthDecoder.frameLength(buffer, 0);
+        if (ringBuffer.write(MSG_TYPE_ID, buffer, 0, length)) {
+            return;
+        }
+
+        if (policy == OverflowPolicy.DROP) {
+            dropped++;
+            return;
+        }
+
+        idleStrategy.reset();
+        while (!ringBuffer.write(MSG_TYPE_ID, buffer, 0, length)) {
+            idleStrategy.idle();
+        }
+    }
+
+    @Override
+    public int doWork() {
+        return ringBuffer.read(this);
+    }
+
+    @Override
+    public void onMessage(final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length) {
+        frame.wrap(buffer, index, length);
+        renderer.onMessage(frame);
+    }
+
+    /**
+     * @return how many frames have been lost because the ring was full.
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    @Override
+    public void requireMessage(final int schemaId, final int templateId) {
+        if (renderer instanceof SequencerComponent) {
+            ((SequencerComponent) renderer).requireMessage(schemaId, templateId);
+        }
+    }
+
+    @Override
+    public boolean requiresMessage(final int schemaId, final int templateId) {
+        return !(renderer instanceof SequencerComponent) || ((SequencerComponent) renderer).requiresMessage(schemaId, templateId);
+    }
+
+    @Override
+    public String roleName() {
+        return "async-logging";
+    }
+
+    private void onError(final Throwable throwable) {
+        logger.error("[LOGGING] Failed rendering frame", throwable);
+    }
+
+    @Override
+    public void close() {
+        CloseHelper.close(runner);
+        if (dropped > 0) {
+            logger.warn("[LOGGING] Dropped " + dropped + " frames");
+        }
+    }
+}
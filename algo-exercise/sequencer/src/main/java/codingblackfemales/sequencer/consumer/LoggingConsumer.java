@@ -1,28 +1,60 @@
 package codingblackfemales.sequencer.consumer;
 
+import codingblackfemales.sequencer.AbstractSequencerComponent;
 import codingblackfemales.sequencer.net.Consumer;
+import messages.marketdata.BookDeltaDecoder;
+import messages.marketdata.BookUpdateBatchDecoder;
 import messages.marketdata.BookUpdateDecoder;
 import messages.marketdata.MessageHeaderDecoder;
+import messages.marketdata.TradeDecoder;
+import messages.order.AckedOrderDecoder;
+import messages.order.CancelAckedOrderDecoder;
 import messages.order.CancelOrderDecoder;
 import messages.order.CreateOrderDecoder;
 import messages.order.CreateOrderEncoder;
 import messages.order.FillOrderDecoder;
+import messages.order.MassCancelDecoder;
+import messages.order.RejectOrderDecoder;
+import messages.order.ReplaceOrderDecoder;
 import org.agrona.DirectBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static codingblackfemales.sequencer.util.MessageUtil.bookUpdateToString;
 
-public class LoggingConsumer implements Consumer {
+public class LoggingConsumer extends AbstractSequencerComponent implements Consumer {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingConsumer.class);
 
     private final MessageHeaderDecoder decoder = new MessageHeaderDecoder();
     private final BookUpdateDecoder bookUpdateDecoder = new BookUpdateDecoder();
+    private final BookDeltaDecoder bookDeltaDecoder = new BookDeltaDecoder();
+    private final TradeDecoder tradeDecoder = new TradeDecoder();
+    private final BookUpdateBatchDecoder batchDecoder = new BookUpdateBatchDecoder();
     private final CreateOrderDecoder createOrderDecoder = new CreateOrderDecoder();
     private final FillOrderDecoder fillDecoder = new FillOrderDecoder();
 
     private final CancelOrderDecoder cancelDecoder = new CancelOrderDecoder();
+    private final ReplaceOrderDecoder replaceDecoder = new ReplaceOrderDecoder();
+    private final MassCancelDecoder massCancelDecoder = new MassCancelDecoder();
+    private final AckedOrderDecoder ackedDecoder = new AckedOrderDecoder();
+    private final CancelAckedOrderDecoder cancelAckedDecoder = new CancelAckedOrderDecoder();
+    private final RejectOrderDecoder rejectDecoder = new RejectOrderDecoder();
+
+    public LoggingConsumer() {
+        requireMessage(BookUpdateDecoder.SCHEMA_ID, BookUpdateDecoder.TEMPLATE_ID);
+        requireMessage(BookDeltaDecoder.SCHEMA_ID, BookDeltaDecoder.TEMPLATE_ID);
+        requireMessage(TradeDecoder.SCHEMA_ID, TradeDecoder.TEMPLATE_ID);
+        requireMessage(BookUpdateBatchDecoder.SCHEMA_ID, BookUpdateBatchDecoder.TEMPLATE_ID);
+        requireMessage(CreateOrderDecoder.SCHEMA_ID, CreateOrderDecoder.TEMPLATE_ID);
+        requireMessage(FillOrderDecoder.SCHEMA_ID, FillOrderDecoder.TEMPLATE_ID);
+        requireMessage(CancelOrderDecoder.SCHEMA_ID, CancelOrderDecoder.TEMPLATE_ID);
+        requireMessage(ReplaceOrderDecoder.SCHEMA_ID, ReplaceOrderDecoder.TEMPLATE_ID);
+        requireMessage(MassCancelDecoder.SCHEMA_ID, MassCancelDecoder.TEMPLATE_ID);
+        requireMessage(AckedOrderDecoder.SCHEMA_ID, AckedOrderDecoder.TEMPLATE_ID);
+        requireMessage(CancelAckedOrderDecoder.SCHEMA_ID, CancelAckedOrderDecoder.TEMPLATE_ID);
+        requireMessage(RejectOrderDecoder.SCHEMA_ID, RejectOrderDecoder.TEMPLATE_ID);
+    }
 
     @Override
     public void onMessage(final DirectBuffer buffer) {
@@ -35,6 +67,24 @@ public class LoggingConsumer implements Consumer {
             int bufferOffset = decoder.encodedLength();
             bookUpdateDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
             logger.info("[" + decoder.sequencerNumber() + "] \n" + bookUpdateToString(bookUpdateDecoder));
+        } else if (decoder.schemaId() == BookDeltaDecoder.SCHEMA_ID && decoder.templateId() == BookDeltaDecoder.TEMPLATE_ID) {
+            final int actingBlockLength = decoder.blockLength();
+            final int actingVersion = decoder.version();
+            int bufferOffset = decoder.encodedLength();
+            bookDeltaDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            logger.info("[" + decoder.sequencerNumber() + "] " + bookDeltaDecoder);
+        } else if (decoder.schemaId() == TradeDecoder.SCHEMA_ID && decoder.templateId() == TradeDecoder.TEMPLATE_ID) {
+            final int actingBlockLength = decoder.blockLength();
+            final int actingVersion = decoder.version();
+            int bufferOffset = decoder.encodedLength();
+            tradeDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            logger.info("[" + decoder.sequencerNumber() + "] " + tradeDecoder);
+        } else if (decoder.schemaId() == BookUpdateBatchDecoder.SCHEMA_ID && decoder.templateId() == BookUpdateBatchDecoder.TEMPLATE_ID) {
+            final int actingBlockLength = decoder.blockLength();
+            final int actingVersion = decoder.version();
+            int bufferOffset = decoder.encodedLength();
+            batchDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            logger.info("[" + decoder.sequencerNumber() + "] " + batchDecoder);
         } else if (decoder.schemaId() == CreateOrderEncoder.SCHEMA_ID && decoder.templateId() == CreateOrderDecoder.TEMPLATE_ID) {
             final int actingBlockLength = decoder.blockLength();
             final int actingVersion = decoder.version();
@@ -54,6 +104,36 @@ public class LoggingConsumer implements Consumer {
             int bufferOffset = decoder.encodedLength();
             cancelDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
             logger.info("[" + decoder.sequencerNumber() + "] " + cancelDecoder);
+        } else if (decoder.schemaId() == ReplaceOrderDecoder.SCHEMA_ID && decoder.templateId() == ReplaceOrderDecoder.TEMPLATE_ID) {
+            final int actingBlockLength = decoder.blockLength();
+            final int actingVersion = decoder.version();
+            int bufferOffset = decoder.encodedLength();
+            replaceDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            logger.info("[" + decoder.sequencerNumber() + "] " + replaceDecoder);
+        } else if (decoder.schemaId() == MassCancelDecoder.SCHEMA_ID && decoder.templateId() == MassCancelDecoder.TEMPLATE_ID) {
+            final int actingBlockLength = decoder.blockLength();
+            final int actingVersion = decoder.version();
+            int bufferOffset = decoder.encodedLength();
+            massCancelDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            logger.info("[" + decoder.sequencerNumber() + "] " + massCancelDecoder);
+        } else if (decoder.schemaId() == AckedOrderDecoder.SCHEMA_ID && decoder.templateId() == AckedOrderDecoder.TEMPLATE_ID) {
+            final int actingBlockLength = decoder.blockLength();
+            final int actingVersion = decoder.version();
+            int bufferOffset = decoder.encodedLength();
+            ackedDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            logger.info("[" + decoder.sequencerNumber() + "] " + ackedDecoder);
+        } else if (decoder.schemaId() == CancelAckedOrderDecoder.SCHEMA_ID && decoder.templateId() == CancelAckedOrderDecoder.TEMPLATE_ID) {
+            final int actingBlockLength = decoder.blockLength();
+            final int actingVersion = decoder.version();
+            int bufferOffset = decoder.encodedLength();
+            cancelAckedDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            logger.info("[" + decoder.sequencerNumber() + "] " + cancelAckedDecoder);
+        } else if (decoder.schemaId() == RejectOrderDecoder.SCHEMA_ID && decoder.templateId() == RejectOrderDecoder.TEMPLATE_ID) {
+            final int actingBlockLength = decoder.blockLength();
+            final int actingVersion = decoder.version();
+            int bufferOffset = decoder.encodedLength();
+            rejectDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            logger.info("[" + decoder.sequencerNumber() + "] " + rejectDecoder);
         }
     }
 }
@@ -1,27 +1,112 @@
 package codingblackfemales.sequencer.event;
 
+import codingblackfemales.sequencer.AbstractSequencerComponent;
 import codingblackfemales.sequencer.net.Consumer;
 import messages.marketdata.AskBookUpdateDecoder;
 import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookDeltaDecoder;
+import messages.marketdata.BookUpdateBatchDecoder;
 import messages.marketdata.BookUpdateDecoder;
 import messages.marketdata.MessageHeaderDecoder;
+import messages.marketdata.OrderAddDecoder;
+import messages.marketdata.OrderModifyDecoder;
+import messages.marketdata.OrderDeleteDecoder;
+import messages.marketdata.OrderExecuteDecoder;
+import messages.marketdata.TradeDecoder;
 import org.agrona.DirectBuffer;
 
-public abstract class MarketDataEventListener implements Consumer {
+public abstract class MarketDataEventListener extends AbstractSequencerComponent implements Consumer {
 
     private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final SequenceTracker sequence = new SequenceTracker(this::deliver);
     private final BookUpdateDecoder book = new BookUpdateDecoder();
     private final AskBookUpdateDecoder ask = new AskBookUpdateDecoder();
     private final BidBookUpdateDecoder bid = new BidBookUpdateDecoder();
+    private final BookDeltaDecoder delta = new BookDeltaDecoder();
+    private final TradeDecoder trade = new TradeDecoder();
+    private final OrderAddDecoder orderAdd = new OrderAddDecoder();
+    private final OrderModifyDecoder orderModify = new OrderModifyDecoder();
+    private final OrderDeleteDecoder orderDelete = new OrderDeleteDecoder();
+    private final OrderExecuteDecoder orderExecute = new OrderExecuteDecoder();
+    private final BookUpdateBatchDecoder batch = new BookUpdateBatchDecoder();
+
+    public MarketDataEventListener() {
+        requireMessage(BookUpdateDecoder.SCHEMA_ID, BookUpdateDecoder.TEMPLATE_ID);
+        requireMessage(AskBookUpdateDecoder.SCHEMA_ID, AskBookUpdateDecoder.TEMPLATE_ID);
+        requireMessage(BidBookUpdateDecoder.SCHEMA_ID, BidBookUpdateDecoder.TEMPLATE_ID);
+        requireMessage(BookDeltaDecoder.SCHEMA_ID, BookDeltaDecoder.TEMPLATE_ID);
+        requireMessage(TradeDecoder.SCHEMA_ID, TradeDecoder.TEMPLATE_ID);
+        requireMessage(OrderAddDecoder.SCHEMA_ID, OrderAddDecoder.TEMPLATE_ID);
+        requireMessage(OrderModifyDecoder.SCHEMA_ID, OrderModifyDecoder.TEMPLATE_ID);
+        requireMessage(OrderDeleteDecoder.SCHEMA_ID, OrderDeleteDecoder.TEMPLATE_ID);
+        requireMessage(OrderExecuteDecoder.SCHEMA_ID, OrderExecuteDecoder.TEMPLATE_ID);
+        requireMessage(BookUpdateBatchDecoder.SCHEMA_ID, BookUpdateBatchDecoder.TEMPLATE_ID);
+    }
+
+    /**
+     * Checks every message's sequencerNumber from now on, counting gaps and duplicates, and recovers gaps from the
+     * recovery source if there is one. The listener is then sent every message, whether it was added to the network
+     * before or after this. See {@link SequenceTracker} for frames that arrive out of order.
+     */
+    public void trackSequence(final SequenceRecovery recovery) {
+        sequence.enable(recovery);
+        requirementsChanged();
+    }
+
+    public SequenceTracker sequenceTracker() {
+        return sequence;
+    }
+
+    /**
+     * @return the sequencerNumber of the message being handled. Read it before publishing anything, handling a
+     * message published back moves it on. 0 when called outside of {@link #onMessage(DirectBuffer)}.
+     */
+    protected long sequencerNumber() {
+        return header.buffer() == null ? 0L : header.sequencerNumber();
+    }
+
+    /**
+     * @return epoch nanoseconds the message being handled reached the sequencer, 0 outside of
+     * {@link #onMessage(DirectBuffer)}. Like {@link #sequencerNumber()}, read it before publishing anything. The same
+     * for {@link OrderEventListener}'s messages.
+     */
+    protected long ingressTimestamp() {
+        return header.buffer() == null ? 0L : header.ingressTimestamp();
+    }
+
+    /**
+     * @return epoch nanoseconds the message being handled was sequenced, 0 outside of {@link #onMessage(DirectBuffer)}.
+     * Both timestamps come from the sequencer's clock, so they can only be compared when every sequencer in front of
+     * it shares the one clock, see {@link codingblackfemales.sequencer.ConcurrentSequencer}.
+     */
+    protected long sequencedTimestamp() {
+        return header.buffer() == null ? 0L : header.sequencedTimestamp();
+    }
+
+    @Override
+    public boolean requiresMessage(final int schemaId, final int templateId) {
+        return sequence.isEnabled() || super.requiresMessage(schemaId, templateId);
+    }
 
     @Override
     public void onMessage(final DirectBuffer buffer) {
+        if (sequence.accept(buffer)) {
+            deliver(buffer);
+        }
+    }
+
+    private void deliver(final DirectBuffer buffer) {
         header.wrap(buffer, 0);
 
         final int actingBlockLength = header.blockLength();
         final int actingVersion = header.version();
         final int bufferOffset = header.encodedLength();
 
+        //template ids are only unique within a schema, BidBookUpdate and PartialFillOrder are both 9
+        if(header.schemaId() != BookUpdateDecoder.SCHEMA_ID){
+            return;
+        }
+
         if(header.templateId() == BookUpdateDecoder.TEMPLATE_ID){
             book.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
             onBookUpdate(book);
@@ -31,6 +116,27 @@ public abstract class MarketDataEventListener implements Consumer {
         }else if(header.templateId() == BidBookUpdateDecoder.TEMPLATE_ID){
             bid.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
             onBidBook(bid);
+        }else if(header.templateId() == BookDeltaDecoder.TEMPLATE_ID){
+            delta.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            onBookDelta(delta);
+        }else if(header.templateId() == TradeDecoder.TEMPLATE_ID){
+            trade.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            onTrade(trade);
+        }else if(header.templateId() == OrderAddDecoder.TEMPLATE_ID){
+            orderAdd.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            onOrderAdd(orderAdd);
+        }else if(header.templateId() == OrderModifyDecoder.TEMPLATE_ID){
+            orderModify.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            onOrderModify(orderModify);
+        }else if(header.templateId() == OrderDeleteDecoder.TEMPLATE_ID){
+            orderDelete.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            onOrderDelete(orderDelete);
+        }else if(header.templateId() == OrderExecuteDecoder.TEMPLATE_ID){
+            orderExecute.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            onOrderExecute(orderExecute);
+        }else if(header.templateId() == BookUpdateBatchDecoder.TEMPLATE_ID){
+            batch.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+            onBookUpdateBatch(batch);
         }
     }
 
@@ -38,4 +144,46 @@ public abstract class MarketDataEventListener implements Consumer {
     public abstract void onAskBook(AskBookUpdateDecoder askBook);
     public abstract void onBidBook(BidBookUpdateDecoder bidBook);
 
+    /**
+     * Levels added, changed or deleted since the last update from the same source, by price. Ignored unless
+     * overridden, listeners that keep a book should apply it.
+     */
+    public void onBookDelta(BookDeltaDecoder bookDelta) {}
+
+    /**
+     * A public print of a match. Ignored unless overridden.
+     */
+    public void onTrade(TradeDecoder trade) {}
+
+    /**
+     * Market by order, one order's change. Ignored unless overridden, see the L3 book builder in the algo module
+     * for a listener that keeps the book.
+     */
+    public void onOrderAdd(OrderAddDecoder orderAdd) {}
+    public void onOrderModify(OrderModifyDecoder orderModify) {}
+    public void onOrderDelete(OrderDeleteDecoder orderDelete) {}
+    public void onOrderExecute(OrderExecuteDecoder orderExecute) {}
+
+    /**
+     * Calls {@link #onBatchedBookUpdate} for each instrument in the batch, in order, over the message buffer itself.
+     * The end of each instrument is found before the callback, so it may read as much or as little of the
+     * instrument's levels as it likes.
+     */
+    public void onBookUpdateBatch(BookUpdateBatchDecoder batch) {
+        for(BookUpdateBatchDecoder.InstrumentsDecoder instrument : batch.instruments()){
+            final int instrumentLimit = batch.limit();
+            instrument.sbeSkip();
+            final int nextInstrumentLimit = batch.limit();
+            batch.limit(instrumentLimit);
+            onBatchedBookUpdate(batch, instrument);
+            batch.limit(nextInstrumentLimit);
+        }
+    }
+
+    /**
+     * One instrument's full book from a batch, the venue and source are the batch's. Ignored unless overridden. The
+     * decoders are only valid during the call, read bidBook before askBook.
+     */
+    public void onBatchedBookUpdate(BookUpdateBatchDecoder batch, BookUpdateBatchDecoder.InstrumentsDecoder instrument) {}
+
 }
@@ -1,24 +1,89 @@
 package codingblackfemales.sequencer.event;
 
+import codingblackfemales.sequencer.AbstractSequencerComponent;
 import codingblackfemales.sequencer.net.Consumer;
 import messages.marketdata.MessageHeaderDecoder;
 import messages.order.*;
 import org.agrona.DirectBuffer;
 
-public abstract class OrderEventListener implements Consumer {
+public abstract class OrderEventListener extends AbstractSequencerComponent implements Consumer {
 
     private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final SequenceTracker sequence = new SequenceTracker(this::deliver);
 
     private final CreateOrderDecoder createOrderDecoder = new CreateOrderDecoder();
     private final CancelOrderDecoder cancelOrderDecoder = new CancelOrderDecoder();
+    private final ReplaceOrderDecoder replaceOrderDecoder = new ReplaceOrderDecoder();
+    private final MassCancelDecoder massCancelDecoder = new MassCancelDecoder();
     private final AckedOrderDecoder ackedOrderDecoder = new AckedOrderDecoder();
     private final CancelAckedOrderDecoder cancelAckedOrderDecoder = new CancelAckedOrderDecoder();
+    private final RejectOrderDecoder rejectOrderDecoder = new RejectOrderDecoder();
     private final PendingOrderDecoder pendingOrderDecoder = new PendingOrderDecoder();
     private final PartialFillOrderDecoder partialFillOrderDecoder = new PartialFillOrderDecoder();
     private final FillOrderDecoder fillOrderDecoder = new FillOrderDecoder();
 
+    public OrderEventListener() {
+        requireMessage(CreateOrderDecoder.SCHEMA_ID, CreateOrderDecoder.TEMPLATE_ID);
+        requireMessage(CancelOrderDecoder.SCHEMA_ID, CancelOrderDecoder.TEMPLATE_ID);
+        requireMessage(ReplaceOrderDecoder.SCHEMA_ID, ReplaceOrderDecoder.TEMPLATE_ID);
+        requireMessage(MassCancelDecoder.SCHEMA_ID, MassCancelDecoder.TEMPLATE_ID);
+        requireMessage(AckedOrderDecoder.SCHEMA_ID, AckedOrderDecoder.TEMPLATE_ID);
+        requireMessage(CancelAckedOrderDecoder.SCHEMA_ID, CancelAckedOrderDecoder.TEMPLATE_ID);
+        requireMessage(RejectOrderDecoder.SCHEMA_ID, RejectOrderDecoder.TEMPLATE_ID);
+        requireMessage(PendingOrderDecoder.SCHEMA_ID, PendingOrderDecoder.TEMPLATE_ID);
+        requireMessage(PartialFillOrderDecoder.SCHEMA_ID, PartialFillOrderDecoder.TEMPLATE_ID);
+        requireMessage(FillOrderDecoder.SCHEMA_ID, FillOrderDecoder.TEMPLATE_ID);
+    }
+
+    /**
+     * Checks every message's sequencerNumber from now on, counting gaps and duplicates, and recovers gaps from the
+     * recovery source if there is one. The listener is then sent every message, whether it was added to the network
+     * before or after this. See {@link SequenceTracker} for frames that arrive out of order.
+     */
+    public void trackSequence(final SequenceRecovery recovery) {
+        sequence.enable(recovery);
+        requirementsChanged();
+    }
+
+    public SequenceTracker sequenceTracker() {
+        return sequence;
+    }
+
+    /**
+     * @return the sequencerNumber of the message being handled. Read it before publishing anything, handling a
+     * message published back moves it on. 0 when called outside of {@link #onMessage(DirectBuffer)}.
+     */
+    protected long sequencerNumber() {
+        return header.buffer() == null ? 0L : header.sequencerNumber();
+    }
+
+    /**
+     * @see MarketDataEventListener#ingressTimestamp()
+     */
+    protected long ingressTimestamp() {
+        return header.buffer() == null ? 0L : header.ingressTimestamp();
+    }
+
+    /**
+     * @see MarketDataEventListener#sequencedTimestamp()
+     */
+    protected long sequencedTimestamp() {
+        return header.buffer() == null ? 0L : header.sequencedTimestamp();
+    }
+
     @Override
-    public void onMessage(DirectBuffer buffer){
+    public boolean requiresMessage(final int schemaId, final int templateId) {
+        return sequence.isEnabled() || super.requiresMessage(schemaId, templateId);
+    }
+
+    @Override
+    public void onMessage(final DirectBuffer buffer) {
+        if (sequence.accept(buffer)) {
+            deliver(buffer);
+        }
+    }
+
+    private void deliver(final DirectBuffer buffer) {
 
         header.wrap(buffer, 0);
 
@@ -34,12 +99,21 @@ public abstract class OrderEventListener implements Consumer {
             } else if (header.templateId() == CancelOrderDecoder.TEMPLATE_ID) {
                 cancelOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
                 onCancelOrder(cancelOrderDecoder);
+            } else if (header.templateId() == ReplaceOrderDecoder.TEMPLATE_ID) {
+                replaceOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                onReplaceOrder(replaceOrderDecoder);
+            } else if (header.templateId() == MassCancelDecoder.TEMPLATE_ID) {
+                massCancelDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                onMassCancel(massCancelDecoder);
             } else if (header.templateId() == AckedOrderDecoder.TEMPLATE_ID) {
                 ackedOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
                 onAckedOrder(ackedOrderDecoder);
             } else if (header.templateId() == CancelAckedOrderDecoder.TEMPLATE_ID) {
                 cancelAckedOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
                 onCancelAckedOrder(cancelAckedOrderDecoder);
+            } else if (header.templateId() == RejectOrderDecoder.TEMPLATE_ID) {
+                rejectOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
+                onRejectOrder(rejectOrderDecoder);
             } else if (header.templateId() == PendingOrderDecoder.TEMPLATE_ID) {
                 pendingOrderDecoder.wrap(buffer, bufferOffset, actingBlockLength, actingVersion);
                 onPendingOrder(pendingOrderDecoder);
@@ -57,10 +131,26 @@ public abstract class OrderEventListener implements Consumer {
 
     public abstract void onCancelOrder(final CancelOrderDecoder cancel);
 
+    /**
+     * A resting order's new price and open quantity. Ignored unless overridden.
+     */
+    public void onReplaceOrder(final ReplaceOrderDecoder replace) {}
+
+    /**
+     * Every resting order on the instrument, or on one side of it when side is not NULL_VAL, is cancelled. Ignored
+     * unless overridden.
+     */
+    public void onMassCancel(final MassCancelDecoder massCancel) {}
+
     public abstract void onAckedOrder(final AckedOrderDecoder acked);
 
     public abstract void onCancelAckedOrder(final CancelAckedOrderDecoder cancelAcked);
 
+    /**
+     * The create, cancel or replace of the order was not applied, for the reason given. Ignored unless overridden.
+     */
+    public void onRejectOrder(final RejectOrderDecoder reject) {}
+
     public abstract void onPendingOrder(final PendingOrderDecoder pending);
 
     public abstract void onPartialFill(final PartialFillOrderDecoder partialFill);
@@ -0,0 +1,16 @@
+package codingblackfemales.sequencer.event;
+
+import codingblackfemales.sequencer.net.Consumer;
+
+/**
+ * Source a listener fetches missing frames from when it sees a gap, for example
+ * {@link codingblackfemales.sequencer.journal.JournalRecovery}.
+ */
+public interface SequenceRecovery {
+
+    /**
+     * Hands the frames from fromSequencerNumber to toSequencerNumber inclusive, in order, to the consumer before
+     * returning. Frames the source no longer has are simply skipped.
+     */
+    public void recover(final long fromSequencerNumber, final long toSequencerNumber, final Consumer consumer);
+}
@@ -0,0 +1,143 @@
+package codingblackfemales.sequencer.event;
+
+import codingblackfemales.sequencer.net.Consumer;
+import messages.marketdata.MessageHeaderDecoder;
+import org.agrona.DirectBuffer;
+import org.agrona.collections.LongHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks each frame's sequencerNumber against the one expected next, counting gaps and dropping duplicates.
+ *
+ * On a gap, delivery of the frame that revealed it is held while the missing range is fetched from the
+ * {@link SequenceRecovery}, recovered frames are passed to the same consumer first. Unsequenced frames
+ * (sequencerNumber 0) always pass.
+ *
+ * Only a frame that has already been delivered is a duplicate. What is still missing after a gap is remembered, up
+ * to {@link #MAX_MISSING} frames, and delivered if it turns up late. That is the normal case on a network which
+ * dispatches synchronously, where a consumer publishing while it handles frame N gets N+1 to the consumers after
+ * it before N.
+ */
+public class SequenceTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceTracker.class);
+
+    /**
+     * Most missing frames remembered at once, any more are counted lost straight away and dropped if they arrive.
+     */
+    public static final int MAX_MISSING = 1024;
+
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final Consumer consumer;
+    private final Consumer recovered = this::onRecovered;
+
+    private boolean enabled = false;
+    private SequenceRecovery recovery;
+    private boolean recovering = false;
+
+    //one past the highest sequencerNumber delivered
+    private long nextSequencerNumber = 0L;
+    private final LongHashSet missing = new LongHashSet();
+    private long gaps = 0L;
+    private long lost = 0L;
+    private long duplicates = 0L;
+
+    /**
+     * @param consumer delivers accepted frames, recovered frames are sent straight to it.
+     */
+    public SequenceTracker(final Consumer consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * @param recovery where missing frames are fetched from, or null to only count gaps.
+     */
+    public void enable(final SequenceRecovery recovery) {
+        this.enabled = true;
+        this.recovery = recovery;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true if the frame should be delivered, false if it is a duplicate. Any gap before it has been
+     * recovered by the time this returns.
+     */
+    public boolean accept(final DirectBuffer buffer) {
+        if (!enabled) {
+            return true;
+        }
+
+        header.wrap(buffer, 0);
+        final long sequencerNumber = header.sequencerNumber();
+        if (sequencerNumber == nextSequencerNumber || nextSequencerNumber == 0 || sequencerNumber == 0) {
+            if (sequencerNumber != 0) {
+                nextSequencerNumber = sequencerNumber + 1;
+            }
+            return true;
+        }
+
+        if (sequencerNumber < nextSequencerNumber) {
+            if (missing.remove(sequencerNumber)) {
+                return true;
+            }
+            duplicates++;
+            return false;
+        }
+
+        gaps++;
+        if (recovery != null && !recovering) {
+            recovering = true;
+            try {
+                recovery.recover(nextSequencerNumber, sequencerNumber - 1, recovered);
+            } finally {
+                recovering = false;
+            }
+        }
+        if (sequencerNumber > nextSequencerNumber) {
+            final long count = sequencerNumber - nextSequencerNumber;
+            if (missing.size() + count <= MAX_MISSING) {
+                for (long missed = nextSequencerNumber; missed < sequencerNumber; missed++) {
+                    missing.add(missed);
+                }
+                logger.debug("[SEQUENCE] Missing {} to {}", nextSequencerNumber, sequencerNumber - 1);
+            } else {
+                lost += count;
+                logger.warn("[SEQUENCE] Lost {} to {}", nextSequencerNumber, sequencerNumber - 1);
+            }
+        }
+        nextSequencerNumber = sequencerNumber + 1;
+        return true;
+    }
+
+    private void onRecovered(final DirectBuffer buffer) {
+        header.wrap(buffer, 0);
+        //only the frame expected next, anything else the source sends is outside the range asked for
+        if (header.sequencerNumber() == nextSequencerNumber) {
+            nextSequencerNumber++;
+            consumer.onMessage(buffer);
+        }
+    }
+
+    public long nextSequencerNumber() {
+        return nextSequencerNumber;
+    }
+
+    public long gaps() {
+        return gaps;
+    }
+
+    /**
+     * @return how many frames were missed, could not be recovered and have not arrived late.
+     */
+    public long lost() {
+        return lost + missing.size();
+    }
+
+    public long duplicates() {
+        return duplicates;
+    }
+}
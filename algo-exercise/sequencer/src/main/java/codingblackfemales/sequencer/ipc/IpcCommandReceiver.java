@@ -0,0 +1,61 @@
+package codingblackfemales.sequencer.ipc;
+
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
+import org.agrona.IoUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Sequencer process side of the commands ring: creates it and feeds everything other processes send through an
+ * {@link IpcSequencer} into the local sequencer, in the order they were written.
+ *
+ * Must run on the thread that owns the local sequencer.
+ */
+public class IpcCommandReceiver implements Agent, MessageHandler {
+
+    private final Sequencer sequencer;
+    private final MappedByteBuffer mappedRing;
+    private final ManyToOneRingBuffer ring;
+    private final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
+
+    public IpcCommandReceiver(final File directory, final Sequencer sequencer) {
+        this(directory, IpcFiles.DEFAULT_CAPACITY, sequencer);
+    }
+
+    /**
+     * @param capacity size in bytes of the commands ring, must be a power of two.
+     */
+    public IpcCommandReceiver(final File directory, final int capacity, final Sequencer sequencer) {
+        this.sequencer = sequencer;
+        this.mappedRing = IpcFiles.create(IpcFiles.commandsFile(directory), capacity);
+        this.ring = new ManyToOneRingBuffer(new UnsafeBuffer(mappedRing));
+    }
+
+    @Override
+    public int doWork() {
+        return ring.read(this);
+    }
+
+    @Override
+    public void onMessage(final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length) {
+        //stamped with its ingressTimestamp by the IpcSequencer that sent it, claimed records may be longer than the frame
+        sequencer.onStampedCommand(buffer, index, frameLengthDecoder.frameLength(buffer, index));
+    }
+
+    @Override
+    public void onClose() {
+        IoUtil.unmap(mappedRing);
+    }
+
+    @Override
+    public String roleName() {
+        return "ipc-commands";
+    }
+}
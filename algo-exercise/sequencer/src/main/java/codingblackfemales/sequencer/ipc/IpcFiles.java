@@ -0,0 +1,56 @@
+package codingblackfemales.sequencer.ipc;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory mapped ring buffer files shared by the processes on one box.
+ *
+ * The sequencer process owns the directory: it creates the commands ring everyone sends to and one ring per
+ * subscribing process, so it has to be started first. Other processes only ever open files that already exist.
+ */
+public final class IpcFiles {
+
+    public static final int DEFAULT_CAPACITY = 4 * 1024 * 1024;
+
+    static final int MSG_TYPE_ID = 1;
+
+    private static final String COMMANDS = "commands";
+    private static final String SUFFIX = ".ring";
+
+    private IpcFiles() {
+    }
+
+    public static File commandsFile(final File directory) {
+        return new File(directory, COMMANDS + SUFFIX);
+    }
+
+    public static File subscriberFile(final File directory, final String subscriber) {
+        if (COMMANDS.equals(subscriber)) {
+            throw new IllegalArgumentException("Subscriber cannot be called " + COMMANDS);
+        }
+        return new File(directory, subscriber + SUFFIX);
+    }
+
+    /**
+     * Creates the file afresh, throwing away anything left in it by a previous run.
+     *
+     * @param capacity size in bytes of the ring, must be a power of two.
+     */
+    static MappedByteBuffer create(final File file, final int capacity) {
+        IoUtil.ensureDirectoryExists(file.getParentFile(), "ipc");
+        IoUtil.deleteIfExists(file);
+        return IoUtil.mapNewFile(file, capacity + RingBufferDescriptor.TRAILER_LENGTH);
+    }
+
+    static MappedByteBuffer open(final File file) {
+        if (!file.exists()) {
+            throw new IllegalStateException("No ring at " + file + ", the sequencer process has to create it first");
+        }
+        return IoUtil.mapExistingFile(file, FileChannel.MapMode.READ_WRITE, "ipc ring");
+    }
+}
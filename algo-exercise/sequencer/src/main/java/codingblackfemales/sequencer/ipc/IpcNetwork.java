@@ -0,0 +1,89 @@
+package codingblackfemales.sequencer.ipc;
+
+import codingblackfemales.sequencer.net.Consumer;
+import codingblackfemales.sequencer.net.Network;
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sequencer side of the shared memory transport. Every sequenced frame is copied onto a memory mapped ring for each
+ * subscribing process, which reads it with an {@link IpcSubscriber}.
+ *
+ * It is also a {@link Consumer}, so it can sit on a local network alongside consumers living in the sequencer
+ * process. It then has to be the first consumer added, for the same reason as the journal: messages published while
+ * a message is being handled would otherwise reach the other processes before the message itself.
+ */
+public class IpcNetwork implements Network, Consumer, AutoCloseable {
+
+    private final File directory;
+    private final int capacity;
+
+    private final List<MappedByteBuffer> mappedRings = new ArrayList<>();
+    private OneToOneRingBuffer[] rings = new OneToOneRingBuffer[0];
+
+    private final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
+    private final IdleStrategy idleStrategy = new BackoffIdleStrategy();
+
+    public IpcNetwork(final File directory) {
+        this(directory, IpcFiles.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity size in bytes of each subscriber ring, must be a power of two.
+     */
+    public IpcNetwork(final File directory, final int capacity) {
+        this.directory = directory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates the ring the named subscriber process reads from. A subscriber that is not running holds the
+     * sequencer up once its ring is full.
+     */
+    public void addSubscriber(final String subscriber) {
+        final MappedByteBuffer mappedRing = IpcFiles.create(IpcFiles.subscriberFile(directory, subscriber), capacity);
+        mappedRings.add(mappedRing);
+
+        final OneToOneRingBuffer[] newRings = new OneToOneRingBuffer[rings.length + 1];
+        System.arraycopy(rings, 0, newRings, 0, rings.length);
+        newRings[rings.length] = new OneToOneRingBuffer(new UnsafeBuffer(mappedRing));
+        rings = newRings;
+    }
+
+    @Override
+    public void dispatch(final DirectBuffer buffer) {
+        dispatch(buffer, frameLengthDecoder.frameLength(buffer, 0));
+    }
+
+    @Override
+    public void dispatch(final DirectBuffer buffer, final int length) {
+        for (OneToOneRingBuffer ring : rings) {
+            idleStrategy.reset();
+            while (!ring.write(IpcFiles.MSG_TYPE_ID, buffer, 0, length)) {
+                idleStrategy.idle();
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(final DirectBuffer buffer) {
+        dispatch(buffer);
+    }
+
+    @Override
+    public void close() {
+        rings = new OneToOneRingBuffer[0];
+        mappedRings.forEach(IoUtil::unmap);
+        mappedRings.clear();
+    }
+}
@@ -0,0 +1,111 @@
+package codingblackfemales.sequencer.ipc;
+
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
+import messages.marketdata.MessageHeaderEncoder;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.SystemEpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Sequencer for processes other than the sequencer process: commands go onto the shared commands ring, which any
+ * number of processes can write to without locks, and are sequenced by the {@link IpcCommandReceiver} on the other
+ * side. Claimed slots are in the shared ring itself.
+ *
+ * Not thread safe, each thread sending commands needs its own instance.
+ */
+public class IpcSequencer implements Sequencer, AutoCloseable {
+
+    private final MappedByteBuffer mappedRing;
+    private final ManyToOneRingBuffer ring;
+
+    private final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
+    private final IdleStrategy idleStrategy = new BackoffIdleStrategy();
+    private final UnsafeBuffer claimed = new UnsafeBuffer(0, 0);
+    private final MessageHeaderEncoder header = new MessageHeaderEncoder();
+    private final EpochNanoClock clock;
+    private int claimIndex = RingBuffer.INSUFFICIENT_CAPACITY;
+
+    public IpcSequencer(final File directory) {
+        //wall clock based, so ingress times taken in different processes can be compared
+        this(directory, new SystemEpochNanoClock());
+    }
+
+    /**
+     * @param clock stamps the ingressTimestamp of commands as they are queued, shared with anything else in this
+     *              process that stamps times to be compared with them.
+     */
+    public IpcSequencer(final File directory, final EpochNanoClock clock) {
+        this.clock = clock;
+        this.mappedRing = IpcFiles.open(IpcFiles.commandsFile(directory));
+        this.ring = new ManyToOneRingBuffer(new UnsafeBuffer(mappedRing));
+    }
+
+    @Override
+    public void onCommand(final DirectBuffer byteBuffer) {
+        onCommand(byteBuffer, 0, frameLengthDecoder.frameLength(byteBuffer, 0));
+    }
+
+    @Override
+    public void onCommand(final DirectBuffer buffer, final int offset, final int length) {
+        enqueue(buffer, offset, length, true);
+    }
+
+    @Override
+    public void onStampedCommand(final DirectBuffer buffer, final int offset, final int length) {
+        enqueue(buffer, offset, length, false);
+    }
+
+    private void enqueue(final DirectBuffer buffer, final int offset, final int length, final boolean stampIngress) {
+        int index;
+        idleStrategy.reset();
+        while ((index = ring.tryClaim(IpcFiles.MSG_TYPE_ID, length)) == RingBuffer.INSUFFICIENT_CAPACITY) {
+            idleStrategy.idle();
+        }
+        ring.buffer().putBytes(index, buffer, offset, length);
+        if (stampIngress) {
+            header.wrap(ring.buffer(), index).ingressTimestamp(clock.nanoTime());
+        }
+        ring.commit(index);
+    }
+
+    @Override
+    public MutableDirectBuffer claim(final int length) {
+        if (claimIndex != RingBuffer.INSUFFICIENT_CAPACITY) {
+            throw new IllegalStateException("Already have a claimed slot");
+        }
+        int index;
+        idleStrategy.reset();
+        while ((index = ring.tryClaim(IpcFiles.MSG_TYPE_ID, length)) == RingBuffer.INSUFFICIENT_CAPACITY) {
+            idleStrategy.idle();
+        }
+        claimIndex = index;
+        claimed.wrap(ring.buffer(), index, length);
+        return claimed;
+    }
+
+    @Override
+    public void commit() {
+        if (claimIndex == RingBuffer.INSUFFICIENT_CAPACITY) {
+            throw new IllegalStateException("Commit without a claimed slot");
+        }
+        header.wrap(claimed, 0).ingressTimestamp(clock.nanoTime());
+        ring.commit(claimIndex);
+        claimIndex = RingBuffer.INSUFFICIENT_CAPACITY;
+    }
+
+    @Override
+    public void close() {
+        IoUtil.unmap(mappedRing);
+    }
+}
@@ -0,0 +1,53 @@
+package codingblackfemales.sequencer.ipc;
+
+import codingblackfemales.sequencer.net.Network;
+import org.agrona.IoUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Reads this process's ring from an {@link IpcNetwork} and dispatches each sequenced frame to the consumers on a
+ * local network, which routes them as it would in a single process.
+ */
+public class IpcSubscriber implements Agent, MessageHandler {
+
+    private final String subscriber;
+    private final Network network;
+    private final MappedByteBuffer mappedRing;
+    private final OneToOneRingBuffer ring;
+    private final UnsafeBuffer frame = new UnsafeBuffer(0, 0);
+
+    public IpcSubscriber(final File directory, final String subscriber, final Network network) {
+        this.subscriber = subscriber;
+        this.network = network;
+        this.mappedRing = IpcFiles.open(IpcFiles.subscriberFile(directory, subscriber));
+        this.ring = new OneToOneRingBuffer(new UnsafeBuffer(mappedRing));
+    }
+
+    @Override
+    public int doWork() {
+        return ring.read(this);
+    }
+
+    @Override
+    public void onMessage(final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length) {
+        frame.wrap(buffer, index, length);
+        network.dispatch(frame, length);
+    }
+
+    @Override
+    public void onClose() {
+        IoUtil.unmap(mappedRing);
+    }
+
+    @Override
+    public String roleName() {
+        return "ipc-subscriber-" + subscriber;
+    }
+}
@@ -0,0 +1,198 @@
+package codingblackfemales.sequencer.journal;
+
+import codingblackfemales.sequencer.net.Consumer;
+import codingblackfemales.sequencer.util.CompactBookCodec;
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
+import messages.marketdata.MessageHeaderDecoder;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.SystemEpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static codingblackfemales.sequencer.journal.JournalDescriptor.*;
+
+/**
+ * Appends every sequenced frame it is dispatched to memory mapped segment files, see {@link JournalDescriptor} for
+ * the layout. Frames are copied straight from the dispatched buffer into the mapped segment, the only system calls
+ * are made when a segment is rolled.
+ *
+ * Frames must arrive in sequencerNumber order, so on a {@link codingblackfemales.sequencer.net.TestNetwork} the
+ * journal has to be the first consumer added, otherwise messages published by consumers while handling a message
+ * reach it before the message itself. A frame at or below the last one appended is not journalled, it is counted in
+ * {@link #outOfOrder()} and logged, rather than failing the dispatch for every consumer after the journal.
+ *
+ * A journal made with compactBooks stores book messages in the {@link CompactBookCodec} form, usually a third of
+ * their size or less, at the cost of encoding them on the way in and decoding them on the way out. Readers tell the
+ * two kinds of record apart by their flags, so a journal can be reopened either way.
+ */
+public class Journal implements Consumer, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(Journal.class);
+
+    private final File directory;
+    private final int segmentLength;
+    private final EpochNanoClock clock;
+    private final boolean compactBooks;
+
+    private final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final CompactBookCodec codec = new CompactBookCodec();
+    private final ExpandableDirectByteBuffer compactFrame = new ExpandableDirectByteBuffer(1024);
+
+    private final UnsafeBuffer segment = new UnsafeBuffer(0, 0);
+    private MappedByteBuffer mappedSegment;
+    private int position;
+
+    private long lastSequencerNumber = 0L;
+    private long outOfOrder = 0L;
+
+    public Journal(final File directory) {
+        this(directory, DEFAULT_SEGMENT_LENGTH);
+    }
+
+    public Journal(final File directory, final int segmentLength) {
+        this(directory, segmentLength, new SystemEpochNanoClock());
+    }
+
+    public Journal(final File directory, final int segmentLength, final EpochNanoClock clock) {
+        this(directory, segmentLength, clock, false);
+    }
+
+    public Journal(final File directory, final int segmentLength, final EpochNanoClock clock, final boolean compactBooks) {
+        if (segmentLength <= RECORD_HEADER_LENGTH || segmentLength % RECORD_ALIGNMENT != 0) {
+            throw new IllegalArgumentException("Segment length must be a multiple of " + RECORD_ALIGNMENT + ", was " + segmentLength);
+        }
+        this.directory = directory;
+        this.segmentLength = segmentLength;
+        this.clock = clock;
+        this.compactBooks = compactBooks;
+
+        IoUtil.ensureDirectoryExists(directory, "journal");
+        resume();
+    }
+
+    @Override
+    public void onMessage(final DirectBuffer buffer) {
+        append(buffer, 0, frameLengthDecoder.frameLength(buffer, 0));
+    }
+
+    public void append(final DirectBuffer buffer, final int offset, final int length) {
+        header.wrap(buffer, offset);
+        final long sequencerNumber = header.sequencerNumber();
+
+        if (sequencerNumber <= lastSequencerNumber) {
+            outOfOrder++;
+            logger.warn("[JOURNAL] Skipping sequencerNumber {} after {}, {} skipped so far", sequencerNumber, lastSequencerNumber, outOfOrder);
+            return;
+        }
+
+        final long timestamp = clock.nanoTime();
+        DirectBuffer stored = buffer;
+        int storedOffset = offset;
+        int storedLength = length;
+        int flags = 0;
+        if (compactBooks) {
+            final int compactLength = codec.encode(buffer, offset, timestamp, compactFrame, 0);
+            if (compactLength != CompactBookCodec.NOT_COMPACTED && compactLength < length) {
+                stored = compactFrame;
+                storedOffset = 0;
+                storedLength = compactLength;
+                flags = COMPACT_FLAG;
+            }
+        }
+
+        final int recordLength = recordLength(storedLength);
+        if (recordLength > segmentLength) {
+            throw new IllegalArgumentException("Frame of " + length + " bytes does not fit in a segment of " + segmentLength);
+        }
+
+        if (mappedSegment == null || position + recordLength > segment.capacity()) {
+            roll(sequencerNumber);
+        }
+
+        segment.putBytes(position + RECORD_HEADER_LENGTH, stored, storedOffset, storedLength);
+        segment.putInt(position + FLAGS_OFFSET, flags);
+        segment.putLong(position + TIMESTAMP_OFFSET, timestamp);
+        //publishing the length last means a concurrent reader never sees a partly written frame
+        segment.putIntOrdered(position + LENGTH_OFFSET, storedLength);
+
+        position += recordLength;
+        lastSequencerNumber = sequencerNumber;
+    }
+
+    /**
+     * @return frames not journalled because they arrived at or below the last sequencerNumber appended.
+     */
+    public long outOfOrder() {
+        return outOfOrder;
+    }
+
+    public long lastSequencerNumber() {
+        return lastSequencerNumber;
+    }
+
+    public File directory() {
+        return directory;
+    }
+
+    private void roll(final long firstSequencerNumber) {
+        if (mappedSegment != null) {
+            if (position < segment.capacity()) {
+                segment.putIntOrdered(position + LENGTH_OFFSET, END_OF_SEGMENT);
+            }
+            IoUtil.unmap(mappedSegment);
+        }
+
+        mappedSegment = IoUtil.mapNewFile(new File(directory, segmentFileName(firstSequencerNumber)), segmentLength);
+        segment.wrap(mappedSegment);
+        position = 0;
+    }
+
+    //carry on from the end of the last segment when the directory already holds a journal
+    private void resume() {
+        final File[] segments = segments(directory);
+        if (segments.length == 0) {
+            return;
+        }
+
+        final File last = segments[segments.length - 1];
+        mappedSegment = IoUtil.mapExistingFile(last, FileChannel.MapMode.READ_WRITE, "journal segment");
+        segment.wrap(mappedSegment);
+
+        position = 0;
+        while (position < segment.capacity()) {
+            final int length = segment.getIntVolatile(position + LENGTH_OFFSET);
+            if (length == 0) {
+                break;
+            }
+            if (length == END_OF_SEGMENT) {
+                position = segment.capacity();
+                break;
+            }
+            if ((segment.getInt(position + FLAGS_OFFSET) & COMPACT_FLAG) != 0) {
+                lastSequencerNumber = codec.sequencerNumber(segment, position + RECORD_HEADER_LENGTH);
+            } else {
+                header.wrap(segment, position + RECORD_HEADER_LENGTH);
+                lastSequencerNumber = header.sequencerNumber();
+            }
+            position += recordLength(length);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (mappedSegment != null) {
+            IoUtil.unmap(mappedSegment);
+            mappedSegment = null;
+            segment.wrap(0, 0);
+        }
+    }
+}
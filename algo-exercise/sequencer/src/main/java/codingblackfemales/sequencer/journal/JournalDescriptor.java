@@ -0,0 +1,70 @@
+package codingblackfemales.sequencer.journal;
+
+import org.agrona.BitUtil;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Layout of the journal on disk.
+ *
+ * A journal is a directory of fixed size segment files, each named after the sequencerNumber of the first frame it
+ * holds, so the segment for any sequence number can be found from the file names alone. Inside a segment every
+ * record is 8 byte aligned:
+ *
+ * <pre>
+ *   0               4               8                              16
+ *   +---------------+---------------+------------------------------+----------------
+ *   | frame length  |     flags     |   journal timestamp (nanos)  |  SBE frame ...
+ *   +---------------+---------------+------------------------------+----------------
+ * </pre>
+ *
+ * A length of zero means nothing has been written there yet, {@link #END_OF_SEGMENT} means the writer rolled to the
+ * next segment. With {@link #COMPACT_FLAG} set the record holds the frame in the
+ * {@link codingblackfemales.sequencer.util.CompactBookCodec} form, encoded against the journal timestamp, and the
+ * length is that of the compact bytes.
+ */
+public final class JournalDescriptor {
+
+    public static final int LENGTH_OFFSET = 0;
+    public static final int FLAGS_OFFSET = 4;
+    public static final int TIMESTAMP_OFFSET = 8;
+    public static final int RECORD_HEADER_LENGTH = 16;
+    public static final int RECORD_ALIGNMENT = 8;
+
+    public static final int END_OF_SEGMENT = -1;
+
+    public static final int COMPACT_FLAG = 1;
+
+    public static final int DEFAULT_SEGMENT_LENGTH = 64 * 1024 * 1024;
+
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private JournalDescriptor() {
+    }
+
+    public static int recordLength(final int frameLength) {
+        return BitUtil.align(RECORD_HEADER_LENGTH + frameLength, RECORD_ALIGNMENT);
+    }
+
+    static String segmentFileName(final long firstSequencerNumber) {
+        return String.format("%020d%s", firstSequencerNumber, SEGMENT_SUFFIX);
+    }
+
+    static long firstSequencerNumber(final File segment) {
+        final String name = segment.getName();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * @return the segment files in the directory, ordered by the first sequencerNumber they hold.
+     */
+    static File[] segments(final File directory) {
+        final File[] segments = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (segments == null) {
+            return new File[0];
+        }
+        Arrays.sort(segments, (a, b) -> Long.compare(firstSequencerNumber(a), firstSequencerNumber(b)));
+        return segments;
+    }
+}
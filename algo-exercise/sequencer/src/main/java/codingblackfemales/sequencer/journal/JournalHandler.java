@@ -0,0 +1,12 @@
+package codingblackfemales.sequencer.journal;
+
+import org.agrona.DirectBuffer;
+
+public interface JournalHandler {
+
+    /**
+     * @param frame the sequenced SBE frame, starting at offset 0 of the buffer. Only valid during the callback.
+     * @param timestampNanos epoch nanos at which the journal appended the frame.
+     */
+    public void onFrame(final DirectBuffer frame, final long timestampNanos);
+}
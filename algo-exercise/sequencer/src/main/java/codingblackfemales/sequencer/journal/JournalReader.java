@@ -0,0 +1,171 @@
+package codingblackfemales.sequencer.journal;
+
+import codingblackfemales.sequencer.util.CompactBookCodec;
+import messages.marketdata.MessageHeaderDecoder;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static codingblackfemales.sequencer.journal.JournalDescriptor.*;
+
+/**
+ * Reads frames back out of a {@link Journal} directory, from the start or from any sequencerNumber. Frames are handed
+ * to the {@link JournalHandler} as views onto the mapped segment, nothing is copied, apart from compacted records
+ * which are decoded into a buffer of the reader's own.
+ *
+ * The reader can follow a journal that is still being written, {@link #read(JournalHandler, int)} simply returns 0
+ * when it has caught up with the writer.
+ */
+public class JournalReader implements AutoCloseable {
+
+    private final File directory;
+
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final UnsafeBuffer segment = new UnsafeBuffer(0, 0);
+    private final UnsafeBuffer frame = new UnsafeBuffer(0, 0);
+    private final CompactBookCodec codec = new CompactBookCodec();
+    private final ExpandableDirectByteBuffer decodedFrame = new ExpandableDirectByteBuffer(1024);
+
+    private MappedByteBuffer mappedSegment;
+    private long segmentFirstSequencerNumber = -1L;
+    private int position;
+
+    public JournalReader(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Positions the reader on the first frame with a sequencerNumber greater than or equal to the one given.
+     *
+     * @return false if the journal does not yet hold such a frame, the reader is then left at the end of the journal.
+     */
+    public boolean seek(final long sequencerNumber) {
+        final File[] segments = segments(directory);
+        if (segments.length == 0) {
+            return false;
+        }
+
+        //the segments are named by their first sequencerNumber, so the last one starting at or before it holds it
+        int index = 0;
+        for (int i = 1; i < segments.length; i++) {
+            if (firstSequencerNumber(segments[i]) <= sequencerNumber) {
+                index = i;
+            }
+        }
+        open(segments[index]);
+
+        while (true) {
+            final int length = nextLength();
+            if (length == 0) {
+                return false;
+            }
+            if (length == END_OF_SEGMENT) {
+                if (!nextSegment()) {
+                    return false;
+                }
+                continue;
+            }
+            if (recordSequencerNumber() >= sequencerNumber) {
+                return true;
+            }
+            position += recordLength(length);
+        }
+    }
+
+    /**
+     * Reads up to fragmentLimit frames from the current position.
+     *
+     * @return the number of frames handed to the handler.
+     */
+    public int read(final JournalHandler handler, final int fragmentLimit) {
+        if (mappedSegment == null) {
+            final File[] segments = segments(directory);
+            if (segments.length == 0) {
+                return 0;
+            }
+            open(segments[0]);
+        }
+
+        int fragments = 0;
+        while (fragments < fragmentLimit) {
+            final int length = nextLength();
+            if (length == 0) {
+                break;
+            }
+            if (length == END_OF_SEGMENT) {
+                if (!nextSegment()) {
+                    break;
+                }
+                continue;
+            }
+
+            final long timestampNanos = segment.getLong(position + TIMESTAMP_OFFSET);
+            if (isCompact()) {
+                final int frameLength = codec.decode(segment, position + RECORD_HEADER_LENGTH, timestampNanos, decodedFrame, 0);
+                frame.wrap(decodedFrame, 0, frameLength);
+            } else {
+                frame.wrap(segment, position + RECORD_HEADER_LENGTH, length);
+            }
+            position += recordLength(length);
+            fragments++;
+
+            handler.onFrame(frame, timestampNanos);
+        }
+        return fragments;
+    }
+
+    private boolean isCompact() {
+        return (segment.getInt(position + FLAGS_OFFSET) & COMPACT_FLAG) != 0;
+    }
+
+    private long recordSequencerNumber() {
+        if (isCompact()) {
+            return codec.sequencerNumber(segment, position + RECORD_HEADER_LENGTH);
+        }
+        header.wrap(segment, position + RECORD_HEADER_LENGTH);
+        return header.sequencerNumber();
+    }
+
+    //END_OF_SEGMENT when the writer has moved on, 0 when nothing more has been written yet
+    private int nextLength() {
+        if (position >= segment.capacity()) {
+            return END_OF_SEGMENT;
+        }
+        return segment.getIntVolatile(position + LENGTH_OFFSET);
+    }
+
+    private boolean nextSegment() {
+        for (File candidate : segments(directory)) {
+            if (firstSequencerNumber(candidate) > segmentFirstSequencerNumber) {
+                open(candidate);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void open(final File file) {
+        unmap();
+        mappedSegment = IoUtil.mapExistingFile(file, FileChannel.MapMode.READ_ONLY, "journal segment");
+        segment.wrap(mappedSegment);
+        segmentFirstSequencerNumber = firstSequencerNumber(file);
+        position = 0;
+    }
+
+    private void unmap() {
+        if (mappedSegment != null) {
+            IoUtil.unmap(mappedSegment);
+            mappedSegment = null;
+            segment.wrap(0, 0);
+        }
+    }
+
+    @Override
+    public void close() {
+        unmap();
+    }
+}
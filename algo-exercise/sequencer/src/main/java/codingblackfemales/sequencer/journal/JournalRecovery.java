@@ -0,0 +1,51 @@
+package codingblackfemales.sequencer.journal;
+
+import codingblackfemales.sequencer.event.SequenceRecovery;
+import codingblackfemales.sequencer.net.Consumer;
+import messages.marketdata.MessageHeaderDecoder;
+import org.agrona.DirectBuffer;
+
+import java.io.File;
+
+/**
+ * Recovers missed frames from a {@link Journal} directory, typically the journal the sequencer writes as it
+ * dispatches.
+ */
+public class JournalRecovery implements SequenceRecovery, JournalHandler {
+
+    private final File directory;
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+
+    private Consumer consumer;
+    private long toSequencerNumber;
+    private boolean done;
+
+    public JournalRecovery(final File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void recover(final long fromSequencerNumber, final long toSequencerNumber, final Consumer consumer) {
+        this.consumer = consumer;
+        this.toSequencerNumber = toSequencerNumber;
+        this.done = false;
+        try (JournalReader reader = new JournalReader(directory)) {
+            if (reader.seek(fromSequencerNumber)) {
+                while (!done && reader.read(this, 1) > 0) {
+                }
+            }
+        } finally {
+            this.consumer = null;
+        }
+    }
+
+    @Override
+    public void onFrame(final DirectBuffer frame, final long timestampNanos) {
+        header.wrap(frame, 0);
+        if (header.sequencerNumber() > toSequencerNumber) {
+            done = true;
+            return;
+        }
+        consumer.onMessage(frame);
+    }
+}
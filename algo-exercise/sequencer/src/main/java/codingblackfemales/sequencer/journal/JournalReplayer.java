@@ -0,0 +1,184 @@
+package codingblackfemales.sequencer.journal;
+
+import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.net.Consumer;
+import codingblackfemales.sequencer.net.Network;
+import messages.marketdata.BookDeltaDecoder;
+import messages.marketdata.BookUpdateBatchDecoder;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.MessageHeaderDecoder;
+import messages.marketdata.Source;
+import messages.marketdata.TradeDecoder;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.EpochNanoClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Streams a recorded {@link Journal} back out, either straight into a {@link Network} as already sequenced frames,
+ * or into a {@link Sequencer} so they are sequenced again and drive a live graph (order book, algo container...).
+ *
+ * Frames are paced by their journal timestamps according to the {@link ReplaySpeed}.
+ */
+public class JournalReplayer implements JournalHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalReplayer.class);
+
+    private static final int FRAGMENT_LIMIT = 256;
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final File directory;
+    private final ReplaySpeed speed;
+
+    private Predicate<DirectBuffer> filter = buffer -> true;
+    private long fromSequencerNumber = 1L;
+
+    private final MutableDirectBuffer commandBuffer = new ExpandableDirectByteBuffer(1024);
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private long eventTimeNanos;
+
+    private Consumer target;
+    private long messagesRead;
+    private long messagesReplayed;
+    private long firstTimestampNanos;
+    private long startNanos;
+
+    public JournalReplayer(final File directory, final ReplaySpeed speed) {
+        this.directory = directory;
+        this.speed = speed;
+    }
+
+    /**
+     * Only frames passing the filter are replayed, see {@link #streamMarketData()}.
+     */
+    public void setFilter(final Predicate<DirectBuffer> filter) {
+        this.filter = filter;
+    }
+
+    public void setFromSequencerNumber(final long fromSequencerNumber) {
+        this.fromSequencerNumber = fromSequencerNumber;
+    }
+
+    /**
+     * Dispatches the recorded frames as they are, sequencer numbers included. Frames are views onto the journal,
+     * consumers must not modify them.
+     */
+    public ReplayStats replay(final Network network) {
+        return replayTo(frame -> network.dispatch(frame, frame.capacity()));
+    }
+
+    /**
+     * Sends the recorded frames to the sequencer as commands, so they are given new sequencer numbers and anything
+     * consumers publish in response is interleaved with them as it would be live. Frames keep the ingressTimestamp
+     * they were recorded with, so consumers can run on event time.
+     */
+    public ReplayStats replay(final Sequencer sequencer) {
+        return replayTo(frame -> {
+            //the sequencer stamps in place and the journal is mapped read only
+            commandBuffer.putBytes(0, frame, 0, frame.capacity());
+            sequencer.onStampedCommand(commandBuffer, 0, frame.capacity());
+        });
+    }
+
+    /**
+     * @return a clock reading the ingressTimestamp of the frame being replayed, so a sequencer given it stamps
+     * everything consumers publish in response with event time rather than wall clock time.
+     */
+    public EpochNanoClock eventClock() {
+        return () -> eventTimeNanos;
+    }
+
+    private ReplayStats replayTo(final Consumer target) {
+        this.target = target;
+        messagesRead = 0;
+        messagesReplayed = 0;
+
+        final long replayStartNanos = System.nanoTime();
+        try (JournalReader reader = new JournalReader(directory)) {
+            if (reader.seek(fromSequencerNumber)) {
+                while (reader.read(this, FRAGMENT_LIMIT) > 0) {
+                }
+            }
+        } finally {
+            this.target = null;
+        }
+
+        final ReplayStats stats = new ReplayStats(messagesRead, messagesReplayed, System.nanoTime() - replayStartNanos);
+        logger.info("[REPLAY] Replayed " + directory + " at " + speed + ": " + stats);
+        return stats;
+    }
+
+    @Override
+    public void onFrame(final DirectBuffer frame, final long timestampNanos) {
+        messagesRead++;
+        if (!filter.test(frame)) {
+            return;
+        }
+
+        if (speed.isPaced()) {
+            if (messagesReplayed == 0) {
+                firstTimestampNanos = timestampNanos;
+                startNanos = System.nanoTime();
+            } else {
+                awaitNanoTime(startNanos + speed.replayNanos(timestampNanos - firstTimestampNanos));
+            }
+        }
+
+        eventTimeNanos = header.wrap(frame, 0).ingressTimestamp();
+        target.onMessage(frame);
+        messagesReplayed++;
+    }
+
+    private static void awaitNanoTime(final long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * @return a filter passing only market data that came from outside, rather than book updates the simulated
+     * order book published or order flow, which a replayed graph will generate again itself.
+     */
+    public static Predicate<DirectBuffer> streamMarketData() {
+        final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        final BookUpdateDecoder bookUpdate = new BookUpdateDecoder();
+        final BookDeltaDecoder bookDelta = new BookDeltaDecoder();
+        final TradeDecoder trade = new TradeDecoder();
+        final BookUpdateBatchDecoder batch = new BookUpdateBatchDecoder();
+        return buffer -> {
+            header.wrap(buffer, 0);
+            if (header.schemaId() != BookUpdateDecoder.SCHEMA_ID) {
+                return false;
+            }
+            if (header.templateId() == BookUpdateDecoder.TEMPLATE_ID) {
+                bookUpdate.wrap(buffer, header.encodedLength(), header.blockLength(), header.version());
+                return bookUpdate.source() != Source.ORDERBOOK;
+            }
+            if (header.templateId() == BookDeltaDecoder.TEMPLATE_ID) {
+                bookDelta.wrap(buffer, header.encodedLength(), header.blockLength(), header.version());
+                return bookDelta.source() != Source.ORDERBOOK;
+            }
+            if (header.templateId() == TradeDecoder.TEMPLATE_ID) {
+                trade.wrap(buffer, header.encodedLength(), header.blockLength(), header.version());
+                return trade.source() != Source.ORDERBOOK;
+            }
+            if (header.templateId() == BookUpdateBatchDecoder.TEMPLATE_ID) {
+                batch.wrap(buffer, header.encodedLength(), header.blockLength(), header.version());
+                return batch.source() != Source.ORDERBOOK;
+            }
+            return true;
+        };
+    }
+}
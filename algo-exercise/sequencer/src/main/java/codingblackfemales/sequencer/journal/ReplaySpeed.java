@@ -0,0 +1,53 @@
+package codingblackfemales.sequencer.journal;
+
+/**
+ * How fast a {@link JournalReplayer} plays frames back relative to the gaps between their journal timestamps.
+ */
+public final class ReplaySpeed {
+
+    private static final ReplaySpeed AS_FAST_AS_POSSIBLE = new ReplaySpeed(0);
+    private static final ReplaySpeed REAL_TIME = new ReplaySpeed(1);
+
+    private final double multiplier;
+
+    private ReplaySpeed(final double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Ignores the recorded timestamps entirely.
+     */
+    public static ReplaySpeed asFastAsPossible() {
+        return AS_FAST_AS_POSSIBLE;
+    }
+
+    public static ReplaySpeed realTime() {
+        return REAL_TIME;
+    }
+
+    /**
+     * @param multiplier 2 plays back twice as fast as recorded, 0.5 half as fast.
+     */
+    public static ReplaySpeed scaled(final double multiplier) {
+        if (multiplier <= 0) {
+            throw new IllegalArgumentException("Replay multiplier must be positive, was " + multiplier);
+        }
+        return new ReplaySpeed(multiplier);
+    }
+
+    public boolean isPaced() {
+        return multiplier > 0;
+    }
+
+    /**
+     * @return how long to wait at this speed for a gap of recordedNanos between two frames.
+     */
+    public long replayNanos(final long recordedNanos) {
+        return (long) (recordedNanos / multiplier);
+    }
+
+    @Override
+    public String toString() {
+        return isPaced() ? "ReplaySpeed(x" + multiplier + ")" : "ReplaySpeed(max)";
+    }
+}
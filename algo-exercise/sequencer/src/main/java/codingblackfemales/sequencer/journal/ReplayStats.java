@@ -0,0 +1,45 @@
+package codingblackfemales.sequencer.journal;
+
+import java.util.concurrent.TimeUnit;
+
+public class ReplayStats {
+
+    private final long messagesRead;
+    private final long messagesReplayed;
+    private final long elapsedNanos;
+
+    public ReplayStats(final long messagesRead, final long messagesReplayed, final long elapsedNanos) {
+        this.messagesRead = messagesRead;
+        this.messagesReplayed = messagesReplayed;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getMessagesRead() {
+        return messagesRead;
+    }
+
+    /**
+     * @return messages that passed the replay filter and were handed on.
+     */
+    public long getMessagesReplayed() {
+        return messagesReplayed;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getMessagesPerSecond() {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return messagesReplayed * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplayStats(read=" + messagesRead + ",replayed=" + messagesReplayed
+                + ",elapsedMs=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos)
+                + ",msgsPerSec=" + String.format("%.0f", getMessagesPerSecond()) + ")";
+    }
+}
@@ -0,0 +1,121 @@
+package codingblackfemales.sequencer.log;
+
+import codingblackfemales.sequencer.net.Consumer;
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.SystemEpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import static codingblackfemales.sequencer.journal.JournalDescriptor.*;
+
+/**
+ * Logs every frame it is dispatched, raw, to memory mapped files, for {@link BinaryLogDecoder} to turn into text
+ * offline. Records have the same layout as the {@link codingblackfemales.sequencer.journal.Journal}'s, but frames
+ * are kept in the order they were dispatched rather than required to be in sequencerNumber order, so the logger can
+ * be added to a network anywhere. Files are numbered in the order they are written, carrying on after the highest
+ * number already in the directory.
+ *
+ * Nothing is allocated while logging, a frame costs a copy and a timestamp.
+ */
+public class BinaryEventLogger implements Consumer, AutoCloseable {
+
+    public static final String FILE_SUFFIX = ".binlog";
+
+    private final File directory;
+    private final int fileLength;
+    private final EpochNanoClock clock;
+
+    private final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
+    private final UnsafeBuffer file = new UnsafeBuffer(0, 0);
+    private MappedByteBuffer mappedFile;
+    private int fileIndex = 0;
+    private int position;
+
+    public BinaryEventLogger(final File directory) {
+        this(directory, DEFAULT_SEGMENT_LENGTH, new SystemEpochNanoClock());
+    }
+
+    public BinaryEventLogger(final File directory, final int fileLength, final EpochNanoClock clock) {
+        if (fileLength <= RECORD_HEADER_LENGTH || fileLength % RECORD_ALIGNMENT != 0) {
+            throw new IllegalArgumentException("File length must be a multiple of " + RECORD_ALIGNMENT + ", was " + fileLength);
+        }
+        this.directory = directory;
+        this.fileLength = fileLength;
+        this.clock = clock;
+
+        IoUtil.ensureDirectoryExists(directory, "binary log");
+        //never write over an earlier run's files, roll() refuses to if another logger got there first
+        fileIndex = nextFileIndex(directory);
+    }
+
+    static int nextFileIndex(final File directory) {
+        final File[] existing = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        int next = 0;
+        if (existing != null) {
+            for (File file : existing) {
+                final String name = file.getName();
+                try {
+                    next = Math.max(next, Integer.parseInt(name.substring(0, name.length() - FILE_SUFFIX.length())) + 1);
+                } catch (NumberFormatException e) {
+                    //not one of ours
+                }
+            }
+        }
+        return next;
+    }
+
+    @Override
+    public void onMessage(final DirectBuffer buffer) {
+        final int length = frameLengthDecoder.frameLength(buffer, 0);
+        final int recordLength = recordLength(length);
+        if (recordLength > fileLength) {
+            throw new IllegalArgumentException("Frame of " + length + " bytes does not fit in a file of " + fileLength);
+        }
+
+        if (mappedFile == null || position + recordLength > file.capacity()) {
+            roll();
+        }
+
+        file.putBytes(position + RECORD_HEADER_LENGTH, buffer, 0, length);
+        file.putLong(position + TIMESTAMP_OFFSET, clock.nanoTime());
+        file.putIntOrdered(position + LENGTH_OFFSET, length);
+        position += recordLength;
+    }
+
+    private void roll() {
+        if (mappedFile != null) {
+            if (position < file.capacity()) {
+                file.putIntOrdered(position + LENGTH_OFFSET, END_OF_SEGMENT);
+            }
+            IoUtil.unmap(mappedFile);
+        }
+
+        final File next = new File(directory, String.format("%010d%s", fileIndex++, FILE_SUFFIX));
+        try (FileChannel channel = FileChannel.open(next.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mappedFile = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileLength);
+        } catch (IOException e) {
+            mappedFile = null;
+            throw new UncheckedIOException(e);
+        }
+        file.wrap(mappedFile);
+        position = 0;
+    }
+
+    @Override
+    public void close() {
+        if (mappedFile != null) {
+            IoUtil.unmap(mappedFile);
+            mappedFile = null;
+            file.wrap(0, 0);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package codingblackfemales.sequencer.log;
+
+import codingblackfemales.sequencer.util.CompactBookCodec;
+import messages.marketdata.AskBookUpdateDecoder;
+import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookDeltaDecoder;
+import messages.marketdata.BookUpdateBatchDecoder;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.MessageHeaderDecoder;
+import messages.marketdata.OrderAddDecoder;
+import messages.marketdata.OrderModifyDecoder;
+import messages.marketdata.OrderDeleteDecoder;
+import messages.marketdata.OrderExecuteDecoder;
+import messages.marketdata.TradeDecoder;
+import messages.order.*;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static codingblackfemales.sequencer.journal.JournalDescriptor.*;
+
+/**
+ * Offline tool printing the frames in a {@link BinaryEventLogger} directory as text, one line per frame with its
+ * timestamp. Journal directories have the same record layout, so they can be decoded as well.
+ *
+ * <pre>
+ *   java -cp sequencer.jar codingblackfemales.sequencer.log.BinaryLogDecoder &lt;directory&gt;
+ * </pre>
+ */
+public class BinaryLogDecoder {
+
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+
+    private final BookUpdateDecoder bookUpdate = new BookUpdateDecoder();
+    private final AskBookUpdateDecoder askBookUpdate = new AskBookUpdateDecoder();
+    private final BidBookUpdateDecoder bidBookUpdate = new BidBookUpdateDecoder();
+    private final BookDeltaDecoder bookDelta = new BookDeltaDecoder();
+    private final TradeDecoder trade = new TradeDecoder();
+    private final OrderAddDecoder orderAdd = new OrderAddDecoder();
+    private final OrderModifyDecoder orderModify = new OrderModifyDecoder();
+    private final OrderDeleteDecoder orderDelete = new OrderDeleteDecoder();
+    private final OrderExecuteDecoder orderExecute = new OrderExecuteDecoder();
+    private final BookUpdateBatchDecoder bookUpdateBatch = new BookUpdateBatchDecoder();
+
+    private final CreateOrderDecoder createOrder = new CreateOrderDecoder();
+    private final CancelOrderDecoder cancelOrder = new CancelOrderDecoder();
+    private final ReplaceOrderDecoder replaceOrder = new ReplaceOrderDecoder();
+    private final MassCancelDecoder massCancel = new MassCancelDecoder();
+    private final AckedOrderDecoder ackedOrder = new AckedOrderDecoder();
+    private final CancelAckedOrderDecoder cancelAckedOrder = new CancelAckedOrderDecoder();
+    private final RejectOrderDecoder rejectOrder = new RejectOrderDecoder();
+    private final PendingOrderDecoder pendingOrder = new PendingOrderDecoder();
+    private final PartialFillOrderDecoder partialFillOrder = new PartialFillOrderDecoder();
+    private final FillOrderDecoder fillOrder = new FillOrderDecoder();
+
+    private final UnsafeBuffer frame = new UnsafeBuffer(0, 0);
+    private final CompactBookCodec codec = new CompactBookCodec();
+    private final ExpandableDirectByteBuffer decodedFrame = new ExpandableDirectByteBuffer(1024);
+    private final StringBuilder builder = new StringBuilder();
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: BinaryLogDecoder <directory>");
+            System.exit(1);
+        }
+        new BinaryLogDecoder().decode(new File(args[0]), System.out);
+    }
+
+    /**
+     * @return the number of frames decoded.
+     */
+    public long decode(final File directory, final PrintStream out) {
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(BinaryEventLogger.FILE_SUFFIX) || name.endsWith(".journal"));
+        if (files == null) {
+            throw new UncheckedIOException(new IOException("Not a directory: " + directory));
+        }
+        //both kinds of file are named with zero padded numbers, so name order is write order
+        Arrays.sort(files);
+
+        long frames = 0;
+        for (File file : files) {
+            frames += decodeFile(file, out);
+        }
+        return frames;
+    }
+
+    private long decodeFile(final File file, final PrintStream out) {
+        final MappedByteBuffer mapped = IoUtil.mapExistingFile(file, FileChannel.MapMode.READ_ONLY, "binary log");
+        try {
+            final UnsafeBuffer buffer = new UnsafeBuffer(mapped);
+            long frames = 0;
+            int position = 0;
+            while (position < buffer.capacity()) {
+                final int length = buffer.getIntVolatile(position + LENGTH_OFFSET);
+                if (length == 0 || length == END_OF_SEGMENT) {
+                    break;
+                }
+                final long timestampNanos = buffer.getLong(position + TIMESTAMP_OFFSET);
+                if ((buffer.getInt(position + FLAGS_OFFSET) & COMPACT_FLAG) != 0) {
+                    frame.wrap(decodedFrame, 0, codec.decode(buffer, position + RECORD_HEADER_LENGTH, timestampNanos, decodedFrame, 0));
+                } else {
+                    frame.wrap(buffer, position + RECORD_HEADER_LENGTH, length);
+                }
+                out.println(format(frame, timestampNanos));
+                position += recordLength(length);
+                frames++;
+            }
+            return frames;
+        } finally {
+            IoUtil.unmap(mapped);
+        }
+    }
+
+    public String format(final DirectBuffer frame, final long timestampNanos) {
+        builder.setLength(0);
+        builder.append(Instant.ofEpochSecond(0, timestampNanos)).append(' ');
+
+        header.wrap(frame, 0);
+        builder.append('[').append(header.sequencerNumber()).append("] ");
+
+        final int offset = header.encodedLength();
+        final int blockLength = header.blockLength();
+        final int version = header.version();
+        final int templateId = header.templateId();
+
+        if (header.schemaId() == BookUpdateDecoder.SCHEMA_ID) {
+            if (templateId == BookUpdateDecoder.TEMPLATE_ID) {
+                bookUpdate.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == AskBookUpdateDecoder.TEMPLATE_ID) {
+                askBookUpdate.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == BidBookUpdateDecoder.TEMPLATE_ID) {
+                bidBookUpdate.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == BookDeltaDecoder.TEMPLATE_ID) {
+                bookDelta.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == TradeDecoder.TEMPLATE_ID) {
+                trade.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == OrderAddDecoder.TEMPLATE_ID) {
+                orderAdd.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == OrderModifyDecoder.TEMPLATE_ID) {
+                orderModify.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == OrderDeleteDecoder.TEMPLATE_ID) {
+                orderDelete.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == OrderExecuteDecoder.TEMPLATE_ID) {
+                orderExecute.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == BookUpdateBatchDecoder.TEMPLATE_ID) {
+                bookUpdateBatch.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else {
+                unknown(frame);
+            }
+        } else if (header.schemaId() == CreateOrderDecoder.SCHEMA_ID) {
+            if (templateId == CreateOrderDecoder.TEMPLATE_ID) {
+                createOrder.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == CancelOrderDecoder.TEMPLATE_ID) {
+                cancelOrder.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == ReplaceOrderDecoder.TEMPLATE_ID) {
+                replaceOrder.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == MassCancelDecoder.TEMPLATE_ID) {
+                massCancel.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == AckedOrderDecoder.TEMPLATE_ID) {
+                ackedOrder.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == CancelAckedOrderDecoder.TEMPLATE_ID) {
+                cancelAckedOrder.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == RejectOrderDecoder.TEMPLATE_ID) {
+                rejectOrder.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == PendingOrderDecoder.TEMPLATE_ID) {
+                pendingOrder.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == PartialFillOrderDecoder.TEMPLATE_ID) {
+                partialFillOrder.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else if (templateId == FillOrderDecoder.TEMPLATE_ID) {
+                fillOrder.wrap(frame, offset, blockLength, version).appendTo(builder);
+            } else {
+                unknown(frame);
+            }
+        } else {
+            unknown(frame);
+        }
+        return builder.toString();
+    }
+
+    private void unknown(final DirectBuffer frame) {
+        builder.append("unknown message schemaId=").append(header.schemaId())
+                .append(" templateId=").append(header.templateId())
+                .append(" length=").append(frame.capacity());
+    }
+}
@@ -0,0 +1,124 @@
+package codingblackfemales.sequencer.metrics;
+
+import codingblackfemales.sequencer.AbstractSequencerComponent;
+import codingblackfemales.sequencer.net.Consumer;
+import messages.marketdata.MessageHeaderDecoder;
+import org.agrona.DirectBuffer;
+import org.agrona.collections.Int2ObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records how long each consumer spends handling each type of message, in a {@link LatencyHistogram} per consumer
+ * and schemaId/templateId.
+ *
+ * Consumers that publish back to the sequencer are handed the resulting messages before they return, so the time
+ * recorded for a consumer excludes any nested dispatch it caused; that time is recorded against the consumers that
+ * handled the nested messages instead. Recording is allocation free once a consumer has seen each message type,
+ * and must happen on the one dispatching thread; snapshots can be taken from any thread.
+ */
+public class DispatchMetrics {
+
+    private final List<Entry> entries = new CopyOnWriteArrayList<>();
+
+    //time spent in nested dispatch, by depth, so it can be taken off the consumer that caused it
+    private long[] nestedNanos = new long[16];
+    private int depth = 0;
+
+    /**
+     * @return a consumer that times the one given and delivers to it, for the network to dispatch to in its place.
+     */
+    public Consumer instrument(final Consumer consumer) {
+        return new TimedConsumer(consumer, consumer.getClass().getSimpleName());
+    }
+
+    /**
+     * @return the latencies recorded so far, one entry per consumer and message type seen.
+     */
+    public List<Entry> entries() {
+        return new ArrayList<>(entries);
+    }
+
+    public static class Entry {
+        private final String consumerName;
+        private final int schemaId;
+        private final int templateId;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Entry(final String consumerName, final int schemaId, final int templateId) {
+            this.consumerName = consumerName;
+            this.schemaId = schemaId;
+            this.templateId = templateId;
+        }
+
+        public String getConsumerName() {
+            return consumerName;
+        }
+
+        public int getSchemaId() {
+            return schemaId;
+        }
+
+        public int getTemplateId() {
+            return templateId;
+        }
+
+        public HistogramSnapshot snapshot() {
+            return histogram.snapshot();
+        }
+
+        @Override
+        public String toString() {
+            return consumerName + " " + schemaId + "/" + templateId;
+        }
+    }
+
+    private class TimedConsumer implements Consumer {
+
+        private final Consumer consumer;
+        private final String name;
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        private final Int2ObjectHashMap<Entry> byMessage = new Int2ObjectHashMap<>();
+
+        private TimedConsumer(final Consumer consumer, final String name) {
+            this.consumer = consumer;
+            this.name = name;
+        }
+
+        @Override
+        public void onMessage(final DirectBuffer buffer) {
+            header.wrap(buffer, 0);
+            final Entry entry = entry(header.schemaId(), header.templateId());
+
+            final int current = ++depth;
+            if (current == nestedNanos.length) {
+                nestedNanos = Arrays.copyOf(nestedNanos, current * 2);
+            }
+            nestedNanos[current] = 0;
+
+            final long start = System.nanoTime();
+            try {
+                consumer.onMessage(buffer);
+            } finally {
+                final long elapsed = System.nanoTime() - start;
+                entry.histogram.record(elapsed - nestedNanos[current]);
+                depth--;
+                nestedNanos[depth] += elapsed;
+            }
+        }
+
+        private Entry entry(final int schemaId, final int templateId) {
+            final int key = AbstractSequencerComponent.messageKey(schemaId, templateId);
+            Entry entry = byMessage.get(key);
+            if (entry == null) {
+                entry = new Entry(name, schemaId, templateId);
+                byMessage.put(key, entry);
+                entries.add(entry);
+            }
+            return entry;
+        }
+    }
+}
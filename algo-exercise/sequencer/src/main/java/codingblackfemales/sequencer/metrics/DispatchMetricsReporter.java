@@ -0,0 +1,82 @@
+package codingblackfemales.sequencer.metrics;
+
+import org.agrona.CloseHelper;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.EpochClock;
+import org.agrona.concurrent.SystemEpochClock;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends the percentiles of every histogram in a {@link DispatchMetrics} to a log file at a fixed interval, both
+ * for the last interval and since the start. Duty cycle it on its own thread, for example with an
+ * {@link org.agrona.concurrent.AgentRunner} and a sleeping idle strategy.
+ */
+public class DispatchMetricsReporter implements Agent {
+
+    private final DispatchMetrics metrics;
+    private final long intervalMillis;
+    private final EpochClock clock;
+    private final PrintWriter writer;
+
+    private final Map<DispatchMetrics.Entry, HistogramSnapshot> previous = new HashMap<>();
+    private long nextReportMillis;
+
+    public DispatchMetricsReporter(final DispatchMetrics metrics, final File logFile, final long intervalMillis) {
+        this(metrics, logFile, intervalMillis, SystemEpochClock.INSTANCE);
+    }
+
+    public DispatchMetricsReporter(final DispatchMetrics metrics, final File logFile, final long intervalMillis, final EpochClock clock) {
+        this.metrics = metrics;
+        this.intervalMillis = intervalMillis;
+        this.clock = clock;
+        try {
+            this.writer = new PrintWriter(new FileWriter(logFile, true));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.nextReportMillis = clock.time() + intervalMillis;
+    }
+
+    @Override
+    public int doWork() {
+        final long now = clock.time();
+        if (now < nextReportMillis) {
+            return 0;
+        }
+        nextReportMillis = now + intervalMillis;
+        report(now);
+        return 1;
+    }
+
+    /**
+     * Writes one report straight away.
+     */
+    public void report(final long timeMillis) {
+        writer.println("[DISPATCH] " + Instant.ofEpochMilli(timeMillis));
+        for (DispatchMetrics.Entry entry : metrics.entries()) {
+            final HistogramSnapshot total = entry.snapshot();
+            final HistogramSnapshot last = previous.put(entry, total);
+            final HistogramSnapshot interval = last == null ? total : total.minus(last);
+            writer.println("  " + entry + " interval: " + interval + " total: " + total);
+        }
+        writer.flush();
+    }
+
+    @Override
+    public String roleName() {
+        return "dispatch-metrics-reporter";
+    }
+
+    @Override
+    public void onClose() {
+        CloseHelper.quietClose(writer);
+    }
+}
@@ -0,0 +1,86 @@
+package codingblackfemales.sequencer.metrics;
+
+/**
+ * Point in time copy of a {@link LatencyHistogram}'s counts.
+ */
+public class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long totalCount;
+
+    HistogramSnapshot(final long[] counts) {
+        this.counts = counts;
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        this.totalCount = total;
+    }
+
+    /**
+     * @return what was recorded since the earlier snapshot of the same histogram.
+     */
+    public HistogramSnapshot minus(final HistogramSnapshot earlier) {
+        final long[] delta = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            delta[i] = counts[i] - earlier.counts[i];
+        }
+        return new HistogramSnapshot(delta);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return the value at or below which that percentage of the recorded values fall, 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        final long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return LatencyHistogram.highestValue(i);
+            }
+        }
+        return getMaxValue();
+    }
+
+    public long getMaxValue() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] != 0) {
+                return LatencyHistogram.highestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    public double getMean() {
+        if (totalCount == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                sum += (double) counts[i] * LatencyHistogram.highestValue(i);
+            }
+        }
+        return sum / totalCount;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + totalCount +
+                " mean=" + Math.round(getMean()) +
+                " p50=" + getValueAtPercentile(50) +
+                " p90=" + getValueAtPercentile(90) +
+                " p99=" + getValueAtPercentile(99) +
+                " p99.9=" + getValueAtPercentile(99.9) +
+                " max=" + getMaxValue();
+    }
+}
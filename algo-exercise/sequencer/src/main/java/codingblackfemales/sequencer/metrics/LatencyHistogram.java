@@ -0,0 +1,56 @@
+package codingblackfemales.sequencer.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of nanosecond latencies, in the style of HdrHistogram. Values below 128 are counted exactly,
+ * above that each power of two is split into 64 linear buckets, so any recorded value is reported to within 1/64
+ * (about 1.6%) of its true value across the whole range of a long.
+ *
+ * {@link #record(long)} is allocation free and meant for a single writer thread; any thread may take a
+ * {@link #snapshot()} while it records.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+
+    static final int BUCKET_COUNT = index(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(final long value) {
+        final int index = index(Math.max(0, value));
+        counts.lazySet(index, counts.get(index) + 1);
+    }
+
+    public HistogramSnapshot snapshot() {
+        final long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new HistogramSnapshot(copy);
+    }
+
+    static int index(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        //shift the value down until it lands in the top half of the sub buckets
+        final int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the highest value that is counted in the bucket at index.
+     */
+    static long highestValue(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        final long subBucket = index - (long) shift * SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
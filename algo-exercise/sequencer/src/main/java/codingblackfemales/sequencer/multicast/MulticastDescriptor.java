@@ -0,0 +1,69 @@
+package codingblackfemales.sequencer.multicast;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Datagram layout shared by {@link MulticastNetwork} and {@link MulticastSubscriber}. Every datagram starts with an
+ * 8 byte transport header holding its type:
+ *
+ * <pre>
+ *   DATA      [type][pad]  sequenced SBE frame, the sequencerNumber in its header is what gaps are detected on
+ *   HEARTBEAT [type][pad]  long highest sequencerNumber sent, lets receivers spot loss at the end of a burst
+ *   NAK       [type][pad]  long from, long to (inclusive), sent unicast from a receiver back to the publisher
+ *   LOST      [type][pad]  long from, long to (inclusive), NAKed frames the publisher no longer holds
+ * </pre>
+ */
+final class MulticastDescriptor {
+
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int TYPE_OFFSET = 0;
+    static final int BODY_OFFSET = 8;
+
+    static final int DATA = 1;
+    static final int HEARTBEAT = 2;
+    static final int NAK = 3;
+    static final int LOST = 4;
+
+    static final int HEARTBEAT_LENGTH = BODY_OFFSET + 8;
+    static final int NAK_FROM_OFFSET = BODY_OFFSET;
+    static final int NAK_TO_OFFSET = BODY_OFFSET + 8;
+    static final int NAK_LENGTH = BODY_OFFSET + 16;
+    static final int LOST_FROM_OFFSET = BODY_OFFSET;
+    static final int LOST_TO_OFFSET = BODY_OFFSET + 8;
+    static final int LOST_LENGTH = BODY_OFFSET + 16;
+
+    //keeps a datagram inside a standard ethernet MTU once the IP and UDP headers are added
+    static final int MAX_DATAGRAM_LENGTH = 1472;
+
+    private MulticastDescriptor() {
+    }
+
+    static DatagramChannel openMulticastChannel(final NetworkInterface networkInterface) {
+        try {
+            final DatagramChannel channel = DatagramChannel.open(StandardProtocolFamily.INET);
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+            channel.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+            channel.configureBlocking(false);
+            return channel;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static DatagramChannel bind(final DatagramChannel channel, final InetSocketAddress address) {
+        try {
+            return channel.bind(address);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
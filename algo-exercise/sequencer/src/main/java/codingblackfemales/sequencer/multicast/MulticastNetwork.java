@@ -0,0 +1,207 @@
+package codingblackfemales.sequencer.multicast;
+
+import codingblackfemales.sequencer.net.Network;
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
+import messages.marketdata.MessageHeaderDecoder;
+import org.agrona.BitUtil;
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+
+import static codingblackfemales.sequencer.multicast.MulticastDescriptor.*;
+
+/**
+ * Publishes each sequenced frame as one UDP multicast datagram, see {@link MulticastDescriptor}.
+ *
+ * The last frames sent are kept in a retransmit buffer, indexed by sequencerNumber, which serves the NAKs receivers
+ * send back when they see a gap. A NAK for frames that have already left the buffer is answered with a LOST range, so
+ * receivers stop waiting on them. NAKs and heartbeats are handled in {@link #doWork()}, which must be duty cycled on
+ * the thread that dispatches, for example alongside a {@link codingblackfemales.sequencer.ConcurrentSequencer} in a
+ * composite agent.
+ */
+public class MulticastNetwork implements Network, Agent, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MulticastNetwork.class);
+
+    public static final int DEFAULT_RETRANSMIT_CAPACITY = 4096;
+
+    private static final long HEARTBEAT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final InetSocketAddress group;
+    private final DatagramChannel dataChannel;
+    private final DatagramChannel nakChannel;
+
+    private final int retransmitMask;
+    private final ByteBuffer retransmitByteBuffer;
+    private final UnsafeBuffer retransmitBuffer;
+    private final long[] retransmitSequencerNumbers;
+    private final int[] retransmitLengths;
+
+    private final ByteBuffer controlByteBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_LENGTH);
+    private final UnsafeBuffer controlBuffer = new UnsafeBuffer(controlByteBuffer);
+
+    private final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+
+    private long lastSequencerNumber = 0L;
+    private long lastSendNanos;
+    private long retransmitted = 0L;
+    private long lostRanges = 0L;
+
+    public MulticastNetwork(final NetworkInterface networkInterface, final InetSocketAddress group, final InetSocketAddress nakAddress) {
+        this(networkInterface, group, nakAddress, DEFAULT_RETRANSMIT_CAPACITY);
+    }
+
+    /**
+     * @param nakAddress unicast address receivers send NAKs to.
+     * @param retransmitCapacity how many of the most recent frames can be retransmitted, must be a power of two.
+     */
+    public MulticastNetwork(final NetworkInterface networkInterface, final InetSocketAddress group,
+                            final InetSocketAddress nakAddress, final int retransmitCapacity) {
+        if (!BitUtil.isPowerOfTwo(retransmitCapacity)) {
+            throw new IllegalArgumentException("Retransmit capacity must be a power of two, was " + retransmitCapacity);
+        }
+        this.group = group;
+        this.dataChannel = openMulticastChannel(networkInterface);
+        this.nakChannel = openMulticastChannel(networkInterface);
+        bind(nakChannel, nakAddress);
+
+        this.retransmitMask = retransmitCapacity - 1;
+        this.retransmitByteBuffer = ByteBuffer.allocateDirect(retransmitCapacity * MAX_DATAGRAM_LENGTH);
+        this.retransmitBuffer = new UnsafeBuffer(retransmitByteBuffer);
+        this.retransmitSequencerNumbers = new long[retransmitCapacity];
+        this.retransmitLengths = new int[retransmitCapacity];
+
+        controlBuffer.putInt(TYPE_OFFSET, HEARTBEAT, BYTE_ORDER);
+    }
+
+    @Override
+    public void dispatch(final DirectBuffer buffer) {
+        dispatch(buffer, frameLengthDecoder.frameLength(buffer, 0));
+    }
+
+    /**
+     * Frames must fit in a single datagram, see {@link MulticastDescriptor#MAX_DATAGRAM_LENGTH}.
+     */
+    @Override
+    public void dispatch(final DirectBuffer buffer, final int frameLength) {
+        if (BODY_OFFSET + frameLength > MAX_DATAGRAM_LENGTH) {
+            throw new IllegalArgumentException("Frame of " + frameLength + " bytes does not fit in a datagram");
+        }
+
+        header.wrap(buffer, 0);
+        final long sequencerNumber = header.sequencerNumber();
+
+        //encode straight into the retransmit slot and send from there
+        final int slot = (int) (sequencerNumber & retransmitMask);
+        final int offset = slot * MAX_DATAGRAM_LENGTH;
+        retransmitBuffer.putInt(offset + TYPE_OFFSET, DATA, BYTE_ORDER);
+        retransmitBuffer.putBytes(offset + BODY_OFFSET, buffer, 0, frameLength);
+        retransmitSequencerNumbers[slot] = sequencerNumber;
+        retransmitLengths[slot] = BODY_OFFSET + frameLength;
+
+        sendSlot(slot);
+        lastSequencerNumber = sequencerNumber;
+    }
+
+    @Override
+    public int doWork() {
+        int work = 0;
+
+        try {
+            controlByteBuffer.clear();
+            while (nakChannel.receive(controlByteBuffer) != null) {
+                if (controlByteBuffer.position() == NAK_LENGTH && controlBuffer.getInt(TYPE_OFFSET, BYTE_ORDER) == NAK) {
+                    retransmit(controlBuffer.getLong(NAK_FROM_OFFSET, BYTE_ORDER), controlBuffer.getLong(NAK_TO_OFFSET, BYTE_ORDER));
+                    work++;
+                }
+                controlByteBuffer.clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (lastSequencerNumber > 0 && System.nanoTime() - lastSendNanos >= HEARTBEAT_INTERVAL_NANOS) {
+            controlBuffer.putInt(TYPE_OFFSET, HEARTBEAT, BYTE_ORDER);
+            controlBuffer.putLong(BODY_OFFSET, lastSequencerNumber, BYTE_ORDER);
+            controlByteBuffer.clear().limit(HEARTBEAT_LENGTH);
+            send(controlByteBuffer);
+            lastSendNanos = System.nanoTime();
+            work++;
+        }
+
+        return work;
+    }
+
+    private void retransmit(final long from, final long to) {
+        final long oldest = Math.max(1, lastSequencerNumber - retransmitMask);
+        if (from < oldest) {
+            final long lostTo = Math.min(to, oldest - 1);
+            logger.warn("[MULTICAST] Cannot retransmit {} to {}, no longer held", from, lostTo);
+            controlBuffer.putInt(TYPE_OFFSET, LOST, BYTE_ORDER);
+            controlBuffer.putLong(LOST_FROM_OFFSET, from, BYTE_ORDER);
+            controlBuffer.putLong(LOST_TO_OFFSET, lostTo, BYTE_ORDER);
+            controlByteBuffer.clear().limit(LOST_LENGTH);
+            send(controlByteBuffer);
+            lostRanges++;
+        }
+        for (long sequencerNumber = Math.max(from, oldest); sequencerNumber <= Math.min(to, lastSequencerNumber); sequencerNumber++) {
+            final int slot = (int) (sequencerNumber & retransmitMask);
+            if (retransmitSequencerNumbers[slot] == sequencerNumber) {
+                sendSlot(slot);
+                retransmitted++;
+            }
+        }
+    }
+
+    private void sendSlot(final int slot) {
+        final int offset = slot * MAX_DATAGRAM_LENGTH;
+        retransmitByteBuffer.limit(offset + retransmitLengths[slot]).position(offset);
+        send(retransmitByteBuffer);
+        retransmitByteBuffer.clear();
+        lastSendNanos = System.nanoTime();
+    }
+
+    /**
+     * Sends one datagram to the group, the buffer's position and limit frame it.
+     */
+    protected void send(final ByteBuffer datagram) {
+        try {
+            dataChannel.send(datagram, group);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long retransmitted() {
+        return retransmitted;
+    }
+
+    /**
+     * @return how many NAKs were answered with a LOST range.
+     */
+    public long lostRanges() {
+        return lostRanges;
+    }
+
+    @Override
+    public String roleName() {
+        return "multicast-publisher";
+    }
+
+    @Override
+    public void close() {
+        CloseHelper.quietCloseAll(dataChannel, nakChannel);
+    }
+}
@@ -0,0 +1,287 @@
+package codingblackfemales.sequencer.multicast;
+
+import codingblackfemales.sequencer.net.Network;
+import messages.marketdata.MessageHeaderDecoder;
+import org.agrona.BitUtil;
+import org.agrona.CloseHelper;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+
+import static codingblackfemales.sequencer.multicast.MulticastDescriptor.*;
+
+/**
+ * Receives the sequenced stream from a {@link MulticastNetwork} and dispatches it, in sequencerNumber order and
+ * without gaps or duplicates, to a local network.
+ *
+ * Frames that arrive ahead of a gap are held in a reorder buffer while the missing range is NAKed back to the
+ * publisher, and NAKed again every interval until it has been filled. The subscriber starts from whichever frame
+ * (or heartbeat) it sees first.
+ *
+ * Frames the publisher answers as LOST, because they left its retransmit buffer before the NAK reached it, are given
+ * up on: they are counted, reported to the {@link LossListener}, and delivery carries on after them, so the local
+ * network sees a jump in the sequencerNumber.
+ */
+public class MulticastSubscriber implements Agent, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MulticastSubscriber.class);
+
+    public static final int DEFAULT_REORDER_CAPACITY = 1024;
+
+    public interface LossListener {
+        /**
+         * Called on the subscriber's thread for each range of frames (from and to inclusive) that will never arrive.
+         */
+        void onLoss(long from, long to);
+    }
+
+    private static final long NAK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final int RECEIVE_LIMIT = 64;
+
+    private final Network network;
+    private final LossListener lossListener;
+    private final InetSocketAddress nakAddress;
+    private final DatagramChannel channel;
+
+    private final ByteBuffer receiveByteBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_LENGTH);
+    private final UnsafeBuffer receiveBuffer = new UnsafeBuffer(receiveByteBuffer);
+    private final ByteBuffer nakByteBuffer = ByteBuffer.allocateDirect(NAK_LENGTH);
+    private final UnsafeBuffer nakBuffer = new UnsafeBuffer(nakByteBuffer);
+
+    private final int reorderMask;
+    private final UnsafeBuffer reorderBuffer;
+    private final long[] reorderSequencerNumbers;
+    private final int[] reorderLengths;
+
+    private final UnsafeBuffer frame = new UnsafeBuffer(0, 0);
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+
+    private long nextSequencerNumber = 0L;
+    private long highestSeen = 0L;
+    private long nakDeadlineNanos;
+
+    private long naksSent = 0L;
+    private long duplicates = 0L;
+    private long lost = 0L;
+
+    public MulticastSubscriber(final NetworkInterface networkInterface, final InetSocketAddress group,
+                               final InetSocketAddress nakAddress, final Network network) {
+        this(networkInterface, group, nakAddress, network, DEFAULT_REORDER_CAPACITY);
+    }
+
+    /**
+     * @param reorderCapacity how many frames ahead of a gap are held rather than dropped, must be a power of two.
+     */
+    public MulticastSubscriber(final NetworkInterface networkInterface, final InetSocketAddress group,
+                               final InetSocketAddress nakAddress, final Network network, final int reorderCapacity) {
+        this(networkInterface, group, nakAddress, network, reorderCapacity, (from, to) -> { });
+    }
+
+    public MulticastSubscriber(final NetworkInterface networkInterface, final InetSocketAddress group,
+                               final InetSocketAddress nakAddress, final Network network, final int reorderCapacity,
+                               final LossListener lossListener) {
+        if (!BitUtil.isPowerOfTwo(reorderCapacity)) {
+            throw new IllegalArgumentException("Reorder capacity must be a power of two, was " + reorderCapacity);
+        }
+        this.network = network;
+        this.lossListener = lossListener;
+        this.nakAddress = nakAddress;
+
+        this.channel = openMulticastChannel(networkInterface);
+        bind(channel, new InetSocketAddress(group.getPort()));
+        try {
+            channel.join(group.getAddress(), networkInterface);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        this.reorderMask = reorderCapacity - 1;
+        this.reorderBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(reorderCapacity * MAX_DATAGRAM_LENGTH));
+        this.reorderSequencerNumbers = new long[reorderCapacity];
+        this.reorderLengths = new int[reorderCapacity];
+
+        nakBuffer.putInt(TYPE_OFFSET, NAK, BYTE_ORDER);
+    }
+
+    @Override
+    public int doWork() {
+        int work = 0;
+        try {
+            for (; work < RECEIVE_LIMIT; work++) {
+                receiveByteBuffer.clear();
+                if (channel.receive(receiveByteBuffer) == null) {
+                    break;
+                }
+                onDatagram(receiveByteBuffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (hasGap() && System.nanoTime() - nakDeadlineNanos >= 0) {
+            sendNak();
+            work++;
+        }
+        return work;
+    }
+
+    private void onDatagram(final int length) {
+        final int type = receiveBuffer.getInt(TYPE_OFFSET, BYTE_ORDER);
+        if (type == DATA) {
+            header.wrap(receiveBuffer, BODY_OFFSET);
+            onData(header.sequencerNumber(), length);
+        } else if (type == HEARTBEAT) {
+            final long lastSent = receiveBuffer.getLong(BODY_OFFSET, BYTE_ORDER);
+            if (nextSequencerNumber == 0) {
+                nextSequencerNumber = lastSent + 1;
+            }
+            onSeen(lastSent);
+        } else if (type == LOST) {
+            onLost(receiveBuffer.getLong(LOST_FROM_OFFSET, BYTE_ORDER), receiveBuffer.getLong(LOST_TO_OFFSET, BYTE_ORDER));
+        }
+    }
+
+    private void onData(final long sequencerNumber, final int length) {
+        if (nextSequencerNumber == 0) {
+            nextSequencerNumber = sequencerNumber;
+        }
+
+        if (sequencerNumber < nextSequencerNumber) {
+            duplicates++;
+        } else if (sequencerNumber == nextSequencerNumber) {
+            frame.wrap(receiveBuffer, BODY_OFFSET, length - BODY_OFFSET);
+            deliver();
+            deliverReordered();
+        } else {
+            if (sequencerNumber - nextSequencerNumber <= reorderMask) {
+                final int slot = (int) (sequencerNumber & reorderMask);
+                reorderBuffer.putBytes(slot * MAX_DATAGRAM_LENGTH, receiveBuffer, 0, length);
+                reorderSequencerNumbers[slot] = sequencerNumber;
+                reorderLengths[slot] = length;
+            }
+            onSeen(sequencerNumber);
+        }
+    }
+
+    /**
+     * Gives up on the frames of the range still missing, delivering those held in the reorder buffer in between.
+     * A LOST range for another subscriber's NAK, that does not reach back to what this one waits on, is ignored.
+     */
+    private void onLost(final long from, final long to) {
+        if (nextSequencerNumber == 0 || nextSequencerNumber < from || nextSequencerNumber > to) {
+            return;
+        }
+
+        long lostFrom = 0L;
+        while (nextSequencerNumber <= to) {
+            if (reorderSequencerNumbers[(int) (nextSequencerNumber & reorderMask)] == nextSequencerNumber) {
+                if (lostFrom != 0) {
+                    onLoss(lostFrom, nextSequencerNumber - 1);
+                    lostFrom = 0L;
+                }
+                deliverReordered();
+            } else {
+                if (lostFrom == 0) {
+                    lostFrom = nextSequencerNumber;
+                }
+                lost++;
+                nextSequencerNumber++;
+            }
+        }
+        if (lostFrom != 0) {
+            onLoss(lostFrom, nextSequencerNumber - 1);
+        }
+        deliverReordered();
+    }
+
+    private void onLoss(final long from, final long to) {
+        logger.warn("[MULTICAST] Lost {} to {}, no longer held by the publisher", from, to);
+        lossListener.onLoss(from, to);
+    }
+
+    private void onSeen(final long sequencerNumber) {
+        if (sequencerNumber > highestSeen) {
+            final boolean newGap = !hasGap();
+            highestSeen = sequencerNumber;
+            if (newGap && hasGap()) {
+                //NAK straight away on a new gap, then at intervals while it is still open
+                sendNak();
+            }
+        }
+    }
+
+    private void deliver() {
+        network.dispatch(frame, frame.capacity());
+        highestSeen = Math.max(highestSeen, nextSequencerNumber);
+        nextSequencerNumber++;
+    }
+
+    private void deliverReordered() {
+        int slot;
+        while (reorderSequencerNumbers[slot = (int) (nextSequencerNumber & reorderMask)] == nextSequencerNumber) {
+            final int offset = slot * MAX_DATAGRAM_LENGTH;
+            frame.wrap(reorderBuffer, offset + BODY_OFFSET, reorderLengths[slot] - BODY_OFFSET);
+            reorderSequencerNumbers[slot] = 0;
+            deliver();
+        }
+    }
+
+    private boolean hasGap() {
+        return nextSequencerNumber != 0 && highestSeen >= nextSequencerNumber;
+    }
+
+    private void sendNak() {
+        nakBuffer.putLong(NAK_FROM_OFFSET, nextSequencerNumber, BYTE_ORDER);
+        nakBuffer.putLong(NAK_TO_OFFSET, highestSeen, BYTE_ORDER);
+        nakByteBuffer.clear();
+        try {
+            channel.send(nakByteBuffer, nakAddress);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        naksSent++;
+        nakDeadlineNanos = System.nanoTime() + NAK_INTERVAL_NANOS;
+        logger.debug("[MULTICAST] NAK {} to {}", nextSequencerNumber, highestSeen);
+    }
+
+    /**
+     * @return the sequencerNumber this subscriber is waiting on next.
+     */
+    public long nextSequencerNumber() {
+        return nextSequencerNumber;
+    }
+
+    public long naksSent() {
+        return naksSent;
+    }
+
+    public long duplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return how many frames were given up on, see {@link LossListener}.
+     */
+    public long lost() {
+        return lost;
+    }
+
+    @Override
+    public String roleName() {
+        return "multicast-subscriber";
+    }
+
+    @Override
+    public void close() {
+        CloseHelper.quietClose(channel);
+    }
+}
@@ -0,0 +1,91 @@
+package codingblackfemales.sequencer.net;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Owns the ring buffer in front of a single consumer and drains it on the consumer's own thread.
+ */
+class ConsumerAgent implements Agent, MessageHandler {
+
+    static final int MSG_TYPE_ID = 1;
+
+    private final Consumer consumer;
+    private final RingBufferNetwork.OverflowPolicy policy;
+    private final OneToOneRingBuffer ringBuffer;
+    private final UnsafeBuffer frame = new UnsafeBuffer(0, 0);
+
+    private volatile boolean running = true;
+    //only the publishing thread writes it
+    private volatile long dropped = 0L;
+
+    ConsumerAgent(final Consumer consumer, final int capacity, final RingBufferNetwork.OverflowPolicy policy) {
+        this.consumer = consumer;
+        this.policy = policy;
+        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(capacity + RingBufferDescriptor.TRAILER_LENGTH);
+        this.ringBuffer = new OneToOneRingBuffer(new UnsafeBuffer(byteBuffer));
+    }
+
+    Consumer consumer() {
+        return consumer;
+    }
+
+    long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Copies the frame onto this consumer's ring. While the consumer is a full ring behind the frame is dropped, and
+     * counted, or the publisher idles until there is space, as the {@link RingBufferNetwork.OverflowPolicy} says.
+     *
+     * @return false when the consumer closed before there was space.
+     */
+    boolean offer(final DirectBuffer buffer, final int offset, final int length, final IdleStrategy idleStrategy) {
+        if (ringBuffer.write(MSG_TYPE_ID, buffer, offset, length)) {
+            return true;
+        }
+
+        if (policy == RingBufferNetwork.OverflowPolicy.DROP) {
+            dropped++;
+            return true;
+        }
+
+        idleStrategy.reset();
+        while (!ringBuffer.write(MSG_TYPE_ID, buffer, offset, length)) {
+            if (!running) {
+                return false;
+            }
+            idleStrategy.idle();
+        }
+        return true;
+    }
+
+    @Override
+    public int doWork() {
+        return ringBuffer.read(this);
+    }
+
+    @Override
+    public void onMessage(final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length) {
+        frame.wrap(buffer, index, length);
+        consumer.onMessage(frame);
+    }
+
+    @Override
+    public void onClose() {
+        running = false;
+    }
+
+    @Override
+    public String roleName() {
+        return "consumer-" + consumer.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,75 @@
+package codingblackfemales.sequencer.net;
+
+import codingblackfemales.sequencer.AbstractSequencerComponent;
+import codingblackfemales.sequencer.SequencerComponent;
+import org.agrona.collections.Int2ObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Routing table from schemaId/templateId to the consumers that asked for that message through
+ * {@link SequencerComponent#requireMessage(int, int)}. Consumers that are not sequencer components get everything.
+ *
+ * The route for a message type is worked out the first time it is dispatched and cached until the next consumer is
+ * added, or the requirements of one of its components change. Routing is not thread safe, used from the dispatching
+ * thread only, components may change their requirements from any thread.
+ *
+ * @param <T> what the network delivers to, the consumer itself or something in front of it such as a ring buffer.
+ */
+public class MessageRouter<T> {
+
+    private final List<Consumer> consumers = new ArrayList<>();
+    private final List<T> targets = new ArrayList<>();
+    private final Int2ObjectHashMap<T[]> routes = new Int2ObjectHashMap<>();
+    private final IntFunction<T[]> arrayFactory;
+    //bumped by this router's components when their requirements change, so only its own routes are rebuilt
+    private final AtomicInteger requirementsVersion = new AtomicInteger();
+    private int routesVersion = 0;
+
+    public MessageRouter(final IntFunction<T[]> arrayFactory) {
+        this.arrayFactory = arrayFactory;
+    }
+
+    public void add(final Consumer consumer, final T target) {
+        consumers.add(consumer);
+        targets.add(target);
+        routes.clear();
+        if (consumer instanceof AbstractSequencerComponent) {
+            ((AbstractSequencerComponent) consumer).addRequirementsListener(requirementsVersion::incrementAndGet);
+        }
+    }
+
+    public T[] route(final int schemaId, final int templateId) {
+        final int version = requirementsVersion.get();
+        if (version != routesVersion) {
+            routesVersion = version;
+            routes.clear();
+        }
+        final int key = AbstractSequencerComponent.messageKey(schemaId, templateId);
+        T[] route = routes.get(key);
+        if (route == null) {
+            route = buildRoute(schemaId, templateId);
+            routes.put(key, route);
+        }
+        return route;
+    }
+
+    public List<T> targets() {
+        return targets;
+    }
+
+    private T[] buildRoute(final int schemaId, final int templateId) {
+        final List<T> route = new ArrayList<>();
+        for (int i = 0; i < consumers.size(); i++) {
+            final Consumer consumer = consumers.get(i);
+            if (!(consumer instanceof SequencerComponent)
+                    || ((SequencerComponent) consumer).requiresMessage(schemaId, templateId)) {
+                route.add(targets.get(i));
+            }
+        }
+        return route.toArray(arrayFactory.apply(0));
+    }
+}
@@ -4,4 +4,12 @@ import org.agrona.DirectBuffer;
 
 public interface Network {
     public void dispatch(final DirectBuffer buffer);
+
+    /**
+     * Dispatches a sequenced frame whose length is already known, so transports that copy frames do not have to
+     * decode it to find out. The frame starts at offset 0.
+     */
+    public default void dispatch(final DirectBuffer buffer, final int length) {
+        dispatch(buffer);
+    }
 }
@@ -0,0 +1,152 @@
+package codingblackfemales.sequencer.net;
+
+import codingblackfemales.sequencer.runtime.AgentRuntime;
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
+import messages.marketdata.MessageHeaderDecoder;
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Network where every consumer reads the sequenced stream from its own ring buffer on its own thread, so a slow
+ * consumer (such as the logger) only holds up the publisher once its ring is full, rather than on every message.
+ * Messages are only copied onto the rings of consumers that require them, see {@link MessageRouter}.
+ *
+ * Consumers must be added before {@link #start()}. Consumers that publish back into the sequencer do so from their
+ * own thread, so the sequencer in front of this network must be safe for concurrent callers, such as a
+ * {@link codingblackfemales.sequencer.ConcurrentSequencer}.
+ *
+ * A consumer added with {@link OverflowPolicy#BLOCK} must not publish back into a sequencer that can fill up: if
+ * the consumer waits on a full sequencer ring while the sequencer thread waits on the consumer's full ring, neither
+ * moves again. Such consumers should either be sized so the sequencer ring cannot fill, or be added with
+ * {@link OverflowPolicy#DROP}, and watch for gaps in the sequencerNumber.
+ */
+public class RingBufferNetwork implements Network, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RingBufferNetwork.class);
+
+    public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+    public enum OverflowPolicy {
+        /** lose the frame for that consumer rather than hold up the publisher */
+        DROP,
+        /** wait for the consumer to make space */
+        BLOCK
+    }
+
+    private final int capacity;
+    private final MessageRouter<ConsumerAgent> router = new MessageRouter<>(ConsumerAgent[]::new);
+    private final List<AgentRunner> runners = new ArrayList<>();
+
+    private final FrameLengthDecoder frameLengthDecoder = new FrameLengthDecoder();
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final IdleStrategy publisherIdleStrategy = new BackoffIdleStrategy();
+
+    private boolean started = false;
+
+    public RingBufferNetwork() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity size in bytes of each consumer's ring buffer, must be a power of two.
+     */
+    public RingBufferNetwork(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void addConsumer(final Consumer consumer) {
+        addConsumer(consumer, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * @param policy what the publisher does with a frame once this consumer is a full ring behind.
+     */
+    public void addConsumer(final Consumer consumer, final OverflowPolicy policy) {
+        if (started) {
+            throw new IllegalStateException("Cannot add consumer " + consumer + " once the network has started");
+        }
+        router.add(consumer, new ConsumerAgent(consumer, capacity, policy));
+    }
+
+    /**
+     * @return how many frames were lost because the consumer, added with {@link OverflowPolicy#DROP}, was a full
+     * ring behind.
+     */
+    public long dropped(final Consumer consumer) {
+        for (ConsumerAgent agent : router.targets()) {
+            if (agent.consumer() == consumer) {
+                return agent.dropped();
+            }
+        }
+        throw new IllegalArgumentException("Consumer " + consumer + " was not added to the network");
+    }
+
+    public void start() {
+        if (started) {
+            return;
+        }
+        for (ConsumerAgent agent : router.targets()) {
+            final AgentRunner runner = new AgentRunner(new BackoffIdleStrategy(), this::onError, null, agent);
+            runners.add(runner);
+            AgentRunner.startOnThread(runner);
+        }
+        started = true;
+    }
+
+    /**
+     * Hosts each consumer's agent in the runtime instead of on threads of its own, so they can be given their own
+     * idle strategies and cpus, under role names of the form consumer-&lt;class name&gt;.
+     */
+    public void start(final AgentRuntime runtime) {
+        if (started) {
+            return;
+        }
+        for (ConsumerAgent agent : router.targets()) {
+            runtime.add(agent);
+        }
+        started = true;
+    }
+
+    @Override
+    public void dispatch(final DirectBuffer buffer) {
+        header.wrap(buffer, 0);
+        if (router.route(header.schemaId(), header.templateId()).length == 0) {
+            return;
+        }
+        dispatch(buffer, frameLengthDecoder.frameLength(buffer, 0));
+    }
+
+    @Override
+    public void dispatch(final DirectBuffer buffer, final int length) {
+        header.wrap(buffer, 0);
+        final ConsumerAgent[] route = router.route(header.schemaId(), header.templateId());
+        for (ConsumerAgent agent : route) {
+            if (!agent.offer(buffer, 0, length, publisherIdleStrategy)) {
+                logger.warn("[NETWORK] Dropping message for closed consumer {}", agent.roleName());
+            }
+        }
+    }
+
+    private void onError(final Throwable throwable) {
+        logger.error("[NETWORK] Consumer failed processing message", throwable);
+    }
+
+    @Override
+    public void close() {
+        CloseHelper.closeAll(runners);
+        runners.clear();
+        for (ConsumerAgent agent : router.targets()) {
+            if (agent.dropped() > 0) {
+                logger.warn("[NETWORK] Dropped {} frames for {}", agent.dropped(), agent.roleName());
+            }
+        }
+    }
+}
@@ -1,23 +1,36 @@
 package codingblackfemales.sequencer.net;
 
+import codingblackfemales.sequencer.metrics.DispatchMetrics;
+import messages.marketdata.MessageHeaderDecoder;
 import org.agrona.DirectBuffer;
 
-import java.util.LinkedList;
-import java.util.List;
-
 public class TestNetwork implements Network{
 
-    private final List<Consumer> consumers = new LinkedList<>();
+    private final MessageRouter<Consumer> router = new MessageRouter<>(Consumer[]::new);
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final DispatchMetrics metrics;
+
+    public TestNetwork() {
+        this(null);
+    }
+
+    /**
+     * @param metrics records how long each consumer added from now on spends on each message, or null for none.
+     */
+    public TestNetwork(final DispatchMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     @Override
     public void dispatch(DirectBuffer buffer){
-        for (Consumer consumer: consumers) {
+        header.wrap(buffer, 0);
+        for (Consumer consumer: router.route(header.schemaId(), header.templateId())) {
             consumer.onMessage(buffer);
         }
     }
 
     public void addConsumer(Consumer consumer){
-        consumers.add(consumer);
+        router.add(consumer, metrics == null ? consumer : metrics.instrument(consumer));
     }
 
 }
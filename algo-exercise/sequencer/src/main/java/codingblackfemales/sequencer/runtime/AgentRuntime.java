@@ -0,0 +1,120 @@
+package codingblackfemales.sequencer.runtime;
+
+import org.agrona.CloseHelper;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.IdleStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hosts agents, each duty cycled on its own dedicated thread named after its role, with its own idle strategy and
+ * optionally pinned to cpus.
+ *
+ * Agents added without an explicit configuration can be tuned with system properties keyed on their role name,
+ * for example -Druntime.sequencer.idle=busy-spin -Druntime.sequencer.cpus=3, see {@link IdleStrategies} and
+ * {@link CpuAffinity}. Agents are closed in the reverse of the order they were added, so add upstream agents
+ * (such as feeds) last and they stop first.
+ */
+public class AgentRuntime implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentRuntime.class);
+
+    public static final String PROPERTY_PREFIX = "runtime.";
+    public static final String DEFAULT_IDLE_STRATEGY = IdleStrategies.BACKOFF;
+
+    private final List<AgentRunner> runners = new ArrayList<>();
+    private boolean started = false;
+
+    public AgentRuntime add(final Agent agent) {
+        return add(agent, IdleStrategies.of(DEFAULT_IDLE_STRATEGY));
+    }
+
+    /**
+     * @param defaultIdleStrategy used unless the agent's idle strategy is configured.
+     */
+    public AgentRuntime add(final Agent agent, final IdleStrategy defaultIdleStrategy) {
+        final String idleStrategy = System.getProperty(PROPERTY_PREFIX + agent.roleName() + ".idle");
+        final String cpus = System.getProperty(PROPERTY_PREFIX + agent.roleName() + ".cpus");
+        return add(agent, idleStrategy == null ? defaultIdleStrategy : IdleStrategies.of(idleStrategy), cpus);
+    }
+
+    /**
+     * @param cpus cpu list to pin the agent's thread to, or null to leave it to the scheduler.
+     */
+    public AgentRuntime add(final Agent agent, final IdleStrategy idleStrategy, final String cpus) {
+        final Agent hosted = cpus == null ? agent : new PinnedAgent(agent, cpus);
+        final AgentRunner runner = new AgentRunner(idleStrategy, throwable -> onError(agent, throwable), null, hosted);
+        runners.add(runner);
+        if (started) {
+            AgentRunner.startOnThread(runner);
+        }
+        if (cpus == null) {
+            logger.info("[RUNTIME] Hosting {} with {} idle strategy", agent.roleName(), idleStrategy.alias());
+        } else {
+            logger.info("[RUNTIME] Hosting {} with {} idle strategy on cpus {}", agent.roleName(), idleStrategy.alias(), cpus);
+        }
+        return this;
+    }
+
+    /**
+     * Starts a thread for every agent, agents added after this are started straight away.
+     */
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        runners.forEach(AgentRunner::startOnThread);
+    }
+
+    public int agentCount() {
+        return runners.size();
+    }
+
+    private void onError(final Agent agent, final Throwable throwable) {
+        logger.error("[RUNTIME] Agent {} failed", agent.roleName(), throwable);
+    }
+
+    @Override
+    public void close() {
+        for (int i = runners.size() - 1; i >= 0; i--) {
+            CloseHelper.quietClose(runners.get(i));
+        }
+        runners.clear();
+    }
+
+    private static class PinnedAgent implements Agent {
+        private final Agent agent;
+        private final String cpus;
+
+        PinnedAgent(final Agent agent, final String cpus) {
+            this.agent = agent;
+            this.cpus = cpus;
+        }
+
+        @Override
+        public void onStart() {
+            CpuAffinity.pinCurrentThread(cpus);
+            agent.onStart();
+        }
+
+        @Override
+        public int doWork() throws Exception {
+            return agent.doWork();
+        }
+
+        @Override
+        public void onClose() {
+            agent.onClose();
+        }
+
+        @Override
+        public String roleName() {
+            return agent.roleName();
+        }
+    }
+}
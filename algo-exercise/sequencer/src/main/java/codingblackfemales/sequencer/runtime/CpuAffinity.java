@@ -0,0 +1,95 @@
+package codingblackfemales.sequencer.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pins threads to CPUs on Linux with taskset, so a busy spinning agent keeps its core and its cache.
+ *
+ * Pinning is best effort, where it is not supported (not Linux, no taskset, no permission) a warning is logged and
+ * the thread carries on unpinned.
+ */
+public final class CpuAffinity {
+
+    private static final Logger logger = LoggerFactory.getLogger(CpuAffinity.class);
+
+    private static final Path THREAD_SELF = Paths.get("/proc/thread-self");
+    private static final long TASKSET_TIMEOUT_SECONDS = 5;
+
+    private CpuAffinity() {
+    }
+
+    /**
+     * Pins the calling thread.
+     *
+     * @param cpus cpu list in taskset's format, such as "3" or "2,4-5".
+     * @return whether the thread was pinned.
+     */
+    public static boolean pinCurrentThread(final String cpus) {
+        final long tid = currentThreadId();
+        if (tid < 0) {
+            logger.warn("[RUNTIME] Cannot pin {} to cpus {}, not supported on this platform", Thread.currentThread().getName(), cpus);
+            return false;
+        }
+
+        try {
+            final Process process = new ProcessBuilder("taskset", "-p", "-c", cpus, Long.toString(tid))
+                    .redirectErrorStream(true)
+                    .start();
+            final String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (!process.waitFor(TASKSET_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                logger.warn("[RUNTIME] Timed out pinning {} to cpus {}", Thread.currentThread().getName(), cpus);
+                return false;
+            }
+            if (process.exitValue() != 0) {
+                logger.warn("[RUNTIME] Failed pinning {} to cpus {}: {}", Thread.currentThread().getName(), cpus, output);
+                return false;
+            }
+        } catch (IOException e) {
+            logger.warn("[RUNTIME] Cannot pin {} to cpus {}, taskset unavailable", Thread.currentThread().getName(), cpus, e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        logger.info("[RUNTIME] Pinned {} (tid {}) to cpus {}", Thread.currentThread().getName(), tid, cpus);
+        return true;
+    }
+
+    /**
+     * @return the cpu list the calling thread may run on, or null where that cannot be read.
+     */
+    public static String currentThreadCpus() {
+        try {
+            for (String line : Files.readAllLines(THREAD_SELF.resolve("status"))) {
+                if (line.startsWith("Cpus_allowed_list:")) {
+                    return line.substring("Cpus_allowed_list:".length()).trim();
+                }
+            }
+        } catch (IOException e) {
+            //not linux
+        }
+        return null;
+    }
+
+    /**
+     * @return the operating system's id for the calling thread, or -1 where that cannot be read.
+     */
+    static long currentThreadId() {
+        try {
+            //resolves to <pid>/task/<tid>
+            return Long.parseLong(Files.readSymbolicLink(THREAD_SELF).getFileName().toString());
+        } catch (IOException | UnsupportedOperationException | NumberFormatException e) {
+            return -1;
+        }
+    }
+}
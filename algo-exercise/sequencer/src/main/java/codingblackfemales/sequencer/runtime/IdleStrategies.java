@@ -0,0 +1,67 @@
+package codingblackfemales.sequencer.runtime;
+
+import org.agrona.concurrent.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates idle strategies by name, so each agent's can be chosen in configuration. Names are
+ * <ul>
+ *     <li>busy-spin: never gives up the core, lowest latency</li>
+ *     <li>yield: spins with {@link Thread#yield()}</li>
+ *     <li>backoff: spins, then yields, then parks for longer and longer, the default</li>
+ *     <li>park[:nanos]: parks for a fixed period, 1 microsecond unless given</li>
+ *     <li>sleep[:millis]: sleeps for a fixed period, 1 millisecond unless given, for housekeeping agents</li>
+ *     <li>noop: never idles, for agents that are duty cycled by something else</li>
+ * </ul>
+ */
+public final class IdleStrategies {
+
+    public static final String BUSY_SPIN = "busy-spin";
+    public static final String YIELD = "yield";
+    public static final String BACKOFF = "backoff";
+    public static final String PARK = "park";
+    public static final String SLEEP = "sleep";
+    public static final String NOOP = "noop";
+
+    private static final long DEFAULT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long DEFAULT_SLEEP_MILLIS = 1;
+
+    private IdleStrategies() {
+    }
+
+    public static IdleStrategy of(final String spec) {
+        final int separator = spec.indexOf(':');
+        final String name = (separator < 0 ? spec : spec.substring(0, separator)).trim();
+        final String period = separator < 0 ? null : spec.substring(separator + 1).trim();
+
+        switch (name) {
+            case BUSY_SPIN:
+                return new BusySpinIdleStrategy();
+            case YIELD:
+                return new YieldingIdleStrategy();
+            case BACKOFF:
+                return new BackoffIdleStrategy();
+            case PARK:
+                return new SleepingIdleStrategy(period == null ? DEFAULT_PARK_NANOS : parsePeriod(spec, period));
+            case SLEEP:
+                return new SleepingMillisIdleStrategy(period == null ? DEFAULT_SLEEP_MILLIS : parsePeriod(spec, period));
+            case NOOP:
+                return new NoOpIdleStrategy();
+            default:
+                throw new IllegalArgumentException("Unknown idle strategy " + spec);
+        }
+    }
+
+    private static long parsePeriod(final String spec, final String period) {
+        try {
+            final long value = Long.parseLong(period);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            //reported below
+        }
+        throw new IllegalArgumentException("Invalid period in idle strategy " + spec);
+    }
+}
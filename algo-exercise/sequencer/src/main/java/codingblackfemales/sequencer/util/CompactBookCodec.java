@@ -0,0 +1,312 @@
+package codingblackfemales.sequencer.util;
+
+import messages.marketdata.AskBookUpdateDecoder;
+import messages.marketdata.AskBookUpdateEncoder;
+import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BidBookUpdateEncoder;
+import messages.marketdata.BookDeltaDecoder;
+import messages.marketdata.BookDeltaEncoder;
+import messages.marketdata.BookSide;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.BookUpdateEncoder;
+import messages.marketdata.InstrumentStatus;
+import messages.marketdata.MessageHeaderDecoder;
+import messages.marketdata.MessageHeaderEncoder;
+import messages.marketdata.Source;
+import messages.marketdata.UpdateAction;
+import messages.marketdata.Venue;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+/**
+ * Converts book messages to and from a compact form for storage, and back to the exact SBE frame.
+ *
+ * Every number is a varint, 7 bits a byte, so small values take one or two bytes rather than eight. Levels are held
+ * as the distance from the level before, bids down from the best bid, the best ask up from the best bid and asks up
+ * from the best ask, so a level a few ticks away costs a byte. The timestamps are held as the distance back from a
+ * base the caller stores anyway, such as the journal's record timestamp. Signed differences are zigzag encoded.
+ *
+ * <pre>
+ *   templateId (1 byte), sequencerNumber, base - ingressTimestamp, sequencedTimestamp - ingressTimestamp, body...
+ * </pre>
+ *
+ * Only BookUpdate, BidBookUpdate, AskBookUpdate and BookDelta frames of the current schema version are converted,
+ * {@link #encode} returns {@link #NOT_COMPACTED} for anything else and the caller keeps the frame as it is.
+ *
+ * Not thread safe, each writer and reader should hold its own instance.
+ */
+public class CompactBookCodec {
+
+    public static final int NOT_COMPACTED = 0;
+
+    private final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+
+    private final BookUpdateDecoder bookUpdateDecoder = new BookUpdateDecoder();
+    private final BidBookUpdateDecoder bidBookDecoder = new BidBookUpdateDecoder();
+    private final AskBookUpdateDecoder askBookDecoder = new AskBookUpdateDecoder();
+    private final BookDeltaDecoder bookDeltaDecoder = new BookDeltaDecoder();
+
+    private final BookUpdateEncoder bookUpdateEncoder = new BookUpdateEncoder();
+    private final BidBookUpdateEncoder bidBookEncoder = new BidBookUpdateEncoder();
+    private final AskBookUpdateEncoder askBookEncoder = new AskBookUpdateEncoder();
+    private final BookDeltaEncoder bookDeltaEncoder = new BookDeltaEncoder();
+
+    //the next byte to write or read in the compact form
+    private int cursor;
+
+    /**
+     * @return the number of compact bytes written at dstOffset, or {@link #NOT_COMPACTED} if the frame is not a book
+     * message this codec handles. dst should be expandable, or have room for twice the frame's length.
+     */
+    public int encode(final DirectBuffer frame, final int offset, final long baseTimestamp,
+                      final MutableDirectBuffer dst, final int dstOffset) {
+        headerDecoder.wrap(frame, offset);
+        final int templateId = headerDecoder.templateId();
+        final int blockLength = headerDecoder.blockLength();
+        final int version = headerDecoder.version();
+        final int bodyOffset = offset + headerDecoder.encodedLength();
+
+        if (headerDecoder.schemaId() != BookUpdateDecoder.SCHEMA_ID || version != BookUpdateDecoder.SCHEMA_VERSION) {
+            return NOT_COMPACTED;
+        }
+
+        cursor = dstOffset;
+        if (templateId == BookUpdateDecoder.TEMPLATE_ID && blockLength == BookUpdateDecoder.BLOCK_LENGTH) {
+            putHeader(dst, templateId, baseTimestamp);
+            encodeBookUpdate(bookUpdateDecoder.wrap(frame, bodyOffset, blockLength, version), dst);
+        } else if (templateId == BidBookUpdateDecoder.TEMPLATE_ID && blockLength == BidBookUpdateDecoder.BLOCK_LENGTH) {
+            putHeader(dst, templateId, baseTimestamp);
+            encodeBidBook(bidBookDecoder.wrap(frame, bodyOffset, blockLength, version), dst);
+        } else if (templateId == AskBookUpdateDecoder.TEMPLATE_ID && blockLength == AskBookUpdateDecoder.BLOCK_LENGTH) {
+            putHeader(dst, templateId, baseTimestamp);
+            encodeAskBook(askBookDecoder.wrap(frame, bodyOffset, blockLength, version), dst);
+        } else if (templateId == BookDeltaDecoder.TEMPLATE_ID && blockLength == BookDeltaDecoder.BLOCK_LENGTH) {
+            putHeader(dst, templateId, baseTimestamp);
+            encodeBookDelta(bookDeltaDecoder.wrap(frame, bodyOffset, blockLength, version), dst);
+        } else {
+            return NOT_COMPACTED;
+        }
+        return cursor - dstOffset;
+    }
+
+    /**
+     * Writes the SBE frame the compact bytes at offset were made from, dst should be expandable.
+     *
+     * @param baseTimestamp the same base the frame was encoded with.
+     * @return the length of the frame written at dstOffset.
+     */
+    public int decode(final DirectBuffer src, final int offset, final long baseTimestamp,
+                      final MutableDirectBuffer dst, final int dstOffset) {
+        cursor = offset;
+        final int templateId = src.getByte(cursor++) & 0xFF;
+        final long sequencerNumber = getVarLong(src);
+        final long ingressTimestamp = baseTimestamp - zigzagDecode(getVarLong(src));
+        final long sequencedTimestamp = ingressTimestamp + zigzagDecode(getVarLong(src));
+
+        final int bodyLength;
+        if (templateId == BookUpdateDecoder.TEMPLATE_ID) {
+            bookUpdateEncoder.wrapAndApplyHeader(dst, dstOffset, headerEncoder);
+            bodyLength = decodeBookUpdate(src, bookUpdateEncoder);
+        } else if (templateId == BidBookUpdateDecoder.TEMPLATE_ID) {
+            bidBookEncoder.wrapAndApplyHeader(dst, dstOffset, headerEncoder);
+            bodyLength = decodeBidBook(src, bidBookEncoder);
+        } else if (templateId == AskBookUpdateDecoder.TEMPLATE_ID) {
+            askBookEncoder.wrapAndApplyHeader(dst, dstOffset, headerEncoder);
+            bodyLength = decodeAskBook(src, askBookEncoder);
+        } else if (templateId == BookDeltaDecoder.TEMPLATE_ID) {
+            bookDeltaEncoder.wrapAndApplyHeader(dst, dstOffset, headerEncoder);
+            bodyLength = decodeBookDelta(src, bookDeltaEncoder);
+        } else {
+            throw new IllegalArgumentException("No compact form for templateId " + templateId);
+        }
+
+        headerEncoder.sequencerNumber(sequencerNumber)
+                .ingressTimestamp(ingressTimestamp)
+                .sequencedTimestamp(sequencedTimestamp);
+        return MessageHeaderEncoder.ENCODED_LENGTH + bodyLength;
+    }
+
+    /**
+     * @return the sequencerNumber of the compacted frame at offset, without decoding the rest of it.
+     */
+    public long sequencerNumber(final DirectBuffer src, final int offset) {
+        cursor = offset + 1;
+        return getVarLong(src);
+    }
+
+    private void putHeader(final MutableDirectBuffer dst, final int templateId, final long baseTimestamp) {
+        final long ingressTimestamp = headerDecoder.ingressTimestamp();
+        dst.putByte(cursor++, (byte) templateId);
+        putVarLong(dst, headerDecoder.sequencerNumber());
+        putVarLong(dst, zigzagEncode(baseTimestamp - ingressTimestamp));
+        putVarLong(dst, zigzagEncode(headerDecoder.sequencedTimestamp() - ingressTimestamp));
+    }
+
+    private void encodeBookUpdate(final BookUpdateDecoder book, final MutableDirectBuffer dst) {
+        putVarLong(dst, book.instrumentId());
+        putVarLong(dst, book.venueRaw());
+        dst.putByte(cursor++, book.instrumentStatusRaw());
+        putVarLong(dst, book.sourceRaw());
+
+        long previous = 0;
+        final BookUpdateDecoder.BidBookDecoder bids = book.bidBook();
+        putVarLong(dst, bids.count());
+        for (BookUpdateDecoder.BidBookDecoder level : bids) {
+            putVarLong(dst, zigzagEncode(previous - level.price()));
+            putVarLong(dst, level.size());
+            previous = level.price();
+        }
+
+        final BookUpdateDecoder.AskBookDecoder asks = book.askBook();
+        putVarLong(dst, asks.count());
+        for (BookUpdateDecoder.AskBookDecoder level : asks) {
+            putVarLong(dst, zigzagEncode(level.price() - previous));
+            putVarLong(dst, level.size());
+            previous = level.price();
+        }
+    }
+
+    private int decodeBookUpdate(final DirectBuffer src, final BookUpdateEncoder book) {
+        book.instrumentId(getVarLong(src));
+        book.venue(Venue.get((int) getVarLong(src)));
+        book.instrumentStatus(InstrumentStatus.get(src.getByte(cursor++)));
+        book.source(Source.get((int) getVarLong(src)));
+
+        long previous = 0;
+        final int bidCount = (int) getVarLong(src);
+        final BookUpdateEncoder.BidBookEncoder bids = book.bidBookCount(bidCount);
+        for (int i = 0; i < bidCount; i++) {
+            previous -= zigzagDecode(getVarLong(src));
+            bids.next().price(previous).size(getVarLong(src));
+        }
+
+        final int askCount = (int) getVarLong(src);
+        final BookUpdateEncoder.AskBookEncoder asks = book.askBookCount(askCount);
+        for (int i = 0; i < askCount; i++) {
+            previous += zigzagDecode(getVarLong(src));
+            asks.next().price(previous).size(getVarLong(src));
+        }
+        return book.encodedLength();
+    }
+
+    private void encodeBidBook(final BidBookUpdateDecoder book, final MutableDirectBuffer dst) {
+        putVarLong(dst, book.instrumentId());
+        putVarLong(dst, book.venueRaw());
+
+        long previous = 0;
+        final BidBookUpdateDecoder.BidBookDecoder bids = book.bidBook();
+        putVarLong(dst, bids.count());
+        for (BidBookUpdateDecoder.BidBookDecoder level : bids) {
+            putVarLong(dst, zigzagEncode(previous - level.price()));
+            putVarLong(dst, level.size());
+            previous = level.price();
+        }
+    }
+
+    private int decodeBidBook(final DirectBuffer src, final BidBookUpdateEncoder book) {
+        book.instrumentId(getVarLong(src));
+        book.venue(Venue.get((int) getVarLong(src)));
+
+        long previous = 0;
+        final int bidCount = (int) getVarLong(src);
+        final BidBookUpdateEncoder.BidBookEncoder bids = book.bidBookCount(bidCount);
+        for (int i = 0; i < bidCount; i++) {
+            previous -= zigzagDecode(getVarLong(src));
+            bids.next().price(previous).size(getVarLong(src));
+        }
+        return book.encodedLength();
+    }
+
+    private void encodeAskBook(final AskBookUpdateDecoder book, final MutableDirectBuffer dst) {
+        putVarLong(dst, book.instrumentId());
+        putVarLong(dst, book.venueRaw());
+
+        long previous = 0;
+        final AskBookUpdateDecoder.AskBookDecoder asks = book.askBook();
+        putVarLong(dst, asks.count());
+        for (AskBookUpdateDecoder.AskBookDecoder level : asks) {
+            putVarLong(dst, zigzagEncode(level.price() - previous));
+            putVarLong(dst, level.size());
+            previous = level.price();
+        }
+    }
+
+    private int decodeAskBook(final DirectBuffer src, final AskBookUpdateEncoder book) {
+        book.instrumentId(getVarLong(src));
+        book.venue(Venue.get((int) getVarLong(src)));
+
+        long previous = 0;
+        final int askCount = (int) getVarLong(src);
+        final AskBookUpdateEncoder.AskBookEncoder asks = book.askBookCount(askCount);
+        for (int i = 0; i < askCount; i++) {
+            previous += zigzagDecode(getVarLong(src));
+            asks.next().price(previous).size(getVarLong(src));
+        }
+        return book.encodedLength();
+    }
+
+    private void encodeBookDelta(final BookDeltaDecoder delta, final MutableDirectBuffer dst) {
+        putVarLong(dst, delta.instrumentId());
+        putVarLong(dst, delta.venueRaw());
+        dst.putByte(cursor++, delta.instrumentStatusRaw());
+        putVarLong(dst, delta.sourceRaw());
+
+        long previous = 0;
+        final BookDeltaDecoder.EntriesDecoder entries = delta.entries();
+        putVarLong(dst, entries.count());
+        for (BookDeltaDecoder.EntriesDecoder entry : entries) {
+            putVarLong(dst, zigzagEncode(entry.price() - previous));
+            putVarLong(dst, entry.size());
+            dst.putByte(cursor++, entry.sideRaw());
+            dst.putByte(cursor++, entry.actionRaw());
+            previous = entry.price();
+        }
+    }
+
+    private int decodeBookDelta(final DirectBuffer src, final BookDeltaEncoder delta) {
+        delta.instrumentId(getVarLong(src));
+        delta.venue(Venue.get((int) getVarLong(src)));
+        delta.instrumentStatus(InstrumentStatus.get(src.getByte(cursor++)));
+        delta.source(Source.get((int) getVarLong(src)));
+
+        long previous = 0;
+        final int entryCount = (int) getVarLong(src);
+        final BookDeltaEncoder.EntriesEncoder entries = delta.entriesCount(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            previous += zigzagDecode(getVarLong(src));
+            entries.next().price(previous).size(getVarLong(src))
+                    .side(BookSide.get(src.getByte(cursor++)))
+                    .action(UpdateAction.get(src.getByte(cursor++)));
+        }
+        return delta.encodedLength();
+    }
+
+    private void putVarLong(final MutableDirectBuffer dst, long value) {
+        while ((value & ~0x7FL) != 0) {
+            dst.putByte(cursor++, (byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        dst.putByte(cursor++, (byte) value);
+    }
+
+    private long getVarLong(final DirectBuffer src) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = src.getByte(cursor++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static long zigzagEncode(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigzagDecode(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,57 @@
+package codingblackfemales.sequencer.util;
+
+import messages.marketdata.AskBookUpdateDecoder;
+import messages.marketdata.BidBookUpdateDecoder;
+import messages.marketdata.BookDeltaDecoder;
+import messages.marketdata.BookUpdateBatchDecoder;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.MessageHeaderDecoder;
+import org.agrona.DirectBuffer;
+
+/**
+ * Works out how many bytes of a buffer an SBE frame (header plus body) actually occupies, so transports
+ * only copy the encoded message rather than the whole buffer it was written into.
+ *
+ * Not thread safe, each publisher should hold its own instance.
+ */
+public class FrameLengthDecoder {
+
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final BookUpdateDecoder book = new BookUpdateDecoder();
+    private final AskBookUpdateDecoder ask = new AskBookUpdateDecoder();
+    private final BidBookUpdateDecoder bid = new BidBookUpdateDecoder();
+    private final BookDeltaDecoder delta = new BookDeltaDecoder();
+    private final BookUpdateBatchDecoder batch = new BookUpdateBatchDecoder();
+
+    public int frameLength(final DirectBuffer buffer, final int offset) {
+
+        header.wrap(buffer, offset);
+
+        final int actingBlockLength = header.blockLength();
+        final int actingVersion = header.version();
+        final int bodyOffset = offset + header.encodedLength();
+
+        if (header.schemaId() == BookUpdateDecoder.SCHEMA_ID) {
+            if (header.templateId() == BookUpdateDecoder.TEMPLATE_ID) {
+                book.wrap(buffer, bodyOffset, actingBlockLength, actingVersion);
+                return header.encodedLength() + book.sbeDecodedLength();
+            } else if (header.templateId() == AskBookUpdateDecoder.TEMPLATE_ID) {
+                ask.wrap(buffer, bodyOffset, actingBlockLength, actingVersion);
+                return header.encodedLength() + ask.sbeDecodedLength();
+            } else if (header.templateId() == BidBookUpdateDecoder.TEMPLATE_ID) {
+                bid.wrap(buffer, bodyOffset, actingBlockLength, actingVersion);
+                return header.encodedLength() + bid.sbeDecodedLength();
+            } else if (header.templateId() == BookDeltaDecoder.TEMPLATE_ID) {
+                delta.wrap(buffer, bodyOffset, actingBlockLength, actingVersion);
+                return header.encodedLength() + delta.sbeDecodedLength();
+            } else if (header.templateId() == BookUpdateBatchDecoder.TEMPLATE_ID) {
+                batch.wrap(buffer, bodyOffset, actingBlockLength, actingVersion);
+                return header.encodedLength() + batch.sbeDecodedLength();
+            }
+        }
+
+        //messages without repeating groups or var data are just the header and the root block
+        return header.encodedLength() + actingBlockLength;
+    }
+
+}
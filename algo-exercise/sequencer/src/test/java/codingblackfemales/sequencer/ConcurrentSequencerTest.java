@@ -0,0 +1,284 @@
+package codingblackfemales.sequencer;
+
+import codingblackfemales.sequencer.net.RingBufferNetwork;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.*;
+import messages.order.CancelOrderDecoder;
+import messages.order.CancelOrderEncoder;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentSequencerTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int MESSAGES_PER_PRODUCER = 2_000;
+
+    private static class RecordingConsumer implements codingblackfemales.sequencer.net.Consumer {
+
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        private final BookUpdateDecoder bookUpdate = new BookUpdateDecoder();
+        private final CancelOrderDecoder cancel = new CancelOrderDecoder();
+
+        private final List<Long> sequenceNumbers = new ArrayList<>();
+        private final List<Long> ids = new ArrayList<>();
+        private final Set<Thread> threads = new HashSet<>();
+        private final CountDownLatch latch;
+
+        RecordingConsumer(final int expected) {
+            this.latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onMessage(final DirectBuffer buffer) {
+            header.wrap(buffer, 0);
+            threads.add(Thread.currentThread());
+            sequenceNumbers.add(header.sequencerNumber());
+            if (header.schemaId() == CancelOrderDecoder.SCHEMA_ID) {
+                cancel.wrap(buffer, header.encodedLength(), header.blockLength(), header.version());
+                ids.add(-cancel.orderId());
+            } else {
+                bookUpdate.wrap(buffer, header.encodedLength(), header.blockLength(), header.version());
+                ids.add(bookUpdate.instrumentId());
+            }
+            latch.countDown();
+        }
+    }
+
+    private static UnsafeBuffer createTick(final MessageHeaderEncoder headerEncoder, final BookUpdateEncoder encoder,
+                                           final UnsafeBuffer directBuffer, final long instrumentId) {
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(instrumentId);
+        encoder.source(Source.STREAM);
+        encoder.bidBookCount(1).next().price(98L).size(100L);
+        encoder.askBookCount(1).next().price(100L).size(101L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        return directBuffer;
+    }
+
+    private static Thread producer(final ConcurrentSequencer sequencer, final int producerId, final CountDownLatch start) {
+        return new Thread(() -> {
+            final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+            final BookUpdateEncoder encoder = new BookUpdateEncoder();
+            final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (int i = 0; i < MESSAGES_PER_PRODUCER; i++) {
+                final long instrumentId = producerId * 1_000_000L + i;
+                if (i % 2 == 0) {
+                    sequencer.onCommand(createTick(headerEncoder, encoder, directBuffer, instrumentId));
+                } else {
+                    //the zero copy path, encoded straight into the ring
+                    final MutableDirectBuffer claimed = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH
+                            + BookUpdateEncoder.BLOCK_LENGTH + 2 * (4 + 16));
+                    createTick(headerEncoder, encoder, new UnsafeBuffer(claimed, 0, claimed.capacity()), instrumentId);
+                    sequencer.commit();
+                }
+            }
+        }, "producer-" + producerId);
+    }
+
+    @Test
+    public void testConcurrentProducersAreSequencedInOneTotalOrder() throws Exception {
+        final int total = PRODUCERS * MESSAGES_PER_PRODUCER;
+        final TestNetwork network = new TestNetwork();
+        final RecordingConsumer consumer = new RecordingConsumer(total);
+        network.addConsumer(consumer);
+
+        try (ConcurrentSequencer sequencer = new ConcurrentSequencer(new DefaultSequencer(network), 64 * 1024)) {
+            sequencer.start();
+
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                producers.add(producer(sequencer, p, start));
+            }
+            producers.forEach(Thread::start);
+            start.countDown();
+
+            assertTrue(consumer.latch.await(10, TimeUnit.SECONDS));
+            for (Thread producer : producers) {
+                producer.join();
+            }
+        }
+
+        assertEquals(1, consumer.threads.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(i + 1, (long) consumer.sequenceNumbers.get(i));
+        }
+
+        //each producer's own commands keep their order within the total order
+        final long[] next = new long[PRODUCERS];
+        for (long id : consumer.ids) {
+            final int producerId = (int) (id / 1_000_000L);
+            assertEquals(next[producerId]++, id % 1_000_000L);
+        }
+    }
+
+    @Test
+    public void testConsumerPublishingBackIsSequencedImmediately() throws Exception {
+        final TestNetwork network = new TestNetwork();
+        final CancelOrderEncoder cancelEncoder = new CancelOrderEncoder();
+        final messages.order.MessageHeaderEncoder orderHeaderEncoder = new messages.order.MessageHeaderEncoder();
+        final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        final RecordingConsumer consumer = new RecordingConsumer(20);
+
+        try (ConcurrentSequencer sequencer = new ConcurrentSequencer(new DefaultSequencer(network))) {
+            //responds to every tick from the sequencer thread, as the order book does
+            network.addConsumer(buffer -> {
+                header.wrap(buffer, 0);
+                if (header.schemaId() == BookUpdateDecoder.SCHEMA_ID) {
+                    final MutableDirectBuffer claimed = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + CancelOrderEncoder.BLOCK_LENGTH);
+                    cancelEncoder.wrapAndApplyHeader(claimed, 0, orderHeaderEncoder);
+                    cancelEncoder.orderId(header.sequencerNumber());
+                    sequencer.commit();
+                }
+            });
+            network.addConsumer(consumer);
+            sequencer.start();
+
+            final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+            for (int i = 0; i < 10; i++) {
+                sequencer.onCommand(createTick(new MessageHeaderEncoder(), new BookUpdateEncoder(), directBuffer, i));
+            }
+
+            assertTrue(consumer.latch.await(10, TimeUnit.SECONDS));
+        }
+
+        //synchronous responses reach later consumers before the message that caused them, as on a plain sequencer
+        for (int i = 0; i < 20; i += 2) {
+            assertEquals(-(i + 1), (long) consumer.ids.get(i));
+            assertEquals(i / 2, (long) consumer.ids.get(i + 1));
+        }
+    }
+
+    @Test
+    public void testFramesOfAnySizeAreCarriedWhole() throws Exception {
+        final int levels = 200;
+        final RingBufferNetwork network = new RingBufferNetwork(64 * 1024);
+        final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        final BookUpdateDecoder decoder = new BookUpdateDecoder();
+        final List<Integer> frameLengths = new CopyOnWriteArrayList<>();
+        final List<Long> lastBidSizes = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        network.addConsumer(buffer -> {
+            header.wrap(buffer, 0);
+            decoder.wrap(buffer, header.encodedLength(), header.blockLength(), header.version());
+            long lastBidSize = 0;
+            for (BookUpdateDecoder.BidBookDecoder bid : decoder.bidBook()) {
+                lastBidSize = bid.size();
+            }
+            frameLengths.add(buffer.capacity());
+            lastBidSizes.add(lastBidSize);
+            latch.countDown();
+        });
+
+        //a two sided book this deep is several kilobytes, well past the old fixed 1KB buffers
+        final ExpandableDirectByteBuffer encoded = new ExpandableDirectByteBuffer(128);
+        final int offset = 64;
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(encoded, offset, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON).instrumentId(1L).source(Source.STREAM);
+        final BookUpdateEncoder.BidBookEncoder bids = encoder.bidBookCount(levels);
+        for (int i = 0; i < levels; i++) {
+            bids.next().price(1_000L - i).size(i + 1);
+        }
+        final BookUpdateEncoder.AskBookEncoder asks = encoder.askBookCount(levels);
+        for (int i = 0; i < levels; i++) {
+            asks.next().price(1_001L + i).size(i + 1);
+        }
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        final int length = MessageHeaderEncoder.ENCODED_LENGTH + encoder.encodedLength();
+        assertTrue(length > 4 * 1024);
+
+        try (ConcurrentSequencer sequencer = new ConcurrentSequencer(new DefaultSequencer(network), 64 * 1024)) {
+            network.start();
+            sequencer.start();
+
+            sequencer.onCommand(encoded, offset, length);
+            sequencer.onCommand(new UnsafeBuffer(encoded, offset, length));
+            final MutableDirectBuffer claimed = sequencer.claim(length);
+            claimed.putBytes(0, encoded, offset, length);
+            sequencer.commit();
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            network.close();
+        }
+
+        assertEquals(List.of(length, length, length), frameLengths);
+        assertEquals(List.of((long) levels, (long) levels, (long) levels), lastBidSizes);
+    }
+
+    @Test
+    public void testIngressIsStampedWhenQueued() throws Exception {
+        final TestNetwork network = new TestNetwork();
+        final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        final List<Long> ingress = new CopyOnWriteArrayList<>();
+        final List<Long> sequenced = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(2);
+        network.addConsumer(buffer -> {
+            header.wrap(buffer, 0);
+            ingress.add(header.ingressTimestamp());
+            sequenced.add(header.sequencedTimestamp());
+            latch.countDown();
+        });
+
+        //queued at 100 and 200 on this thread, both sequenced at 1000 on the sequencer thread
+        final long[] queuedAt = {100L, 200L};
+        final int[] queued = {0};
+        try (ConcurrentSequencer sequencer = new ConcurrentSequencer(new DefaultSequencer(network, 2L, () -> 1_000L),
+                64 * 1024, () -> queuedAt[queued[0]++])) {
+            final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+            sequencer.onCommand(createTick(new MessageHeaderEncoder(), new BookUpdateEncoder(), directBuffer, 1L));
+            final MutableDirectBuffer claimed = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + CancelOrderEncoder.BLOCK_LENGTH);
+            new CancelOrderEncoder().wrapAndApplyHeader(claimed, 0, new messages.order.MessageHeaderEncoder()).orderId(1L);
+            sequencer.commit();
+
+            sequencer.start();
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of(100L, 200L), ingress);
+        assertEquals(List.of(1_000L, 1_000L), sequenced);
+    }
+
+    @Test
+    public void testIngressIsStampedWithTheWrappedSequencersClockByDefault() throws Exception {
+        final TestNetwork network = new TestNetwork();
+        final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        final List<Long> ingress = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        network.addConsumer(buffer -> {
+            header.wrap(buffer, 0);
+            ingress.add(header.ingressTimestamp());
+            latch.countDown();
+        });
+
+        try (ConcurrentSequencer sequencer = new ConcurrentSequencer(new DefaultSequencer(network, 2L, () -> 1_000L))) {
+            final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+            sequencer.onCommand(createTick(new MessageHeaderEncoder(), new BookUpdateEncoder(), directBuffer, 1L));
+            sequencer.start();
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of(1_000L), ingress);
+    }
+}
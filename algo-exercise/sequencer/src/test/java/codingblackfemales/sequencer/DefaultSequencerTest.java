@@ -0,0 +1,118 @@
+package codingblackfemales.sequencer;
+
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.order.*;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class DefaultSequencerTest {
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
+    private final CreateOrderEncoder createEncoder = new CreateOrderEncoder();
+    private final CreateOrderDecoder createDecoder = new CreateOrderDecoder();
+    private final CancelOrderEncoder cancelEncoder = new CancelOrderEncoder();
+
+    private void claimAndCommitCreate(final Sequencer sequencer, final long quantity) {
+        final MutableDirectBuffer buffer = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + CreateOrderEncoder.BLOCK_LENGTH);
+        createEncoder.wrapAndApplyHeader(buffer, 0, headerEncoder);
+        createEncoder.instrumentId(123L).price(100L).quantity(quantity).side(Side.BUY);
+        sequencer.commit();
+    }
+
+    @Test
+    public void testNestedCommitDoesNotOverwriteMessageBeingDispatched() {
+        final TestNetwork network = new TestNetwork();
+        final DefaultSequencer sequencer = new DefaultSequencer(network);
+
+        final List<Long> seenAfterNested = new ArrayList<>();
+        final List<Long> orderIds = new ArrayList<>();
+
+        network.addConsumer(buffer -> {
+            headerDecoder.wrap(buffer, 0);
+            if (headerDecoder.templateId() != CreateOrderDecoder.TEMPLATE_ID) {
+                return;
+            }
+            final long sequencerNumber = headerDecoder.sequencerNumber();
+            createDecoder.wrap(buffer, headerDecoder.encodedLength(), headerDecoder.blockLength(), headerDecoder.version());
+            final long quantity = createDecoder.quantity();
+            orderIds.add(createDecoder.orderId());
+
+            //like the order book, respond to the order before returning from dispatch
+            if (quantity == 10L) {
+                final MutableDirectBuffer nested = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + CancelOrderEncoder.BLOCK_LENGTH);
+                cancelEncoder.wrapAndApplyHeader(nested, 0, headerEncoder);
+                cancelEncoder.orderId(99L);
+                sequencer.commit();
+                claimAndCommitCreate(sequencer, 20L);
+            }
+
+            headerDecoder.wrap(buffer, 0);
+            createDecoder.wrap(buffer, headerDecoder.encodedLength(), headerDecoder.blockLength(), headerDecoder.version());
+            assertEquals(sequencerNumber, headerDecoder.sequencerNumber());
+            assertEquals(quantity, createDecoder.quantity());
+            seenAfterNested.add(sequencerNumber);
+        });
+
+        claimAndCommitCreate(sequencer, 10L);
+
+        assertEquals(List.of(3L, 1L), seenAfterNested);
+        assertEquals(List.of(2L, 3L), orderIds);
+    }
+
+    @Test
+    public void testOrderIdStampedInPlaceKeepsInstrument() {
+        final TestNetwork network = new TestNetwork();
+        final DefaultSequencer sequencer = new DefaultSequencer(network);
+
+        final List<Long> instruments = new ArrayList<>();
+        network.addConsumer(buffer -> {
+            headerDecoder.wrap(buffer, 0);
+            createDecoder.wrap(buffer, headerDecoder.encodedLength(), headerDecoder.blockLength(), headerDecoder.version());
+            instruments.add(createDecoder.instrumentId());
+        });
+
+        claimAndCommitCreate(sequencer, 10L);
+
+        assertEquals(List.of(123L), instruments);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCommitWithoutClaimFails() {
+        new DefaultSequencer(new TestNetwork()).commit();
+    }
+
+    @Test
+    public void testIngressAndSequencedTimestampsAreStamped() {
+        final TestNetwork network = new TestNetwork();
+        final AtomicLong nowNanos = new AtomicLong(1_000L);
+        final DefaultSequencer sequencer = new DefaultSequencer(network, 2L, nowNanos::get);
+
+        final List<Long> ingress = new ArrayList<>();
+        final List<Long> sequenced = new ArrayList<>();
+        network.addConsumer(buffer -> {
+            headerDecoder.wrap(buffer, 0);
+            ingress.add(headerDecoder.ingressTimestamp());
+            sequenced.add(headerDecoder.sequencedTimestamp());
+        });
+
+        claimAndCommitCreate(sequencer, 10L);
+
+        //queued elsewhere at 1500, sequenced here at 2000
+        nowNanos.set(2_000L);
+        final MutableDirectBuffer buffer = new ExpandableDirectByteBuffer(64);
+        cancelEncoder.wrapAndApplyHeader(buffer, 0, headerEncoder).orderId(2L);
+        headerEncoder.ingressTimestamp(1_500L);
+        sequencer.onStampedCommand(buffer, 0, MessageHeaderEncoder.ENCODED_LENGTH + CancelOrderEncoder.BLOCK_LENGTH);
+
+        assertEquals(List.of(1_000L, 1_500L), ingress);
+        assertEquals(List.of(1_000L, 2_000L), sequenced);
+    }
+}
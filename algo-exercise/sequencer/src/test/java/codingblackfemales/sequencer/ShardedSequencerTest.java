@@ -0,0 +1,196 @@
+package codingblackfemales.sequencer;
+
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.*;
+import messages.order.AckedOrderEncoder;
+import messages.order.CancelOrderDecoder;
+import messages.order.CancelOrderEncoder;
+import messages.order.CreateOrderDecoder;
+import messages.order.CreateOrderEncoder;
+import messages.order.Side;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ShardedSequencerTest {
+
+    private static final int SHARDS = 3;
+    private static final int INSTRUMENTS = 30;
+
+    private static class ShardRecorder {
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        private final BookUpdateDecoder bookUpdate = new BookUpdateDecoder();
+        private final CreateOrderDecoder createOrder = new CreateOrderDecoder();
+        private final CancelOrderDecoder cancelOrder = new CancelOrderDecoder();
+        private final AckedOrderEncoder ackEncoder = new AckedOrderEncoder();
+
+        private final List<Long> sequenceNumbers = new CopyOnWriteArrayList<>();
+        private final List<Long> instruments = new CopyOnWriteArrayList<>();
+        private final List<Long> orderIds = new CopyOnWriteArrayList<>();
+        private final List<Long> cancels = new CopyOnWriteArrayList<>();
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        private volatile int acks;
+
+        ShardRecorder(final TestNetwork network, final ShardedSequencer sequencer, final int shard) {
+            network.addConsumer(buffer -> {
+                header.wrap(buffer, 0);
+                threads.add(Thread.currentThread());
+                sequenceNumbers.add(header.sequencerNumber());
+                if (header.schemaId() == BookUpdateDecoder.SCHEMA_ID) {
+                    instruments.add(bookUpdate.wrap(buffer, header.encodedLength(), header.blockLength(), header.version()).instrumentId());
+                } else if (header.templateId() == CreateOrderDecoder.TEMPLATE_ID) {
+                    final long orderId = createOrder.wrap(buffer, header.encodedLength(), header.blockLength(), header.version()).orderId();
+                    orderIds.add(orderId);
+                    //acknowledged from the shard's own thread, as an order book would
+                    final MutableDirectBuffer claimed = sequencer.shard(shard).claim(MessageHeaderEncoder.ENCODED_LENGTH + AckedOrderEncoder.BLOCK_LENGTH);
+                    ackEncoder.wrapAndApplyHeader(claimed, 0, new messages.order.MessageHeaderEncoder()).orderId(orderId);
+                    sequencer.shard(shard).commit();
+                } else if (header.templateId() == CancelOrderDecoder.TEMPLATE_ID) {
+                    cancels.add(cancelOrder.wrap(buffer, header.encodedLength(), header.blockLength(), header.version()).orderId());
+                } else {
+                    acks++;
+                }
+            });
+        }
+    }
+
+    private final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+    private UnsafeBuffer createTick(final long instrumentId) {
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(instrumentId);
+        encoder.source(Source.STREAM);
+        encoder.bidBookCount(1).next().price(98L).size(100L);
+        encoder.askBookCount(1).next().price(100L).size(101L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        return directBuffer;
+    }
+
+    private UnsafeBuffer createOrder(final long instrumentId) {
+        final CreateOrderEncoder encoder = new CreateOrderEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder());
+        encoder.instrumentId(instrumentId).price(100L).quantity(10L).side(Side.BUY);
+        return directBuffer;
+    }
+
+    private static void await(final ShardRecorder[] recorders, final java.util.function.ToIntFunction<ShardRecorder> count, final int expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            int total = 0;
+            for (ShardRecorder recorder : recorders) {
+                total += count.applyAsInt(recorder);
+            }
+            if (total == expected) {
+                return;
+            }
+            Thread.sleep(1);
+        }
+        fail("Timed out waiting for " + expected + " messages");
+    }
+
+    @Test
+    public void testCommandsArePartitionedByInstrumentAndOrder() throws Exception {
+        final TestNetwork[] networks = new TestNetwork[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            networks[i] = new TestNetwork();
+        }
+
+        try (ShardedSequencer sequencer = new ShardedSequencer(networks)) {
+            final ShardRecorder[] recorders = new ShardRecorder[SHARDS];
+            for (int i = 0; i < SHARDS; i++) {
+                recorders[i] = new ShardRecorder(networks[i], sequencer, i);
+            }
+            sequencer.start();
+
+            for (int instrumentId = 0; instrumentId < INSTRUMENTS; instrumentId++) {
+                sequencer.onCommand(createTick(instrumentId));
+                sequencer.onCommand(createOrder(instrumentId));
+            }
+            await(recorders, recorder -> recorder.acks, INSTRUMENTS);
+
+            //cancels only carry an orderId, they must still find the shard that owns the order
+            for (ShardRecorder recorder : recorders) {
+                for (long orderId : recorder.orderIds) {
+                    final MutableDirectBuffer claimed = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + CancelOrderEncoder.BLOCK_LENGTH);
+                    new CancelOrderEncoder().wrapAndApplyHeader(claimed, 0, new messages.order.MessageHeaderEncoder()).orderId(orderId);
+                    sequencer.commit();
+                }
+            }
+            await(recorders, recorder -> recorder.cancels.size(), INSTRUMENTS);
+
+            for (int shard = 0; shard < SHARDS; shard++) {
+                final ShardRecorder recorder = recorders[shard];
+                assertEquals(1, recorder.threads.size());
+                assertEquals(INSTRUMENTS / SHARDS, recorder.instruments.size());
+                for (long instrumentId : recorder.instruments) {
+                    assertEquals(shard, instrumentId % SHARDS);
+                }
+                //each shard has its own gap free sequence
+                for (int i = 0; i < recorder.sequenceNumbers.size(); i++) {
+                    assertEquals(i + 1, (long) recorder.sequenceNumbers.get(i));
+                }
+                for (long orderId : recorder.orderIds) {
+                    assertEquals(shard, sequencer.shardForOrder(orderId));
+                }
+                assertEquals(recorder.orderIds, recorder.cancels);
+            }
+            assertNotEquals(recorders[0].threads, recorders[1].threads);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOrderIdOutsideEveryRangeIsRejected() {
+        try (ShardedSequencer sequencer = new ShardedSequencer(new TestNetwork(), new TestNetwork())) {
+            sequencer.shardForOrder(ShardedSequencer.firstOrderId(2));
+        }
+    }
+
+    private UnsafeBuffer createBatch(final long... instrumentIds) {
+        final BookUpdateBatchEncoder encoder = new BookUpdateBatchEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON).source(Source.STREAM);
+        final BookUpdateBatchEncoder.InstrumentsEncoder instruments = encoder.instrumentsCount(instrumentIds.length);
+        for (long instrumentId : instrumentIds) {
+            final BookUpdateBatchEncoder.InstrumentsEncoder instrument = instruments.next()
+                    .instrumentId(instrumentId).instrumentStatus(InstrumentStatus.CONTINUOUS);
+            instrument.bidBookCount(2).next().price(98L).size(100L).next().price(97L).size(100L);
+            instrument.askBookCount(1).next().price(100L).size(101L);
+        }
+        return directBuffer;
+    }
+
+    @Test
+    public void testBatchOfOneShardGoesToThatShard() throws Exception {
+        final TestNetwork[] networks = {new TestNetwork(), new TestNetwork()};
+        try (ShardedSequencer sequencer = new ShardedSequencer(networks)) {
+            final ShardRecorder[] recorders = {new ShardRecorder(networks[0], sequencer, 0), new ShardRecorder(networks[1], sequencer, 1)};
+            sequencer.start();
+
+            sequencer.onCommand(createBatch(1, 3, 5));
+            await(recorders, recorder -> recorder.sequenceNumbers.size(), 1);
+            assertEquals(1, recorders[1].sequenceNumbers.size());
+        }
+    }
+
+    @Test
+    public void testBatchSpanningShardsIsRejected() {
+        try (ShardedSequencer sequencer = new ShardedSequencer(new TestNetwork(), new TestNetwork())) {
+            //the spanning instrument comes after ones with levels to step over
+            sequencer.onCommand(createBatch(1, 3, 4));
+            fail("Batch spanning two shards was routed");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("instrument 4"));
+        }
+    }
+}
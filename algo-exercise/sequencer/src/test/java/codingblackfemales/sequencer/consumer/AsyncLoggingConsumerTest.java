@@ -0,0 +1,123 @@
+package codingblackfemales.sequencer.consumer;
+
+import codingblackfemales.sequencer.AbstractSequencerComponent;
+import codingblackfemales.sequencer.consumer.AsyncLoggingConsumer.OverflowPolicy;
+import codingblackfemales.sequencer.net.Consumer;
+import messages.marketdata.*;
+import messages.order.CreateOrderDecoder;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncLoggingConsumerTest {
+
+    private static class RecordingRenderer extends AbstractSequencerComponent implements Consumer {
+
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        private final BookUpdateDecoder bookUpdate = new BookUpdateDecoder();
+        private final List<Long> instruments = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+        private volatile Thread thread;
+
+        RecordingRenderer(final int expected) {
+            this.latch = new CountDownLatch(expected);
+            requireMessage(BookUpdateDecoder.SCHEMA_ID, BookUpdateDecoder.TEMPLATE_ID);
+        }
+
+        @Override
+        public void onMessage(final DirectBuffer buffer) {
+            thread = Thread.currentThread();
+            header.wrap(buffer, 0);
+            bookUpdate.wrap(buffer, header.encodedLength(), header.blockLength(), header.version());
+            instruments.add(bookUpdate.instrumentId());
+            latch.countDown();
+        }
+    }
+
+    private final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+    private UnsafeBuffer createTick(final long instrumentId) {
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(instrumentId);
+        encoder.source(Source.STREAM);
+        encoder.bidBookCount(1).next().price(98L).size(100L);
+        encoder.askBookCount(1).next().price(100L).size(101L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        return directBuffer;
+    }
+
+    @Test
+    public void testFramesAreRenderedInOrderOnTheBackgroundThread() throws Exception {
+        final RecordingRenderer renderer = new RecordingRenderer(100);
+        try (AsyncLoggingConsumer consumer = new AsyncLoggingConsumer(renderer, 64 * 1024, OverflowPolicy.BLOCK)) {
+            assertTrue(consumer.requiresMessage(BookUpdateDecoder.SCHEMA_ID, BookUpdateDecoder.TEMPLATE_ID));
+            assertFalse(consumer.requiresMessage(CreateOrderDecoder.SCHEMA_ID, CreateOrderDecoder.TEMPLATE_ID));
+
+            consumer.start();
+            for (int i = 0; i < 100; i++) {
+                consumer.onMessage(createTick(i));
+            }
+            assertTrue(renderer.latch.await(10, TimeUnit.SECONDS));
+        }
+
+        assertNotSame(Thread.currentThread(), renderer.thread);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (long) renderer.instruments.get(i));
+        }
+    }
+
+    @Test
+    public void testDropPolicyCountsFramesThatDoNotFit() {
+        final RecordingRenderer renderer = new RecordingRenderer(0);
+        try (AsyncLoggingConsumer consumer = new AsyncLoggingConsumer(renderer, 1024, OverflowPolicy.DROP)) {
+            //not started, so nothing drains the ring
+            for (int i = 0; i < 100; i++) {
+                consumer.onMessage(createTick(i));
+            }
+            assertTrue(consumer.dropped() > 0);
+
+            final long kept = 100 - consumer.dropped();
+            int drained = 0;
+            int read;
+            while ((read = consumer.doWork()) > 0) {
+                drained += read;
+            }
+            assertEquals(kept, drained);
+            assertEquals(0L, (long) renderer.instruments.get(0));
+        }
+    }
+
+    @Test
+    public void testBlockPolicyWaitsForSpace() throws Exception {
+        final RecordingRenderer renderer = new RecordingRenderer(100);
+        try (AsyncLoggingConsumer consumer = new AsyncLoggingConsumer(renderer, 1024, OverflowPolicy.BLOCK)) {
+            final Thread starter = new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ignored) {
+                }
+                consumer.start();
+            });
+            starter.start();
+
+            for (int i = 0; i < 100; i++) {
+                consumer.onMessage(createTick(i));
+            }
+            starter.join();
+
+            assertTrue(renderer.latch.await(10, TimeUnit.SECONDS));
+            assertEquals(0, consumer.dropped());
+        }
+        assertEquals(100, renderer.instruments.size());
+    }
+}
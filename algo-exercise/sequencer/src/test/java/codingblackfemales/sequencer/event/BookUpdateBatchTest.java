@@ -0,0 +1,84 @@
+package codingblackfemales.sequencer.event;
+
+import codingblackfemales.sequencer.util.FrameLengthDecoder;
+import messages.marketdata.*;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BookUpdateBatchTest {
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+    private static class Recorder extends MarketDataEventListener {
+        private final List<String> books = new ArrayList<>();
+        private final boolean readLevels;
+
+        Recorder(final boolean readLevels) {
+            this.readLevels = readLevels;
+        }
+
+        @Override
+        public void onBookUpdate(final BookUpdateDecoder bookUpdate) {}
+
+        @Override
+        public void onAskBook(final AskBookUpdateDecoder askBook) {}
+
+        @Override
+        public void onBidBook(final BidBookUpdateDecoder bidBook) {}
+
+        @Override
+        public void onBatchedBookUpdate(final BookUpdateBatchDecoder batch, final BookUpdateBatchDecoder.InstrumentsDecoder instrument) {
+            final StringBuilder book = new StringBuilder().append(instrument.instrumentId());
+            if (readLevels) {
+                //only the best bid, the rest of the levels are left unread
+                final BookUpdateBatchDecoder.InstrumentsDecoder.BidBookDecoder bids = instrument.bidBook();
+                if (bids.hasNext()) {
+                    book.append(' ').append(bids.next().price());
+                }
+            }
+            books.add(book.toString());
+        }
+    }
+
+    private int encodeBatch() {
+        final BookUpdateBatchEncoder encoder = new BookUpdateBatchEncoder();
+        encoder.wrapAndApplyHeader(buffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON).source(Source.STREAM);
+        final BookUpdateBatchEncoder.InstrumentsEncoder instruments = encoder.instrumentsCount(3);
+        for (int i = 1; i <= 3; i++) {
+            final BookUpdateBatchEncoder.InstrumentsEncoder instrument = instruments.next()
+                    .instrumentId(i).instrumentStatus(InstrumentStatus.CONTINUOUS);
+            final BookUpdateBatchEncoder.InstrumentsEncoder.BidBookEncoder bids = instrument.bidBookCount(i);
+            for (int level = 0; level < i; level++) {
+                bids.next().price(100 * i - level).size(10);
+            }
+            instrument.askBookCount(1).next().price(100 * i + 1).size(10);
+        }
+        return MessageHeaderEncoder.ENCODED_LENGTH + encoder.encodedLength();
+    }
+
+    @Test
+    public void testEveryInstrumentIsDeliveredWhateverTheCallbackReads() {
+        encodeBatch();
+
+        final Recorder skipping = new Recorder(false);
+        skipping.onMessage(buffer);
+        assertEquals(List.of("1", "2", "3"), skipping.books);
+
+        final Recorder reading = new Recorder(true);
+        reading.onMessage(buffer);
+        assertEquals(List.of("1 100", "2 200", "3 300"), reading.books);
+    }
+
+    @Test
+    public void testFrameLengthCoversTheNestedGroups() {
+        final int length = encodeBatch();
+        assertEquals(length, new FrameLengthDecoder().frameLength(buffer, 0));
+    }
+}
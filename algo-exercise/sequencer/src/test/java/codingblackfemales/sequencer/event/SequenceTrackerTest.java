@@ -0,0 +1,164 @@
+package codingblackfemales.sequencer.event;
+
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.journal.Journal;
+import codingblackfemales.sequencer.journal.JournalRecovery;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.*;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SequenceTrackerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static class RecordingListener extends MarketDataEventListener {
+
+        private final List<Long> instruments = new ArrayList<>();
+
+        @Override
+        public void onBookUpdate(BookUpdateDecoder bookUpdate) {
+            instruments.add(bookUpdate.instrumentId());
+        }
+
+        @Override
+        public void onAskBook(AskBookUpdateDecoder askBook) {}
+
+        @Override
+        public void onBidBook(BidBookUpdateDecoder bidBook) {}
+    }
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder encoder = new BookUpdateEncoder();
+    private final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+    //a tick already sequenced, with its instrumentId matching its sequencerNumber
+    private UnsafeBuffer sequencedTick(final long sequencerNumber) {
+        tick(directBuffer, sequencerNumber);
+        headerEncoder.sequencerNumber(sequencerNumber);
+        return directBuffer;
+    }
+
+    private UnsafeBuffer tick(final UnsafeBuffer buffer, final long instrumentId) {
+        encoder.wrapAndApplyHeader(buffer, 0, headerEncoder);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(instrumentId);
+        encoder.source(Source.STREAM);
+        encoder.bidBookCount(1).next().price(98L).size(100L);
+        encoder.askBookCount(1).next().price(100L).size(101L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        return buffer;
+    }
+
+    @Test
+    public void testUntrackedListenerDeliversEverything() {
+        final RecordingListener listener = new RecordingListener();
+        listener.onMessage(sequencedTick(2));
+        listener.onMessage(sequencedTick(1));
+        listener.onMessage(sequencedTick(1));
+
+        assertEquals(List.of(2L, 1L, 1L), listener.instruments);
+        assertEquals(0, listener.sequenceTracker().duplicates());
+    }
+
+    @Test
+    public void testDuplicatesAreDroppedAndGapsCounted() {
+        final RecordingListener listener = new RecordingListener();
+        listener.trackSequence(null);
+
+        for (long sequencerNumber : new long[]{1, 2, 2, 1, 5, 6, 4}) {
+            listener.onMessage(sequencedTick(sequencerNumber));
+        }
+
+        //4 was missing rather than delivered, so it is delivered late, only 3 is still lost
+        assertEquals(List.of(1L, 2L, 5L, 6L, 4L), listener.instruments);
+        assertEquals(2, listener.sequenceTracker().duplicates());
+        assertEquals(1, listener.sequenceTracker().gaps());
+        assertEquals(1, listener.sequenceTracker().lost());
+        assertEquals(7, listener.sequenceTracker().nextSequencerNumber());
+    }
+
+    @Test
+    public void testGapIsRecoveredFromJournalBeforeResuming() {
+        final File directory = folder.getRoot();
+        try (Journal journal = new Journal(directory, 4096)) {
+            for (long sequencerNumber = 1; sequencerNumber <= 6; sequencerNumber++) {
+                journal.onMessage(sequencedTick(sequencerNumber));
+            }
+        }
+
+        final RecordingListener listener = new RecordingListener();
+        listener.trackSequence(new JournalRecovery(directory));
+
+        for (long sequencerNumber : new long[]{1, 2, 5, 3, 6}) {
+            listener.onMessage(sequencedTick(sequencerNumber));
+        }
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), listener.instruments);
+        assertEquals(1, listener.sequenceTracker().gaps());
+        assertEquals(0, listener.sequenceTracker().lost());
+        assertEquals(1, listener.sequenceTracker().duplicates());
+    }
+
+    @Test
+    public void testFrameOvertakenOnASynchronousNetworkIsStillDelivered() {
+        final TestNetwork network = new TestNetwork();
+        final DefaultSequencer sequencer = new DefaultSequencer(network);
+        final UnsafeBuffer published = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        //publishes instrument 3 while instrument 2 is still being dispatched, so the listener after it sees 3 first
+        final BookUpdateDecoder decoder = new BookUpdateDecoder();
+        final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        network.addConsumer(buffer -> {
+            if (decoder.wrapAndApplyHeader(buffer, 0, header).instrumentId() == 2) {
+                sequencer.onCommand(tick(published, 3));
+            }
+        });
+        final RecordingListener listener = new RecordingListener();
+        listener.trackSequence(null);
+        network.addConsumer(listener);
+
+        sequencer.onCommand(tick(directBuffer, 1));
+        sequencer.onCommand(tick(directBuffer, 2));
+
+        assertEquals(List.of(1L, 3L, 2L), listener.instruments);
+        assertEquals(0, listener.sequenceTracker().duplicates());
+        assertEquals(0, listener.sequenceTracker().lost());
+    }
+
+    @Test
+    public void testTrackingAfterJoiningTheNetworkRoutesEverything() {
+        final TestNetwork network = new TestNetwork();
+        final DefaultSequencer sequencer = new DefaultSequencer(network);
+        final RecordingListener listener = new RecordingListener();
+        network.addConsumer(listener);
+
+        final messages.order.CreateOrderEncoder create = new messages.order.CreateOrderEncoder();
+        create.wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder());
+        sequencer.onCommand(directBuffer);
+
+        listener.trackSequence(null);
+        create.wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder());
+        sequencer.onCommand(directBuffer);
+
+        assertEquals(3, listener.sequenceTracker().nextSequencerNumber());
+    }
+
+    @Test
+    public void testTrackedListenerRequiresEveryMessage() {
+        final RecordingListener listener = new RecordingListener();
+        assertFalse(listener.requiresMessage(messages.order.CreateOrderDecoder.SCHEMA_ID, messages.order.CreateOrderDecoder.TEMPLATE_ID));
+        listener.trackSequence(null);
+        assertTrue(listener.requiresMessage(messages.order.CreateOrderDecoder.SCHEMA_ID, messages.order.CreateOrderDecoder.TEMPLATE_ID));
+    }
+}
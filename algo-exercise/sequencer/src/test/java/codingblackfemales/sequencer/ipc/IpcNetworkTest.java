@@ -0,0 +1,127 @@
+package codingblackfemales.sequencer.ipc;
+
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.*;
+import messages.order.CreateOrderDecoder;
+import messages.order.CreateOrderEncoder;
+import messages.order.Side;
+import org.agrona.CloseHelper;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class IpcNetworkTest {
+
+    private static final int TICKS = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<AgentRunner> runners = new ArrayList<>();
+
+    private void run(final Agent agent) {
+        final AgentRunner runner = new AgentRunner(new BusySpinIdleStrategy(), Throwable::printStackTrace, null, agent);
+        runners.add(runner);
+        AgentRunner.startOnThread(runner);
+    }
+
+    @After
+    public void tearDown() {
+        CloseHelper.closeAll(runners);
+    }
+
+    private static UnsafeBuffer createTick(final long instrumentId) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(instrumentId);
+        encoder.source(Source.STREAM);
+        encoder.bidBookCount(1).next().price(98L).size(100L);
+        encoder.askBookCount(1).next().price(100L).size(101L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        return directBuffer;
+    }
+
+    @Test
+    public void testFramesFlowBetweenProcessesThroughSharedMemory() throws Exception {
+        final File directory = folder.newFolder("ipc");
+
+        //the sequencer process creates every ring
+        final IpcNetwork ipcNetwork = new IpcNetwork(directory, 64 * 1024);
+        ipcNetwork.addSubscriber("algo");
+        ipcNetwork.addSubscriber("book");
+        run(new IpcCommandReceiver(directory, 64 * 1024, new DefaultSequencer(ipcNetwork)));
+
+        //the algo process answers every tick with an order
+        final IpcSequencer algoSequencer = new IpcSequencer(directory);
+        final CreateOrderEncoder createOrderEncoder = new CreateOrderEncoder();
+        final messages.order.MessageHeaderEncoder orderHeaderEncoder = new messages.order.MessageHeaderEncoder();
+        final MessageHeaderDecoder algoHeader = new MessageHeaderDecoder();
+        final TestNetwork algoNetwork = new TestNetwork();
+        algoNetwork.addConsumer(buffer -> {
+            algoHeader.wrap(buffer, 0);
+            if (algoHeader.schemaId() == BookUpdateDecoder.SCHEMA_ID) {
+                final MutableDirectBuffer claimed = algoSequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + CreateOrderEncoder.BLOCK_LENGTH);
+                createOrderEncoder.wrapAndApplyHeader(claimed, 0, orderHeaderEncoder);
+                createOrderEncoder.instrumentId(123L).price(100L).quantity(10L).side(Side.BUY);
+                algoSequencer.commit();
+            }
+        });
+        run(new IpcSubscriber(directory, "algo", algoNetwork));
+
+        //the book process just records what it sees
+        final List<Long> sequenceNumbers = new CopyOnWriteArrayList<>();
+        final List<Long> orderIds = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(2 * TICKS);
+        final MessageHeaderDecoder bookHeader = new MessageHeaderDecoder();
+        final CreateOrderDecoder createOrderDecoder = new CreateOrderDecoder();
+        final TestNetwork bookNetwork = new TestNetwork();
+        bookNetwork.addConsumer(buffer -> {
+            bookHeader.wrap(buffer, 0);
+            sequenceNumbers.add(bookHeader.sequencerNumber());
+            if (bookHeader.schemaId() == CreateOrderDecoder.SCHEMA_ID) {
+                createOrderDecoder.wrap(buffer, bookHeader.encodedLength(), bookHeader.blockLength(), bookHeader.version());
+                orderIds.add(createOrderDecoder.orderId());
+            }
+            latch.countDown();
+        });
+        run(new IpcSubscriber(directory, "book", bookNetwork));
+
+        //and a market data gateway process feeds ticks in
+        try (IpcSequencer gateway = new IpcSequencer(directory)) {
+            for (int i = 0; i < TICKS; i++) {
+                gateway.onCommand(createTick(i));
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            CloseHelper.closeAll(runners);
+            runners.clear();
+            algoSequencer.close();
+            ipcNetwork.close();
+        }
+
+        for (int i = 0; i < 2 * TICKS; i++) {
+            assertEquals(i + 1, (long) sequenceNumbers.get(i));
+        }
+        assertEquals(TICKS, orderIds.size());
+        assertEquals(2L, (long) orderIds.get(0));
+    }
+}
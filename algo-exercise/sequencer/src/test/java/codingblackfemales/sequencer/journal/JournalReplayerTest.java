@@ -0,0 +1,111 @@
+package codingblackfemales.sequencer.journal;
+
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.*;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class JournalReplayerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
+    private final BookUpdateEncoder encoder = new BookUpdateEncoder();
+
+    private final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+    private UnsafeBuffer createTick(final Source source) {
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.source(source);
+        encoder.bidBookCount(1).next().price(98L).size(100L);
+        encoder.askBookCount(1).next().price(100L).size(101L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        return directBuffer;
+    }
+
+    //ticks recorded 10ms apart, every fifth one from the simulated order book
+    private File record(final int messages) throws Exception {
+        final File directory = folder.newFolder("journal");
+        final long[] clock = {TimeUnit.SECONDS.toNanos(1)};
+        try (Journal journal = new Journal(directory, 64 * 1024, () -> clock[0] += TimeUnit.MILLISECONDS.toNanos(10))) {
+            final TestNetwork network = new TestNetwork();
+            network.addConsumer(journal);
+            final DefaultSequencer sequencer = new DefaultSequencer(network);
+            for (int i = 1; i <= messages; i++) {
+                sequencer.onCommand(createTick(i % 5 == 0 ? Source.ORDERBOOK : Source.STREAM));
+            }
+        }
+        return directory;
+    }
+
+    @Test
+    public void testReplayIntoNetworkKeepsRecordedSequence() throws Exception {
+        final File directory = record(100);
+
+        final List<Long> sequenced = new ArrayList<>();
+        final TestNetwork network = new TestNetwork();
+        network.addConsumer(buffer -> {
+            headerDecoder.wrap(buffer, 0);
+            sequenced.add(headerDecoder.sequencerNumber());
+        });
+
+        final JournalReplayer replayer = new JournalReplayer(directory, ReplaySpeed.asFastAsPossible());
+        replayer.setFromSequencerNumber(41);
+        final ReplayStats stats = replayer.replay(network);
+
+        assertEquals(60, stats.getMessagesReplayed());
+        assertEquals(41L, (long) sequenced.get(0));
+        assertEquals(100L, (long) sequenced.get(59));
+        assertTrue(stats.getMessagesPerSecond() > 0);
+    }
+
+    @Test
+    public void testReplayIntoSequencerOnlySendsStreamMarketData() throws Exception {
+        final File directory = record(100);
+
+        final List<Long> sequenced = new ArrayList<>();
+        final TestNetwork network = new TestNetwork();
+        network.addConsumer(buffer -> {
+            headerDecoder.wrap(buffer, 0);
+            sequenced.add(headerDecoder.sequencerNumber());
+        });
+
+        final JournalReplayer replayer = new JournalReplayer(directory, ReplaySpeed.asFastAsPossible());
+        replayer.setFilter(JournalReplayer.streamMarketData());
+        final ReplayStats stats = replayer.replay(new DefaultSequencer(network));
+
+        assertEquals(100, stats.getMessagesRead());
+        assertEquals(80, stats.getMessagesReplayed());
+        //sequenced afresh
+        assertEquals(80, sequenced.size());
+        assertEquals(80L, (long) sequenced.get(79));
+    }
+
+    @Test
+    public void testScaledReplayIsPacedByRecordedTimestamps() throws Exception {
+        final File directory = record(21);
+
+        final JournalReplayer replayer = new JournalReplayer(directory, ReplaySpeed.scaled(2));
+        final ReplayStats stats = replayer.replay(new TestNetwork());
+
+        //20 gaps of 10ms played back at double speed
+        assertEquals(21, stats.getMessagesReplayed());
+        assertTrue(stats.getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(stats.getElapsedNanos() < TimeUnit.MILLISECONDS.toNanos(1000));
+    }
+}
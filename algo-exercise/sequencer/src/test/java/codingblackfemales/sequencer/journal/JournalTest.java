@@ -0,0 +1,158 @@
+package codingblackfemales.sequencer.journal;
+
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.*;
+import org.agrona.concurrent.SystemEpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
+    private final BookUpdateEncoder encoder = new BookUpdateEncoder();
+    private final BookUpdateDecoder decoder = new BookUpdateDecoder();
+
+    private final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+    private UnsafeBuffer createTick(final long instrumentId) {
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(instrumentId);
+        encoder.source(Source.STREAM);
+
+        encoder.bidBookCount(2)
+                .next().price(98L).size(100L)
+                .next().price(95L).size(200L);
+
+        encoder.askBookCount(1)
+                .next().price(100L).size(101L);
+
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    private void record(final File directory, final int messages) {
+        record(directory, messages, false);
+    }
+
+    private void record(final File directory, final int messages, final boolean compactBooks) {
+        try (Journal journal = new Journal(directory, 4096, new SystemEpochNanoClock(), compactBooks)) {
+            final TestNetwork network = new TestNetwork();
+            network.addConsumer(journal);
+            final DefaultSequencer sequencer = new DefaultSequencer(network);
+
+            for (int i = 1; i <= messages; i++) {
+                sequencer.onCommand(createTick(i));
+            }
+        }
+    }
+
+    private List<Long> readFrom(final File directory, final long sequencerNumber) {
+        final List<Long> read = new ArrayList<>();
+        try (JournalReader reader = new JournalReader(directory)) {
+            assertTrue(reader.seek(sequencerNumber));
+            while (reader.read((frame, timestampNanos) -> {
+                headerDecoder.wrap(frame, 0);
+                decoder.wrap(frame, headerDecoder.encodedLength(), headerDecoder.blockLength(), headerDecoder.version());
+                //the ticks were encoded with instrumentId equal to their sequence number
+                assertEquals(headerDecoder.sequencerNumber(), decoder.instrumentId());
+                assertEquals(98L, decoder.bidBook().next().price());
+                assertTrue(timestampNanos > 0);
+                read.add(headerDecoder.sequencerNumber());
+            }, 10) > 0) {
+            }
+        }
+        return read;
+    }
+
+    @Test
+    public void testReadFromAnySequenceNumberAcrossSegments() throws Exception {
+        final File directory = folder.newFolder("journal");
+        record(directory, 500);
+
+        assertTrue(JournalDescriptor.segments(directory).length > 1);
+
+        final List<Long> all = readFrom(directory, 1);
+        assertEquals(500, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(i + 1, (long) all.get(i));
+        }
+
+        final List<Long> tail = readFrom(directory, 337);
+        assertEquals(164, tail.size());
+        assertEquals(337L, (long) tail.get(0));
+        assertEquals(500L, (long) tail.get(tail.size() - 1));
+
+        try (JournalReader reader = new JournalReader(directory)) {
+            assertFalse(reader.seek(501));
+        }
+    }
+
+    @Test
+    public void testCompactJournalReadsBackTheSameFrames() throws Exception {
+        final File plain = folder.newFolder("plain");
+        final File compact = folder.newFolder("compact");
+        record(plain, 500);
+        record(compact, 500, true);
+
+        assertTrue(JournalDescriptor.segments(compact).length * 2 < JournalDescriptor.segments(plain).length);
+
+        final List<Long> tail = readFrom(compact, 337);
+        assertEquals(164, tail.size());
+        assertEquals(337L, (long) tail.get(0));
+
+        try (Journal journal = new Journal(compact, 4096, new SystemEpochNanoClock(), true)) {
+            assertEquals(500L, journal.lastSequencerNumber());
+        }
+    }
+
+    @Test
+    public void testReopenedJournalAppendsAfterLastFrame() throws Exception {
+        final File directory = folder.newFolder("journal");
+        record(directory, 10);
+
+        try (Journal journal = new Journal(directory, 4096)) {
+            assertEquals(10L, journal.lastSequencerNumber());
+
+            headerEncoder.wrap(createTick(11), 0).sequencerNumber(11);
+            journal.onMessage(directBuffer);
+        }
+
+        assertEquals(11, readFrom(directory, 1).size());
+    }
+
+    @Test
+    public void testOutOfOrderFrameIsSkippedAndCounted() throws Exception {
+        final File directory = folder.newFolder("journal");
+        try (Journal journal = new Journal(directory, 4096)) {
+            headerEncoder.wrap(createTick(2), 0).sequencerNumber(2);
+            journal.onMessage(directBuffer);
+            headerEncoder.wrap(createTick(1), 0).sequencerNumber(1);
+            journal.onMessage(directBuffer);
+            headerEncoder.wrap(createTick(2), 0).sequencerNumber(2);
+            journal.onMessage(directBuffer);
+            headerEncoder.wrap(createTick(3), 0).sequencerNumber(3);
+            journal.onMessage(directBuffer);
+
+            assertEquals(2L, journal.outOfOrder());
+            assertEquals(3L, journal.lastSequencerNumber());
+        }
+
+        assertEquals(2, readFrom(directory, 1).size());
+    }
+}
@@ -0,0 +1,110 @@
+package codingblackfemales.sequencer.log;
+
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.*;
+import messages.order.CreateOrderEncoder;
+import messages.order.Side;
+import org.agrona.concurrent.SystemEpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class BinaryEventLoggerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+    private UnsafeBuffer createTick(final long instrumentId) {
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(instrumentId);
+        encoder.source(Source.STREAM);
+        encoder.bidBookCount(1).next().price(98L).size(100L);
+        encoder.askBookCount(1).next().price(100L).size(101L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        return directBuffer;
+    }
+
+    private UnsafeBuffer createOrder(final long instrumentId) {
+        final CreateOrderEncoder encoder = new CreateOrderEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new messages.order.MessageHeaderEncoder());
+        encoder.instrumentId(instrumentId).price(100L).quantity(10L).side(Side.BUY);
+        return directBuffer;
+    }
+
+    @Test
+    public void testLoggedFramesDecodeToTextAcrossFiles() {
+        final File directory = folder.getRoot();
+        try (BinaryEventLogger logger = new BinaryEventLogger(directory, 256, new SystemEpochNanoClock())) {
+            final TestNetwork network = new TestNetwork();
+            network.addConsumer(logger);
+            final DefaultSequencer sequencer = new DefaultSequencer(network);
+            for (int i = 1; i <= 5; i++) {
+                sequencer.onCommand(createTick(i));
+                sequencer.onCommand(createOrder(i));
+            }
+        }
+        assertTrue(directory.listFiles().length > 1);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final long frames = new BinaryLogDecoder().decode(directory, new PrintStream(bytes, true));
+        assertEquals(10, frames);
+
+        final String[] lines = bytes.toString().split(System.lineSeparator());
+        assertEquals(10, lines.length);
+        for (int i = 0; i < 10; i += 2) {
+            assertTrue(lines[i], lines[i].contains("[" + (i + 1) + "] [BookUpdate]"));
+            assertTrue(lines[i], lines[i].contains("instrumentId=" + (i / 2 + 1)));
+            assertTrue(lines[i + 1], lines[i + 1].contains("[" + (i + 2) + "] [CreateOrder]"));
+        }
+    }
+
+    @Test
+    public void testLaterRunsDoNotOverwriteEarlierFiles() {
+        final File directory = folder.getRoot();
+        for (int run = 0; run < 2; run++) {
+            try (BinaryEventLogger logger = new BinaryEventLogger(directory)) {
+                logger.onMessage(createTick(run));
+            }
+        }
+        assertEquals(2, new BinaryLogDecoder().decode(directory, new PrintStream(new ByteArrayOutputStream())));
+    }
+
+    @Test
+    public void testNumberingCarriesOnAfterTheHighestExistingFile() throws Exception {
+        final File directory = folder.getRoot();
+        //an earlier file was deleted, leaving a gap
+        assertTrue(new File(directory, String.format("%010d%s", 0, BinaryEventLogger.FILE_SUFFIX)).createNewFile());
+        assertTrue(new File(directory, String.format("%010d%s", 2, BinaryEventLogger.FILE_SUFFIX)).createNewFile());
+        assertTrue(new File(directory, "notes" + BinaryEventLogger.FILE_SUFFIX).createNewFile());
+
+        assertEquals(3, BinaryEventLogger.nextFileIndex(directory));
+        try (BinaryEventLogger logger = new BinaryEventLogger(directory)) {
+            logger.onMessage(createTick(1));
+        }
+        assertEquals(0, new File(directory, String.format("%010d%s", 2, BinaryEventLogger.FILE_SUFFIX)).length());
+        assertTrue(new File(directory, String.format("%010d%s", 3, BinaryEventLogger.FILE_SUFFIX)).length() > 0);
+    }
+
+    @Test(expected = java.io.UncheckedIOException.class)
+    public void testExistingFileIsNeverMappedOver() throws Exception {
+        final File directory = folder.getRoot();
+        try (BinaryEventLogger logger = new BinaryEventLogger(directory)) {
+            //created after the logger chose its first number
+            assertTrue(new File(directory, String.format("%010d%s", 0, BinaryEventLogger.FILE_SUFFIX)).createNewFile());
+            logger.onMessage(createTick(1));
+        }
+    }
+}
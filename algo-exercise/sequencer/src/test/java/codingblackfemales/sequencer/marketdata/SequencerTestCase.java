@@ -1,8 +1,13 @@
 package codingblackfemales.sequencer.marketdata;
 
 import codingblackfemales.sequencer.Sequencer;
+import codingblackfemales.sequencer.journal.JournalReplayer;
+import codingblackfemales.sequencer.journal.ReplaySpeed;
+import codingblackfemales.sequencer.journal.ReplayStats;
 import org.agrona.DirectBuffer;
 
+import java.io.File;
+
 public abstract class SequencerTestCase {
 
     public abstract Sequencer getSequencer();
@@ -17,4 +22,13 @@ public abstract class SequencerTestCase {
         getSequencerInternal().onCommand(buffer);
     }
 
+    /**
+     * Sends the market data recorded in a journal through the sequencer, instead of ticks one at a time.
+     */
+    public ReplayStats replay(final File journalDirectory, final ReplaySpeed speed) {
+        final JournalReplayer replayer = new JournalReplayer(journalDirectory, speed);
+        replayer.setFilter(JournalReplayer.streamMarketData());
+        return replayer.replay(getSequencerInternal());
+    }
+
 }
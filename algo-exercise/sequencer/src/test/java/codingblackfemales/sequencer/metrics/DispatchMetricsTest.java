@@ -0,0 +1,85 @@
+package codingblackfemales.sequencer.metrics;
+
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.*;
+import messages.order.CancelOrderEncoder;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+public class DispatchMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private static UnsafeBuffer createTick() {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(1L);
+        encoder.source(Source.STREAM);
+        encoder.bidBookCount(1).next().price(98L).size(100L);
+        encoder.askBookCount(1).next().price(100L).size(101L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        return directBuffer;
+    }
+
+    private static DispatchMetrics.Entry find(final List<DispatchMetrics.Entry> entries, final int schemaId) {
+        return entries.stream().filter(entry -> entry.getSchemaId() == schemaId).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void testNestedDispatchIsChargedToTheConsumerThatHandlesIt() throws Exception {
+        final DispatchMetrics metrics = new DispatchMetrics();
+        final TestNetwork network = new TestNetwork(metrics);
+        final DefaultSequencer sequencer = new DefaultSequencer(network);
+        final MessageHeaderDecoder header = new MessageHeaderDecoder();
+
+        //responds to each tick with a cancel, which the same consumer then takes its time over
+        network.addConsumer(buffer -> {
+            header.wrap(buffer, 0);
+            if (header.schemaId() == BookUpdateEncoder.SCHEMA_ID) {
+                final MutableDirectBuffer claimed = sequencer.claim(MessageHeaderEncoder.ENCODED_LENGTH + CancelOrderEncoder.BLOCK_LENGTH);
+                new CancelOrderEncoder().wrapAndApplyHeader(claimed, 0, new messages.order.MessageHeaderEncoder()).orderId(1L);
+                sequencer.commit();
+            } else {
+                LockSupport.parkNanos(SLOW_NANOS);
+            }
+        });
+
+        for (int i = 0; i < 5; i++) {
+            sequencer.onCommand(createTick());
+        }
+
+        final List<DispatchMetrics.Entry> entries = metrics.entries();
+        assertEquals(2, entries.size());
+
+        final HistogramSnapshot ticks = find(entries, BookUpdateEncoder.SCHEMA_ID).snapshot();
+        final HistogramSnapshot cancels = find(entries, CancelOrderEncoder.SCHEMA_ID).snapshot();
+        assertEquals(5, ticks.getTotalCount());
+        assertEquals(5, cancels.getTotalCount());
+        assertTrue(cancels.getValueAtPercentile(50) >= SLOW_NANOS);
+        assertTrue(ticks.getValueAtPercentile(50) < SLOW_NANOS);
+
+        final File log = new File(folder.getRoot(), "dispatch.log");
+        new DispatchMetricsReporter(metrics, log, 1_000).report(System.currentTimeMillis());
+        final List<String> lines = Files.readAllLines(log.toPath());
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).contains("count=5"));
+    }
+}
@@ -0,0 +1,52 @@
+package codingblackfemales.sequencer.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsAreContiguousAndWithinPrecision() {
+        for (long value : new long[]{0, 1, 127, 128, 129, 255, 256, 1_000, 12_345, 1_000_000, 987_654_321L, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.index(value);
+            final long highest = LatencyHistogram.highestValue(index);
+            assertTrue(value + " reported as " + highest, highest >= value);
+            assertTrue(value + " reported as " + highest, highest - value <= value / 64);
+        }
+        for (int index = 0; index < LatencyHistogram.BUCKET_COUNT - 1; index++) {
+            assertEquals(index, LatencyHistogram.index(LatencyHistogram.highestValue(index)));
+            assertEquals(index + 1, LatencyHistogram.index(LatencyHistogram.highestValue(index) + 1));
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.index(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        final HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.getTotalCount());
+        assertEquals(5_000_000, snapshot.getValueAtPercentile(50), 5_000_000 / 64);
+        assertEquals(9_900_000, snapshot.getValueAtPercentile(99), 9_900_000 / 64);
+        assertEquals(10_000_000, snapshot.getMaxValue(), 10_000_000 / 64);
+        assertEquals(5_000_500, snapshot.getMean(), 5_000_500 / 64);
+    }
+
+    @Test
+    public void testSnapshotDifferenceCoversOnlyTheInterval() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        final HistogramSnapshot first = histogram.snapshot();
+        histogram.record(1_000_000);
+        histogram.record(1_000_000);
+
+        final HistogramSnapshot interval = histogram.snapshot().minus(first);
+        assertEquals(2, interval.getTotalCount());
+        assertEquals(1_000_000, interval.getValueAtPercentile(0), 1_000_000 / 64);
+        assertEquals(0, new LatencyHistogram().snapshot().getValueAtPercentile(99));
+    }
+}
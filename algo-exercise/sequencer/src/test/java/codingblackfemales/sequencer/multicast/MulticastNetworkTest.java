@@ -0,0 +1,172 @@
+package codingblackfemales.sequencer.multicast;
+
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.net.TestNetwork;
+import messages.marketdata.*;
+import org.agrona.CloseHelper;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MulticastNetworkTest {
+
+    private static final int TICKS = 20;
+
+    //loses the first transmission of some frames, including the last one so only the heartbeat reveals it
+    private static class LossyMulticastNetwork extends MulticastNetwork {
+
+        private final Set<Long> toDrop = new HashSet<>(Set.of(5L, 6L, 7L, 12L, 20L));
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        private final UnsafeBuffer view = new UnsafeBuffer(0, 0);
+
+        LossyMulticastNetwork(final NetworkInterface networkInterface, final InetSocketAddress group, final InetSocketAddress nakAddress) {
+            this(networkInterface, group, nakAddress, DEFAULT_RETRANSMIT_CAPACITY);
+        }
+
+        LossyMulticastNetwork(final NetworkInterface networkInterface, final InetSocketAddress group,
+                              final InetSocketAddress nakAddress, final int retransmitCapacity) {
+            super(networkInterface, group, nakAddress, retransmitCapacity);
+        }
+
+        @Override
+        protected void send(final ByteBuffer datagram) {
+            view.wrap(datagram, datagram.position(), datagram.remaining());
+            if (view.getInt(MulticastDescriptor.TYPE_OFFSET, MulticastDescriptor.BYTE_ORDER) == MulticastDescriptor.DATA) {
+                header.wrap(view, MulticastDescriptor.BODY_OFFSET);
+                if (toDrop.remove(header.sequencerNumber())) {
+                    return;
+                }
+            }
+            super.send(datagram);
+        }
+    }
+
+    private static class Recorder {
+        private final List<Long> sequenceNumbers = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+        private final TestNetwork network = new TestNetwork();
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+
+        Recorder() {
+            this(TICKS);
+        }
+
+        Recorder(final int expected) {
+            latch = new CountDownLatch(expected);
+            network.addConsumer(buffer -> {
+                header.wrap(buffer, 0);
+                sequenceNumbers.add(header.sequencerNumber());
+                latch.countDown();
+            });
+        }
+    }
+
+    private static UnsafeBuffer createTick(final long instrumentId) {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(instrumentId);
+        encoder.source(Source.STREAM);
+        encoder.bidBookCount(1).next().price(98L).size(100L);
+        encoder.askBookCount(1).next().price(100L).size(101L);
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+        return directBuffer;
+    }
+
+    @Test
+    public void testReceiversRecoverLostFramesOverLoopback() throws Exception {
+        final NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        final InetSocketAddress group = new InetSocketAddress("239.255.42.99", 40456);
+        final InetSocketAddress nakAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), 40457);
+
+        final Recorder first = new Recorder();
+        final Recorder second = new Recorder();
+
+        final MulticastSubscriber firstSubscriber = new MulticastSubscriber(loopback, group, nakAddress, first.network);
+        final MulticastSubscriber secondSubscriber = new MulticastSubscriber(loopback, group, nakAddress, second.network);
+        final AgentRunner firstRunner = new AgentRunner(new BusySpinIdleStrategy(), Throwable::printStackTrace, null, firstSubscriber);
+        final AgentRunner secondRunner = new AgentRunner(new BusySpinIdleStrategy(), Throwable::printStackTrace, null, secondSubscriber);
+
+        try (LossyMulticastNetwork network = new LossyMulticastNetwork(loopback, group, nakAddress)) {
+            AgentRunner.startOnThread(firstRunner);
+            AgentRunner.startOnThread(secondRunner);
+
+            final DefaultSequencer sequencer = new DefaultSequencer(network);
+            for (int i = 1; i <= TICKS; i++) {
+                sequencer.onCommand(createTick(i));
+            }
+
+            //the publishing thread keeps serving NAKs and heartbeats
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while ((first.latch.getCount() > 0 || second.latch.getCount() > 0) && System.nanoTime() < deadline) {
+                network.doWork();
+            }
+
+            assertTrue(network.retransmitted() >= 5);
+        } finally {
+            CloseHelper.closeAll(firstRunner, secondRunner, firstSubscriber, secondSubscriber);
+        }
+
+        for (Recorder recorder : List.of(first, second)) {
+            assertEquals(TICKS, recorder.sequenceNumbers.size());
+            for (int i = 0; i < TICKS; i++) {
+                assertEquals(i + 1, (long) recorder.sequenceNumbers.get(i));
+            }
+        }
+        assertTrue(firstSubscriber.naksSent() > 0);
+    }
+
+    @Test
+    public void testReceiverGivesUpOnFramesThePublisherNoLongerHolds() throws Exception {
+        final NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        final InetSocketAddress group = new InetSocketAddress("239.255.42.99", 40458);
+        final InetSocketAddress nakAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), 40459);
+
+        //5, 6, 7 and 12 are lost for good, 20 is still held when its NAK arrives
+        final Recorder recorder = new Recorder(TICKS - 4);
+        final List<String> losses = new CopyOnWriteArrayList<>();
+
+        final MulticastSubscriber subscriber = new MulticastSubscriber(loopback, group, nakAddress, recorder.network,
+                MulticastSubscriber.DEFAULT_REORDER_CAPACITY, (from, to) -> losses.add(from + "-" + to));
+        final AgentRunner runner = new AgentRunner(new BusySpinIdleStrategy(), Throwable::printStackTrace, null, subscriber);
+
+        try (LossyMulticastNetwork network = new LossyMulticastNetwork(loopback, group, nakAddress, 4)) {
+            AgentRunner.startOnThread(runner);
+
+            final DefaultSequencer sequencer = new DefaultSequencer(network);
+            for (int i = 1; i <= TICKS; i++) {
+                sequencer.onCommand(createTick(i));
+            }
+
+            //NAKs are only served once everything is sent, by when only the last 4 frames are held
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (recorder.latch.getCount() > 0 && System.nanoTime() < deadline) {
+                network.doWork();
+            }
+
+            assertTrue(network.lostRanges() > 0);
+        } finally {
+            CloseHelper.closeAll(runner, subscriber);
+        }
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 8L, 9L, 10L, 11L, 13L, 14L, 15L, 16L, 17L, 18L, 19L, 20L), recorder.sequenceNumbers);
+        assertEquals(List.of("5-7", "12-12"), losses);
+        assertEquals(4, subscriber.lost());
+        assertEquals(TICKS + 1, subscriber.nextSequencerNumber());
+    }
+}
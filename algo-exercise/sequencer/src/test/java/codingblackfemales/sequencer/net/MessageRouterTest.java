@@ -0,0 +1,42 @@
+package codingblackfemales.sequencer.net;
+
+import codingblackfemales.sequencer.AbstractSequencerComponent;
+import messages.marketdata.BookUpdateDecoder;
+import messages.marketdata.OrderAddDecoder;
+import org.agrona.DirectBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MessageRouterTest {
+
+    private static class Component extends AbstractSequencerComponent implements Consumer {
+        @Override
+        public void onMessage(final DirectBuffer buffer) {
+        }
+    }
+
+    @Test
+    public void testRoutesAreOnlyRebuiltWhenTheirOwnComponentsChange() {
+        final Component first = new Component();
+        final Component second = new Component();
+        first.requireMessage(BookUpdateDecoder.SCHEMA_ID, BookUpdateDecoder.TEMPLATE_ID);
+        second.requireMessage(BookUpdateDecoder.SCHEMA_ID, BookUpdateDecoder.TEMPLATE_ID);
+
+        final MessageRouter<Consumer> firstRouter = new MessageRouter<>(Consumer[]::new);
+        final MessageRouter<Consumer> secondRouter = new MessageRouter<>(Consumer[]::new);
+        firstRouter.add(first, first);
+        secondRouter.add(second, second);
+
+        final Consumer[] firstRoute = firstRouter.route(BookUpdateDecoder.SCHEMA_ID, BookUpdateDecoder.TEMPLATE_ID);
+        final Consumer[] secondRoute = secondRouter.route(BookUpdateDecoder.SCHEMA_ID, BookUpdateDecoder.TEMPLATE_ID);
+        assertArrayEquals(new Consumer[]{first}, firstRoute);
+
+        //a component of the second network changing leaves the first network's cached routes as they are
+        second.requireMessage(OrderAddDecoder.SCHEMA_ID, OrderAddDecoder.TEMPLATE_ID);
+        assertSame(firstRoute, firstRouter.route(BookUpdateDecoder.SCHEMA_ID, BookUpdateDecoder.TEMPLATE_ID));
+        assertNotSame(secondRoute, secondRouter.route(BookUpdateDecoder.SCHEMA_ID, BookUpdateDecoder.TEMPLATE_ID));
+        assertArrayEquals(new Consumer[]{second}, secondRouter.route(OrderAddDecoder.SCHEMA_ID, OrderAddDecoder.TEMPLATE_ID));
+        assertEquals(0, firstRouter.route(OrderAddDecoder.SCHEMA_ID, OrderAddDecoder.TEMPLATE_ID).length);
+    }
+}
@@ -0,0 +1,182 @@
+package codingblackfemales.sequencer.net;
+
+import codingblackfemales.sequencer.ConcurrentSequencer;
+import codingblackfemales.sequencer.DefaultSequencer;
+import messages.marketdata.*;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class RingBufferNetworkTest {
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final BookUpdateEncoder encoder = new BookUpdateEncoder();
+
+    private static class RecordingConsumer implements Consumer {
+
+        private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+        private final List<Long> sequenceNumbers = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+        private final CountDownLatch hold;
+        private volatile Thread thread;
+
+        /**
+         * @param hold released by the test, the consumer waits on it after recording its first message.
+         */
+        RecordingConsumer(final int expected, final CountDownLatch hold) {
+            this.latch = new CountDownLatch(expected);
+            this.hold = hold;
+        }
+
+        @Override
+        public void onMessage(final DirectBuffer buffer) {
+            thread = Thread.currentThread();
+            header.wrap(buffer, 0);
+            sequenceNumbers.add(header.sequencerNumber());
+            try {
+                hold.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            latch.countDown();
+        }
+    }
+
+    private UnsafeBuffer createTick() {
+        final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+        encoder.wrapAndApplyHeader(directBuffer, 0, headerEncoder);
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.source(Source.STREAM);
+
+        encoder.bidBookCount(2)
+                .next().price(98L).size(100L)
+                .next().price(95L).size(200L);
+
+        encoder.askBookCount(2)
+                .next().price(100L).size(101L)
+                .next().price(110L).size(200L);
+
+        encoder.instrumentStatus(InstrumentStatus.CONTINUOUS);
+
+        return directBuffer;
+    }
+
+    @Test
+    public void testEachConsumerReadsInOrderOnItsOwnThread() throws Exception {
+        final int messages = 20;
+        final CountDownLatch hold = new CountDownLatch(1);
+
+        final RecordingConsumer fast = new RecordingConsumer(messages, new CountDownLatch(0));
+        final RecordingConsumer slow = new RecordingConsumer(messages, hold);
+
+        try (RingBufferNetwork network = new RingBufferNetwork(64 * 1024)) {
+            network.addConsumer(slow);
+            network.addConsumer(fast);
+            network.start();
+
+            final DefaultSequencer sequencer = new DefaultSequencer(network);
+
+            for (int i = 0; i < messages; i++) {
+                sequencer.onCommand(createTick());
+            }
+
+            //the fast consumer is not held back by the slow one it is registered after, which is stuck on its first
+            assertTrue(fast.latch.await(5, TimeUnit.SECONDS));
+            assertEquals(1, slow.sequenceNumbers.size());
+
+            hold.countDown();
+            assertTrue(slow.latch.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < messages; i++) {
+                assertEquals(i + 1, (long) fast.sequenceNumbers.get(i));
+                assertEquals(i + 1, (long) slow.sequenceNumbers.get(i));
+            }
+
+            assertNotSame(Thread.currentThread(), fast.thread);
+            assertNotSame(fast.thread, slow.thread);
+        }
+    }
+
+    @Test
+    public void testPublisherWaitsOnceTheSlowConsumersRingIsFull() throws Exception {
+        final int messages = 100;
+        final CountDownLatch hold = new CountDownLatch(1);
+        final CountDownLatch published = new CountDownLatch(1);
+
+        final RecordingConsumer slow = new RecordingConsumer(messages, hold);
+
+        //far fewer bytes than the messages take, so the ring fills while the consumer is held
+        try (RingBufferNetwork network = new RingBufferNetwork(4 * 1024)) {
+            network.addConsumer(slow);
+            network.start();
+
+            final DefaultSequencer sequencer = new DefaultSequencer(network);
+            final Thread publisher = new Thread(() -> {
+                for (int i = 0; i < messages; i++) {
+                    sequencer.onCommand(createTick());
+                }
+                published.countDown();
+            });
+            publisher.start();
+
+            assertFalse(published.await(200, TimeUnit.MILLISECONDS));
+            assertEquals(1, slow.sequenceNumbers.size());
+
+            hold.countDown();
+            assertTrue(published.await(5, TimeUnit.SECONDS));
+            assertTrue(slow.latch.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < messages; i++) {
+                assertEquals(i + 1, (long) slow.sequenceNumbers.get(i));
+            }
+            publisher.join();
+        }
+    }
+
+    @Test
+    public void testConsumerPublishingBackPastBothRingsDropsRatherThanDeadlocks() throws Exception {
+        final int published = 200;
+        final UnsafeBuffer tick = createTick();
+        final AtomicLong received = new AtomicLong();
+        final CountDownLatch sent = new CountDownLatch(1);
+        final ConcurrentSequencer[] sequencer = new ConcurrentSequencer[1];
+
+        //on the first tick sends back far more than either ring holds, while its own ring is not being drained
+        final Consumer feedback = buffer -> {
+            if (received.incrementAndGet() == 1) {
+                for (int i = 0; i < published; i++) {
+                    sequencer[0].onCommand(tick);
+                }
+                sent.countDown();
+            }
+        };
+
+        try (RingBufferNetwork network = new RingBufferNetwork(4 * 1024);
+             ConcurrentSequencer concurrent = new ConcurrentSequencer(new DefaultSequencer(network), 4 * 1024)) {
+            sequencer[0] = concurrent;
+            network.addConsumer(feedback, RingBufferNetwork.OverflowPolicy.DROP);
+            network.start();
+            concurrent.start();
+
+            concurrent.onCommand(tick);
+
+            assertTrue(sent.await(5, TimeUnit.SECONDS));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (received.get() + network.dropped(feedback) < published + 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(published + 1, received.get() + network.dropped(feedback));
+            assertTrue(network.dropped(feedback) > 0);
+        }
+    }
+}
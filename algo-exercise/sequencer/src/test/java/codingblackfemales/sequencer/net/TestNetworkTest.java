@@ -0,0 +1,92 @@
+package codingblackfemales.sequencer.net;
+
+import codingblackfemales.sequencer.DefaultSequencer;
+import codingblackfemales.sequencer.event.OrderEventListener;
+import messages.marketdata.*;
+import messages.order.*;
+import messages.order.MessageHeaderEncoder;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestNetworkTest {
+
+    private static class RecordingOrderListener extends OrderEventListener {
+
+        private final List<String> received = new ArrayList<>();
+
+        @Override
+        public void onMessage(final DirectBuffer buffer) {
+            received.add("message");
+            super.onMessage(buffer);
+        }
+
+        @Override
+        public void onCreateOrder(CreateOrderDecoder create) {
+            received.add("create");
+        }
+
+        @Override
+        public void onCancelOrder(CancelOrderDecoder cancel) {}
+
+        @Override
+        public void onAckedOrder(AckedOrderDecoder acked) {}
+
+        @Override
+        public void onCancelAckedOrder(CancelAckedOrderDecoder cancelAcked) {}
+
+        @Override
+        public void onPendingOrder(PendingOrderDecoder pending) {}
+
+        @Override
+        public void onPartialFill(PartialFillOrderDecoder partialFill) {
+            received.add("partialFill");
+        }
+
+        @Override
+        public void onFill(FillOrderDecoder fill) {}
+    }
+
+    private final UnsafeBuffer directBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+
+    private UnsafeBuffer createBidBookUpdate() {
+        final BidBookUpdateEncoder encoder = new BidBookUpdateEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new messages.marketdata.MessageHeaderEncoder());
+        encoder.venue(Venue.XLON);
+        encoder.instrumentId(123L);
+        encoder.bidBookCount(1).next().price(98L).size(100L);
+        return directBuffer;
+    }
+
+    private UnsafeBuffer createOrder() {
+        final CreateOrderEncoder encoder = new CreateOrderEncoder();
+        encoder.wrapAndApplyHeader(directBuffer, 0, new MessageHeaderEncoder());
+        encoder.instrumentId(123L).price(100L).quantity(10L).side(Side.BUY);
+        return directBuffer;
+    }
+
+    @Test
+    public void testMessagesOnlyRoutedToConsumersThatRequireThem() {
+        final TestNetwork network = new TestNetwork();
+        final RecordingOrderListener orderListener = new RecordingOrderListener();
+        final List<Integer> everything = new ArrayList<>();
+
+        network.addConsumer(orderListener);
+        network.addConsumer(buffer -> everything.add(1));
+
+        final DefaultSequencer sequencer = new DefaultSequencer(network);
+        //BidBookUpdate shares template id 9 with PartialFillOrder, it must not reach the order listener
+        sequencer.onCommand(createBidBookUpdate());
+        sequencer.onCommand(createOrder());
+        sequencer.onCommand(createBidBookUpdate());
+
+        assertEquals(List.of("message", "create"), orderListener.received);
+        assertEquals(3, everything.size());
+    }
+}
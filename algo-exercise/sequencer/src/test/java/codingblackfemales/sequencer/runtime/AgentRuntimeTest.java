@@ -0,0 +1,122 @@
+package codingblackfemales.sequencer.runtime;
+
+import org.agrona.concurrent.*;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AgentRuntimeTest {
+
+    private static class CountingAgent implements Agent {
+        private final String roleName;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private volatile Thread thread;
+        private volatile String cpus;
+        private volatile long work;
+
+        CountingAgent(final String roleName) {
+            this.roleName = roleName;
+        }
+
+        @Override
+        public void onStart() {
+            thread = Thread.currentThread();
+            cpus = CpuAffinity.currentThreadCpus();
+            started.countDown();
+        }
+
+        @Override
+        public int doWork() {
+            work++;
+            return 0;
+        }
+
+        @Override
+        public void onClose() {
+            closed.countDown();
+        }
+
+        @Override
+        public String roleName() {
+            return roleName;
+        }
+    }
+
+    @Test
+    public void testIdleStrategiesByName() {
+        assertTrue(IdleStrategies.of("busy-spin") instanceof BusySpinIdleStrategy);
+        assertTrue(IdleStrategies.of("yield") instanceof YieldingIdleStrategy);
+        assertTrue(IdleStrategies.of("backoff") instanceof BackoffIdleStrategy);
+        assertTrue(IdleStrategies.of("park") instanceof SleepingIdleStrategy);
+        assertTrue(IdleStrategies.of("park:5000") instanceof SleepingIdleStrategy);
+        assertTrue(IdleStrategies.of("sleep:100") instanceof SleepingMillisIdleStrategy);
+        assertTrue(IdleStrategies.of("noop") instanceof NoOpIdleStrategy);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownIdleStrategyIsRejected() {
+        IdleStrategies.of("spin");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPeriodIsRejected() {
+        IdleStrategies.of("sleep:soon");
+    }
+
+    @Test
+    public void testEachAgentRunsOnItsOwnThread() throws Exception {
+        final CountingAgent first = new CountingAgent("first");
+        final CountingAgent second = new CountingAgent("second");
+
+        try (AgentRuntime runtime = new AgentRuntime()) {
+            runtime.add(first, IdleStrategies.of("yield"));
+            runtime.add(second, IdleStrategies.of("sleep"));
+            assertNull(first.thread);
+
+            runtime.start();
+            assertTrue(first.started.await(5, TimeUnit.SECONDS));
+            assertTrue(second.started.await(5, TimeUnit.SECONDS));
+
+            //added once started, so started straight away
+            final CountingAgent third = new CountingAgent("third");
+            runtime.add(third);
+            assertTrue(third.started.await(5, TimeUnit.SECONDS));
+
+            assertEquals("first", first.thread.getName());
+            assertEquals("second", second.thread.getName());
+            assertNotSame(first.thread, second.thread);
+            assertNotSame(Thread.currentThread(), third.thread);
+            assertEquals(3, runtime.agentCount());
+        }
+
+        assertTrue(first.closed.await(5, TimeUnit.SECONDS));
+        assertTrue(second.closed.await(5, TimeUnit.SECONDS));
+        assertTrue(first.work > 0);
+    }
+
+    @Test
+    public void testAgentIsPinnedToConfiguredCpu() throws Exception {
+        final String allowed = CpuAffinity.currentThreadCpus();
+        Assume.assumeNotNull(allowed);
+        final String cpu = allowed.split("[,-]")[0];
+
+        final CountingAgent agent = new CountingAgent("pinned");
+        System.setProperty(AgentRuntime.PROPERTY_PREFIX + "pinned.cpus", cpu);
+        try (AgentRuntime runtime = new AgentRuntime()) {
+            runtime.add(agent);
+            runtime.start();
+            assertTrue(agent.started.await(5, TimeUnit.SECONDS));
+        } finally {
+            System.clearProperty(AgentRuntime.PROPERTY_PREFIX + "pinned.cpus");
+        }
+
+        //taskset may be missing or not permitted, in which case the agent runs unpinned
+        Assume.assumeTrue(CpuAffinity.currentThreadId() > 0);
+        assertTrue(agent.cpus.equals(cpu) || agent.cpus.equals(allowed));
+    }
+}
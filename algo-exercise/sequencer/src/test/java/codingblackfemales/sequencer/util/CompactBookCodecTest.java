@@ -0,0 +1,82 @@
+package codingblackfemales.sequencer.util;
+
+import messages.marketdata.*;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class CompactBookCodecTest {
+
+    private static final long BASE_TIMESTAMP = 1_700_000_000_000_000_000L;
+
+    private final UnsafeBuffer frame = new UnsafeBuffer(ByteBuffer.allocateDirect(1024));
+    private final ExpandableDirectByteBuffer compact = new ExpandableDirectByteBuffer(64);
+    private final ExpandableDirectByteBuffer decoded = new ExpandableDirectByteBuffer(64);
+    private final MessageHeaderEncoder header = new MessageHeaderEncoder();
+    private final CompactBookCodec codec = new CompactBookCodec();
+
+    private void stamp(final long sequencerNumber) {
+        header.wrap(frame, 0)
+                .sequencerNumber(sequencerNumber)
+                .ingressTimestamp(BASE_TIMESTAMP - 25_000)
+                .sequencedTimestamp(BASE_TIMESTAMP - 24_000);
+    }
+
+    private void assertRoundTrip(final int frameLength) {
+        final int compactLength = codec.encode(frame, 0, BASE_TIMESTAMP, compact, 0);
+        assertTrue("compacted to " + compactLength + " of " + frameLength, compactLength * 3 <= frameLength);
+        assertEquals(42L, codec.sequencerNumber(compact, 0));
+
+        assertEquals(frameLength, codec.decode(compact, 0, BASE_TIMESTAMP, decoded, 0));
+        for (int i = 0; i < frameLength; i++) {
+            assertEquals("byte " + i, frame.getByte(i), decoded.getByte(i));
+        }
+    }
+
+    @Test
+    public void testBookUpdateRoundTrips() {
+        final BookUpdateEncoder encoder = new BookUpdateEncoder();
+        encoder.wrapAndApplyHeader(frame, 0, header)
+                .instrumentId(123L).venue(Venue.XLON).instrumentStatus(InstrumentStatus.CONTINUOUS).source(Source.STREAM);
+        final BookUpdateEncoder.BidBookEncoder bids = encoder.bidBookCount(10);
+        for (int i = 0; i < 10; i++) {
+            bids.next().price(10_000 - i * 5).size(100 + i * 50);
+        }
+        final BookUpdateEncoder.AskBookEncoder asks = encoder.askBookCount(10);
+        for (int i = 0; i < 10; i++) {
+            asks.next().price(10_002 + i * 5).size(150 + i * 25);
+        }
+        stamp(42);
+
+        assertRoundTrip(MessageHeaderEncoder.ENCODED_LENGTH + encoder.encodedLength());
+    }
+
+    @Test
+    public void testBookDeltaRoundTrips() {
+        final BookDeltaEncoder encoder = new BookDeltaEncoder();
+        encoder.wrapAndApplyHeader(frame, 0, header)
+                .instrumentId(123L).venue(Venue.XPAR).instrumentStatus(InstrumentStatus.AUCTION).source(Source.ORDERBOOK);
+        encoder.entriesCount(4)
+                .next().price(10_000).size(250).side(BookSide.BID).action(UpdateAction.CHANGE)
+                .next().price(9_990).size(0).side(BookSide.BID).action(UpdateAction.DELETE)
+                .next().price(10_005).size(75).side(BookSide.ASK).action(UpdateAction.NEW)
+                .next().price(10_015).size(300).side(BookSide.ASK).action(UpdateAction.CHANGE);
+        stamp(42);
+
+        assertRoundTrip(MessageHeaderEncoder.ENCODED_LENGTH + encoder.encodedLength());
+    }
+
+    @Test
+    public void testOtherMessagesAreLeftAlone() {
+        new TradeEncoder().wrapAndApplyHeader(frame, 0, header).instrumentId(123L).price(100).size(10);
+        assertEquals(CompactBookCodec.NOT_COMPACTED, codec.encode(frame, 0, BASE_TIMESTAMP, compact, 0));
+
+        new messages.order.CreateOrderEncoder()
+                .wrapAndApplyHeader(frame, 0, new messages.order.MessageHeaderEncoder()).instrumentId(123L);
+        assertEquals(CompactBookCodec.NOT_COMPACTED, codec.encode(frame, 0, BASE_TIMESTAMP, compact, 0));
+    }
+}
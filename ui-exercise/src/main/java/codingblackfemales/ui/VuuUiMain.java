@@ -4,13 +4,17 @@ import codingblackfemales.algo.PassiveAlgoLogic;
 import codingblackfemales.container.Actioner;
 import codingblackfemales.container.AlgoContainer;
 import codingblackfemales.container.RunTrigger;
-import codingblackfemales.marketdata.api.MarketDataEncoder;
-import codingblackfemales.marketdata.api.MarketDataMessage;
+import codingblackfemales.marketdata.gen.MarketDataFeedAgent;
 import codingblackfemales.marketdata.gen.RandomMarketDataGenerator;
+import codingblackfemales.sequencer.ConcurrentSequencer;
 import codingblackfemales.sequencer.DefaultSequencer;
 import codingblackfemales.sequencer.Sequencer;
-import codingblackfemales.sequencer.consumer.LoggingConsumer;
+import codingblackfemales.sequencer.consumer.AsyncLoggingConsumer;
+import codingblackfemales.sequencer.metrics.DispatchMetrics;
+import codingblackfemales.sequencer.metrics.DispatchMetricsReporter;
 import codingblackfemales.sequencer.net.TestNetwork;
+import codingblackfemales.sequencer.runtime.AgentRuntime;
+import codingblackfemales.sequencer.runtime.IdleStrategies;
 import codingblackfemales.service.MarketDataService;
 import codingblackfemales.service.OrderService;
 import codingblackfemales.ui.module.AlgoModule;
@@ -34,6 +38,7 @@ import org.finos.vuu.state.MemoryBackedVuiStateStore;
 import org.finos.vuu.state.VuiStateStore;
 import scala.Option;
 
+import java.io.File;
 import java.nio.ByteBuffer;
 
 public class VuuUiMain {
@@ -41,8 +46,6 @@ public class VuuUiMain {
     private static final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
     private static final BookUpdateEncoder encoder = new BookUpdateEncoder();
 
-    private static final MarketDataEncoder marketDataEncoder = new MarketDataEncoder();
-
     private static void tick(final Sequencer sequencer) {
 
         final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(1024);
@@ -72,13 +75,6 @@ public class VuuUiMain {
         sequencer.onCommand(directBuffer);
     }
 
-    private static void processMarketDataMessage(final Sequencer sequencer, final MarketDataMessage message) {
-        System.out.println(message);
-        final UnsafeBuffer buffer = marketDataEncoder.encode(message);
-        sequencer.onCommand(buffer);
-    }
-
-
     public static void main(String[] args) {
 
         //Vuu implicits
@@ -88,8 +84,10 @@ public class VuuUiMain {
         final TableDefContainer tableDefContainer = new TableDefContainer();
 
         //Algo Stuff
-        final TestNetwork network = new TestNetwork();
-        final Sequencer sequencer = new DefaultSequencer(network);
+        final DispatchMetrics dispatchMetrics = new DispatchMetrics();
+        final TestNetwork network = new TestNetwork(dispatchMetrics);
+        //the feed thread below and the algo both send commands, so they are queued for one sequencer thread
+        final ConcurrentSequencer sequencer = new ConcurrentSequencer(new DefaultSequencer(network));
 
         final RunTrigger runTrigger = new RunTrigger();
         final Actioner actioner = new Actioner(sequencer);
@@ -97,7 +95,9 @@ public class VuuUiMain {
         final AlgoContainer container = new AlgoContainer(new MarketDataService(runTrigger), new OrderService(runTrigger), runTrigger, actioner);
         container.setLogic(new PassiveAlgoLogic());
 
-        network.addConsumer(new LoggingConsumer());
+        //rendered on its own thread, so logging never holds up the sequencer
+        final AsyncLoggingConsumer loggingConsumer = new AsyncLoggingConsumer();
+        network.addConsumer(loggingConsumer);
 
         //Vuu Stuff
         final VuiStateStore store = new MemoryBackedVuiStateStore(100);
@@ -139,22 +139,14 @@ public class VuuUiMain {
 
         lifecycle.start();
 
-        final RandomMarketDataGenerator generator = new RandomMarketDataGenerator(123L, Venue.XLON, 1_000, 100, 15);
-
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                while (!Thread.interrupted()) {
-                    try {
-                        Thread.sleep(600);
-                        final MarketDataMessage update = generator.updateBook();
-                        processMarketDataMessage(sequencer, update);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                    }
-                }
-            }
-        }).run();
+        //every agent gets a dedicated thread, tune them with -Druntime.<role>.idle and -Druntime.<role>.cpus
+        final AgentRuntime runtime = new AgentRuntime();
+        runtime.add(sequencer);
+        runtime.add(loggingConsumer, IdleStrategies.of("sleep"));
+        runtime.add(new DispatchMetricsReporter(dispatchMetrics, new File("dispatch-latency.log"), 10_000), IdleStrategies.of("sleep:100"));
+        runtime.add(new MarketDataFeedAgent(new RandomMarketDataGenerator(123L, Venue.XLON, 1_000, 100, 15), sequencer, 600), IdleStrategies.of("sleep:10"));
+        runtime.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(runtime::close));
 
         //tick(sequencer);
 